@@ -20,6 +20,7 @@
 package org.apache.ranger.audit.provider;
 
 import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.queue.RingBufferBlockingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,7 +56,11 @@ public class AsyncAuditProvider extends MultiDestAuditProvider implements Runnab
     private long   lastFlushTime         = System.currentTimeMillis();
 
     public AsyncAuditProvider(String name, int maxQueueSize, int maxFlushInterval) {
-        LOG.info("AsyncAuditProvider({}): creating..", name);
+        this(name, maxQueueSize, maxFlushInterval, false);
+    }
+
+    public AsyncAuditProvider(String name, int maxQueueSize, int maxFlushInterval, boolean useRingBuffer) {
+        LOG.info("AsyncAuditProvider({}): creating.. useRingBuffer={}", name, useRingBuffer);
 
         if (maxQueueSize < 1) {
             LOG.warn("AsyncAuditProvider({}): invalid maxQueueSize={}. will use default {}", name, maxQueueSize, mMaxQueueSize);
@@ -67,11 +72,15 @@ public AsyncAuditProvider(String name, int maxQueueSize, int maxFlushInterval) {
         mMaxQueueSize     = maxQueueSize;
         mMaxFlushInterval = maxFlushInterval;
 
-        mQueue = new ArrayBlockingQueue<>(mMaxQueueSize);
+        mQueue = useRingBuffer ? new RingBufferBlockingQueue<>(mMaxQueueSize) : new ArrayBlockingQueue<>(mMaxQueueSize);
     }
 
     public AsyncAuditProvider(String name, int maxQueueSize, int maxFlushInterval, AuditHandler provider) {
-        this(name, maxQueueSize, maxFlushInterval);
+        this(name, maxQueueSize, maxFlushInterval, false, provider);
+    }
+
+    public AsyncAuditProvider(String name, int maxQueueSize, int maxFlushInterval, boolean useRingBuffer, AuditHandler provider) {
+        this(name, maxQueueSize, maxFlushInterval, useRingBuffer);
 
         addAuditProvider(provider);
     }
@@ -255,6 +264,10 @@ private void logSummaryIfRequired() {
 
                 LOG.info("AsyncAuditProvider-stats:{}: past {}: inLogs={}, outLogs={}, dropped={}, currentQueueSize={}", mName, formatIntervalForLog(intervalSinceLastLog), intervalInLogCount, intervalOutLogCount, intervalDropCount, queueSize);
                 LOG.info("AsyncAuditProvider-stats:{}: process lifetime: inLogs={}, outLogs={}, dropped={}", mName, lifeTimeInLogCount, lifeTimeOutLogCount, lifeTimeDropCount);
+
+                if (mQueue instanceof RingBufferBlockingQueue) {
+                    LOG.info("AsyncAuditProvider-stats:{}: {}", mName, mQueue);
+                }
             }
 
             lastIntervalLogTime = System.currentTimeMillis();
@@ -57,9 +57,11 @@ public class AuditProviderFactory {
     public static final String AUDIT_HDFS_IS_ASYNC_PROP                 = "xasecure.audit.hdfs.is.async";
     public static final String AUDIT_HDFS_MAX_QUEUE_SIZE_PROP           = "xasecure.audit.hdfs.async.max.queue.size";
     public static final String AUDIT_HDFS_MAX_FLUSH_INTERVAL_PROP       = "xasecure.audit.hdfs.async.max.flush.interval.ms";
+    public static final String AUDIT_HDFS_QUEUE_TYPE_PROP               = "xasecure.audit.hdfs.async.queue.type";
     public static final String AUDIT_LOG4J_IS_ASYNC_PROP                = "xasecure.audit.log4j.is.async";
     public static final String AUDIT_LOG4J_MAX_QUEUE_SIZE_PROP          = "xasecure.audit.log4j.async.max.queue.size";
     public static final String AUDIT_LOG4J_MAX_FLUSH_INTERVAL_PROP      = "xasecure.audit.log4j.async.max.flush.interval.ms";
+    public static final String AUDIT_LOG4J_QUEUE_TYPE_PROP              = "xasecure.audit.log4j.async.queue.type";
     public static final String AUDIT_KAFKA_IS_ASYNC_PROP                = "xasecure.audit.kafka.is.async";
     public static final String AUDIT_SOLR_IS_ASYNC_PROP                 = "xasecure.audit.solr.is.async";
 
@@ -312,10 +314,11 @@ public synchronized void init(Properties props, String appType) {
                 boolean      isAuditAsync = MiscUtil.getBooleanProperty(props, AUDIT_HDFS_IS_ASYNC_PROP, false);
 
                 if (isAuditAsync) {
-                    int maxQueueSize     = MiscUtil.getIntProperty(props, AUDIT_HDFS_MAX_QUEUE_SIZE_PROP, AUDIT_ASYNC_MAX_QUEUE_SIZE_DEFAULT);
-                    int maxFlushInterval = MiscUtil.getIntProperty(props, AUDIT_HDFS_MAX_FLUSH_INTERVAL_PROP, AUDIT_ASYNC_MAX_FLUSH_INTERVAL_DEFAULT);
+                    int     maxQueueSize     = MiscUtil.getIntProperty(props, AUDIT_HDFS_MAX_QUEUE_SIZE_PROP, AUDIT_ASYNC_MAX_QUEUE_SIZE_DEFAULT);
+                    int     maxFlushInterval = MiscUtil.getIntProperty(props, AUDIT_HDFS_MAX_FLUSH_INTERVAL_PROP, AUDIT_ASYNC_MAX_FLUSH_INTERVAL_DEFAULT);
+                    boolean useRingBuffer    = AuditQueue.QUEUE_TYPE_RING_BUFFER.equalsIgnoreCase(MiscUtil.getStringProperty(props, AUDIT_HDFS_QUEUE_TYPE_PROP));
 
-                    AsyncAuditProvider asyncProvider = new AsyncAuditProvider("HdfsAuditProvider", maxQueueSize, maxFlushInterval, hdfsProvider);
+                    AsyncAuditProvider asyncProvider = new AsyncAuditProvider("HdfsAuditProvider", maxQueueSize, maxFlushInterval, useRingBuffer, hdfsProvider);
 
                     providers.add(asyncProvider);
                 } else {
@@ -358,10 +361,11 @@ public synchronized void init(Properties props, String appType) {
                 boolean          isAuditAsync  = MiscUtil.getBooleanProperty(props, AUDIT_LOG4J_IS_ASYNC_PROP, false);
 
                 if (isAuditAsync) {
-                    int maxQueueSize     = MiscUtil.getIntProperty(props, AUDIT_LOG4J_MAX_QUEUE_SIZE_PROP, AUDIT_ASYNC_MAX_QUEUE_SIZE_DEFAULT);
-                    int maxFlushInterval = MiscUtil.getIntProperty(props, AUDIT_LOG4J_MAX_FLUSH_INTERVAL_PROP, AUDIT_ASYNC_MAX_FLUSH_INTERVAL_DEFAULT);
+                    int     maxQueueSize     = MiscUtil.getIntProperty(props, AUDIT_LOG4J_MAX_QUEUE_SIZE_PROP, AUDIT_ASYNC_MAX_QUEUE_SIZE_DEFAULT);
+                    int     maxFlushInterval = MiscUtil.getIntProperty(props, AUDIT_LOG4J_MAX_FLUSH_INTERVAL_PROP, AUDIT_ASYNC_MAX_FLUSH_INTERVAL_DEFAULT);
+                    boolean useRingBuffer    = AuditQueue.QUEUE_TYPE_RING_BUFFER.equalsIgnoreCase(MiscUtil.getStringProperty(props, AUDIT_LOG4J_QUEUE_TYPE_PROP));
 
-                    AsyncAuditProvider asyncProvider = new AsyncAuditProvider("Log4jAuditProvider", maxQueueSize, maxFlushInterval, log4jProvider);
+                    AsyncAuditProvider asyncProvider = new AsyncAuditProvider("Log4jAuditProvider", maxQueueSize, maxFlushInterval, useRingBuffer, log4jProvider);
 
                     providers.add(asyncProvider);
                 } else {
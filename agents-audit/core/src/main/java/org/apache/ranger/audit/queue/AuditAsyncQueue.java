@@ -27,10 +27,13 @@
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
 /**
- * This is a non-blocking queue with no limit on capacity.
+ * This is a non-blocking queue; events are dropped once the queue has maxQueueSize events.
+ * With queue.type=ringbuffer, a pre-allocated RingBufferBlockingQueue of maxQueueSize is used.
  */
 public class AuditAsyncQueue extends AuditQueue implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(AuditAsyncQueue.class);
@@ -39,8 +42,8 @@ public class AuditAsyncQueue extends AuditQueue implements Runnable {
     static final String DEFAULT_NAME = "async";
     static       int    threadCount;
 
-    LinkedBlockingQueue<AuditEventBase> queue          = new LinkedBlockingQueue<>();
-    Thread                              consumerThread;
+    BlockingQueue<AuditEventBase> queue          = new LinkedBlockingQueue<>();
+    Thread                        consumerThread;
 
     public AuditAsyncQueue(AuditHandler consumer) {
         super(consumer);
@@ -62,14 +65,12 @@ public boolean log(AuditEventBase event) {
         addTotalCount(1);
 
         // Add to the queue and return ASAP
-        if (queue.size() >= getMaxQueueSize()) {
+        if (queue.size() >= getMaxQueueSize() || !queue.offer(event)) {
             addFailedCount(1);
 
             return false;
         }
 
-        queue.add(event);
-
         return true;
     }
 
@@ -80,6 +81,19 @@ public void logStatus() {
         if (isStatusLogEnabled()) {
             logger.info("AuditAsyncQueue.log(name={}): totalCount={}, currentQueueLength={}", getName(), getTotalCount(), queue.size());
         }
+
+        logQueueStatus(queue);
+    }
+
+    @Override
+    public void init(Properties props, String basePropertyName) {
+        super.init(props, basePropertyName);
+
+        if (isRingBufferQueue()) {
+            logger.info("Creating RingBufferBlockingQueue with maxSize={}", getMaxQueueSize());
+
+            queue = new RingBufferBlockingQueue<>(getMaxQueueSize());
+        }
     }
 
     @Override
@@ -96,9 +96,15 @@ public synchronized void start() {
             return;
         }
 
-        logger.info("Creating ArrayBlockingQueue with maxSize={}", getMaxQueueSize());
+        if (isRingBufferQueue()) {
+            logger.info("Creating RingBufferBlockingQueue with maxSize={}", getMaxQueueSize());
 
-        queue = new ArrayBlockingQueue<>(getMaxQueueSize());
+            queue = new RingBufferBlockingQueue<>(getMaxQueueSize());
+        } else {
+            logger.info("Creating ArrayBlockingQueue with maxSize={}", getMaxQueueSize());
+
+            queue = new ArrayBlockingQueue<>(getMaxQueueSize());
+        }
 
         // Start the consumer first
         consumer.start();
@@ -140,6 +146,13 @@ public void stop() {
         consumerThread = null;
     }
 
+    @Override
+    public void logStatus() {
+        super.logStatus();
+
+        logQueueStatus(queue);
+    }
+
     @Override
     public void init(Properties prop, String basePropertyName) {
         String propPrefix = "xasecure.audit.batch";
@@ -90,10 +90,9 @@ public class AuditFileCacheProviderSpool implements Runnable {
     boolean          initDone;
     PrintWriter      logWriter;
     AuditIndexRecord currentWriterIndexRecord;
-    AuditIndexRecord currentConsumerIndexRecord;
-    Thread           destinationThread;
-    boolean          isDrain;
-    boolean          isDestDown;
+    List<Thread>     destinationThreads   = new ArrayList<>();
+    volatile boolean isDrain;
+    volatile boolean isDestDown;
     int              retryDestinationMS   = 30 * 1000; // Default 30 seconds
     int              fileRolloverSec      = 24 * 60 * 60; // In seconds
     int              maxArchiveFiles      = 100;
@@ -102,6 +101,8 @@ public class AuditFileCacheProviderSpool implements Runnable {
     boolean          isWriting            = true;
     boolean          isSpoolingSuccessful = true;
 
+    AuditSpoolReplayer<AuditEventBase> replayer;
+
     public AuditFileCacheProviderSpool(AuditHandler consumerProvider) {
         this.consumerProvider = consumerProvider;
     }
@@ -269,7 +270,21 @@ public boolean init(Properties props, String basePropertyName) {
         }
 
         auditBatchSize = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_BATCH_SIZE, auditBatchSize);
-        initDone       = true;
+        replayer       = new AuditSpoolReplayer<>(FILE_CACHE_PROVIDER_NAME + "_" + consumerProvider.getName(), new AuditSpoolReplayer.Destination<AuditEventBase>() {
+            @Override
+            public AuditEventBase toEvent(String record) {
+                return MiscUtil.fromJson(record, AuthzAuditEvent.class);
+            }
+
+            @Override
+            public boolean send(List<AuditEventBase> events) {
+                return sendEvents(events);
+            }
+        }, this::getPendingFiles);
+
+        replayer.init(props, propPrefix, auditBatchSize);
+
+        initDone = true;
 
         logger.debug("<== AuditFileCacheProviderSpool.init()");
         return true;
@@ -287,11 +302,18 @@ public void start() {
 
         logger.info("Starting writerThread, queueName={}, consumer={}", FILE_CACHE_PROVIDER_NAME, consumerProvider.getName());
 
-        // Let's start the thread to read
-        destinationThread = new Thread(this, FILE_CACHE_PROVIDER_NAME + "_" + consumerProvider.getName() + "_destWriter");
+        replayer.start();
 
-        destinationThread.setDaemon(true);
-        destinationThread.start();
+        // Let's start the threads to read; each thread replays one file at a time
+        for (int i = 0; i < replayer.getThreadCount(); i++) {
+            String threadName        = FILE_CACHE_PROVIDER_NAME + "_" + consumerProvider.getName() + "_destWriter" + (i == 0 ? "" : Integer.toString(i));
+            Thread destinationThread = new Thread(this, threadName);
+
+            destinationThread.setDaemon(true);
+            destinationThread.start();
+
+            destinationThreads.add(destinationThread);
+        }
     }
 
     public void stop() {
@@ -337,14 +359,16 @@ public void stop() {
         }
 
         try {
-            if (destinationThread != null) {
+            for (Thread destinationThread : destinationThreads) {
                 destinationThread.interrupt();
             }
 
-            destinationThread = null;
+            destinationThreads.clear();
         } catch (Throwable e) {
             // ignore
         }
+
+        replayer.stop();
     }
 
     public void flush() {
@@ -477,6 +501,8 @@ public void run() {
 
     public void runLogAudit() {
         // boolean isResumed = false;
+        AuditIndexRecord currentConsumerIndexRecord = null;
+
         while (true) {
             try {
                 if (isDestDown) {
@@ -513,42 +539,13 @@ public void runLogAudit() {
 
                     isRemoveIndex = true;
                 } else {
-                    // Let's open the file to write
-                    try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(currentConsumerIndexRecord.filePath), StandardCharsets.UTF_8))) {
-                        int                  startLine = currentConsumerIndexRecord.linePosition;
-                        int                  currLine  = 0;
-                        List<AuditEventBase> events    = new ArrayList<>();
-
-                        for (String line = br.readLine(); line != null; line = br.readLine()) {
-                            currLine++;
+                    AuditIndexRecord indexRecord = currentConsumerIndexRecord;
 
-                            if (currLine < startLine) {
-                                continue;
-                            }
-
-                            AuditEventBase event = MiscUtil.fromJson(line, AuthzAuditEvent.class);
-
-                            events.add(event);
-
-                            if (events.size() == auditBatchSize) {
-                                boolean ret = sendEvent(events, currentConsumerIndexRecord, currLine);
-
-                                if (!ret) {
-                                    throw new Exception("Destination down");
-                                }
-
-                                events.clear();
-                            }
-                        }
-
-                        if (!events.isEmpty()) {
-                            boolean ret = sendEvent(events, currentConsumerIndexRecord, currLine);
-
-                            if (!ret) {
-                                throw new Exception("Destination down");
-                            }
+                    try {
+                        boolean ret = replayer.replay(consumerFile, indexRecord.linePosition, position -> updateIndexRecord(indexRecord, position));
 
-                            events.clear();
+                        if (!ret) {
+                            throw new Exception("Destination down");
                         }
 
                         logger.info("Done reading file. file={}, queueName={}, consumer={}", currentConsumerIndexRecord.filePath, FILE_CACHE_PROVIDER_NAME, consumerProvider.getName());
@@ -559,6 +556,8 @@ public void runLogAudit() {
                         currentConsumerIndexRecord.lastAttempt      = true;
 
                         isRemoveIndex = true;
+                    } catch (InterruptedException ex) {
+                        throw ex;
                     } catch (Exception ex) {
                         isDestDown = true;
 
@@ -875,7 +874,22 @@ private void rollOverSpoolFileByTime() {
         }
     }
 
-    private boolean sendEvent(List<AuditEventBase> events, AuditIndexRecord indexRecord, int currLine) {
+    /**
+     * @return files to be replayed to the consumer: all files in the index, other than the file being written
+     */
+    synchronized Collection<File> getPendingFiles() {
+        List<File> ret = new ArrayList<>(indexRecords.size());
+
+        for (AuditIndexRecord indexRecord : indexRecords) {
+            if (indexRecord.status != SPOOL_FILE_STATUS.write_inprogress && indexRecord.status != SPOOL_FILE_STATUS.done) {
+                ret.add(new File(indexRecord.filePath));
+            }
+        }
+
+        return ret;
+    }
+
+    private boolean sendEvents(List<AuditEventBase> events) {
         boolean ret = true;
 
         try {
@@ -884,20 +898,6 @@ private boolean sendEvent(List<AuditEventBase> events, AuditIndexRecord indexRec
             if (!ret) {
                 // Need to log error after fixed interval
                 logError("Error sending logs to consumer. provider=" + FILE_CACHE_PROVIDER_NAME + ", consumer=" + consumerProvider.getName());
-            } else {
-                // Update index and save
-                indexRecord.linePosition    = currLine;
-                indexRecord.status          = SPOOL_FILE_STATUS.read_inprogress;
-                indexRecord.lastSuccessTime = new Date();
-                indexRecord.lastAttempt     = true;
-
-                saveIndexFile();
-
-                if (isDestDown) {
-                    isDestDown = false;
-
-                    logger.info("Destination up now. {}, queueName={}, consumer={}", indexRecord.filePath, FILE_CACHE_PROVIDER_NAME, consumerProvider.getName());
-                }
             }
         } catch (Throwable t) {
             logger.error("Error while sending logs to consumer. provider={}, consumer={}, log={}", FILE_CACHE_PROVIDER_NAME, consumerProvider.getName(), events, t);
@@ -906,6 +906,22 @@ private boolean sendEvent(List<AuditEventBase> events, AuditIndexRecord indexRec
         return ret;
     }
 
+    private void updateIndexRecord(AuditIndexRecord indexRecord, int linePosition) throws IOException {
+        // Update index and save
+        indexRecord.linePosition    = linePosition;
+        indexRecord.status          = SPOOL_FILE_STATUS.read_inprogress;
+        indexRecord.lastSuccessTime = new Date();
+        indexRecord.lastAttempt     = true;
+
+        saveIndexFile();
+
+        if (isDestDown) {
+            isDestDown = false;
+
+            logger.info("Destination up now. {}, queueName={}, consumer={}", indexRecord.filePath, FILE_CACHE_PROVIDER_NAME, consumerProvider.getName());
+        }
+    }
+
     public enum SPOOL_FILE_STATUS {
         pending, write_inprogress, read_inprogress, done
     }
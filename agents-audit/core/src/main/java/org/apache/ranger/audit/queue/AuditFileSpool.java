@@ -24,30 +24,66 @@
 import org.apache.ranger.audit.model.SPOOL_FILE_STATUS;
 import org.apache.ranger.audit.provider.AuditHandler;
 import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.utils.AuditEventJsonSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * This class temporarily stores logs in file system if the destination is
- * overloaded or down
+ * overloaded or down.
+ *
+ * With filespool.file.format=segment, events are written to CRC-framed segment
+ * files (see AuditSpoolSegmentWriter) with group commit: events are forced to
+ * disk every filespool.commit.events events or filespool.commit.interval.ms
+ * milliseconds, whichever comes first. Otherwise events are written as JSON
+ * lines, and are not forced to disk. Either format is read back on replay.
+ *
+ * With filespool.file.format=orc, events are written to ORC files by the
+ * AuditSpoolFileCodec in ranger-audit-orc-util, which must then be in the
+ * classpath. A commit ends the current ORC stripe, hence with this format
+ * filespool.commit.events and filespool.commit.interval.ms default to 10000
+ * events and 60 seconds; smaller values result in many small stripes, while
+ * larger values increase the events lost on a crash.
+ *
+ * Changes to index records are appended to the index file; the index file is
+ * rewritten with only the current records once it grows large, and on stop.
+ *
+ * Spooled files are replayed by AuditSpoolReplayer, from
+ * filespool.replay.threads threads. With more than one thread, events are
+ * delivered in order within each file, but files are replayed in parallel.
  */
 public class AuditFileSpool implements Runnable {
     private static final Logger logger = LoggerFactory.getLogger(AuditFileSpool.class);
@@ -60,8 +96,25 @@ public class AuditFileSpool implements Runnable {
     public static final String PROP_FILE_SPOOL_FILE_ROLLOVER           = "filespool.file.rollover.sec";
     public static final String PROP_FILE_SPOOL_INDEX_FILE              = "filespool.index.filename";
     public static final String PROP_FILE_SPOOL_DEST_RETRY_MS           = "filespool.destination.retry.ms";
+    public static final String PROP_FILE_SPOOL_FILE_FORMAT             = "filespool.file.format";
+    public static final String PROP_FILE_SPOOL_FILE_FORMAT_IMPL        = "filespool.file.format.impl";
+    public static final String PROP_FILE_SPOOL_SEGMENT_MAX_SIZE_MB     = "filespool.segment.max.size.mb";
+    public static final String PROP_FILE_SPOOL_SEGMENT_PREALLOCATE_MB  = "filespool.segment.preallocate.mb";
+    public static final String PROP_FILE_SPOOL_COMMIT_EVENTS           = "filespool.commit.events";
+    public static final String PROP_FILE_SPOOL_COMMIT_INTERVAL_MS      = "filespool.commit.interval.ms";
+    public static final String FILE_FORMAT_TEXT                        = "text";
+    public static final String FILE_FORMAT_SEGMENT                     = "segment";
+    public static final String FILE_FORMAT_ORC                         = "orc";
+    public static final String ORC_FILE_CODEC_IMPL                     = "org.apache.ranger.audit.utils.ORCAuditSpoolFileCodec";
     public static final String CONSUMER                                = ", consumer=";
 
+    static final int INDEX_COMPACT_MIN_RECORDS = 1000; // index file is rewritten once it has more records than this,
+    static final int INDEX_COMPACT_RATIO       = 10;   // and more than these many times the number of current records
+
+    // each commit of a codec file ends a stripe in ORC; hence codec files are committed less often than segment files
+    static final int CODEC_COMMIT_EVENTS_DEFAULT      = 10000;
+    static final int CODEC_COMMIT_INTERVAL_MS_DEFAULT = 60 * 1000;
+
     AuditQueue                      queueProvider;
     AuditHandler                    consumerProvider;
     BlockingQueue<AuditIndexRecord> indexQueue = new LinkedBlockingQueue<>();
@@ -79,6 +132,14 @@ public class AuditFileSpool implements Runnable {
     int    fileRolloverSec    = 24 * 60 * 60; // In seconds
     int    maxArchiveFiles    = 100;
 
+    // Segment format attributes
+    boolean isSegmentFormat;
+    long    segmentMaxSizeMB     = 128;
+    long    segmentPreallocateMB = 4;
+    int     commitEvents         = 1000;
+    int     commitIntervalMS     = 1000;
+    int     indexFileRecordCount; // records in the index file, including the records superseded by later changes
+
     int  errorLogIntervalMS = 30 * 1000; // Every 30 seconds
     long lastErrorLogMS;
 
@@ -88,17 +149,21 @@ public class AuditFileSpool implements Runnable {
     long    lastAttemptTime;
     boolean initDone;
 
-    PrintWriter      logWriter;
-    AuditIndexRecord currentWriterIndexRecord;
-    AuditIndexRecord currentConsumerIndexRecord;
+    OutputStream                     logWriter; // audit events are written as UTF-8 JSON lines
+    AuditSpoolSegmentWriter          segmentWriter; // used instead of logWriter with filespool.file.format=segment
+    AuditSpoolFileCodec              codec; // set for file formats implemented outside this module, like orc
+    AuditSpoolFileCodec.RecordWriter codecWriter; // used instead of logWriter when codec is set
+    AuditIndexRecord                 currentWriterIndexRecord;
 
     BufferedReader logReader;
 
-    Thread destinationThread;
+    List<Thread>               destinationThreads = new ArrayList<>();
+    ScheduledExecutorService   commitExecutor;
+    AuditSpoolReplayer<String> replayer;
 
-    boolean isWriting  = true;
-    boolean isDrain;
-    boolean isDestDown;
+    boolean          isWriting  = true;
+    volatile boolean isDrain;
+    volatile boolean isDestDown;
 
     public AuditFileSpool(AuditQueue queueProvider, AuditHandler consumerProvider) {
         this.queueProvider    = queueProvider;
@@ -133,10 +198,52 @@ public boolean init(Properties props, String basePropertyName) {
             fileRolloverSec    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FILE_ROLLOVER, fileRolloverSec);
             maxArchiveFiles    = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ARCHIVE_MAX_FILES_COUNT, maxArchiveFiles);
 
+            String fileFormat = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FILE_FORMAT, FILE_FORMAT_TEXT);
+
+            isSegmentFormat = FILE_FORMAT_SEGMENT.equalsIgnoreCase(fileFormat);
+
+            if (!isSegmentFormat && !FILE_FORMAT_TEXT.equalsIgnoreCase(fileFormat)) {
+                codec = createFileCodec(props, propPrefix, fileFormat);
+            }
+
+            if (codec != null) {
+                commitEvents     = CODEC_COMMIT_EVENTS_DEFAULT;
+                commitIntervalMS = CODEC_COMMIT_INTERVAL_MS_DEFAULT;
+            }
+
+            segmentMaxSizeMB     = MiscUtil.getLongProperty(props, propPrefix + "." + PROP_FILE_SPOOL_SEGMENT_MAX_SIZE_MB, segmentMaxSizeMB);
+            segmentPreallocateMB = MiscUtil.getLongProperty(props, propPrefix + "." + PROP_FILE_SPOOL_SEGMENT_PREALLOCATE_MB, segmentPreallocateMB);
+            commitEvents         = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_COMMIT_EVENTS, commitEvents);
+            commitIntervalMS     = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_FILE_SPOOL_COMMIT_INTERVAL_MS, commitIntervalMS);
+
+            if (!isSegmentFormat && codec == null && !FILE_FORMAT_TEXT.equalsIgnoreCase(fileFormat)) {
+                logger.warn("Unknown value {} for {}.{}; using {}. queueName={}", fileFormat, propPrefix, PROP_FILE_SPOOL_FILE_FORMAT, FILE_FORMAT_TEXT, queueProvider.getName());
+            }
+
             logger.info("retryDestinationMS={}, queueName={}", retryDestinationMS, queueProvider.getName());
             logger.info("fileRolloverSec={}, queueName={}", fileRolloverSec, queueProvider.getName());
             logger.info("maxArchiveFiles={}, queueName={}", maxArchiveFiles, queueProvider.getName());
 
+            if (codec != null) {
+                logger.info("fileFormat={}, codec={}, commitEvents={}, commitIntervalMS={}, queueName={}", fileFormat, codec.getClass().getName(), commitEvents, commitIntervalMS, queueProvider.getName());
+            } else if (isSegmentFormat) {
+                logger.info("fileFormat={}, segmentMaxSizeMB={}, segmentPreallocateMB={}, commitEvents={}, commitIntervalMS={}, queueName={}", FILE_FORMAT_SEGMENT, segmentMaxSizeMB, segmentPreallocateMB, commitEvents, commitIntervalMS, queueProvider.getName());
+            }
+
+            replayer = new AuditSpoolReplayer<>(queueProvider.getName() + "_" + consumerProvider.getName(), new AuditSpoolReplayer.Destination<String>() {
+                @Override
+                public String toEvent(String record) {
+                    return record;
+                }
+
+                @Override
+                public boolean send(List<String> events) {
+                    return sendEvents(events);
+                }
+            }, this::getPendingFiles, codec);
+
+            replayer.init(props, propPrefix, queueProvider.getMaxBatchSize());
+
             if (logFolderProp == null || logFolderProp.isEmpty()) {
                 logger.error("Audit spool folder is not configured. Please set {}.{}.queueName={}", propPrefix, PROP_FILE_SPOOL_LOCAL_DIR, queueProvider.getName());
 
@@ -279,11 +386,32 @@ public void start() {
 
         logger.info("Starting writerThread, queueName={}, consumer={}", queueProvider.getName(), consumerProvider.getName());
 
-        // Let's start the thread to read
-        destinationThread = new Thread(this, queueProvider.getName() + "_" + consumerProvider.getName() + "_destWriter");
+        replayer.start();
+
+        // Let's start the threads to read; each thread replays one file at a time
+        for (int i = 0; i < replayer.getThreadCount(); i++) {
+            String threadName        = queueProvider.getName() + "_" + consumerProvider.getName() + "_destWriter" + (i == 0 ? "" : Integer.toString(i));
+            Thread destinationThread = new Thread(this, threadName);
+
+            destinationThread.setDaemon(true);
+            destinationThread.start();
 
-        destinationThread.setDaemon(true);
-        destinationThread.start();
+            destinationThreads.add(destinationThread);
+        }
+
+        if ((isSegmentFormat || codec != null) && commitIntervalMS > 0) {
+            String threadName = queueProvider.getName() + "_" + consumerProvider.getName() + "_spoolCommitter";
+
+            commitExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, threadName);
+
+                t.setDaemon(true);
+
+                return t;
+            });
+
+            commitExecutor.scheduleWithFixedDelay(this::commitLogFile, commitIntervalMS, commitIntervalMS, TimeUnit.MILLISECONDS);
+        }
     }
 
     public void stop() {
@@ -298,9 +426,9 @@ public void stop() {
 
         flush();
 
-        PrintWriter out = getOpenLogFileStream();
+        OutputStream out = getOpenLogFileStream();
 
-        if (out != null) {
+        if (out != null || segmentWriter != null || codecWriter != null) {
             // If write is still going on, then let's give it enough time to complete
             for (int i = 0; i < 3; i++) {
                 if (isWriting) {
@@ -315,8 +443,7 @@ public void stop() {
                 try {
                     logger.info("Closing open file, queueName={}, consumer={}", queueProvider.getName(), consumerProvider.getName());
 
-                    out.flush();
-                    out.close();
+                    closeOpenLogFile();
 
                     break;
                 } catch (Throwable t) {
@@ -326,14 +453,28 @@ public void stop() {
         }
 
         try {
-            if (destinationThread != null) {
+            for (Thread destinationThread : destinationThreads) {
                 destinationThread.interrupt();
             }
 
-            destinationThread = null;
+            destinationThreads.clear();
         } catch (Exception e) {
             // ignore
         }
+
+        replayer.stop();
+
+        if (commitExecutor != null) {
+            commitExecutor.shutdownNow();
+
+            commitExecutor = null;
+        }
+
+        try {
+            saveIndexFile(); // compact the index file
+        } catch (IOException excp) {
+            logger.error("Error saving index file. queueName={}", queueProvider.getName(), excp);
+        }
     }
 
     public void flush() {
@@ -342,10 +483,16 @@ public void flush() {
             return;
         }
 
-        PrintWriter out = getOpenLogFileStream();
+        OutputStream out = getOpenLogFileStream();
 
         if (out != null) {
-            out.flush();
+            try {
+                out.flush();
+            } catch (IOException excp) {
+                logger.error("Error flushing spool file. queueName={}", queueProvider.getName(), excp);
+            }
+        } else if (isSegmentFormat) {
+            flushSegmentWriter();
         }
     }
 
@@ -389,10 +536,18 @@ public synchronized void stashLogs(AuditEventBase event) {
         try {
             isWriting = true;
 
-            PrintWriter logOut  = getLogFileStream();
-            String      jsonStr = MiscUtil.stringify(event); // Convert event to json
+            if (codec != null) {
+                writeCodecRecord(event, null);
+            } else {
+                // Convert event to json, directly as UTF-8 bytes in a reusable buffer
+                AuditEventJsonSerializer serializer = AuditEventJsonSerializer.getInstance().reset();
 
-            logOut.println(jsonStr);
+                if (isSegmentFormat) {
+                    writeSegmentRecord(serializer.append(event).asByteBuffer());
+                } else {
+                    serializer.appendLine(event).writeTo(getLogFileStream());
+                }
+            }
 
             isPending = true;
         } catch (Exception ex) {
@@ -420,9 +575,16 @@ public synchronized void stashLogsString(String event) {
         try {
             isWriting = true;
 
-            PrintWriter logOut = getLogFileStream();
+            if (codec != null) {
+                writeCodecRecord(null, event);
+            } else if (isSegmentFormat) {
+                writeSegmentRecord(ByteBuffer.wrap(event.getBytes(StandardCharsets.UTF_8)));
+            } else {
+                OutputStream logOut = getLogFileStream();
 
-            logOut.println(event);
+                logOut.write(event.getBytes(StandardCharsets.UTF_8));
+                logOut.write('\n');
+            }
         } catch (Exception ex) {
             logger.error("Error writing to file. event={}", event, ex);
         } finally {
@@ -455,6 +617,8 @@ public void run() {
     }
 
     public void runLogAudit() {
+        AuditIndexRecord currentConsumerIndexRecord = null;
+
         while (true) {
             try {
                 if (isDestDown) {
@@ -491,40 +655,13 @@ public void runLogAudit() {
 
                     isRemoveIndex = true;
                 } else {
-                    // Let's open the file to write
-                    try (BufferedReader br = new BufferedReader(new FileReader(currentConsumerIndexRecord.getFilePath()))) {
-                        int          startLine = currentConsumerIndexRecord.getLinePosition();
-                        int          currLine  = 0;
-                        List<String> lines     = new ArrayList<>();
-
-                        for (String line = br.readLine(); line != null; line = br.readLine()) {
-                            currLine++;
-
-                            if (currLine < startLine) {
-                                continue;
-                            }
+                    AuditIndexRecord indexRecord = currentConsumerIndexRecord;
 
-                            lines.add(line);
-
-                            if (lines.size() == queueProvider.getMaxBatchSize()) {
-                                boolean ret = sendEvent(lines, currentConsumerIndexRecord, currLine);
-
-                                if (!ret) {
-                                    throw new Exception("Destination down");
-                                }
-
-                                lines.clear();
-                            }
-                        }
-
-                        if (!lines.isEmpty()) {
-                            boolean ret = sendEvent(lines, currentConsumerIndexRecord, currLine);
-
-                            if (!ret) {
-                                throw new Exception("Destination down");
-                            }
+                    try {
+                        boolean ret = replayer.replay(consumerFile, indexRecord.getLinePosition(), position -> updateIndexRecord(indexRecord, position));
 
-                            lines.clear();
+                        if (!ret) {
+                            throw new Exception("Destination down");
                         }
 
                         logger.info("Done reading file. file={}, queueName={}, consumer={}", currentConsumerIndexRecord.getFilePath(), queueProvider.getName(), consumerProvider.getName());
@@ -535,6 +672,8 @@ public void runLogAudit() {
                         currentConsumerIndexRecord.setLastAttempt(true);
 
                         isRemoveIndex = true;
+                    } catch (InterruptedException ex) {
+                        throw ex;
                     } catch (Exception ex) {
                         isDestDown = true;
 
@@ -547,7 +686,7 @@ public void runLogAudit() {
                         currentConsumerIndexRecord.setFailedAttemptCount(currentConsumerIndexRecord.getFailedAttemptCount() + 1);
                         currentConsumerIndexRecord.setLastAttempt(false);
 
-                        saveIndexFile();
+                        appendToIndexFile(currentConsumerIndexRecord);
                     }
                 }
 
@@ -572,23 +711,37 @@ public void runLogAudit() {
     }
 
     /**
-     * Load the index file
+     * Load the index file. A later record for the same id replaces the earlier
+     * one; a record with status done removes it.
      *
      * @throws IOException
      */
     void loadIndexFile() throws IOException {
         logger.info("Loading index file. fileName={}", indexFile.getPath());
 
-        try (BufferedReader br = new BufferedReader(new FileReader(indexFile))) {
-            indexRecords.clear();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), StandardCharsets.UTF_8))) {
+            Map<String, AuditIndexRecord> records = new LinkedHashMap<>();
+
+            indexFileRecordCount = 0;
 
             for (String line = br.readLine(); line != null; line = br.readLine()) {
                 if (!line.isEmpty() && !line.startsWith("#")) {
                     AuditIndexRecord record = MiscUtil.fromJson(line, AuditIndexRecord.class);
 
-                    indexRecords.add(record);
+                    indexFileRecordCount++;
+
+                    if (record == null || record.getId() == null) {
+                        logger.warn("Ignoring invalid index record: {}. fileName={}", line, indexFile.getPath());
+                    } else if (record.getStatus() == SPOOL_FILE_STATUS.done) {
+                        records.remove(record.getId());
+                    } else {
+                        records.put(record.getId(), record);
+                    }
                 }
             }
+
+            indexRecords.clear();
+            indexRecords.addAll(records.values());
         }
     }
 
@@ -617,7 +770,13 @@ synchronized void removeIndexRecord(AuditIndexRecord indexRecord) throws IOExcep
             }
         }
 
-        saveIndexFile();
+        AuditIndexRecord removedRecord = new AuditIndexRecord();
+
+        removedRecord.setId(indexRecord.getId());
+        removedRecord.setFilePath(indexRecord.getFilePath());
+        removedRecord.setStatus(SPOOL_FILE_STATUS.done);
+
+        appendToIndexFile(removedRecord);
 
         // If there are no more files in the index, then let's assume the
         // destination is now available
@@ -626,12 +785,61 @@ synchronized void removeIndexRecord(AuditIndexRecord indexRecord) throws IOExcep
         }
     }
 
+    /**
+     * Rewrite the index file with the current records. The new content is
+     * written to a temporary file, which then replaces the index file.
+     *
+     * @throws IOException
+     */
     synchronized void saveIndexFile() throws IOException {
-        try (PrintWriter out = new PrintWriter(indexFile)) {
+        File tmpIndexFile = new File(indexFile.getPath() + ".tmp");
+
+        try (FileOutputStream out = new FileOutputStream(tmpIndexFile)) {
+            OutputStream bufOut = new BufferedOutputStream(out);
+
             for (AuditIndexRecord auditIndexRecord : indexRecords) {
-                out.println(MiscUtil.stringify(auditIndexRecord));
+                bufOut.write(toIndexFileLine(auditIndexRecord));
+            }
+
+            bufOut.flush();
+
+            if (isSegmentFormat) {
+                out.getFD().sync();
             }
         }
+
+        Files.move(tmpIndexFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        indexFileRecordCount = indexRecords.size();
+    }
+
+    /**
+     * Append a changed index record to the index file, instead of rewriting
+     * the entire file. The index file is compacted once it has many
+     * superseded records.
+     *
+     * @throws IOException
+     */
+    synchronized void appendToIndexFile(AuditIndexRecord indexRecord) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer line = ByteBuffer.wrap(toIndexFileLine(indexRecord));
+
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+
+            if (isSegmentFormat) {
+                channel.force(false);
+            }
+        }
+
+        indexFileRecordCount++;
+
+        if (indexFileRecordCount > INDEX_COMPACT_MIN_RECORDS && indexFileRecordCount > INDEX_COMPACT_RATIO * indexRecords.size()) {
+            logger.info("Compacting index file. indexFileRecordCount={}, indexRecords={}, queueName={}", indexFileRecordCount, indexRecords.size(), queueProvider.getName());
+
+            saveIndexFile();
+        }
     }
 
     void appendToDoneFile(AuditIndexRecord indexRecord) throws IOException {
@@ -730,7 +938,7 @@ void logError(String msg, Object... arguments) {
      *
      * @return
      */
-    private synchronized PrintWriter getOpenLogFileStream() {
+    private synchronized OutputStream getOpenLogFileStream() {
         return logWriter;
     }
 
@@ -738,9 +946,121 @@ private synchronized PrintWriter getOpenLogFileStream() {
      * @return
      * @throws Exception
      */
-    private synchronized PrintWriter getLogFileStream() throws Exception {
+    private synchronized OutputStream getLogFileStream() throws Exception {
+        openLogFile();
+
+        return logWriter;
+    }
+
+    private synchronized void writeSegmentRecord(ByteBuffer record) throws Exception {
+        openLogFile();
+
+        if (!segmentWriter.append(record)) {
+            logger.info("Closing file. Segment is full. queueName={}, fileName={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+            closeCurrentFile();
+            openLogFile();
+
+            segmentWriter.append(record);
+        }
+    }
+
+    private synchronized void writeCodecRecord(AuditEventBase event, String json) throws Exception {
+        openLogFile();
+
+        if (event != null) {
+            codecWriter.write(event);
+        } else {
+            codecWriter.write(json);
+        }
+
+        if (commitEvents > 0 && codecWriter.getPendingCommitCount() >= commitEvents) {
+            codecWriter.commit();
+        }
+    }
+
+    private synchronized void flushSegmentWriter() {
+        if (segmentWriter != null) {
+            try {
+                segmentWriter.flush();
+            } catch (IOException excp) {
+                logger.error("Error flushing spool file. queueName={}", queueProvider.getName(), excp);
+            }
+        }
+    }
+
+    // called every commitIntervalMS, to commit the events written since the last commit
+    synchronized void commitLogFile() {
+        if (segmentWriter != null && segmentWriter.getPendingCommitCount() > 0) {
+            try {
+                segmentWriter.commit();
+            } catch (IOException excp) {
+                logger.error("Error committing spool file. queueName={}", queueProvider.getName(), excp);
+            }
+        }
+
+        if (codecWriter != null && codecWriter.getPendingCommitCount() > 0) {
+            try {
+                codecWriter.commit();
+            } catch (IOException excp) {
+                logger.error("Error committing spool file. queueName={}", queueProvider.getName(), excp);
+            }
+        }
+    }
+
+    private synchronized void closeOpenLogFile() throws IOException {
+        try {
+            if (logWriter != null) {
+                logWriter.flush();
+                logWriter.close();
+            }
+
+            if (segmentWriter != null) {
+                segmentWriter.close();
+            }
+
+            if (codecWriter != null) {
+                codecWriter.close();
+            }
+        } finally {
+            logWriter     = null;
+            segmentWriter = null;
+            codecWriter   = null;
+        }
+    }
+
+    private synchronized void openLogFile() throws Exception {
         closeFileIfNeeded();
 
+        if (currentWriterIndexRecord != null && logWriter == null && segmentWriter == null && codecWriter == null) {
+            // This means the process just started. We need to open the file
+            // in append mode.
+            File file = new File(currentWriterIndexRecord.getFilePath());
+
+            logger.info("Opening existing file for append. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+            if (codec != null) {
+                // files written by a codec can't be appended to; make the file readable, and continue in a new file
+                if (file.exists() && codec.isCodecFile(file)) {
+                    codec.recover(file);
+                }
+            } else if (isSegmentFormat) {
+                if (file.exists()) {
+                    segmentWriter = AuditSpoolSegmentWriter.openForAppend(file, segmentMaxSizeMB * 1024 * 1024, segmentPreallocateMB * 1024 * 1024, commitEvents);
+                } else {
+                    segmentWriter = AuditSpoolSegmentWriter.create(file, segmentMaxSizeMB * 1024 * 1024, segmentPreallocateMB * 1024 * 1024, commitEvents);
+                }
+            } else if (!file.exists() || !AuditSpoolFileReader.isSegmentFile(file)) {
+                logWriter = new BufferedOutputStream(new FileOutputStream(file, true));
+            }
+
+            if (logWriter == null && segmentWriter == null) {
+                logger.info("Closing file. File can't be appended to in {} format. queueName={}, filename={}", codec != null ? codec.getClass().getSimpleName() : (isSegmentFormat ? FILE_FORMAT_SEGMENT : FILE_FORMAT_TEXT), queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+                closeCurrentFile();
+            }
+        }
+
         // Either there are no open log file or the previous one has been rolled
         // over
         if (currentWriterIndexRecord == null) {
@@ -774,7 +1094,13 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
             logger.info("Creating new file. queueName={}, filename={}", queueProvider.getName(), fileName);
 
             // Open the file
-            logWriter = new PrintWriter(new BufferedWriter(new FileWriter(outLogFile)));
+            if (codec != null) {
+                codecWriter = codec.createWriter(outLogFile);
+            } else if (isSegmentFormat) {
+                segmentWriter = AuditSpoolSegmentWriter.create(outLogFile, segmentMaxSizeMB * 1024 * 1024, segmentPreallocateMB * 1024 * 1024, commitEvents);
+            } else {
+                logWriter = new BufferedOutputStream(new FileOutputStream(outLogFile));
+            }
 
             AuditIndexRecord tmpIndexRecord = new AuditIndexRecord();
 
@@ -788,17 +1114,8 @@ private synchronized PrintWriter getLogFileStream() throws Exception {
 
             indexRecords.add(currentWriterIndexRecord);
 
-            saveIndexFile();
-        } else {
-            if (logWriter == null) {
-                // This means the process just started. We need to open the file
-                // in append mode.
-                logger.info("Opening existing file for append. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
-                logWriter = new PrintWriter(new BufferedWriter(new FileWriter(currentWriterIndexRecord.getFilePath(), true)));
-            }
+            appendToIndexFile(currentWriterIndexRecord);
         }
-
-        return logWriter;
     }
 
     private synchronized void closeFileIfNeeded() throws IOException {
@@ -818,29 +1135,71 @@ private synchronized void closeFileIfNeeded() throws IOException {
             }
 
             if (closeFile) {
-                // Roll the file
-                if (logWriter != null) {
-                    logWriter.flush();
-                    logWriter.close();
+                closeCurrentFile();
+            }
+        }
+    }
 
-                    logWriter = null;
-                }
+    private synchronized void closeCurrentFile() throws IOException {
+        // Roll the file
+        if (segmentWriter != null) {
+            logger.info("Closing segment. {}, queueName={}", segmentWriter, queueProvider.getName());
+        }
+
+        closeOpenLogFile();
+
+        currentWriterIndexRecord.setStatus(SPOOL_FILE_STATUS.pending);
+        currentWriterIndexRecord.setWriteCompleteTime(new Date());
+
+        appendToIndexFile(currentWriterIndexRecord);
+
+        logger.info("Adding file to queue. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+
+        indexQueue.add(currentWriterIndexRecord);
+
+        currentWriterIndexRecord = null;
+    }
+
+    private AuditSpoolFileCodec createFileCodec(Properties props, String propPrefix, String fileFormat) {
+        String codecImpl = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_FILE_SPOOL_FILE_FORMAT_IMPL, FILE_FORMAT_ORC.equalsIgnoreCase(fileFormat) ? ORC_FILE_CODEC_IMPL : null);
 
-                currentWriterIndexRecord.setStatus(SPOOL_FILE_STATUS.pending);
-                currentWriterIndexRecord.setWriteCompleteTime(new Date());
+        if (codecImpl == null || codecImpl.isEmpty()) {
+            return null;
+        }
+
+        try {
+            AuditSpoolFileCodec ret = Class.forName(codecImpl).asSubclass(AuditSpoolFileCodec.class).getDeclaredConstructor().newInstance();
+
+            ret.init(props, propPrefix);
+
+            return ret;
+        } catch (Throwable t) { // NoClassDefFoundError if the codec's dependencies are not in the classpath
+            logger.error("Error creating spool file codec {}. queueName={}", codecImpl, queueProvider.getName(), t);
+        }
 
-                saveIndexFile();
+        return null;
+    }
 
-                logger.info("Adding file to queue. queueName={}, filename={}", queueProvider.getName(), currentWriterIndexRecord.getFilePath());
+    private static byte[] toIndexFileLine(AuditIndexRecord indexRecord) {
+        return (MiscUtil.stringify(indexRecord) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
 
-                indexQueue.add(currentWriterIndexRecord);
+    /**
+     * @return files to be replayed to the consumer: all files in the index, other than the file being written
+     */
+    synchronized Collection<File> getPendingFiles() {
+        List<File> ret = new ArrayList<>(indexRecords.size());
 
-                currentWriterIndexRecord = null;
+        for (AuditIndexRecord indexRecord : indexRecords) {
+            if (indexRecord.getStatus() != SPOOL_FILE_STATUS.write_inprogress && indexRecord.getStatus() != SPOOL_FILE_STATUS.done) {
+                ret.add(new File(indexRecord.getFilePath()));
             }
         }
+
+        return ret;
     }
 
-    private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord, int currLine) {
+    private boolean sendEvents(List<String> lines) {
         boolean ret = true;
 
         try {
@@ -849,20 +1208,6 @@ private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord, int
             if (!ret) {
                 // Need to log error after fixed interval
                 logError("Error sending logs to consumer. provider={}, consumer={}", queueProvider.getName(), consumerProvider.getName());
-            } else {
-                // Update index and save
-                indexRecord.setLinePosition(currLine);
-                indexRecord.setStatus(SPOOL_FILE_STATUS.read_inprogress);
-                indexRecord.setLastSuccessTime(new Date());
-                indexRecord.setLastAttempt(true);
-
-                saveIndexFile();
-
-                if (isDestDown) {
-                    isDestDown = false;
-
-                    logger.info("Destination up now. {}, queueName={}, consumer={}", indexRecord.getFilePath(), queueProvider.getName(), consumerProvider.getName());
-                }
             }
         } catch (Exception t) {
             logger.error("Error while sending logs to consumer. provider={}, consumer={}, logEventCount={}", queueProvider.getName(), consumerProvider.getName(), lines.size(), t);
@@ -870,4 +1215,20 @@ private boolean sendEvent(List<String> lines, AuditIndexRecord indexRecord, int
 
         return ret;
     }
+
+    private void updateIndexRecord(AuditIndexRecord indexRecord, int linePosition) throws IOException {
+        // Update index and save
+        indexRecord.setLinePosition(linePosition);
+        indexRecord.setStatus(SPOOL_FILE_STATUS.read_inprogress);
+        indexRecord.setLastSuccessTime(new Date());
+        indexRecord.setLastAttempt(true);
+
+        appendToIndexFile(indexRecord);
+
+        if (isDestDown) {
+            isDestDown = false;
+
+            logger.info("Destination up now. {}, queueName={}, consumer={}", indexRecord.getFilePath(), queueProvider.getName(), consumerProvider.getName());
+        }
+    }
 }
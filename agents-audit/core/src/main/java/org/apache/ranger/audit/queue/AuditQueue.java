@@ -27,6 +27,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
 
 public abstract class AuditQueue extends BaseAuditHandler {
     private static final Logger LOG = LoggerFactory.getLogger(AuditQueue.class);
@@ -38,10 +39,13 @@ public abstract class AuditQueue extends BaseAuditHandler {
     public static final String PROP_QUEUE                          = "queue";
     public static final String PROP_BATCH_SIZE                     = "batch.size";
     public static final String PROP_QUEUE_SIZE                     = "queue.size";
+    public static final String PROP_QUEUE_TYPE                     = "queue.type";
     public static final String PROP_BATCH_INTERVAL                 = "batch.interval.ms";
     public static final String PROP_FILE_SPOOL_ENABLE              = "filespool.enable";
     public static final String PROP_FILE_SPOOL_WAIT_FOR_FULL_DRAIN = "filespool.drain.full.wait.ms";
     public static final String PROP_FILE_SPOOL_QUEUE_THRESHOLD     = "filespool.drain.threshold.percent";
+    public static final String QUEUE_TYPE_BLOCKING                 = "blocking";
+    public static final String QUEUE_TYPE_RING_BUFFER              = "ringbuffer";
 
     protected final AuditHandler   consumer;
     protected       AuditFileSpool fileSpooler;
@@ -58,6 +62,7 @@ public abstract class AuditQueue extends BaseAuditHandler {
     private int     maxBatchInterval = AUDIT_BATCH_INTERVAL_DEFAULT_MS;
     private int     maxBatchSize     = AUDIT_BATCH_SIZE_DEFAULT;
     private boolean isDrain;
+    private String  queueType        = QUEUE_TYPE_BLOCKING;
 
     /**
      * @param consumer
@@ -84,6 +89,7 @@ public void init(Properties props, String basePropertyName) {
         setMaxBatchSize(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_BATCH_SIZE, getMaxBatchSize()));
         setMaxQueueSize(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_QUEUE_SIZE, getMaxQueueSize()));
         setMaxBatchInterval(MiscUtil.getIntProperty(props, propPrefix + "." + PROP_BATCH_INTERVAL, getMaxBatchInterval()));
+        setQueueType(MiscUtil.getStringProperty(props, propPrefix + "." + PROP_QUEUE_TYPE, getQueueType()));
 
         fileSpoolerEnabled = MiscUtil.getBooleanProperty(props, propPrefix + "." + PROP_FILE_SPOOL_ENABLE, false);
 
@@ -166,6 +172,26 @@ public void setMaxQueueSize(int maxQueueSize) {
         this.maxQueueSize = maxQueueSize;
     }
 
+    public String getQueueType() {
+        return queueType;
+    }
+
+    public void setQueueType(String queueType) {
+        if (QUEUE_TYPE_RING_BUFFER.equalsIgnoreCase(queueType)) {
+            this.queueType = QUEUE_TYPE_RING_BUFFER;
+        } else {
+            if (queueType != null && !QUEUE_TYPE_BLOCKING.equalsIgnoreCase(queueType)) {
+                LOG.warn("Unknown queue type {} for {}. Will use {}", queueType, getName(), QUEUE_TYPE_BLOCKING);
+            }
+
+            this.queueType = QUEUE_TYPE_BLOCKING;
+        }
+    }
+
+    public boolean isRingBufferQueue() {
+        return QUEUE_TYPE_RING_BUFFER.equals(queueType);
+    }
+
     public int getMaxBatchInterval() {
         return maxBatchInterval;
     }
@@ -182,6 +208,14 @@ public void setMaxBatchSize(int maxBatchSize) {
         this.maxBatchSize = maxBatchSize;
     }
 
+    protected void logQueueStatus(BlockingQueue<?> queue) {
+        if (queue instanceof RingBufferBlockingQueue && isStatusLogEnabled()) {
+            RingBufferBlockingQueue<?> ringBuffer = (RingBufferBlockingQueue<?>) queue;
+
+            LOG.info("AuditQueue.logQueueStatus(name={}): queueSize={}, capacity={}, dropCount={}, backpressureCount={}", getName(), ringBuffer.size(), ringBuffer.getCapacity(), ringBuffer.getDropCount(), ringBuffer.getBackpressureCount());
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
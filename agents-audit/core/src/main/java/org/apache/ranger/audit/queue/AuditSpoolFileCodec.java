@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Spool file format implemented outside ranger-audit-core - like ORC, in ranger-audit-orc-util. AuditFileSpool loads
+ * the implementation by class name, given by filespool.file.format.impl; for filespool.file.format=orc, the class
+ * defaults to AuditFileSpool.ORC_FILE_CODEC_IMPL.
+ *
+ * Files written by a codec can't be appended to after a restart: the spool calls recover() on the file that was
+ * being written, and continues in a new file.
+ */
+public interface AuditSpoolFileCodec {
+    void init(Properties props, String propPrefix) throws Exception;
+
+    /**
+     * @return true if the given file was written by this codec
+     */
+    boolean isCodecFile(File file) throws IOException;
+
+    RecordWriter createWriter(File file) throws IOException;
+
+    RecordReader createReader(File file) throws IOException;
+
+    /**
+     * Called on startup for a file that was being written when the process stopped: discards the records written
+     * after the last commit, so that the file can be read.
+     */
+    void recover(File file) throws IOException;
+
+    interface RecordWriter extends Closeable {
+        void write(AuditEventBase event) throws IOException;
+
+        /**
+         * Writes an event serialized as JSON
+         */
+        void write(String event) throws IOException;
+
+        /**
+         * Makes the records written so far durable
+         */
+        void commit() throws IOException;
+
+        int getPendingCommitCount();
+    }
+
+    interface RecordReader extends Closeable {
+        /**
+         * @return the next record as JSON, or null at the end of the file
+         */
+        String readRecord() throws IOException;
+
+        /**
+         * @return approximate number of bytes of the file read so far
+         */
+        long getBytesRead();
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads audit records from a spool file: either a JSON-lines text file, or a segment file written by
+ * AuditSpoolSegmentWriter - identified by the magic number at the beginning of the file, or a file written by an
+ * AuditSpoolFileCodec.
+ */
+public class AuditSpoolFileReader implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditSpoolFileReader.class);
+
+    static final int READ_BUFFER_SIZE = 256 * 1024;
+
+    private final File            file;
+    private final long            fileSize;
+    private final DataInputStream segmentIn;
+    private final BufferedReader  textIn;
+    private final CRC32C          crc = new CRC32C();
+
+    private final AuditSpoolFileCodec.RecordReader codecIn;
+
+    private byte[]  payload = new byte[8 * 1024];
+    private long    segmentPosition;
+    private long    textPosition;
+    private boolean isEndOfSegment;
+
+    private AuditSpoolFileReader(File file, BufferedInputStream in) throws IOException {
+        this.file     = file;
+        this.fileSize = file.length();
+
+        in.mark(AuditSpoolSegmentWriter.HEADER_SIZE);
+
+        DataInputStream dataIn  = new DataInputStream(in);
+        boolean         isMagic = fileSize >= AuditSpoolSegmentWriter.HEADER_SIZE && dataIn.readInt() == AuditSpoolSegmentWriter.MAGIC;
+
+        if (isMagic) {
+            int version = dataIn.readInt();
+
+            if (version != AuditSpoolSegmentWriter.VERSION) {
+                throw new IOException("unsupported spool segment version " + version + ": file=" + file);
+            }
+
+            this.segmentIn       = dataIn;
+            this.textIn          = null;
+            this.segmentPosition = AuditSpoolSegmentWriter.HEADER_SIZE;
+        } else {
+            in.reset();
+
+            this.segmentIn = null;
+            this.textIn    = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+
+        this.codecIn = null;
+    }
+
+    private AuditSpoolFileReader(File file, AuditSpoolFileCodec.RecordReader codecIn) {
+        this.file      = file;
+        this.fileSize  = file.length();
+        this.segmentIn = null;
+        this.textIn    = null;
+        this.codecIn   = codecIn;
+    }
+
+    public static AuditSpoolFileReader open(File file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(new FileInputStream(file), READ_BUFFER_SIZE);
+
+        try {
+            return new AuditSpoolFileReader(file, in);
+        } catch (IOException excp) {
+            in.close();
+
+            throw excp;
+        }
+    }
+
+    /**
+     * Opens the given file with the codec, if the file was written by the codec; otherwise as a text or segment file
+     */
+    public static AuditSpoolFileReader open(File file, AuditSpoolFileCodec codec) throws IOException {
+        if (codec != null && codec.isCodecFile(file)) {
+            return new AuditSpoolFileReader(file, codec.createReader(file));
+        }
+
+        return open(file);
+    }
+
+    public static boolean isSegmentFile(File file) throws IOException {
+        try (AuditSpoolFileReader reader = open(file)) {
+            return reader.isSegment();
+        }
+    }
+
+    public boolean isSegment() {
+        return segmentIn != null;
+    }
+
+    /**
+     * @return offset, in a segment file, after the last record read
+     */
+    public long getSegmentPosition() {
+        return segmentPosition;
+    }
+
+    /**
+     * @return number of bytes read so far; approximate for text files, as characters are counted instead of bytes
+     */
+    public long getBytesRead() {
+        if (codecIn != null) {
+            return codecIn.getBytesRead();
+        }
+
+        return segmentIn != null ? segmentPosition : textPosition;
+    }
+
+    /**
+     * @return the next record, or null at the end of the file
+     */
+    public String readRecord() throws IOException {
+        if (codecIn != null) {
+            return codecIn.readRecord();
+        } else if (segmentIn != null) {
+            return readSegmentRecord();
+        }
+
+        String ret = textIn.readLine();
+
+        if (ret != null) {
+            textPosition += ret.length() + 1;
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (codecIn != null) {
+            codecIn.close();
+        } else if (segmentIn != null) {
+            segmentIn.close();
+        } else {
+            textIn.close();
+        }
+    }
+
+    private String readSegmentRecord() throws IOException {
+        if (isEndOfSegment) {
+            return null;
+        }
+
+        String ret = null;
+
+        try {
+            int length   = segmentIn.readInt();
+            int checksum = segmentIn.readInt();
+
+            if (length > 0 && length <= fileSize - segmentPosition - AuditSpoolSegmentWriter.RECORD_HEADER_SIZE) {
+                if (payload.length < length) {
+                    payload = new byte[Math.max(length, payload.length * 2)];
+                }
+
+                segmentIn.readFully(payload, 0, length);
+
+                crc.reset();
+                crc.update(payload, 0, length);
+
+                if ((int) crc.getValue() == checksum) {
+                    ret = new String(payload, 0, length, StandardCharsets.UTF_8);
+
+                    segmentPosition += AuditSpoolSegmentWriter.RECORD_HEADER_SIZE + length;
+                } else {
+                    logger.warn("Checksum mismatch in spool segment: ignoring the rest of the file. file={}, offset={}", file, segmentPosition);
+                }
+            } else if (length != 0) {
+                logger.warn("Invalid record length {} in spool segment: ignoring the rest of the file. file={}, offset={}", length, file, segmentPosition);
+            }
+        } catch (EOFException excp) {
+            // end of the file, or a record torn by a crash
+        }
+
+        isEndOfSegment = ret == null;
+
+        return ret;
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Replays spooled audit files to the destination. Used by the file spools, which call replay() from each of their
+ * getThreadCount() destination threads - so that many files are replayed in parallel.
+ *
+ * For each file, the next batch is read and parsed in a reader thread while the current batch is sent to the
+ * destination. Batches are limited by number of events and, optionally, by size - to match bulk request limits of
+ * the destination. Optionally, the replay rate is limited across all threads, so that a recovering destination is not
+ * overwhelmed by the backlog.
+ *
+ * Progress - files, bytes and (estimated) events pending, and estimated time to complete - is logged every
+ * filespool.replay.status.log.interval.sec seconds during replay.
+ */
+public class AuditSpoolReplayer<T> {
+    private static final Logger logger = LoggerFactory.getLogger(AuditSpoolReplayer.class);
+
+    public static final String PROP_REPLAY_THREADS                 = "filespool.replay.threads";
+    public static final String PROP_REPLAY_BATCH_SIZE              = "filespool.replay.batch.size";
+    public static final String PROP_REPLAY_BATCH_MAX_BYTES         = "filespool.replay.batch.max.bytes";
+    public static final String PROP_REPLAY_MAX_EVENTS_PER_SEC      = "filespool.replay.max.events.per.sec";
+    public static final String PROP_REPLAY_STATUS_LOG_INTERVAL_SEC = "filespool.replay.status.log.interval.sec";
+
+    private final String                     name;
+    private final Destination<T>             destination;
+    private final Supplier<Collection<File>> pendingFilesSupplier;
+    private final AuditSpoolFileCodec        codec;
+    private final Map<File, Long>            inProgressBytes = new ConcurrentHashMap<>();
+    private final LongAdder                  replayedFiles   = new LongAdder();
+    private final LongAdder                  replayedEvents  = new LongAdder();
+    private final LongAdder                  replayedBytes   = new LongAdder();
+    private final Object                     rateLimitLock   = new Object();
+
+    private int             threadCount         = 1;
+    private int             batchSize           = 1000;
+    private long            batchMaxBytes;
+    private int             maxEventsPerSec;
+    private long            statusLogIntervalMS = 60 * 1000L;
+    private ExecutorService readerExecutor;
+    private long            nextPermitNanos;
+    private long            lastStatusLogTime   = System.currentTimeMillis();
+    private long            lastStatusLogBytes;
+    private volatile double bytesPerSec;
+
+    public AuditSpoolReplayer(String name, Destination<T> destination, Supplier<Collection<File>> pendingFilesSupplier) {
+        this(name, destination, pendingFilesSupplier, null);
+    }
+
+    /**
+     * @param codec to read files written by the codec; null if the spool has only text and segment files
+     */
+    public AuditSpoolReplayer(String name, Destination<T> destination, Supplier<Collection<File>> pendingFilesSupplier, AuditSpoolFileCodec codec) {
+        this.name                 = name;
+        this.destination          = destination;
+        this.pendingFilesSupplier = pendingFilesSupplier;
+        this.codec                = codec;
+    }
+
+    public void init(Properties props, String propPrefix, int defaultBatchSize) {
+        threadCount         = Math.max(1, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_REPLAY_THREADS, threadCount));
+        batchSize           = Math.max(1, MiscUtil.getIntProperty(props, propPrefix + "." + PROP_REPLAY_BATCH_SIZE, defaultBatchSize));
+        batchMaxBytes       = MiscUtil.getLongProperty(props, propPrefix + "." + PROP_REPLAY_BATCH_MAX_BYTES, batchMaxBytes);
+        maxEventsPerSec     = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_REPLAY_MAX_EVENTS_PER_SEC, maxEventsPerSec);
+        statusLogIntervalMS = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_REPLAY_STATUS_LOG_INTERVAL_SEC, (int) (statusLogIntervalMS / 1000)) * 1000L;
+
+        logger.info("{}: replayThreads={}, replayBatchSize={}, replayBatchMaxBytes={}, replayMaxEventsPerSec={}", name, threadCount, batchSize, batchMaxBytes, maxEventsPerSec);
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public synchronized void start() {
+        if (readerExecutor == null) {
+            AtomicInteger threadIdx = new AtomicInteger();
+
+            readerExecutor = Executors.newFixedThreadPool(threadCount, r -> {
+                Thread t = new Thread(r, name + "_spoolReader" + threadIdx.getAndIncrement());
+
+                t.setDaemon(true);
+
+                return t;
+            });
+        }
+    }
+
+    public synchronized void stop() {
+        if (readerExecutor != null) {
+            readerExecutor.shutdownNow();
+
+            readerExecutor = null;
+        }
+    }
+
+    /**
+     * Sends records of the given file to the destination, starting after the first startPosition records. After each
+     * batch is accepted by the destination, checkpoint is called with the number of records sent so far.
+     *
+     * @return true if all records in the file were sent; false if the destination failed to accept a batch
+     */
+    public boolean replay(File file, int startPosition, Checkpoint checkpoint) throws IOException, InterruptedException {
+        ExecutorService executor = readerExecutor;
+
+        if (executor == null) {
+            throw new IllegalStateException(name + ": replayer is not started");
+        }
+
+        try (FileCursor cursor = new FileCursor(file, startPosition)) {
+            Future<Batch<T>> next         = executor.submit(cursor::readBatch);
+            int              lastPosition = startPosition;
+
+            try {
+                while (next != null) {
+                    Batch<T> batch = getBatch(next);
+
+                    // read the next batch while this batch is sent to the destination
+                    next = batch.isEndOfFile ? null : executor.submit(cursor::readBatch);
+
+                    if (!batch.events.isEmpty()) {
+                        acquirePermits(batch.events.size());
+
+                        if (!destination.send(batch.events)) {
+                            return false;
+                        }
+
+                        replayedEvents.add(batch.events.size());
+                    }
+
+                    if (batch.position > lastPosition) {
+                        checkpoint.update(batch.position);
+
+                        lastPosition = batch.position;
+                    }
+
+                    replayedBytes.add(batch.bytes);
+                    inProgressBytes.put(file, batch.bytesRead);
+
+                    logStatusIfRequired();
+                }
+            } finally {
+                if (next != null) { // wait for the read in progress to complete, before closing the file
+                    try {
+                        next.get();
+                    } catch (ExecutionException excp) {
+                        // ignore: the file is not read further
+                    }
+                }
+            }
+        } finally {
+            inProgressBytes.remove(file);
+        }
+
+        replayedFiles.increment();
+
+        return true;
+    }
+
+    public long getReplayedFileCount() {
+        return replayedFiles.sum();
+    }
+
+    public long getReplayedEventCount() {
+        return replayedEvents.sum();
+    }
+
+    public long getReplayedBytes() {
+        return replayedBytes.sum();
+    }
+
+    public int getPendingFileCount() {
+        return pendingFilesSupplier.get().size();
+    }
+
+    /**
+     * @return size of the files pending replay, less the part already replayed
+     */
+    public long getPendingBytes() {
+        long ret = 0;
+
+        for (File file : pendingFilesSupplier.get()) {
+            ret += Math.max(0, file.length() - inProgressBytes.getOrDefault(file, 0L));
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return number of events pending replay, estimated from the average size of the events replayed so far; -1 if
+     * no events have been replayed yet
+     */
+    public long getEstimatedPendingEvents() {
+        return getEstimatedPendingEvents(getPendingBytes());
+    }
+
+    /**
+     * @return time to replay the pending files, estimated from the replay rate in the last status interval; -1 if
+     * the rate is not known
+     */
+    public long getEstimatedTimeRemainingMS() {
+        return getEstimatedTimeRemainingMS(getPendingBytes());
+    }
+
+    public void logStatus() {
+        long pendingBytes = getPendingBytes();
+
+        logger.info("{}: replay status: pendingFiles={}, pendingBytes={}, estimatedPendingEvents={}, estimatedTimeRemainingSec={}, bytesPerSec={}, replayedFiles={}, replayedEvents={}, replayedBytes={}",
+                name, getPendingFileCount(), pendingBytes, getEstimatedPendingEvents(pendingBytes), getEstimatedTimeRemainingMS(pendingBytes) / 1000, (long) bytesPerSec, getReplayedFileCount(), getReplayedEventCount(), getReplayedBytes());
+    }
+
+    private long getEstimatedPendingEvents(long pendingBytes) {
+        long events = replayedEvents.sum();
+        long bytes  = replayedBytes.sum();
+
+        return events > 0 && bytes > 0 ? (long) (pendingBytes / ((double) bytes / events)) : -1;
+    }
+
+    private long getEstimatedTimeRemainingMS(long pendingBytes) {
+        double rate = bytesPerSec;
+
+        return rate > 0 ? (long) (pendingBytes * 1000 / rate) : -1;
+    }
+
+    private void logStatusIfRequired() {
+        boolean isLogRequired = false;
+
+        synchronized (this) {
+            long now     = System.currentTimeMillis();
+            long elapsed = now - lastStatusLogTime;
+
+            if (elapsed >= statusLogIntervalMS && statusLogIntervalMS > 0) {
+                long bytes = replayedBytes.sum();
+
+                bytesPerSec        = (bytes - lastStatusLogBytes) * 1000.0 / elapsed;
+                lastStatusLogTime  = now;
+                lastStatusLogBytes = bytes;
+                isLogRequired      = true;
+            }
+        }
+
+        if (isLogRequired) {
+            logStatus();
+        }
+    }
+
+    // paces replay to maxEventsPerSec, across all threads
+    private void acquirePermits(int count) throws InterruptedException {
+        if (maxEventsPerSec <= 0) {
+            return;
+        }
+
+        long waitNanos;
+
+        synchronized (rateLimitLock) {
+            long now   = System.nanoTime();
+            long start = Math.max(now, nextPermitNanos);
+
+            nextPermitNanos = start + count * TimeUnit.SECONDS.toNanos(1) / maxEventsPerSec;
+            waitNanos       = start - now;
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    private static <T> Batch<T> getBatch(Future<Batch<T>> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException excp) {
+            Throwable cause = excp.getCause();
+
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IOException(cause);
+        }
+    }
+
+    public interface Destination<T> {
+        /**
+         * Converts a spooled record to the event sent to the destination; called in a reader thread.
+         *
+         * @return null to skip the record
+         */
+        T toEvent(String record);
+
+        /**
+         * @return true if the destination accepted the events
+         */
+        boolean send(List<T> events);
+    }
+
+    public interface Checkpoint {
+        void update(int position) throws IOException;
+    }
+
+    private static final class Batch<T> {
+        final List<T> events;
+        final int     position;    // number of records in the file up to the end of this batch
+        final long    bytes;       // size of records in this batch
+        final long    bytesRead;   // number of bytes in the file up to the end of this batch
+        final boolean isEndOfFile;
+
+        Batch(List<T> events, int position, long bytes, long bytesRead, boolean isEndOfFile) {
+            this.events      = events;
+            this.position    = position;
+            this.bytes       = bytes;
+            this.bytesRead   = bytesRead;
+            this.isEndOfFile = isEndOfFile;
+        }
+    }
+
+    // reads batches from a file; readBatch() is called by one thread at a time
+    private final class FileCursor implements Closeable {
+        private final AuditSpoolFileReader reader;
+        private final int                  startPosition;
+        private       int                  position;
+        private       String               nextRecord;      // record read ahead, that didn't fit in the previous batch
+        private       long                 nextRecordStart;
+
+        FileCursor(File file, int startPosition) throws IOException {
+            this.reader        = AuditSpoolFileReader.open(file, codec);
+            this.startPosition = startPosition;
+        }
+
+        Batch<T> readBatch() throws IOException {
+            List<T> events      = new ArrayList<>(batchSize);
+            long    startBytes  = -1;
+            long    batchBytes  = 0;
+            boolean isEndOfFile = false;
+
+            while (events.size() < batchSize && (batchMaxBytes <= 0 || batchBytes < batchMaxBytes)) {
+                long   recordStart;
+                String record;
+
+                if (nextRecord != null) {
+                    recordStart = nextRecordStart;
+                    record      = nextRecord;
+                    nextRecord  = null;
+                } else {
+                    recordStart = reader.getBytesRead();
+                    record      = reader.readRecord();
+                }
+
+                if (record == null) {
+                    isEndOfFile = true;
+
+                    break;
+                }
+
+                if (position >= startPosition) {
+                    if (startBytes == -1) {
+                        startBytes = recordStart;
+                    } else if (batchMaxBytes > 0 && (reader.getBytesRead() - startBytes) > batchMaxBytes) {
+                        // the record would take the batch past batchMaxBytes; hold it for the next batch
+                        nextRecord      = record;
+                        nextRecordStart = recordStart;
+
+                        break;
+                    }
+                }
+
+                position++;
+
+                if (position <= startPosition) { // already sent
+                    continue;
+                }
+
+                T event = destination.toEvent(record);
+
+                if (event != null) {
+                    events.add(event);
+                }
+
+                batchBytes = reader.getBytesRead() - startBytes;
+            }
+
+            long bytesRead = nextRecord != null ? nextRecordStart : reader.getBytesRead();
+
+            return new Batch<>(events, position, batchBytes, bytesRead, isEndOfFile);
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
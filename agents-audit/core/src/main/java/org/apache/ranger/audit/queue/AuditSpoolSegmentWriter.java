@@ -0,0 +1,316 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes audit records to a spool segment file through a FileChannel, with group commit: records are buffered and
+ * forced to disk once commitEvents records are pending, or when commit() is called - AuditFileSpool calls it every
+ * commitIntervalMS. The file is preallocated in chunks, so that most commits need only fdatasync, not an update of
+ * the file size in the file system metadata.
+ *
+ * Segment format:
+ *   header: int MAGIC, int VERSION
+ *   record: int length, int crc32c(payload), byte[length] payload (UTF-8 JSON)
+ * A record with length 0 - i.e. the preallocated, unused part of the file - or with a CRC mismatch, like a record
+ * torn by a crash, marks the end of the segment.
+ *
+ * Instances are not thread-safe; AuditFileSpool serializes access.
+ */
+public class AuditSpoolSegmentWriter implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditSpoolSegmentWriter.class);
+
+    public static final int MAGIC              = 0x52415350; // "RASP"
+    public static final int VERSION            = 1;
+    public static final int HEADER_SIZE        = 8;
+    public static final int RECORD_HEADER_SIZE = 8;
+
+    static final int WRITE_BUFFER_SIZE = 256 * 1024;
+    static final int ZERO_BUFFER_SIZE  = 64 * 1024;
+
+    private final File        file;
+    private final FileChannel channel;
+    private final long        maxSize;
+    private final long        preallocateSize;
+    private final int         commitEvents;
+    private final ByteBuffer  writeBuffer  = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+    private final ByteBuffer  recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    private final CRC32C      crc          = new CRC32C();
+
+    private long    writePosition;   // end of records written to the channel; buffered records follow
+    private long    allocatedSize;   // size of the file, including preallocated space
+    private int     recordCount;
+    private int     pendingCommitCount;
+    private long    commitCount;
+    private boolean isMetadataChanged;
+
+    private AuditSpoolSegmentWriter(File file, FileChannel channel, long maxSize, long preallocateSize, int commitEvents) {
+        this.file            = file;
+        this.channel         = channel;
+        this.maxSize         = maxSize;
+        this.preallocateSize = preallocateSize;
+        this.commitEvents    = commitEvents;
+    }
+
+    /**
+     * Creates a new segment file
+     */
+    public static AuditSpoolSegmentWriter create(File file, long maxSize, long preallocateSize, int commitEvents) throws IOException {
+        FileChannel             channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        AuditSpoolSegmentWriter ret     = new AuditSpoolSegmentWriter(file, channel, maxSize, preallocateSize, commitEvents);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+
+            header.flip();
+
+            ret.writeFully(header, 0);
+
+            ret.writePosition     = HEADER_SIZE;
+            ret.allocatedSize     = HEADER_SIZE;
+            ret.isMetadataChanged = true;
+
+            ret.commit();
+        } catch (IOException excp) {
+            channel.close();
+
+            throw excp;
+        }
+
+        return ret;
+    }
+
+    /**
+     * Opens an existing segment file to append records, after the last valid record. Content after the last valid
+     * record, like a record torn by a crash, is discarded.
+     *
+     * @return null if the file is not a segment file
+     */
+    public static AuditSpoolSegmentWriter openForAppend(File file, long maxSize, long preallocateSize, int commitEvents) throws IOException {
+        int  recordCount = 0;
+        long validEnd;
+
+        try (AuditSpoolFileReader reader = AuditSpoolFileReader.open(file)) {
+            if (!reader.isSegment()) {
+                return null;
+            }
+
+            while (reader.readRecord() != null) {
+                recordCount++;
+            }
+
+            validEnd = reader.getSegmentPosition();
+        }
+
+        FileChannel             channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        AuditSpoolSegmentWriter ret     = new AuditSpoolSegmentWriter(file, channel, maxSize, preallocateSize, commitEvents);
+
+        try {
+            if (channel.size() > validEnd) {
+                logger.info("Discarding {} bytes after the last record in spool segment. file={}, records={}", channel.size() - validEnd, file, recordCount);
+
+                channel.truncate(validEnd);
+
+                ret.isMetadataChanged = true;
+            }
+
+            ret.writePosition = validEnd;
+            ret.allocatedSize = validEnd;
+            ret.recordCount   = recordCount;
+
+            ret.commit();
+        } catch (IOException excp) {
+            channel.close();
+
+            throw excp;
+        }
+
+        return ret;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public long getCommitCount() {
+        return commitCount;
+    }
+
+    public int getPendingCommitCount() {
+        return pendingCommitCount;
+    }
+
+    /**
+     * @return size of the records written, including the records not yet committed
+     */
+    public long getSize() {
+        return writePosition + writeBuffer.position();
+    }
+
+    /**
+     * Appends a record with the remaining bytes of the given buffer. Commits if commitEvents records are pending.
+     *
+     * @return false if the record would exceed the maximum segment size - the caller should then roll over to a new
+     * segment. The first record of a segment is always accepted.
+     */
+    public boolean append(ByteBuffer payload) throws IOException {
+        int  length  = payload.remaining();
+        long newSize = getSize() + RECORD_HEADER_SIZE + length;
+
+        if (newSize > maxSize && recordCount > 0) {
+            return false;
+        }
+
+        crc.reset();
+        crc.update(payload.duplicate());
+
+        int checksum = (int) crc.getValue();
+
+        if (writeBuffer.remaining() < RECORD_HEADER_SIZE + length) {
+            flush();
+        }
+
+        if (writeBuffer.remaining() >= RECORD_HEADER_SIZE + length) {
+            writeBuffer.putInt(length).putInt(checksum).put(payload);
+        } else { // record larger than the write buffer; write directly to the channel
+            preallocate(newSize);
+
+            recordHeader.clear();
+            recordHeader.putInt(length).putInt(checksum).flip();
+
+            writeFully(recordHeader, writePosition);
+            writeFully(payload, writePosition + RECORD_HEADER_SIZE);
+
+            writePosition = newSize;
+        }
+
+        recordCount++;
+        pendingCommitCount++;
+
+        if (commitEvents > 0 && pendingCommitCount >= commitEvents) {
+            commit();
+        }
+
+        return true;
+    }
+
+    /**
+     * Writes buffered records to the file, without forcing them to disk
+     */
+    public void flush() throws IOException {
+        if (writeBuffer.position() > 0) {
+            preallocate(getSize());
+
+            writeBuffer.flip();
+
+            writeFully(writeBuffer, writePosition);
+
+            writePosition += writeBuffer.limit();
+
+            writeBuffer.clear();
+        }
+    }
+
+    /**
+     * Writes buffered records to the file and forces them to disk
+     */
+    public void commit() throws IOException {
+        flush();
+
+        channel.force(isMetadataChanged);
+
+        isMetadataChanged  = false;
+        pendingCommitCount = 0;
+
+        commitCount++;
+    }
+
+    /**
+     * Commits pending records, and releases the unused preallocated space
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+
+            if (allocatedSize > writePosition) {
+                channel.truncate(writePosition);
+
+                isMetadataChanged = true;
+            }
+
+            commit();
+        } finally {
+            channel.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AuditSpoolSegmentWriter={file=" + file + ", size=" + getSize() + ", recordCount=" + recordCount + ", pendingCommitCount=" + pendingCommitCount + ", commitCount=" + commitCount + "}";
+    }
+
+    // fills the file with zeros up to the next multiple of preallocateSize, when the given size exceeds the allocated size
+    private void preallocate(long size) throws IOException {
+        if (size <= allocatedSize) {
+            return;
+        }
+
+        if (preallocateSize > 0) {
+            long       newAllocatedSize = Math.max(size, Math.min(maxSize, (size / preallocateSize + 1) * preallocateSize));
+            ByteBuffer zeros            = ByteBuffer.allocateDirect(ZERO_BUFFER_SIZE);
+
+            for (long pos = allocatedSize; pos < newAllocatedSize; pos += ZERO_BUFFER_SIZE) {
+                zeros.clear();
+                zeros.limit((int) Math.min(ZERO_BUFFER_SIZE, newAllocatedSize - pos));
+
+                writeFully(zeros, pos);
+            }
+
+            allocatedSize = newAllocatedSize;
+        } else {
+            allocatedSize = size; // file will be extended by the write
+        }
+
+        isMetadataChanged = true;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        long pos = position;
+
+        while (buffer.hasRemaining()) {
+            pos += channel.write(buffer, pos);
+        }
+    }
+}
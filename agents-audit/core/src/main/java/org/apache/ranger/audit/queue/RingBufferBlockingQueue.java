@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded multi-producer/single-consumer queue backed by a pre-allocated ring buffer. Producers claim a slot with a
+ * CAS on the producer index, instead of contending on the single lock of ArrayBlockingQueue; the consumer drains
+ * available events in a batch and publishes the consumer index once per batch.
+ *
+ * Only one thread must consume from the queue, i.e. call poll(), take(), drainTo(), peek(), remove() or clear().
+ * Producers blocked in put() on the full queue wait, on a lock used only in this slow path, until the consumer frees
+ * up half of the queue.
+ *
+ * getDropCount() returns the number of events rejected by offer() as the queue was full; getBackpressureCount()
+ * returns the number of put()/offer(timeout) calls that had to wait for space.
+ */
+public class RingBufferBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    static final int MAX_CAPACITY   = 1 << 30;
+    static final int MAX_SPIN_COUNT = 64;
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int                     mask;
+    private final int                     capacity;
+    private final int                     lowWatermark;
+    private final AtomicLong              producerIndex     = new AtomicLong();
+    private final AtomicLong              consumerIndex     = new AtomicLong();
+    private final LongAdder               dropCount         = new LongAdder();
+    private final LongAdder               backpressureCount = new LongAdder();
+    private final ReentrantLock           notFullLock       = new ReentrantLock();
+    private final Condition               notFull           = notFullLock.newCondition();
+    private final AtomicInteger           waitingProducers  = new AtomicInteger();
+
+    private volatile long   producerLimit; // cached consumerIndex + capacity, to avoid reading consumerIndex on every offer
+    private volatile Thread waitingConsumer;
+
+    public RingBufferBlockingQueue(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("invalid capacity " + capacity + ": must be between 1 and " + MAX_CAPACITY);
+        }
+
+        int bufferSize = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1)); // next power of 2
+
+        this.buffer        = new AtomicReferenceArray<>(bufferSize);
+        this.mask          = bufferSize - 1;
+        this.capacity      = capacity;
+        this.lowWatermark  = capacity / 2;
+        this.producerLimit = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getDropCount() {
+        return dropCount.sum();
+    }
+
+    public long getBackpressureCount() {
+        return backpressureCount.sum();
+    }
+
+    @Override
+    public boolean offer(E e) {
+        boolean ret = tryOffer(e);
+
+        if (!ret) {
+            dropCount.increment();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (!tryOffer(e)) {
+            backpressureCount.increment();
+
+            waitAndOffer(e, Long.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (tryOffer(e)) {
+            return true;
+        }
+
+        backpressureCount.increment();
+
+        boolean ret = waitAndOffer(e, unit.toNanos(timeout));
+
+        if (!ret) {
+            dropCount.increment();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E poll() {
+        long cIndex = consumerIndex.get();
+        int  offset = offset(cIndex);
+        E    ret    = buffer.get(offset);
+
+        if (ret == null) {
+            if (cIndex == producerIndex.get()) {
+                return null;
+            }
+
+            ret = waitForElement(offset); // slot claimed by a producer, element not yet published
+        }
+
+        buffer.lazySet(offset, null);
+        consumerIndex.set(cIndex + 1);
+
+        signalProducers(cIndex + 1);
+
+        return ret;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E ret = poll();
+
+        while (ret == null) {
+            waitingConsumer = Thread.currentThread();
+
+            try {
+                if (isEmpty()) { // check after publishing waitingConsumer, to not miss a signal from producers
+                    LockSupport.park(this);
+                }
+            } finally {
+                waitingConsumer = null;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            ret = poll();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E    ret      = poll();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        while (ret == null) {
+            long remainingNs = deadline - System.nanoTime();
+
+            if (remainingNs <= 0) {
+                break;
+            }
+
+            waitingConsumer = Thread.currentThread();
+
+            try {
+                if (isEmpty()) {
+                    LockSupport.parkNanos(this, remainingNs);
+                }
+            } finally {
+                waitingConsumer = null;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            ret = poll();
+        }
+
+        return ret;
+    }
+
+    @Override
+    public E peek() {
+        long cIndex = consumerIndex.get();
+        int  offset = offset(cIndex);
+        E    ret    = buffer.get(offset);
+
+        if (ret == null && cIndex != producerIndex.get()) {
+            ret = waitForElement(offset);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        requireNonNull(c);
+
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+
+        long cIndex = consumerIndex.get();
+        int  count  = (int) Math.min(maxElements, producerIndex.get() - cIndex);
+        int  ret    = 0;
+
+        try {
+            while (ret < count) {
+                int offset = offset(cIndex + ret);
+                E   e      = buffer.get(offset);
+
+                if (e == null) { // slot claimed by a producer, element not yet published; the rest will be drained in next call
+                    break;
+                }
+
+                buffer.lazySet(offset, null);
+
+                ret++;
+
+                c.add(e);
+            }
+        } finally {
+            if (ret > 0) {
+                consumerIndex.set(cIndex + ret); // single update of consumerIndex for the batch
+
+                signalProducers(cIndex + ret);
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public int size() {
+        long cIndex = consumerIndex.get();
+        long pIndex = producerIndex.get();
+
+        return (int) Math.max(0, Math.min(pIndex - cIndex, capacity));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return consumerIndex.get() == producerIndex.get();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * @return weakly consistent snapshot of the elements in the queue; remove() is not supported
+     */
+    @Override
+    public Iterator<E> iterator() {
+        long    cIndex = consumerIndex.get();
+        long    pIndex = producerIndex.get();
+        List<E> ret    = new ArrayList<>();
+
+        for (long i = cIndex; i < pIndex; i++) {
+            E e = buffer.get(offset(i));
+
+            if (e != null) {
+                ret.add(e);
+            }
+        }
+
+        return Collections.unmodifiableList(ret).iterator();
+    }
+
+    @Override
+    public String toString() {
+        return "RingBufferBlockingQueue={capacity=" + capacity + ", size=" + size() + ", dropCount=" + getDropCount() + ", backpressureCount=" + getBackpressureCount() + "}";
+    }
+
+    private boolean tryOffer(E e) {
+        requireNonNull(e);
+
+        long pIndex;
+
+        do {
+            pIndex = producerIndex.get();
+
+            if (pIndex >= producerLimit) {
+                long limit = consumerIndex.get() + capacity;
+
+                if (pIndex >= limit) {
+                    return false;
+                }
+
+                producerLimit = limit;
+            }
+        } while (!producerIndex.compareAndSet(pIndex, pIndex + 1));
+
+        buffer.lazySet(offset(pIndex), e);
+
+        Thread consumer = waitingConsumer;
+
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+
+        return true;
+    }
+
+    // slow path, when the queue is full: wait for the consumer to free up space
+    private boolean waitAndOffer(E e, long timeoutNs) throws InterruptedException {
+        long remainingNs = timeoutNs;
+
+        notFullLock.lockInterruptibly();
+
+        try {
+            waitingProducers.incrementAndGet();
+
+            while (!tryOffer(e)) { // checked after incrementing waitingProducers, to not miss a signal from the consumer
+                if (remainingNs <= 0) {
+                    return false;
+                }
+
+                remainingNs = notFull.awaitNanos(remainingNs);
+            }
+
+            return true;
+        } finally {
+            waitingProducers.decrementAndGet();
+
+            notFullLock.unlock();
+        }
+    }
+
+    // blocked producers are woken up only after the consumer frees up half of the queue: waking up producers for
+    // every freed slot would result in a context switch from the consumer for each event
+    private void signalProducers(long cIndex) {
+        if (waitingProducers.get() > 0 && (producerIndex.get() - cIndex) <= lowWatermark) {
+            notFullLock.lock();
+
+            try {
+                notFull.signalAll();
+            } finally {
+                notFullLock.unlock();
+            }
+        }
+    }
+
+    private E waitForElement(int offset) {
+        E ret = buffer.get(offset);
+
+        for (int i = 0; ret == null; i++) {
+            if (i < MAX_SPIN_COUNT) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield(); // producer that claimed the slot might have been descheduled
+            }
+
+            ret = buffer.get(offset);
+        }
+
+        return ret;
+    }
+
+    private int offset(long index) {
+        return (int) index & mask;
+    }
+}
@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+
+/**
+ * Serializes audit events to JSON, as UTF-8 bytes in a reusable buffer - without creating intermediate Strings.
+ * AuthzAuditEvent is serialized by hand-written code, which produces the same JSON as MiscUtil.stringify(); other
+ * event types are serialized with the ObjectMapper used by MiscUtil.stringify().
+ *
+ * Instances are not thread-safe; use getInstance() to get the instance for the current thread. Typical usage:
+ *   AuditEventJsonSerializer.getInstance().reset().appendLine(event1).appendLine(event2).writeTo(out);
+ */
+public final class AuditEventJsonSerializer {
+    private static final Logger LOG = LoggerFactory.getLogger(AuditEventJsonSerializer.class);
+
+    static final int INITIAL_BUFFER_SIZE      = 8 * 1024;
+    static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<AuditEventJsonSerializer> INSTANCE = ThreadLocal.withInitial(AuditEventJsonSerializer::new);
+
+    private static final byte[] HEX_DIGITS = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] ESCAPES    = new byte[128]; // 0: no escape, -1: \\u00XX, others: \\<char>
+
+    static {
+        Arrays.fill(ESCAPES, 0, 32, (byte) -1);
+
+        ESCAPES['\b'] = 'b';
+        ESCAPES['\t'] = 't';
+        ESCAPES['\n'] = 'n';
+        ESCAPES['\f'] = 'f';
+        ESCAPES['\r'] = 'r';
+        ESCAPES['"']  = '"';
+        ESCAPES['\\'] = '\\';
+    }
+
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int    count;
+    private long   cachedEpochSecond = Long.MIN_VALUE;
+    private byte[] cachedDateTime; // "yyyy-MM-dd HH:mm:ss." for cachedEpochSecond
+    private ZoneId cachedZone;
+
+    AuditEventJsonSerializer() {
+    }
+
+    public static AuditEventJsonSerializer getInstance() {
+        return INSTANCE.get();
+    }
+
+    public static String toJson(AuditEventBase event) {
+        return getInstance().reset().append(event).toString();
+    }
+
+    public AuditEventJsonSerializer reset() {
+        if (buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+            buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+
+        count = 0;
+
+        return this;
+    }
+
+    public AuditEventJsonSerializer append(AuditEventBase event) {
+        if (event != null && event.getClass() == AuthzAuditEvent.class) {
+            writeAuthzAuditEvent((AuthzAuditEvent) event);
+        } else if (event != null) {
+            writeWithMapper(event);
+        }
+
+        return this;
+    }
+
+    public AuditEventJsonSerializer appendLine(AuditEventBase event) {
+        append(event);
+        writeByte('\n');
+
+        return this;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, count);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, count);
+    }
+
+    /**
+     * @return view of the serialized bytes, valid until the next call to reset() or append()
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(buffer, 0, count);
+    }
+
+    @Override
+    public String toString() {
+        return new String(buffer, 0, count, StandardCharsets.UTF_8);
+    }
+
+    // writes fields in the same order, and with the same inclusion rule (JsonInclude.Include.NON_EMPTY), as Jackson
+    private void writeAuthzAuditEvent(AuthzAuditEvent event) {
+        int startCount = count;
+
+        writeByte('{');
+
+        writeField("repoType", event.getRepositoryType());
+        writeField("repo", event.getRepositoryName());
+        writeField("reqUser", event.getUser());
+        writeField("evtTime", event.getEventTime());
+        writeField("access", event.getAccessType());
+        writeField("resource", event.getResourcePath());
+        writeField("resType", event.getResourceType());
+        writeField("action", event.getAction());
+        writeField("result", event.getAccessResult());
+        writeField("agent", event.getAgentId());
+        writeField("policy", event.getPolicyId());
+        writeField("reason", event.getResultReason());
+        writeField("enforcer", event.getAclEnforcer());
+        writeField("sess", event.getSessionId());
+        writeField("cliType", event.getClientType());
+        writeField("cliIP", event.getClientIP());
+        writeField("reqData", event.getRequestData());
+        writeField("agentHost", event.getAgentHostname());
+        writeField("logType", event.getLogType());
+        writeField("id", event.getEventId());
+        writeField("seq_num", event.getSeqNum());
+        writeField("event_count", event.getEventCount());
+        writeField("event_dur_ms", event.getEventDurationMS());
+        writeField("tags", event.getTags());
+        writeField("datasets", event.getDatasets());
+        writeField("projects", event.getProjects());
+        writeField("datasetIds", event.getDatasetIds());
+        writeField("additional_info", event.getAdditionalInfo());
+        writeField("cluster_name", event.getClusterName());
+        writeField("zone_name", event.getZoneName());
+
+        if (event.getPolicyVersion() != null) {
+            writeField("policy_version", event.getPolicyVersion().longValue());
+        }
+
+        if (count == startCount + 1) { // no field written
+            writeByte('}');
+        } else {
+            buffer[count - 1] = '}'; // replace the trailing ','
+        }
+    }
+
+    private void writeWithMapper(AuditEventBase event) {
+        byte[] json;
+
+        try {
+            json = MiscUtil.getMapper().writeValueAsBytes(event);
+        } catch (Exception e) {
+            LOG.error("Error occurred while processing JSOn object {}", event, e);
+
+            json = event.toString().getBytes(StandardCharsets.UTF_8); // Fallback to default toString() method, as in MiscUtil.stringify()
+        }
+
+        ensureCapacity(json.length);
+
+        System.arraycopy(json, 0, buffer, count, json.length);
+
+        count += json.length;
+    }
+
+    private void writeField(String name, String value) {
+        if (value != null && !value.isEmpty()) {
+            writeFieldName(name);
+            writeString(value);
+            writeByte(',');
+        }
+    }
+
+    private void writeField(String name, long value) {
+        writeFieldName(name);
+        writeLong(value);
+        writeByte(',');
+    }
+
+    private void writeField(String name, Date value) {
+        if (value != null) {
+            writeFieldName(name);
+            writeDate(value.getTime());
+            writeByte(',');
+        }
+    }
+
+    private void writeField(String name, Collection<?> values) {
+        if (values != null && !values.isEmpty()) {
+            writeFieldName(name);
+            writeByte('[');
+
+            boolean isFirst = true;
+
+            for (Object value : values) {
+                if (!isFirst) {
+                    writeByte(',');
+                }
+
+                if (value == null) {
+                    writeAscii("null");
+                } else if (value instanceof Long) {
+                    writeLong((Long) value);
+                } else {
+                    writeString(value.toString());
+                }
+
+                isFirst = false;
+            }
+
+            writeByte(']');
+            writeByte(',');
+        }
+    }
+
+    private void writeFieldName(String name) { // field names are ASCII, without characters to escape
+        ensureCapacity(name.length() + 3);
+
+        buffer[count++] = '"';
+
+        for (int i = 0; i < name.length(); i++) {
+            buffer[count++] = (byte) name.charAt(i);
+        }
+
+        buffer[count++] = '"';
+        buffer[count++] = ':';
+    }
+
+    private void writeString(String value) {
+        int len = value.length();
+
+        ensureCapacity(len * 3 + 2); // a char takes at most 3 bytes in UTF-8; escapes are handled in writeEscaped()
+
+        buffer[count++] = '"';
+
+        for (int i = 0; i < len; i++) {
+            char c = value.charAt(i);
+
+            if (c < 128) {
+                byte escape = ESCAPES[c];
+
+                if (escape == 0) {
+                    buffer[count++] = (byte) c;
+                } else {
+                    writeEscaped(c, escape, len - i);
+                }
+            } else if (c < 0x800) {
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+
+                buffer[count++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[count++] = '?'; // unpaired surrogate, replaced as done by the UTF-8 encoder
+            } else {
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        buffer[count++] = '"';
+    }
+
+    private void writeEscaped(char c, byte escape, int remainingChars) {
+        ensureCapacity(6 + remainingChars * 3 + 1);
+
+        buffer[count++] = '\\';
+
+        if (escape > 0) {
+            buffer[count++] = escape;
+        } else {
+            buffer[count++] = 'u';
+            buffer[count++] = '0';
+            buffer[count++] = '0';
+            buffer[count++] = HEX_DIGITS[c >> 4];
+            buffer[count++] = HEX_DIGITS[c & 0xF];
+        }
+    }
+
+    // same format as the ObjectMapper in MiscUtil: yyyy-MM-dd HH:mm:ss.SSS, in the default timezone
+    private void writeDate(long epochMillis) {
+        long   epochSecond = Math.floorDiv(epochMillis, 1000L);
+        int    millis      = (int) Math.floorMod(epochMillis, 1000L);
+        ZoneId zone        = ZoneId.systemDefault();
+
+        if (epochSecond != cachedEpochSecond || !zone.equals(cachedZone)) {
+            ZoneOffset    offset   = zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+            LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, offset);
+
+            cachedDateTime    = String.format("%04d-%02d-%02d %02d:%02d:%02d.", dateTime.getYear(), dateTime.getMonthValue(), dateTime.getDayOfMonth(), dateTime.getHour(), dateTime.getMinute(), dateTime.getSecond()).getBytes(StandardCharsets.US_ASCII);
+            cachedEpochSecond = epochSecond;
+            cachedZone        = zone;
+        }
+
+        ensureCapacity(cachedDateTime.length + 5);
+
+        buffer[count++] = '"';
+
+        System.arraycopy(cachedDateTime, 0, buffer, count, cachedDateTime.length);
+
+        count += cachedDateTime.length;
+
+        buffer[count++] = (byte) ('0' + millis / 100);
+        buffer[count++] = (byte) ('0' + (millis / 10) % 10);
+        buffer[count++] = (byte) ('0' + millis % 10);
+        buffer[count++] = '"';
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeAscii(Long.toString(value));
+
+            return;
+        }
+
+        ensureCapacity(20);
+
+        if (value < 0) {
+            buffer[count++] = '-';
+
+            value = -value;
+        }
+
+        int digits = 1;
+
+        for (long v = value / 10; v != 0; v /= 10) {
+            digits++;
+        }
+
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + (value % 10));
+
+            value /= 10;
+        }
+
+        count += digits;
+    }
+
+    private void writeAscii(String value) {
+        ensureCapacity(value.length());
+
+        for (int i = 0; i < value.length(); i++) {
+            buffer[count++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+
+        buffer[count++] = (byte) c;
+    }
+
+    private void ensureCapacity(int len) {
+        if (count + len > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, count + len));
+        }
+    }
+}
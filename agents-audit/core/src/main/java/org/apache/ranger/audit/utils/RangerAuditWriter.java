@@ -19,8 +19,13 @@
  * under the License.
  */
 
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.provider.MiscUtil;
+
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -29,6 +34,20 @@ public interface RangerAuditWriter {
 
     boolean log(Collection<String> events) throws Exception;
 
+    /**
+     * Writes the given audit events. Writers that store events as JSON text should override this to serialize the
+     * events directly to the output, instead of creating a String for each event.
+     */
+    default boolean logEvents(Collection<AuditEventBase> events) throws Exception {
+        List<String> jsonList = new ArrayList<>(events.size());
+
+        for (AuditEventBase event : events) {
+            jsonList.add(MiscUtil.stringify(event));
+        }
+
+        return log(jsonList);
+    }
+
     boolean logFile(File file) throws Exception;
 
     void start();
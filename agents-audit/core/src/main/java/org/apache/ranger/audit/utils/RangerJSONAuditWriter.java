@@ -19,12 +19,13 @@
  * under the License.
  */
 
-import org.apache.commons.collections.CollectionUtils;
+import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.security.PrivilegedExceptionAction;
 import java.util.Collection;
@@ -89,57 +90,30 @@ public void init() {
     }
 
     public synchronized boolean logJSON(final Collection<String> events) throws Exception {
-        PrintWriter out = null;
-
-        try {
-            logger.debug("UGI = {}, will write to HDFS file = {}", MiscUtil.getUGILoginUser(), currentFileName);
-
-            out = MiscUtil.executePrivilegedAction((PrivilegedExceptionAction<PrintWriter>) () -> {
-                PrintWriter out1 = null;
-
-                if (CollectionUtils.isEmpty(events)) {
-                    closeFileIfNeeded();
-                } else {
-                    out1 = getLogFileStream();
-
-                    logger.debug("Writing {} audit events to HDFS file: {}", events.size(), currentFileName);
-
-                    for (String event : events) {
-                        out1.println(event);
-                    }
-
-                    logger.debug("Successfully wrote {} audit events to HDFS", events.size());
-                }
-
-                return out1;
-            });
-
-            // flush and check the stream for errors
-            if (out != null && out.checkError()) {
-                // In theory, this count may NOT be accurate as part of the messages may have been successfully written.
-                // However, in practice, since client does buffering, either all or none would succeed.
-                logger.error("Stream encountered errors while writing audits to HDFS!");
-
-                closeWriter();
-                resetWriter();
-
-                return false;
+        return writeToLogFile(events.size(), out -> {
+            for (String event : events) {
+                out.println(event);
             }
-        } catch (Exception e) {
-            logger.error("Exception encountered while writing audits to HDFS!", e);
-            closeWriter();
-            resetWriter();
+        });
+    }
 
-            return false;
-        } finally {
-            logger.debug("Flushing HDFS audit. Event Size:{}", events.size());
+    /**
+     * Serializes the events as UTF-8 JSON lines into a reusable buffer, and writes the buffer to the log file with a
+     * single call - without creating a String for each event.
+     */
+    @Override
+    public synchronized boolean logEvents(final Collection<AuditEventBase> events) throws Exception {
+        final AuditEventJsonSerializer serializer = AuditEventJsonSerializer.getInstance().reset();
 
-            if (out != null) {
-                out.flush();
-            }
+        for (AuditEventBase event : events) {
+            serializer.appendLine(event);
         }
 
-        return true;
+        return writeToLogFile(events.size(), out -> {
+            out.flush(); // write out contents buffered in the PrintWriter, if any, before writing directly to the stream
+
+            serializer.writeTo(ostream);
+        });
     }
 
     @Override
@@ -193,6 +167,58 @@ public synchronized PrintWriter getLogFileStream() throws Exception {
         return createWriter();
     }
 
+    private boolean writeToLogFile(final int eventCount, final EventsWriter eventsWriter) {
+        PrintWriter out = null;
+
+        try {
+            logger.debug("UGI = {}, will write to HDFS file = {}", MiscUtil.getUGILoginUser(), currentFileName);
+
+            out = MiscUtil.executePrivilegedAction((PrivilegedExceptionAction<PrintWriter>) () -> {
+                PrintWriter out1 = null;
+
+                if (eventCount == 0) {
+                    closeFileIfNeeded();
+                } else {
+                    out1 = getLogFileStream();
+
+                    logger.debug("Writing {} audit events to HDFS file: {}", eventCount, currentFileName);
+
+                    eventsWriter.write(out1);
+
+                    logger.debug("Successfully wrote {} audit events to HDFS", eventCount);
+                }
+
+                return out1;
+            });
+
+            // flush and check the stream for errors
+            if (out != null && out.checkError()) {
+                // In theory, this count may NOT be accurate as part of the messages may have been successfully written.
+                // However, in practice, since client does buffering, either all or none would succeed.
+                logger.error("Stream encountered errors while writing audits to HDFS!");
+
+                closeWriter();
+                resetWriter();
+
+                return false;
+            }
+        } catch (Exception e) {
+            logger.error("Exception encountered while writing audits to HDFS!", e);
+            closeWriter();
+            resetWriter();
+
+            return false;
+        } finally {
+            logger.debug("Flushing HDFS audit. Event Size:{}", eventCount);
+
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        return true;
+    }
+
     private void startAuditFilePeriodicRollOverTask() {
         ScheduledExecutorService executorService = Executors.newSingleThreadScheduledExecutor(new AuditFilePeriodicRollOverTaskThreadFactory());
 
@@ -201,6 +227,10 @@ private void startAuditFilePeriodicRollOverTask() {
         executorService.scheduleAtFixedRate(new AuditFilePeriodicRollOverTask(), 0, periodicRollOverCheckTimeinSec, TimeUnit.SECONDS);
     }
 
+    private interface EventsWriter {
+        void write(PrintWriter out) throws IOException;
+    }
+
     static class AuditFilePeriodicRollOverTaskThreadFactory implements ThreadFactory {
         //Threadfactory to create a daemon Thread.
         @Override
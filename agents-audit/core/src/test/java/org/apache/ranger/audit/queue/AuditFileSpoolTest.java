@@ -0,0 +1,358 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.AuditHandler;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AuditFileSpoolTest {
+    @TempDir
+    File tmpDir;
+
+    @Test
+    public void testSegmentWriteAndRead() throws Exception {
+        File         file    = new File(tmpDir, "segment.log");
+        List<String> records = Arrays.asList("{\"reqUser\":\"user1\"}", "{\"resource\":\"/data/été/日本\"}", String.join("", Collections.nCopies(AuditSpoolSegmentWriter.WRITE_BUFFER_SIZE, "x")), "{\"reqUser\":\"user2\"}");
+
+        try (AuditSpoolSegmentWriter writer = AuditSpoolSegmentWriter.create(file, 1024 * 1024, 64 * 1024, 2)) {
+            for (String record : records) {
+                assertTrue(writer.append(toByteBuffer(record)));
+            }
+
+            assertEquals(records.size(), writer.getRecordCount());
+            assertEquals(0, writer.getPendingCommitCount(), "commit expected after every 2 records");
+            assertTrue(file.length() >= writer.getSize(), "file must be preallocated");
+        }
+
+        assertTrue(AuditSpoolFileReader.isSegmentFile(file));
+        assertEquals(records, readRecords(file));
+        assertEquals(AuditSpoolSegmentWriter.HEADER_SIZE + records.stream().mapToLong(r -> AuditSpoolSegmentWriter.RECORD_HEADER_SIZE + r.getBytes(StandardCharsets.UTF_8).length).sum(), file.length(), "preallocated space must be released on close");
+    }
+
+    @Test
+    public void testSegmentFull() throws Exception {
+        File file = new File(tmpDir, "segment.log");
+
+        try (AuditSpoolSegmentWriter writer = AuditSpoolSegmentWriter.create(file, 64, 0, 0)) {
+            assertTrue(writer.append(toByteBuffer(String.join("", Collections.nCopies(100, "x")))), "first record must be accepted even if larger than the segment");
+            assertFalse(writer.append(toByteBuffer("{}")));
+            assertEquals(1, writer.getRecordCount());
+        }
+    }
+
+    @Test
+    public void testAppendAfterTornRecord() throws Exception {
+        File file = new File(tmpDir, "segment.log");
+
+        try (AuditSpoolSegmentWriter writer = AuditSpoolSegmentWriter.create(file, 1024 * 1024, 64 * 1024, 0)) {
+            writer.append(toByteBuffer("record-1"));
+            writer.append(toByteBuffer("record-2"));
+        }
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) { // simulate a record torn by a crash
+            raf.seek(raf.length());
+            raf.writeInt(100);
+            raf.writeInt(12345);
+            raf.write("record-".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(Arrays.asList("record-1", "record-2"), readRecords(file));
+
+        try (AuditSpoolSegmentWriter writer = AuditSpoolSegmentWriter.openForAppend(file, 1024 * 1024, 64 * 1024, 0)) {
+            assertEquals(2, writer.getRecordCount());
+
+            writer.append(toByteBuffer("record-3"));
+        }
+
+        assertEquals(Arrays.asList("record-1", "record-2", "record-3"), readRecords(file));
+    }
+
+    @Test
+    public void testReadTextFile() throws Exception {
+        File file = new File(tmpDir, "spool.log");
+
+        Files.write(file.toPath(), "{\"a\":1}\n{\"b\":\"日本\"}\n".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(AuditSpoolFileReader.isSegmentFile(file));
+        assertEquals(Arrays.asList("{\"a\":1}", "{\"b\":\"日本\"}"), readRecords(file));
+        assertNull(AuditSpoolSegmentWriter.openForAppend(file, 1024, 0, 0));
+    }
+
+    @Test
+    public void testSpoolSegmentsAcrossRestart() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        AuditQueue   queue    = mock(AuditQueue.class);
+        AuditHandler consumer = mock(AuditHandler.class);
+
+        when(queue.getName()).thenReturn("batch");
+        when(queue.getMaxBatchSize()).thenReturn(3);
+        when(consumer.getName()).thenReturn("test");
+        when(consumer.logJSON(anyCollection())).thenAnswer(invocation -> received.addAll(invocation.getArgument(0)));
+
+        List<AuditEventBase> events = new ArrayList<>();
+
+        for (int i = 0; i < 7; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+
+            event.setUser("user" + i);
+            event.setResourcePath("/data/table" + i);
+
+            events.add(event);
+        }
+
+        AuditFileSpool spool = new AuditFileSpool(queue, consumer);
+
+        assertTrue(spool.init(createSpoolProperties(), "test"));
+
+        spool.stashLogs(events.subList(0, 5));
+        spool.stop();
+
+        // restart: events must be appended to the segment being written. The first file was rolled over after the
+        // first event, as AuditFileSpool rolls over the file being written when there are no other files to send
+        spool = new AuditFileSpool(queue, consumer);
+
+        assertTrue(spool.init(createSpoolProperties(), "test"));
+        assertEquals(2, spool.indexRecords.size());
+        assertEquals(4, readRecords(new File(spool.currentWriterIndexRecord.getFilePath())).size());
+
+        spool.stashLogs(events.subList(5, 7));
+        spool.start();
+
+        for (int i = 0; i < 100 && received.size() < events.size(); i++) {
+            Thread.sleep(50);
+        }
+
+        spool.stop();
+
+        List<String> expected = new ArrayList<>();
+
+        for (AuditEventBase event : events) {
+            expected.add(MiscUtil.stringify(event));
+        }
+
+        assertEquals(expected, received);
+
+        spool = new AuditFileSpool(queue, consumer);
+
+        assertTrue(spool.init(createSpoolProperties(), "test"));
+        assertTrue(spool.indexRecords.isEmpty(), "index must not have records for the files sent to the consumer");
+    }
+
+    @Test
+    public void testSpoolWithFileCodec() throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        AuditQueue   queue    = mock(AuditQueue.class);
+        AuditHandler consumer = mock(AuditHandler.class);
+
+        when(queue.getName()).thenReturn("batch");
+        when(queue.getMaxBatchSize()).thenReturn(3);
+        when(consumer.getName()).thenReturn("test");
+        when(consumer.logJSON(anyCollection())).thenAnswer(invocation -> received.addAll(invocation.getArgument(0)));
+
+        List<AuditEventBase> events   = new ArrayList<>();
+        List<String>         expected = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            AuthzAuditEvent event = new AuthzAuditEvent();
+
+            event.setUser("user" + i);
+
+            events.add(event);
+            expected.add(MiscUtil.stringify(event));
+        }
+
+        Properties props = createSpoolProperties();
+
+        props.setProperty("test." + AuditFileSpool.PROP_FILE_SPOOL_FILE_FORMAT, "test");
+        props.setProperty("test." + AuditFileSpool.PROP_FILE_SPOOL_FILE_FORMAT_IMPL, TestSpoolFileCodec.class.getName());
+
+        TestSpoolFileCodec.READ_COUNT.set(0);
+
+        AuditFileSpool spool = new AuditFileSpool(queue, consumer);
+
+        assertTrue(spool.init(props, "test"));
+        assertTrue(spool.codec instanceof TestSpoolFileCodec);
+        assertEquals(AuditFileSpool.CODEC_COMMIT_INTERVAL_MS_DEFAULT, spool.commitIntervalMS);
+
+        spool.stashLogs(events);
+        spool.start();
+
+        for (int i = 0; i < 100 && received.size() < events.size(); i++) {
+            Thread.sleep(50);
+        }
+
+        spool.stop();
+
+        assertEquals(expected, received);
+        assertEquals(events.size(), TestSpoolFileCodec.READ_COUNT.get(), "events must be replayed with the codec's reader");
+    }
+
+    private Properties createSpoolProperties() {
+        Properties props = new Properties();
+
+        props.setProperty("test." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR, tmpDir.getAbsolutePath());
+        props.setProperty("test." + AuditFileSpool.PROP_FILE_SPOOL_DEST_RETRY_MS, "10");
+        props.setProperty("test." + AuditFileSpool.PROP_FILE_SPOOL_FILE_FORMAT, AuditFileSpool.FILE_FORMAT_SEGMENT);
+        props.setProperty("test." + AuditFileSpool.PROP_FILE_SPOOL_SEGMENT_PREALLOCATE_MB, "1");
+        props.setProperty("test." + AuditFileSpool.PROP_FILE_SPOOL_COMMIT_EVENTS, "2");
+
+        return props;
+    }
+
+    private static ByteBuffer toByteBuffer(String record) {
+        return ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> readRecords(File file) throws Exception {
+        List<String> ret = new ArrayList<>();
+
+        try (AuditSpoolFileReader reader = AuditSpoolFileReader.open(file)) {
+            for (String record = reader.readRecord(); record != null; record = reader.readRecord()) {
+                ret.add(record);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Writes records as lines after a header line, to verify that AuditFileSpool writes and replays files with the codec
+     */
+    public static class TestSpoolFileCodec implements AuditSpoolFileCodec {
+        static final String        HEADER     = "#test-codec";
+        static final AtomicInteger READ_COUNT = new AtomicInteger();
+
+        @Override
+        public void init(Properties props, String propPrefix) {
+        }
+
+        @Override
+        public boolean isCodecFile(File file) throws IOException {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                return HEADER.equals(reader.readLine());
+            }
+        }
+
+        @Override
+        public RecordWriter createWriter(File file) throws IOException {
+            PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8));
+
+            writer.println(HEADER);
+
+            return new RecordWriter() {
+                private int pendingCommitCount;
+
+                @Override
+                public void write(AuditEventBase event) {
+                    write(MiscUtil.stringify(event));
+                }
+
+                @Override
+                public void write(String event) {
+                    writer.println(event);
+
+                    pendingCommitCount++;
+                }
+
+                @Override
+                public void commit() {
+                    writer.flush();
+
+                    pendingCommitCount = 0;
+                }
+
+                @Override
+                public int getPendingCommitCount() {
+                    return pendingCommitCount;
+                }
+
+                @Override
+                public void close() {
+                    writer.close();
+                }
+            };
+        }
+
+        @Override
+        public RecordReader createReader(File file) throws IOException {
+            BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8);
+
+            reader.readLine(); // header
+
+            return new RecordReader() {
+                private long bytesRead;
+
+                @Override
+                public String readRecord() throws IOException {
+                    String ret = reader.readLine();
+
+                    if (ret != null) {
+                        bytesRead += ret.length() + 1;
+
+                        READ_COUNT.incrementAndGet();
+                    }
+
+                    return ret;
+                }
+
+                @Override
+                public long getBytesRead() {
+                    return bytesRead;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    reader.close();
+                }
+            };
+        }
+
+        @Override
+        public void recover(File file) {
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AuditSpoolReplayerTest {
+    @TempDir
+    File tmpDir;
+
+    private final List<List<String>> sentBatches = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer>      checkpoints = Collections.synchronizedList(new ArrayList<>());
+    private final List<File>         pending     = new ArrayList<>();
+
+    private AuditSpoolReplayer<String> replayer;
+    private int                        failAfterBatches = Integer.MAX_VALUE;
+
+    @AfterEach
+    public void tearDown() {
+        if (replayer != null) {
+            replayer.stop();
+        }
+    }
+
+    @Test
+    public void testReplayInBatches() throws Exception {
+        File file = createFile("spool-1.log", 7);
+
+        createReplayer(new Properties(), 3);
+
+        assertTrue(replayer.replay(file, 0, checkpoints::add));
+        assertEquals(Arrays.asList(Arrays.asList("e0", "e1", "e2"), Arrays.asList("e3", "e4", "e5"), Collections.singletonList("e6")), sentBatches);
+        assertEquals(Arrays.asList(3, 6, 7), checkpoints);
+        assertEquals(7, replayer.getReplayedEventCount());
+        assertEquals(1, replayer.getReplayedFileCount());
+    }
+
+    @Test
+    public void testResumeFromPosition() throws Exception {
+        File file = createFile("spool-1.log", 7);
+
+        createReplayer(new Properties(), 3);
+
+        assertTrue(replayer.replay(file, 4, checkpoints::add));
+        assertEquals(Arrays.asList(Arrays.asList("e4", "e5", "e6")), sentBatches, "records already sent must not be sent again");
+        assertEquals(Collections.singletonList(7), checkpoints);
+
+        sentBatches.clear();
+        checkpoints.clear();
+
+        assertTrue(replayer.replay(file, 7, checkpoints::add));
+        assertTrue(sentBatches.isEmpty());
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    public void testBatchMaxBytes() throws Exception {
+        File       file  = createFile("spool-1.log", 6);
+        Properties props = new Properties();
+
+        props.setProperty("test." + AuditSpoolReplayer.PROP_REPLAY_BATCH_MAX_BYTES, "6"); // 2 records of 3 bytes each
+
+        createReplayer(props, 100);
+
+        assertTrue(replayer.replay(file, 0, checkpoints::add));
+        assertEquals(Arrays.asList(Arrays.asList("e0", "e1"), Arrays.asList("e2", "e3"), Arrays.asList("e4", "e5")), sentBatches);
+    }
+
+    @Test
+    public void testBatchMaxBytesNotMultipleOfRecordSize() throws Exception {
+        File       file  = createFile("spool-1.log", 5);
+        Properties props = new Properties();
+
+        props.setProperty("test." + AuditSpoolReplayer.PROP_REPLAY_BATCH_MAX_BYTES, "8"); // a 3rd record of 3 bytes would exceed the limit
+
+        createReplayer(props, 100);
+
+        assertTrue(replayer.replay(file, 1, checkpoints::add));
+        assertEquals(Arrays.asList(Arrays.asList("e1", "e2"), Arrays.asList("e3", "e4")), sentBatches);
+        assertEquals(Arrays.asList(3, 5), checkpoints);
+    }
+
+    @Test
+    public void testRecordLargerThanBatchMaxBytes() throws Exception {
+        File       file  = createFile("spool-1.log", 3);
+        Properties props = new Properties();
+
+        props.setProperty("test." + AuditSpoolReplayer.PROP_REPLAY_BATCH_MAX_BYTES, "2"); // smaller than a record
+
+        createReplayer(props, 100);
+
+        assertTrue(replayer.replay(file, 0, checkpoints::add));
+        assertEquals(Arrays.asList(Collections.singletonList("e0"), Collections.singletonList("e1"), Collections.singletonList("e2")), sentBatches);
+    }
+
+    @Test
+    public void testDestinationDown() throws Exception {
+        File file = createFile("spool-1.log", 7);
+
+        createReplayer(new Properties(), 3);
+
+        failAfterBatches = 1;
+
+        assertFalse(replayer.replay(file, 0, checkpoints::add));
+        assertEquals(Collections.singletonList(3), checkpoints, "position must not advance past the failed batch");
+        assertEquals(0, replayer.getReplayedFileCount());
+
+        failAfterBatches = Integer.MAX_VALUE;
+
+        sentBatches.clear();
+        checkpoints.clear();
+
+        assertTrue(replayer.replay(file, 3, checkpoints::add));
+        assertEquals(Arrays.asList(Arrays.asList("e3", "e4", "e5"), Collections.singletonList("e6")), sentBatches);
+    }
+
+    @Test
+    public void testProgressMetrics() throws Exception {
+        File file1 = createFile("spool-1.log", 10);
+        File file2 = createFile("spool-2.log", 10);
+
+        pending.add(file1);
+        pending.add(file2);
+
+        createReplayer(new Properties(), 5);
+
+        assertEquals(2, replayer.getPendingFileCount());
+        assertEquals(file1.length() + file2.length(), replayer.getPendingBytes());
+        assertEquals(-1, replayer.getEstimatedPendingEvents(), "no estimate before any event is replayed");
+
+        assertTrue(replayer.replay(file1, 0, checkpoints::add));
+
+        pending.remove(file1);
+
+        assertEquals(1, replayer.getPendingFileCount());
+        assertEquals(file2.length(), replayer.getPendingBytes());
+        assertEquals(10, replayer.getEstimatedPendingEvents());
+    }
+
+    @Test
+    public void testRateLimit() throws Exception {
+        File       file  = createFile("spool-1.log", 20);
+        Properties props = new Properties();
+
+        props.setProperty("test." + AuditSpoolReplayer.PROP_REPLAY_MAX_EVENTS_PER_SEC, "100");
+
+        createReplayer(props, 5);
+
+        long startTime = System.currentTimeMillis();
+
+        assertTrue(replayer.replay(file, 0, checkpoints::add));
+
+        // first batch is sent immediately; the remaining 15 events take at least 150ms at 100 events/sec
+        assertTrue(System.currentTimeMillis() - startTime >= 140, "replay must be paced by the rate limit");
+        assertEquals(20, replayer.getReplayedEventCount());
+    }
+
+    private void createReplayer(Properties props, int batchSize) {
+        replayer = new AuditSpoolReplayer<>("test", new AuditSpoolReplayer.Destination<String>() {
+            @Override
+            public String toEvent(String record) {
+                return record;
+            }
+
+            @Override
+            public boolean send(List<String> events) {
+                if (sentBatches.size() >= failAfterBatches) {
+                    return false;
+                }
+
+                sentBatches.add(new ArrayList<>(events));
+
+                return true;
+            }
+        }, () -> pending);
+
+        replayer.init(props, "test", batchSize);
+        replayer.start();
+    }
+
+    private File createFile(String name, int count) throws Exception {
+        File          file = new File(tmpDir, name);
+        StringBuilder sb   = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            sb.append('e').append(i).append('\n');
+        }
+
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        return file;
+    }
+}
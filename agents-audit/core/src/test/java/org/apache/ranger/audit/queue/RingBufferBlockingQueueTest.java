@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.queue;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RingBufferBlockingQueueTest {
+    @Test
+    public void testOfferPollAndDrain() throws Exception {
+        RingBufferBlockingQueue<Integer> queue = new RingBufferBlockingQueue<>(3);
+
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+
+        assertTrue(queue.offer(1));
+        assertTrue(queue.offer(2));
+        assertTrue(queue.offer(3));
+        assertFalse(queue.offer(4), "queue must be bounded by the requested capacity");
+        assertFalse(queue.offer(4, 10, TimeUnit.MILLISECONDS));
+
+        assertEquals(3, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+        assertEquals(2, queue.getDropCount());
+        assertEquals(1, queue.getBackpressureCount());
+        assertEquals(Arrays.asList(1, 2, 3), new ArrayList<>(queue));
+
+        assertEquals(Integer.valueOf(1), queue.peek());
+        assertEquals(Integer.valueOf(1), queue.take());
+
+        List<Integer> drained = new ArrayList<>();
+
+        assertEquals(1, queue.drainTo(drained, 1));
+        assertTrue(queue.offer(5));
+        assertTrue(queue.offer(6));
+        assertEquals(3, queue.drainTo(drained));
+
+        assertEquals(Arrays.asList(2, 3, 5, 6), drained);
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testMultipleProducersSingleConsumer() throws Exception {
+        int                              producerCount     = 16;
+        int                              eventsPerProducer = 10000;
+        RingBufferBlockingQueue<Integer> queue             = new RingBufferBlockingQueue<>(64);
+        CountDownLatch                   startLatch        = new CountDownLatch(1);
+        List<Thread>                     producers         = new ArrayList<>();
+
+        for (int i = 0; i < producerCount; i++) {
+            int    producerId = i;
+            Thread producer   = new Thread(() -> {
+                try {
+                    startLatch.await();
+
+                    for (int j = 0; j < eventsPerProducer; j++) {
+                        queue.put(producerId * eventsPerProducer + j);
+                    }
+                } catch (InterruptedException excp) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            producer.start();
+            producers.add(producer);
+        }
+
+        startLatch.countDown();
+
+        int[]         lastSeen = new int[producerCount];
+        List<Integer> batch    = new ArrayList<>();
+        int           received = 0;
+
+        Arrays.fill(lastSeen, -1);
+
+        while (received < producerCount * eventsPerProducer) {
+            Integer first = queue.poll(10, TimeUnit.SECONDS);
+
+            assertNotNull(first, "timed out waiting for events; received=" + received);
+
+            batch.clear();
+            batch.add(first);
+            queue.drainTo(batch, 100);
+
+            for (Integer value : batch) {
+                int producerId = value / eventsPerProducer;
+                int sequence   = value % eventsPerProducer;
+
+                assertEquals(lastSeen[producerId] + 1, sequence, "events of a producer must be received in order");
+
+                lastSeen[producerId] = sequence;
+            }
+
+            received += batch.size();
+        }
+
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getDropCount());
+        assertTrue(queue.getBackpressureCount() > 0, "producers must have waited on the full queue");
+    }
+
+    @Test
+    public void testQueueTypeProperty() {
+        Properties      props      = new Properties();
+        AuditAsyncQueue asyncQueue = new AuditAsyncQueue(null);
+
+        props.setProperty("xasecure.audit.provider.async." + AuditQueue.PROP_QUEUE_TYPE, "RingBuffer");
+        props.setProperty("xasecure.audit.provider.async." + AuditQueue.PROP_QUEUE_SIZE, "2");
+
+        asyncQueue.init(props, "xasecure.audit.provider.async");
+
+        assertTrue(asyncQueue.isRingBufferQueue());
+        assertTrue(asyncQueue.queue instanceof RingBufferBlockingQueue);
+
+        assertTrue(asyncQueue.log(new AuthzAuditEvent()));
+        assertTrue(asyncQueue.log(new AuthzAuditEvent()));
+        assertFalse(asyncQueue.log(new AuthzAuditEvent()), "events must be dropped when the queue is full");
+        assertEquals(1, asyncQueue.getTotalFailedCount());
+
+        AuditBatchQueue batchQueue = new AuditBatchQueue(null);
+
+        props.setProperty("xasecure.audit.batch." + AuditQueue.PROP_QUEUE_TYPE, "unknown");
+
+        batchQueue.init(props, null);
+
+        assertFalse(batchQueue.isRingBufferQueue());
+        assertEquals(AuditQueue.QUEUE_TYPE_BLOCKING, batchQueue.getQueueType());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AuditEventJsonSerializerTest {
+    @Test
+    public void testSameJsonAsObjectMapper() {
+        AuthzAuditEvent full    = createEvent();
+        AuthzAuditEvent sparse  = new AuthzAuditEvent();
+        AuthzAuditEvent escaped = createEvent();
+
+        sparse.setEventTime(null);
+        sparse.setTags(null);
+
+        escaped.setResourcePath("/data/\"quoted\"\\back\\slash/\ttab\nnewline\r\b\f\u0001\u001f\u007f/été/日本/😀/slash");
+        escaped.setRequestData("");
+        escaped.setPolicyId(-1);
+        escaped.setEventTime(new Date(-1234L));
+        escaped.setDatasetIds(new HashSet<>(Arrays.asList(Long.MIN_VALUE, Long.MAX_VALUE, 0L)));
+
+        assertSameJson(full);
+        assertSameJson(sparse);
+        assertSameJson(escaped);
+        assertSameJson(new AuthzAuditEvent());
+    }
+
+    @Test
+    public void testAppendToReusedBuffer() throws Exception {
+        AuthzAuditEvent          event      = createEvent();
+        AuditEventJsonSerializer serializer = AuditEventJsonSerializer.getInstance();
+        ByteArrayOutputStream    out        = new ByteArrayOutputStream();
+        String                   expected   = MiscUtil.stringify(event) + "\n";
+
+        event.setRequestData(String.join("", java.util.Collections.nCopies(AuditEventJsonSerializer.INITIAL_BUFFER_SIZE, "x"))); // must grow the buffer
+
+        expected += MiscUtil.stringify(event) + "\n";
+
+        serializer.reset().appendLine(createEvent()).appendLine(event).writeTo(out);
+
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8.name()));
+        assertEquals(out.size(), serializer.size());
+
+        assertEquals(MiscUtil.stringify(event), AuditEventJsonSerializer.toJson(event), "toJson() must reset the buffer");
+        assertArrayEquals(MiscUtil.stringify(event).getBytes(StandardCharsets.UTF_8), serializer.toByteArray());
+    }
+
+    @Test
+    public void testSubclassUsesObjectMapper() {
+        AuthzAuditEvent event = new AuthzAuditEvent() {
+            public String getExtraField() {
+                return "extra";
+            }
+        };
+
+        event.setUser("user1");
+
+        assertEquals(MiscUtil.stringify(event), AuditEventJsonSerializer.toJson(event));
+    }
+
+    private static void assertSameJson(AuthzAuditEvent event) {
+        assertEquals(MiscUtil.stringify(event), AuditEventJsonSerializer.toJson(event));
+    }
+
+    private static AuthzAuditEvent createEvent() {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setRepositoryType(1);
+        ret.setRepositoryName("dev_hdfs");
+        ret.setUser("user1");
+        ret.setEventTime(new Date(1700000000123L));
+        ret.setAccessType("read");
+        ret.setResourcePath("/data/warehouse/db1/table1");
+        ret.setResourceType("path");
+        ret.setAction("read");
+        ret.setAccessResult((short) 1);
+        ret.setAgentId("hdfs");
+        ret.setPolicyId(42);
+        ret.setResultReason("/data/warehouse");
+        ret.setAclEnforcer("ranger-acl");
+        ret.setSessionId("session-1");
+        ret.setClientType("rpc");
+        ret.setClientIP("10.0.0.1");
+        ret.setRequestData("getfileinfo");
+        ret.setAgentHostname("nn1.example.com");
+        ret.setLogType("RangerAudit");
+        ret.setEventId("b6f2b0a4-0001");
+        ret.setSeqNum(7);
+        ret.setEventCount(3);
+        ret.setEventDurationMS(15);
+        ret.setTags(new HashSet<>(Arrays.asList("PII", "FINANCE")));
+        ret.setDatasets(new HashSet<>(Arrays.asList("sales")));
+        ret.setProjects(new HashSet<>(Arrays.asList("q1-report")));
+        ret.setDatasetIds(new HashSet<>(Arrays.asList(1L, 2L)));
+        ret.setAdditionalInfo("{\"remote-ip-address\":\"10.0.0.2\"}");
+        ret.setClusterName("cl1");
+        ret.setZoneName("sales-zone");
+        ret.setPolicyVersion(5L);
+
+        return ret;
+    }
+}
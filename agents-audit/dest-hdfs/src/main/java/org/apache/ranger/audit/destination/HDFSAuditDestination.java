@@ -28,11 +28,10 @@
 
 import java.io.File;
 import java.security.PrivilegedExceptionAction;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 /**
  * This class write the logs to local file
@@ -99,48 +98,7 @@ public void flush() {
 
     @Override
     public synchronized boolean logJSON(final Collection<String> events) {
-        logStatusIfRequired();
-        addTotalCount(events.size());
-
-        if (!initDone) {
-            addDeferredCount(events.size());
-
-            return false;
-        }
-
-        if (isStopped) {
-            addDeferredCount(events.size());
-
-            logError("log() called after stop was requested. name={}", getName());
-
-            return false;
-        }
-
-        try {
-            boolean ret = auditWriter.log(events);
-
-            if (!ret) {
-                addDeferredCount(events.size());
-
-                return false;
-            }
-        } catch (Throwable t) {
-            addDeferredCount(events.size());
-
-            logError("Error writing to log file.", t);
-
-            return false;
-        } finally {
-            logger.debug("Flushing HDFS audit. Event Size:{}", events.size());
-
-            if (auditWriter != null) {
-                flush();
-            }
-        }
-
-        addSuccessCount(events.size());
-
-        return true;
+        return writeEvents(events.size(), () -> auditWriter.log(events));
     }
 
     @Override
@@ -196,21 +154,8 @@ public boolean log(Collection<AuditEventBase> events) {
             return false;
         }
 
-        List<String> jsonList = new ArrayList<>();
-
-        for (AuditEventBase event : events) {
-            try {
-                jsonList.add(MiscUtil.stringify(event));
-            } catch (Throwable t) {
-                logger.error("Error converting to JSON. event={}", event);
-
-                addTotalCount(1);
-                addFailedCount(1);
-                logFailedEvent(event);
-            }
-        }
-
-        return logJSON(jsonList);
+        // serialize events directly to the output, when supported by the writer, instead of creating a String per event
+        return writeEvents(events.size(), () -> auditWriter.logEvents(events));
     }
 
     public RangerAuditWriter getWriter() throws Exception {
@@ -220,4 +165,49 @@ public RangerAuditWriter getWriter() throws Exception {
 
         return auditWriterFactory.getAuditWriter();
     }
+
+    private synchronized boolean writeEvents(int eventCount, Callable<Boolean> writer) {
+        logStatusIfRequired();
+        addTotalCount(eventCount);
+
+        if (!initDone) {
+            addDeferredCount(eventCount);
+
+            return false;
+        }
+
+        if (isStopped) {
+            addDeferredCount(eventCount);
+
+            logError("log() called after stop was requested. name={}", getName());
+
+            return false;
+        }
+
+        try {
+            boolean ret = writer.call();
+
+            if (!ret) {
+                addDeferredCount(eventCount);
+
+                return false;
+            }
+        } catch (Throwable t) {
+            addDeferredCount(eventCount);
+
+            logError("Error writing to log file.", t);
+
+            return false;
+        } finally {
+            logger.debug("Flushing HDFS audit. Event Size:{}", eventCount);
+
+            if (auditWriter != null) {
+                flush();
+            }
+        }
+
+        addSuccessCount(eventCount);
+
+        return true;
+    }
 }
@@ -0,0 +1,375 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.Reader;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.Writer;
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.queue.AuditSpoolFileCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Writes AuditFileSpool files in ORC format, with compression - enabled with filespool.file.format=orc.
+ *
+ * commit() ends the current stripe and writes an intermediate footer, then appends the resulting file length to a
+ * side file named {file}_flush_length; the side file is deleted when the ORC file is closed. After a crash, recover()
+ * truncates the file to the last length in the side file, which is a valid end of an ORC file. As each commit adds a
+ * stripe, AuditFileSpool commits codec files less often than segment files - see AuditFileSpool.
+ *
+ * Events are converted to AuthzAuditEvent; on replay, each row is read back as the JSON of AuthzAuditEvent.
+ */
+public class ORCAuditSpoolFileCodec implements AuditSpoolFileCodec {
+    private static final Logger logger = LoggerFactory.getLogger(ORCAuditSpoolFileCodec.class);
+
+    public static final String PROP_ORC_COMPRESSION = "filespool.orc.compression";
+    public static final String PROP_ORC_BUFFER_SIZE = "filespool.orc.buffersize";
+    public static final String PROP_ORC_STRIPE_SIZE = "filespool.orc.stripesize";
+
+    static final String FLUSH_LENGTH_SUFFIX = "_flush_length";
+    static final byte[] ORC_MAGIC           = "ORC".getBytes(StandardCharsets.US_ASCII);
+
+    private Configuration conf;
+    private FileSystem    fileSystem;
+    private String        compression;
+    private int           orcBufferSize = 100000;
+    private long          orcStripeSize = 8 * 1024 * 1024L;
+
+    @Override
+    public void init(Properties props, String propPrefix) throws Exception {
+        compression   = MiscUtil.getStringProperty(props, propPrefix + "." + PROP_ORC_COMPRESSION);
+        orcBufferSize = MiscUtil.getIntProperty(props, propPrefix + "." + PROP_ORC_BUFFER_SIZE, orcBufferSize);
+        orcStripeSize = MiscUtil.getLongProperty(props, propPrefix + "." + PROP_ORC_STRIPE_SIZE, orcStripeSize);
+        conf          = new Configuration();
+        fileSystem    = FileSystem.getLocal(conf).getRaw(); // raw: no .crc files
+
+        createORCFileUtil(); // validates the configuration
+
+        logger.info("ORCAuditSpoolFileCodec: compression={}, bufferSize={}, stripeSize={}", compression, orcBufferSize, orcStripeSize);
+    }
+
+    @Override
+    public boolean isCodecFile(File file) throws IOException {
+        byte[] header = new byte[ORC_MAGIC.length];
+
+        try (InputStream in = new FileInputStream(file)) {
+            return in.read(header) == header.length && Arrays.equals(header, ORC_MAGIC);
+        }
+    }
+
+    @Override
+    public RecordWriter createWriter(File file) throws IOException {
+        return new ORCRecordWriter(file);
+    }
+
+    @Override
+    public RecordReader createReader(File file) throws IOException {
+        return new ORCRecordReader(file);
+    }
+
+    @Override
+    public void recover(File file) throws IOException {
+        File flushLengthFile = getFlushLengthFile(file);
+
+        // closed, but the process stopped before the side file was deleted; a file with only the header, written on
+        // create, is read by ORC as an empty file - hence is not considered as closed
+        if (file.length() > ORC_MAGIC.length && isReadable(file)) {
+            Files.deleteIfExists(flushLengthFile.toPath());
+
+            return;
+        }
+
+        long length = readFlushLength(flushLengthFile);
+
+        if (length > 0) {
+            logger.info("Truncating ORC spool file to the last commit. file={}, size={}, length={}", file, file.length(), length);
+
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+                channel.force(true);
+            }
+        } else {
+            logger.warn("ORC spool file has no committed records; deleting it. file={}, size={}", file, file.length());
+
+            Files.deleteIfExists(file.toPath());
+        }
+
+        Files.deleteIfExists(flushLengthFile.toPath());
+    }
+
+    private ORCFileUtil createORCFileUtil() throws IOException {
+        ORCFileUtil ret = new SpoolORCFileUtil();
+
+        try {
+            ret.init(orcBufferSize, orcStripeSize, compression);
+        } catch (Exception e) {
+            throw toIOException(e);
+        }
+
+        return ret;
+    }
+
+    private boolean isReadable(File file) {
+        try (Reader reader = createORCFileUtil().createReader(conf, fileSystem, file.getAbsolutePath())) { // reads the file tail
+            return reader.getSchema() != null;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static File getFlushLengthFile(File file) {
+        return new File(file.getParentFile(), file.getName() + FLUSH_LENGTH_SUFFIX);
+    }
+
+    // returns the last length written to the side file; a length torn by a crash is ignored
+    private static long readFlushLength(File flushLengthFile) throws IOException {
+        long ret = 0;
+
+        if (flushLengthFile.exists()) {
+            byte[] lengths = Files.readAllBytes(flushLengthFile.toPath());
+            int    count   = lengths.length / Long.BYTES;
+
+            if (count > 0) {
+                ret = ByteBuffer.wrap(lengths, (count - 1) * Long.BYTES, Long.BYTES).getLong();
+            }
+        }
+
+        return ret;
+    }
+
+    private static IOException toIOException(Exception e) {
+        return e instanceof IOException ? (IOException) e : new IOException(e);
+    }
+
+    /**
+     * Adds columns for all fields of AuthzAuditEvent - collections as JSON - and writes dates with milliseconds, so
+     * that events are read back as written.
+     */
+    static class SpoolORCFileUtil extends ORCFileUtil {
+        SpoolORCFileUtil() {
+            dateFormat           = "yyyy-MM-dd HH:mm:ss.SSS";
+            stringifyTypedFields = true;
+        }
+
+        @Override
+        protected String getShortFieldType(String type) {
+            String ret = super.getShortFieldType(type);
+
+            if (ret == null && ("java.lang.Long".equals(type) || "java.util.Set".equals(type))) {
+                ret = "string";
+            }
+
+            return ret;
+        }
+    }
+
+    private final class ORCRecordWriter implements RecordWriter {
+        private final File        file;
+        private final File        flushLengthFile;
+        private final ORCFileUtil orcFileUtil;
+        private final Writer      writer;
+        private final ByteBuffer  flushLength = ByteBuffer.allocate(Long.BYTES);
+
+        private FileChannel dataChannel; // to sync the file written by the ORC writer
+        private FileChannel flushLengthChannel;
+        private int         pendingCommitCount;
+
+        ORCRecordWriter(File file) throws IOException {
+            this.file            = file;
+            this.flushLengthFile = getFlushLengthFile(file);
+            this.orcFileUtil     = createORCFileUtil();
+
+            try {
+                this.writer = orcFileUtil.createWriter(conf, fileSystem, file.getAbsolutePath());
+            } catch (Exception e) {
+                throw toIOException(e);
+            }
+        }
+
+        @Override
+        public void write(AuditEventBase event) throws IOException {
+            if (event instanceof AuthzAuditEvent) {
+                addRow((AuthzAuditEvent) event);
+            } else {
+                write(MiscUtil.stringify(event));
+            }
+        }
+
+        @Override
+        public void write(String event) throws IOException {
+            AuthzAuditEvent authzEvent = MiscUtil.fromJson(event, AuthzAuditEvent.class);
+
+            if (authzEvent == null) {
+                throw new IOException("not an audit event: " + event);
+            }
+
+            addRow(authzEvent);
+        }
+
+        @Override
+        public void commit() throws IOException {
+            try {
+                orcFileUtil.flushRows(writer);
+            } catch (Exception e) {
+                throw toIOException(e);
+            }
+
+            long length = writer.writeIntermediateFooter();
+
+            if (dataChannel == null) {
+                dataChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            }
+
+            dataChannel.force(false);
+
+            if (flushLengthChannel == null) {
+                flushLengthChannel = FileChannel.open(flushLengthFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+
+            flushLength.clear();
+            flushLength.putLong(length).flip();
+
+            while (flushLength.hasRemaining()) {
+                flushLengthChannel.write(flushLength);
+            }
+
+            flushLengthChannel.force(false);
+
+            pendingCommitCount = 0;
+        }
+
+        @Override
+        public int getPendingCommitCount() {
+            return pendingCommitCount;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                orcFileUtil.flushRows(writer);
+                orcFileUtil.close(writer);
+            } catch (Exception e) {
+                throw toIOException(e);
+            } finally {
+                try {
+                    if (dataChannel != null) {
+                        dataChannel.close();
+                    }
+                } finally {
+                    if (flushLengthChannel != null) {
+                        flushLengthChannel.close();
+                    }
+                }
+            }
+
+            Files.deleteIfExists(flushLengthFile.toPath());
+        }
+
+        private void addRow(AuthzAuditEvent event) throws IOException {
+            try {
+                orcFileUtil.addRow(writer, event);
+            } catch (Exception e) {
+                throw toIOException(e);
+            }
+
+            pendingCommitCount++;
+        }
+    }
+
+    private final class ORCRecordReader implements AuditSpoolFileCodec.RecordReader {
+        private final long                        fileSize;
+        private final long                        rowCount;
+        private final ORCFileUtil                 orcFileUtil;
+        private final Reader                      reader;
+        private final TypeDescription             schema;
+        private final org.apache.orc.RecordReader rows;
+        private final VectorizedRowBatch          batch;
+
+        private int  batchRow;
+        private long rowsRead;
+
+        ORCRecordReader(File file) throws IOException {
+            this.fileSize    = file.length();
+            this.orcFileUtil = createORCFileUtil();
+
+            this.reader = orcFileUtil.createReader(conf, fileSystem, file.getAbsolutePath());
+
+            try {
+                this.schema   = reader.getSchema();
+                this.rows     = reader.rows();
+                this.batch    = schema.createRowBatch();
+                this.rowCount = reader.getNumberOfRows();
+            } catch (IOException | RuntimeException e) {
+                reader.close();
+
+                throw e;
+            }
+        }
+
+        @Override
+        public String readRecord() throws IOException {
+            if (batchRow >= batch.size) {
+                batchRow = 0;
+
+                if (!rows.nextBatch(batch) || batch.size == 0) {
+                    return null;
+                }
+            }
+
+            AuthzAuditEvent event = orcFileUtil.toEvent(schema, batch, batchRow++);
+
+            rowsRead++;
+
+            return MiscUtil.stringify(event);
+        }
+
+        @Override
+        public long getBytesRead() {
+            return rowCount > 0 ? fileSize * rowsRead / rowCount : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                rows.close();
+            } finally {
+                reader.close();
+            }
+        }
+    }
+}
@@ -32,20 +32,26 @@
 import org.apache.orc.CompressionKind;
 import org.apache.orc.OrcFile;
 import org.apache.orc.OrcFile.WriterOptions;
+import org.apache.orc.Reader;
 import org.apache.orc.TypeDescription;
 import org.apache.orc.Writer;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.model.EnumRepositoryType;
+import org.apache.ranger.audit.provider.MiscUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
-import java.text.Format;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 
 public class ORCFileUtil {
@@ -62,8 +68,11 @@ public class ORCFileUtil {
 
     protected ArrayList<String>         schemaFields          = new ArrayList<>();
     protected Map<String, ColumnVector> vectorizedRowBatchMap = new HashMap<>();
+    protected Map<String, Field>        auditEventFields      = new HashMap<>();
     protected int                       orcBufferSize;
     protected long                      orcStripeSize;
+    protected SimpleDateFormat          dateFormatter;
+    protected boolean                   stringifyTypedFields; // when false, fields other than String and Date are written as empty strings
 
     public static ORCFileUtil getInstance() {
         ORCFileUtil orcFileUtil = me;
@@ -131,6 +140,7 @@ public void init(int orcBufferSize, long orcStripeSize, String compression) thro
         this.orcBufferSize   = orcBufferSize;
         this.orcStripeSize   = orcStripeSize;
         this.compressionKind = getORCCompression(compression);
+        this.dateFormatter   = new SimpleDateFormat(dateFormat);
 
         initORCAuditSchema();
 
@@ -154,6 +164,22 @@ public Writer createWriter(Configuration conf, FileSystem fs, String path) throw
         return ret;
     }
 
+    public boolean isStringifyTypedFields() {
+        return stringifyTypedFields;
+    }
+
+    /**
+     * Enables writing values of fields like accessResult (short), eventCount (Long) and tags (Set) into their string
+     * columns; these are written as empty strings otherwise, as in files written by earlier versions.
+     */
+    public void setStringifyTypedFields(boolean stringifyTypedFields) {
+        this.stringifyTypedFields = stringifyTypedFields;
+    }
+
+    public Reader createReader(Configuration conf, FileSystem fs, String path) throws IOException {
+        return OrcFile.createReader(new Path(path), OrcFile.readerOptions(conf).filesystem(fs));
+    }
+
     public void close(Writer writer) throws Exception {
         logger.debug("==> ORCFileUtil.close()");
 
@@ -169,56 +195,127 @@ public void log(Writer writer, Collection<AuthzAuditEvent> events) throws Except
 
         try {
             for (AuthzAuditEvent event : events) {
-                int row = batch.size++;
+                addRow(writer, event);
+            }
 
-                for (String fieldName : schemaFields) {
-                    SchemaInfo   schemaInfo   = getFieldValue(event, fieldName);
-                    ColumnVector columnVector = vectorizedRowBatchMap.get(fieldName);
+            flushRows(writer);
+        } catch (Exception e) {
+            batch.reset();
 
-                    if (columnVector instanceof LongColumnVector) {
-                        ((LongColumnVector) columnVector).vector[row] = castLongObject(schemaInfo.getValue());
-                    } else if (columnVector instanceof BytesColumnVector) {
-                        ((BytesColumnVector) columnVector).setVal(row, getBytesValues(castStringObject(schemaInfo.getValue())));
-                    }
-                }
+            logger.error("Error while writing into ORC File:", e);
 
-                if (batch.size == orcBufferSize) {
-                    writer.addRowBatch(batch);
+            throw e;
+        }
 
-                    batch.reset();
-                }
-            }
+        logger.debug("<== ORCFileUtil.log(): EventSize = {}", eventBatchSize);
+    }
 
-            if (batch.size != 0) {
-                writer.addRowBatch(batch);
+    /**
+     * Adds the event to the row batch; the batch is written once it has orcBufferSize rows. Call flushRows() to write
+     * the rows added since.
+     */
+    public void addRow(Writer writer, AuthzAuditEvent event) throws Exception {
+        int row = batch.size++;
 
-                batch.reset();
+        for (String fieldName : schemaFields) {
+            SchemaInfo   schemaInfo   = getFieldValue(event, fieldName);
+            ColumnVector columnVector = vectorizedRowBatchMap.get(fieldName);
+
+            if (columnVector instanceof LongColumnVector) {
+                ((LongColumnVector) columnVector).vector[row] = castLongObject(schemaInfo.getValue());
+            } else if (columnVector instanceof BytesColumnVector) {
+                ((BytesColumnVector) columnVector).setVal(row, getBytesValues(castStringObject(schemaInfo.getValue())));
             }
-        } catch (Exception e) {
+        }
+
+        if (batch.size == orcBufferSize) {
+            writer.addRowBatch(batch);
+
+            batch.reset();
+        }
+    }
+
+    public void flushRows(Writer writer) throws Exception {
+        if (batch.size != 0) {
+            writer.addRowBatch(batch);
+
             batch.reset();
+        }
+    }
 
-            logger.error("Error while writing into ORC File:", e);
+    /**
+     * Reads the event in the given row of a batch read from a file written by this class; the batch has the columns
+     * of the given schema. Fields written as empty strings are read as null.
+     */
+    public AuthzAuditEvent toEvent(TypeDescription fileSchema, VectorizedRowBatch rowBatch, int row) {
+        AuthzAuditEvent ret        = new AuthzAuditEvent();
+        List<String>    fieldNames = fileSchema.getFieldNames();
+
+        for (int i = 0; i < fieldNames.size(); i++) {
+            String       fieldName    = fieldNames.get(i);
+            Field        field        = auditEventFields.get(fieldName);
+            ColumnVector columnVector = rowBatch.cols[i];
+            int          idx          = columnVector.isRepeating ? 0 : row;
+
+            if (field == null || (!columnVector.noNulls && columnVector.isNull[idx])) {
+                continue;
+            }
 
-            throw e;
+            try {
+                if (columnVector instanceof LongColumnVector) {
+                    long value = ((LongColumnVector) columnVector).vector[idx];
+
+                    if (field.getType() == int.class) {
+                        field.setInt(ret, (int) value);
+                    } else if (field.getType() == long.class) {
+                        field.setLong(ret, value);
+                    }
+                } else if (columnVector instanceof BytesColumnVector) {
+                    BytesColumnVector bytesVector = (BytesColumnVector) columnVector;
+                    String            value       = new String(bytesVector.vector[idx], bytesVector.start[idx], bytesVector.length[idx], StandardCharsets.UTF_8);
+
+                    if (!value.isEmpty()) {
+                        field.set(ret, toFieldValue(field.getType(), value));
+                    }
+                }
+            } catch (Exception e) {
+                logger.error("Error while reading field {} from ORC File:", fieldName, e);
+            }
         }
 
-        logger.debug("<== ORCFileUtil.log(): EventSize = {}", eventBatchSize);
+        return ret;
+    }
+
+    protected Object toFieldValue(Class<?> type, String value) throws ParseException {
+        final Object ret;
+
+        if (type == short.class) {
+            ret = Short.parseShort(value);
+        } else if (type == Date.class) {
+            ret = dateFormatter.parse(value);
+        } else if (type == Long.class) {
+            ret = Long.valueOf(value);
+        } else if (Collection.class.isAssignableFrom(type)) {
+            ret = MiscUtil.fromJson(value, HashSet.class);
+        } else {
+            ret = value;
+        }
+
+        return ret;
     }
 
     protected byte[] getBytesValues(String val) {
-        byte[] ret = "".getBytes();
+        byte[] ret = new byte[0];
 
         if (val != null) {
-            ret = val.getBytes();
+            ret = val.getBytes(StandardCharsets.UTF_8);
         }
 
         return ret;
     }
 
     protected String getDateString(Date date) {
-        Format formatter = new SimpleDateFormat(dateFormat);
-
-        return formatter.format(date);
+        return dateFormatter.format(date);
     }
 
     protected void initORCAuditSchema() throws Exception {
@@ -262,6 +359,11 @@ protected void buildVectorRowBatch(Map<String, String> schemaFieldTypeMap) throw
             String       fld          = schemaFields.get(i);
             String       fieldType    = schemaFieldTypeMap.get(fld);
             ColumnVector columnVector = getColumnVectorType(fieldType);
+            Field        field        = AuthzAuditEvent.class.getDeclaredField(fld);
+
+            field.setAccessible(true);
+
+            auditEventFields.put(fld, field);
 
             if (columnVector instanceof LongColumnVector) {
                 vectorizedRowBatchMap.put(fld, batch.cols[i]);
@@ -277,10 +379,13 @@ protected SchemaInfo getFieldValue(AuthzAuditEvent event, String fieldName) {
         SchemaInfo ret = new SchemaInfo();
 
         try {
-            Class<AuthzAuditEvent> aClass = AuthzAuditEvent.class;
-            Field                  fld    = aClass.getDeclaredField(fieldName);
+            Field fld = auditEventFields.get(fieldName);
 
-            fld.setAccessible(true);
+            if (fld == null) {
+                fld = AuthzAuditEvent.class.getDeclaredField(fieldName);
+
+                fld.setAccessible(true);
+            }
 
             Class<?> cls   = fld.getType();
             Object   value = fld.get(event);
@@ -358,6 +463,10 @@ protected String castStringObject(Object object) {
                 ret = (String) object;
             } else if (object instanceof Date) {
                 ret = (getDateString((Date) object));
+            } else if (stringifyTypedFields && object instanceof Collection) {
+                ret = MiscUtil.stringify(object);
+            } else if (stringifyTypedFields && object != null) {
+                ret = object.toString();
             }
         } catch (Exception e) {
             logger.error("Error while writing into ORC File:", e);
@@ -445,6 +554,9 @@ protected CompressionKind getORCCompression(String compression) {
             case "zlib":
                 ret = CompressionKind.ZLIB;
                 break;
+            case "lz4":
+                ret = CompressionKind.LZ4;
+                break;
             case "none":
                 ret = CompressionKind.NONE;
                 break;
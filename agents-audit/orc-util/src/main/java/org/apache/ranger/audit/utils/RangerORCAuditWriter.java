@@ -35,6 +35,13 @@
 /**
  * This class writes the Ranger audits to HDFS as ORC files
  * Refer README.TXT for enabling ORCWriter.
+ *
+ * By default each batch is written to a new ORC file. With {prefix}.orc.rollover.events set, batches are appended to
+ * the current file - each batch ends a stripe and writes an intermediate footer, so that the file is readable after
+ * every batch - and the file is rolled over after the given number of events, or on file.rollover.period.
+ *
+ * Fields like accessResult, eventCount and tags are written as empty strings, as in earlier versions; set
+ * {prefix}.orc.stringify.typed.fields=true to write their values.
  */
 public class RangerORCAuditWriter extends AbstractRangerAuditWriter {
     private static final Logger logger = LoggerFactory.getLogger(RangerORCAuditWriter.class);
@@ -50,6 +57,8 @@ public class RangerORCAuditWriter extends AbstractRangerAuditWriter {
     protected int    defaultbufferSize  = 100000;
     protected long   orcStripeSize;
     protected long   defaultStripeSize  = 100000L;
+    protected long   orcFileRolloverEvents;
+    protected long   orcFileEventCount;
 
     @Override
     public void init(Properties props, String propPrefix, String auditProviderName, Map<String, String> auditConfigs) {
@@ -64,8 +73,8 @@ public void init(Properties props, String propPrefix, String auditProviderName,
 
     @Override
     public void flush() {
-        //For HDFSAuditDestionation with ORC format each file is flushed immediately after writing the ORC batch.
-        //So nothing to flush.
+        //For HDFSAuditDestionation with ORC format each batch is flushed immediately after it is written - either by
+        //closing the file or by writing an intermediate footer. So nothing to flush.
     }
 
     public synchronized boolean logAuditAsORC(final Collection<AuthzAuditEvent> events) throws Exception {
@@ -85,7 +94,8 @@ public synchronized boolean logAuditAsORC(final Collection<AuthzAuditEvent> even
                 return out1;
             });
         } catch (Exception e) {
-            orcLogWriter = null;
+            orcLogWriter      = null;
+            orcFileEventCount = 0;
 
             logger.error("Error while writing into ORC FileWriter", e);
 
@@ -94,18 +104,33 @@ public synchronized boolean logAuditAsORC(final Collection<AuthzAuditEvent> even
             logger.debug("Flushing HDFS audit in ORC Format. Event Size:{}", events.size());
 
             if (out != null) {
+                orcFileEventCount += events.size();
+
                 try {
-                    //flush and close the ORC batch file
-                    orcFileUtil.close(out);
+                    if (isRolloverRequired()) {
+                        //flush and close the ORC batch file
+                        orcFileUtil.close(out);
+
+                        orcLogWriter      = null;
+                        orcFileEventCount = 0;
+
+                        if (orcFileRolloverEvents > 0) {
+                            setNextRollOverTime();
+                        }
+                    } else {
+                        //end the stripe and make the rows written so far readable
+                        out.writeIntermediateFooter();
+                    }
 
                     ret = true;
                 } catch (Exception e) {
                     logger.error("Error while closing the ORC FileWriter", e);
 
+                    orcLogWriter      = null;
+                    orcFileEventCount = 0;
+
                     throw e;
                 }
-
-                orcLogWriter = null;
             }
         }
 
@@ -136,7 +161,8 @@ public synchronized void stop() {
                 logger.error("Error on closing log ORC Writer. Exception will be ignored. name={}, fileName={}", auditProviderName, currentFileName);
             }
 
-            orcLogWriter = null;
+            orcLogWriter      = null;
+            orcFileEventCount = 0;
         }
     }
 
@@ -168,12 +194,17 @@ public void init(Properties props, String propPrefix, String auditProviderName)
         orcBufferSize = MiscUtil.getIntProperty(props, propPrefix + "." + fileType + ".buffersize", defaultbufferSize);
         orcStripeSize = MiscUtil.getLongProperty(props, propPrefix + "." + fileType + ".stripesize", defaultStripeSize);
 
+        orcFileRolloverEvents = MiscUtil.getLongProperty(props, propPrefix + "." + fileType + ".rollover.events", 0L);
+
+        boolean stringifyTypedFields = MiscUtil.getBooleanProperty(props, propPrefix + "." + fileType + ".stringify.typed.fields", false);
+
         setFileExtension(ORC_FILE_EXTENSION);
 
         try {
             orcFileUtil = ORCFileUtil.getInstance();
 
             orcFileUtil.init(orcBufferSize, orcStripeSize, compression);
+            orcFileUtil.setStringifyTypedFields(stringifyTypedFields);
         } catch (Exception e) {
             logger.error("Error while doing ORCWriter.init() ", e);
         }
@@ -197,4 +228,13 @@ protected synchronized Writer getORCFileWrite() throws Exception {
 
         return orcLogWriter;
     }
+
+    // with orc.rollover.events not set, each batch is written to a new file
+    protected boolean isRolloverRequired() {
+        if (orcFileRolloverEvents <= 0 || orcFileEventCount >= orcFileRolloverEvents) {
+            return true;
+        }
+
+        return nextRollOverTime != null && System.currentTimeMillis() >= nextRollOverTime.getTime();
+    }
 }
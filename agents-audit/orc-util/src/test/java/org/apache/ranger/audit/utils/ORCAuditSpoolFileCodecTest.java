@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.queue.AuditSpoolFileCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ORCAuditSpoolFileCodecTest {
+    @TempDir
+    File tmpDir;
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        ORCAuditSpoolFileCodec codec = createCodec();
+        File                   file  = new File(tmpDir, "spool.orc");
+
+        try (AuditSpoolFileCodec.RecordWriter writer = codec.createWriter(file)) {
+            writer.write(createEvent(0));
+            writer.write(MiscUtil.stringify(createEvent(1)));
+            writer.commit();
+            writer.write(createEvent(2));
+        }
+
+        assertTrue(codec.isCodecFile(file));
+        assertFalse(getFlushLengthFile(file).exists(), "side file must be deleted on close");
+        assertEvents(readEvents(codec, file), 0, 1, 2);
+    }
+
+    @Test
+    public void testRecoverAfterCrash() throws Exception {
+        ORCAuditSpoolFileCodec           codec  = createCodec();
+        File                             file   = new File(tmpDir, "spool.orc");
+        AuditSpoolFileCodec.RecordWriter writer = codec.createWriter(file);
+
+        writer.write(createEvent(0));
+        writer.write(createEvent(1));
+        writer.commit();
+        writer.write(createEvent(2));
+        writer.commit();
+        writer.write(createEvent(3)); // not committed; writer is not closed, as on a crash
+
+        assertTrue(getFlushLengthFile(file).exists());
+
+        codec.recover(file);
+
+        assertFalse(getFlushLengthFile(file).exists(), "side file must be deleted after recovery");
+        assertEvents(readEvents(codec, file), 0, 1, 2);
+    }
+
+    @Test
+    public void testRecoverWithoutCommit() throws Exception {
+        ORCAuditSpoolFileCodec           codec  = createCodec();
+        File                             file   = new File(tmpDir, "spool.orc");
+        AuditSpoolFileCodec.RecordWriter writer = codec.createWriter(file);
+
+        writer.write(createEvent(0)); // not committed
+
+        codec.recover(file);
+
+        assertFalse(file.exists(), "file without committed records must be deleted");
+    }
+
+    private static ORCAuditSpoolFileCodec createCodec() throws Exception {
+        ORCAuditSpoolFileCodec ret   = new ORCAuditSpoolFileCodec();
+        Properties             props = new Properties();
+
+        props.setProperty("test." + ORCAuditSpoolFileCodec.PROP_ORC_COMPRESSION, "zlib");
+
+        ret.init(props, "test");
+
+        return ret;
+    }
+
+    private static AuthzAuditEvent createEvent(int index) {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setEventId("event-" + index);
+        ret.setRepositoryName("dev_hdfs");
+        ret.setUser("user" + index);
+        ret.setAccessType("read");
+        ret.setResourcePath("/data/file" + index);
+        ret.setAccessResult((short) 1);
+        ret.setEventTime(new Date(1700000000000L + index));
+
+        return ret;
+    }
+
+    private static List<AuthzAuditEvent> readEvents(ORCAuditSpoolFileCodec codec, File file) throws Exception {
+        List<AuthzAuditEvent> ret = new ArrayList<>();
+
+        try (AuditSpoolFileCodec.RecordReader reader = codec.createReader(file)) {
+            for (String record = reader.readRecord(); record != null; record = reader.readRecord()) {
+                ret.add(MiscUtil.fromJson(record, AuthzAuditEvent.class));
+            }
+
+            assertEquals(file.length(), reader.getBytesRead());
+        }
+
+        return ret;
+    }
+
+    private static void assertEvents(List<AuthzAuditEvent> events, int... indexes) {
+        assertEquals(indexes.length, events.size());
+
+        for (int i = 0; i < indexes.length; i++) {
+            AuthzAuditEvent expected = createEvent(indexes[i]);
+            AuthzAuditEvent actual   = events.get(i);
+
+            assertEquals(expected.getEventId(), actual.getEventId());
+            assertEquals(expected.getUser(), actual.getUser());
+            assertEquals(expected.getResourcePath(), actual.getResourcePath());
+            assertEquals(expected.getAccessResult(), actual.getAccessResult());
+            assertEquals(expected.getEventTime(), actual.getEventTime());
+        }
+    }
+
+    private static File getFlushLengthFile(File file) {
+        return new File(file.getParentFile(), file.getName() + ORCAuditSpoolFileCodec.FLUSH_LENGTH_SUFFIX);
+    }
+}
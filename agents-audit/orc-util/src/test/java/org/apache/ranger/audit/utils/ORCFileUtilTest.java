@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.audit.utils;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.Reader;
+import org.apache.orc.RecordReader;
+import org.apache.orc.Writer;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ORCFileUtilTest {
+    @TempDir
+    File tmpDir;
+
+    @Test
+    public void testTypedFieldsWrittenEmptyByDefault() throws Exception {
+        ORCFileUtil     orcFileUtil = createORCFileUtil(false);
+        AuthzAuditEvent event       = writeAndRead(orcFileUtil, new File(tmpDir, "default.orc"));
+
+        assertFalse(orcFileUtil.isStringifyTypedFields());
+        assertEquals("/tmp/test", event.getResourcePath());
+        assertEquals(0, event.getAccessResult(), "accessResult must be written as empty string, as in earlier versions");
+    }
+
+    @Test
+    public void testStringifyTypedFields() throws Exception {
+        ORCFileUtil     orcFileUtil = createORCFileUtil(true);
+        AuthzAuditEvent event       = writeAndRead(orcFileUtil, new File(tmpDir, "typed.orc"));
+
+        assertTrue(orcFileUtil.isStringifyTypedFields());
+        assertEquals("/tmp/test", event.getResourcePath());
+        assertEquals(1, event.getAccessResult());
+    }
+
+    private ORCFileUtil createORCFileUtil(boolean stringifyTypedFields) throws Exception {
+        ORCFileUtil ret = new ORCFileUtil();
+
+        ret.init(100, 100000L, "none");
+        ret.setStringifyTypedFields(stringifyTypedFields);
+
+        return ret;
+    }
+
+    private AuthzAuditEvent writeAndRead(ORCFileUtil orcFileUtil, File file) throws Exception {
+        Configuration   conf  = new Configuration();
+        FileSystem      fs    = FileSystem.getLocal(conf);
+        AuthzAuditEvent event = new AuthzAuditEvent();
+
+        event.setEventId("1");
+        event.setResourcePath("/tmp/test");
+        event.setAccessResult((short) 1);
+        event.setEventTime(new Date());
+
+        Writer writer = orcFileUtil.createWriter(conf, fs, file.getAbsolutePath());
+
+        orcFileUtil.log(writer, Collections.singletonList(event));
+        orcFileUtil.close(writer);
+
+        try (Reader reader = orcFileUtil.createReader(conf, fs, file.getAbsolutePath()); RecordReader rows = reader.rows()) {
+            VectorizedRowBatch batch = reader.getSchema().createRowBatch();
+
+            assertTrue(rows.nextBatch(batch));
+            assertEquals(1, batch.size);
+
+            return orcFileUtil.toEvent(reader.getSchema(), batch, 0);
+        }
+    }
+}
@@ -28,9 +28,11 @@
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceSyncData;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -131,6 +133,16 @@ public ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActiva
         return null;
     }
 
+    @Override
+    public RangerServiceVersions waitForServiceChange(RangerServiceVersions lastKnownVersions, long timeoutMs) throws Exception {
+        throw new RangerAdminOperationNotSupportedException("waitForServiceChange() is not supported by " + getClass().getName());
+    }
+
+    @Override
+    public ServiceSyncData syncIfUpdated(RangerServiceVersions lastKnownVersions, long lastActivationTimeInMillis) throws Exception {
+        throw new RangerAdminOperationNotSupportedException("syncIfUpdated() is not supported by " + getClass().getName());
+    }
+
     public boolean isAuthenticationEnabled() {
         return forceSecureEndpointAccess || isKerberosEnabled();
     }
@@ -24,9 +24,11 @@
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceSyncData;
 import org.apache.ranger.plugin.util.ServiceTags;
 
 import java.util.List;
@@ -63,4 +65,35 @@ public interface RangerAdminClient {
     RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, long lastActivationTimeInMillis) throws Exception;
 
     ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception;
+
+    /**
+     * @return true if the client supports waitForServiceChange(); can turn false once Ranger admin is found to not support it
+     */
+    default boolean supportsServiceChangeWait() {
+        return false;
+    }
+
+    /**
+     * @return true if the client supports syncIfUpdated(); can turn false once Ranger admin is found to not support it
+     */
+    default boolean supportsSync() {
+        return false;
+    }
+
+    /**
+     * Waits in Ranger admin (long-poll) until one of the given versions of the service changes, or timeout expires.
+     *
+     * @return current versions of the service if any of the given versions changed; null if timeout expired
+     * @throws RangerAdminOperationNotSupportedException if the client or Ranger admin doesn't support waiting for changes
+     */
+    RangerServiceVersions waitForServiceChange(RangerServiceVersions lastKnownVersions, long timeoutMs) throws Exception;
+
+    /**
+     * Downloads policies, tags, roles, userstore and GDS info of the service in a single request to Ranger admin.
+     *
+     * @param lastKnownVersions versions known to the plugin; artifacts with null version are not downloaded
+     * @return artifacts that changed since the given versions; null if none changed
+     * @throws RangerAdminOperationNotSupportedException if the client or Ranger admin doesn't support sync
+     */
+    ServiceSyncData syncIfUpdated(RangerServiceVersions lastKnownVersions, long lastActivationTimeInMillis) throws Exception;
 }
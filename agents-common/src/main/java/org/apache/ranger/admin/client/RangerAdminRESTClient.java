@@ -38,9 +38,11 @@
 import org.apache.ranger.plugin.util.RangerRESTUtils;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceSyncData;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.apache.ranger.plugin.util.URLEncoderUtil;
 import org.slf4j.Logger;
@@ -61,19 +63,21 @@ public class RangerAdminRESTClient extends AbstractRangerAdminClient {
 
     private static final TypeReference<List<String>> TYPE_LIST_STRING = new TypeReference<List<String>>() {};
 
-    private final String           pluginCapabilities = Long.toHexString(new RangerPluginCapability().getPluginCapabilities());
-    private final RangerRESTUtils  restUtils          = new RangerRESTUtils();
-    private       String           serviceName;
-    private       String           serviceNameUrlParam;
-    private       String           pluginId;
-    private       String           clusterName;
-    private       JwtProvider      jwtProvider;
-    private       RangerRESTClient restClient;
-    private       boolean          supportsPolicyDeltas;
-    private       boolean          supportsTagDeltas;
-    private       boolean          isRangerCookieEnabled;
-    private       String           rangerAdminCookieName;
-    private       Cookie           sessionId;
+    private final    String           pluginCapabilities = Long.toHexString(new RangerPluginCapability().getPluginCapabilities());
+    private final    RangerRESTUtils  restUtils          = new RangerRESTUtils();
+    private          String           serviceName;
+    private          String           serviceNameUrlParam;
+    private          String           pluginId;
+    private          String           clusterName;
+    private          JwtProvider      jwtProvider;
+    private          RangerRESTClient restClient;
+    private          boolean          supportsPolicyDeltas;
+    private          boolean          supportsTagDeltas;
+    private          boolean          isRangerCookieEnabled;
+    private          String           rangerAdminCookieName;
+    private          Cookie           sessionId;
+    private volatile boolean          isServiceChangeWaitSupported = true;
+    private volatile boolean          isSyncSupported              = true;
 
     @Override
     public void init(String serviceName, String appId, String propertyPrefix, Configuration config) {
@@ -1016,6 +1020,157 @@ public ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActiva
         return ret;
     }
 
+    @Override
+    public boolean supportsServiceChangeWait() {
+        return isServiceChangeWaitSupported;
+    }
+
+    @Override
+    public boolean supportsSync() {
+        return isSyncSupported;
+    }
+
+    @Override
+    public RangerServiceVersions waitForServiceChange(RangerServiceVersions lastKnownVersions, long timeoutMs) throws Exception {
+        LOG.debug("==> RangerAdminRESTClient.waitForServiceChange({}, {})", lastKnownVersions, timeoutMs);
+
+        final boolean              isSecureMode  = isAuthenticationEnabled();
+        final Cookie               sessionId     = this.sessionId;
+        final Map<String, String>  queryParams   = new HashMap<>();
+        final int                  readTimeoutMs = (int) Math.min(Integer.MAX_VALUE, timeoutMs + restClient.getRestClientReadTimeOutMs()); // admin holds the request for up to timeoutMs
+
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, lastKnownVersions.getPolicyVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_TAG_VERSION, lastKnownVersions.getTagVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_ROLE_VERSION, lastKnownVersions.getRoleVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_USERSTORE_VERSION, lastKnownVersions.getUserStoreVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_GDS_VERSION, lastKnownVersions.getGdsVersion());
+        queryParams.put(RangerRESTUtils.REST_PARAM_WAIT_TIMEOUT_MS, Long.toString(timeoutMs));
+        queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+
+        final Response response;
+
+        if (isSecureMode) {
+            response = MiscUtil.executePrivilegedAction((PrivilegedExceptionAction<Response>) () -> {
+                try {
+                    String relativeURL = RangerRESTUtils.REST_URL_POLICY_WAIT_FOR_SECURE_SERVICE_CHANGE + serviceNameUrlParam;
+
+                    return restClient.get(relativeURL, queryParams, sessionId, readTimeoutMs);
+                } catch (Exception e) {
+                    LOG.error("Failed to get response", e);
+                }
+
+                return null;
+            });
+        } else {
+            String relativeURL = RangerRESTUtils.REST_URL_POLICY_WAIT_FOR_SERVICE_CHANGE + serviceNameUrlParam;
+
+            response = restClient.get(relativeURL, queryParams, sessionId, readTimeoutMs);
+        }
+
+        checkAndResetSessionCookie(response);
+
+        final RangerServiceVersions ret;
+
+        if (response == null) {
+            throw new Exception("Error waiting for changes - received NULL response: secureMode=" + isSecureMode + ", serviceName=" + serviceName);
+        } else if (response.getStatus() == HttpStatus.SC_NOT_MODIFIED) {
+            ret = null;
+
+            LOG.debug("No change in service within {}ms: secureMode={}, serviceName={}, lastKnownVersions={}", timeoutMs, isSecureMode, serviceName, lastKnownVersions);
+        } else if (response.getStatus() == HttpStatus.SC_OK) {
+            ret = JsonUtilsV2.jsonToObj(response.readEntity(String.class), RangerServiceVersions.class);
+        } else if (response.getStatus() == HttpStatus.SC_NOT_FOUND) {
+            String exceptionMsg = response.hasEntity() ? response.readEntity(String.class) : null;
+
+            RangerServiceNotFoundException.throwExceptionIfServiceNotFound(serviceName, exceptionMsg);
+
+            // Ranger admin versions that don't support waiting for changes
+            isServiceChangeWaitSupported = false;
+
+            throw new RangerAdminOperationNotSupportedException("Ranger admin doesn't support waiting for changes: serviceName=" + serviceName + ", response=" + exceptionMsg);
+        } else {
+            RESTResponse resp = RESTResponse.fromClientResponse(response);
+
+            throw new Exception("Error waiting for changes: unexpected status code " + response.getStatus() + ": secureMode=" + isSecureMode + ", response=" + resp + ", serviceName=" + serviceName);
+        }
+
+        LOG.debug("<== RangerAdminRESTClient.waitForServiceChange({}, {}): ret={}", lastKnownVersions, timeoutMs, ret);
+
+        return ret;
+    }
+
+    @Override
+    public ServiceSyncData syncIfUpdated(RangerServiceVersions lastKnownVersions, long lastActivationTimeInMillis) throws Exception {
+        LOG.debug("==> RangerAdminRESTClient.syncIfUpdated({}, {})", lastKnownVersions, lastActivationTimeInMillis);
+
+        final boolean              isSecureMode = isAuthenticationEnabled();
+        final Cookie               sessionId    = this.sessionId;
+        final Map<String, String>  queryParams  = new HashMap<>();
+
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_POLICY_VERSION, lastKnownVersions.getPolicyVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_TAG_VERSION, lastKnownVersions.getTagVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_ROLE_VERSION, lastKnownVersions.getRoleVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_USERSTORE_VERSION, lastKnownVersions.getUserStoreVersion());
+        addVersionParam(queryParams, RangerRESTUtils.REST_PARAM_LAST_KNOWN_GDS_VERSION, lastKnownVersions.getGdsVersion());
+        queryParams.put(RangerRESTUtils.REST_PARAM_LAST_ACTIVATION_TIME, Long.toString(lastActivationTimeInMillis));
+        queryParams.put(RangerRESTUtils.REST_PARAM_PLUGIN_ID, pluginId);
+        queryParams.put(RangerRESTUtils.REST_PARAM_CLUSTER_NAME, clusterName);
+        queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_POLICY_DELTAS, Boolean.toString(supportsPolicyDeltas));
+        queryParams.put(RangerRESTUtils.REST_PARAM_SUPPORTS_TAG_DELTAS, Boolean.toString(supportsTagDeltas));
+        queryParams.put(RangerRESTUtils.REST_PARAM_CAPABILITIES, pluginCapabilities);
+
+        final Response response;
+
+        if (isSecureMode) {
+            response = MiscUtil.executePrivilegedAction((PrivilegedExceptionAction<Response>) () -> {
+                try {
+                    String relativeURL = RangerRESTUtils.REST_URL_SYNC_FOR_SECURE_SERVICE_IF_UPDATED + serviceNameUrlParam;
+
+                    return restClient.get(relativeURL, queryParams, sessionId);
+                } catch (Exception e) {
+                    LOG.error("Failed to get response", e);
+                }
+
+                return null;
+            });
+        } else {
+            String relativeURL = RangerRESTUtils.REST_URL_SYNC_FOR_SERVICE_IF_UPDATED + serviceNameUrlParam;
+
+            response = restClient.get(relativeURL, queryParams, sessionId);
+        }
+
+        checkAndResetSessionCookie(response);
+
+        final ServiceSyncData ret;
+
+        if (response == null) {
+            throw new Exception("Error syncing with Ranger admin - received NULL response: secureMode=" + isSecureMode + ", serviceName=" + serviceName);
+        } else if (response.getStatus() == HttpStatus.SC_NOT_MODIFIED) {
+            ret = null;
+
+            LOG.debug("No change in service: secureMode={}, serviceName={}, lastKnownVersions={}", isSecureMode, serviceName, lastKnownVersions);
+        } else if (response.getStatus() == HttpStatus.SC_OK) {
+            ret = JsonUtilsV2.jsonToObj(response.readEntity(String.class), ServiceSyncData.class);
+        } else if (response.getStatus() == HttpStatus.SC_NOT_FOUND) {
+            String exceptionMsg = response.hasEntity() ? response.readEntity(String.class) : null;
+
+            RangerServiceNotFoundException.throwExceptionIfServiceNotFound(serviceName, exceptionMsg);
+
+            // Ranger admin versions that don't support sync
+            isSyncSupported = false;
+
+            throw new RangerAdminOperationNotSupportedException("Ranger admin doesn't support sync: serviceName=" + serviceName + ", response=" + exceptionMsg);
+        } else {
+            RESTResponse resp = RESTResponse.fromClientResponse(response);
+
+            throw new Exception("Error syncing with Ranger admin: unexpected status code " + response.getStatus() + ": secureMode=" + isSecureMode + ", response=" + resp + ", serviceName=" + serviceName);
+        }
+
+        LOG.debug("<== RangerAdminRESTClient.syncIfUpdated({}, {}): ret={}", lastKnownVersions, lastActivationTimeInMillis, ret);
+
+        return ret;
+    }
+
     @Override
     public boolean isAuthenticationEnabled() {
         return (restClient != null && restClient.isAuthFilterPresent()) || super.isAuthenticationEnabled();
@@ -1074,4 +1229,10 @@ private void checkAndResetSessionCookie(Response response) {
             }
         }
     }
+
+    private static void addVersionParam(Map<String, String> queryParams, String paramName, Long version) {
+        if (version != null) {
+            queryParams.put(paramName, Long.toString(version));
+        }
+    }
 }
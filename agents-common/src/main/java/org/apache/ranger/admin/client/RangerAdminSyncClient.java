@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.admin.client;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.plugin.util.GrantRevokeRequest;
+import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
+import org.apache.ranger.plugin.util.RangerUserStore;
+import org.apache.ranger.plugin.util.ServiceGdsInfo;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceSyncData;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Admin client that downloads policies, tags, roles, userstore and GDS info of the service in a single request to
+ * Ranger admin, instead of a request for each. The first call to one of get*IfUpdated() methods after syncIntervalMs
+ * downloads all artifacts that changed since the versions last known to their consumers - PolicyRefresher,
+ * RangerRolesProvider and retrievers of tag/userstore/GDS enrichers; the changed artifacts are held until the
+ * respective consumer asks for them. Calls within syncIntervalMs return the held artifact, or null if none.
+ *
+ * Falls back to the individual download methods of the given client if Ranger admin doesn't support sync.
+ */
+public class RangerAdminSyncClient implements RangerAdminClient {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAdminSyncClient.class);
+
+    public enum Artifact { POLICIES, TAGS, ROLES, USERSTORE, GDS_INFO }
+
+    private final    RangerAdminClient      delegate;
+    private final    Map<Artifact, Long>    lastKnownVersions = new EnumMap<>(Artifact.class);
+    private final    Map<Artifact, Object>  pending           = new EnumMap<>(Artifact.class);
+    private          Set<Artifact>          syncedArtifacts   = EnumSet.noneOf(Artifact.class);
+    private          String                 serviceName;
+    private          long                   syncIntervalMs;
+    private          long                   lastSyncTimeMs;
+    private volatile boolean                isSyncSupported   = true;
+
+    public RangerAdminSyncClient(RangerAdminClient delegate) {
+        this.delegate = delegate;
+    }
+
+    public RangerAdminClient getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Initializes only this client; the delegate must be initialized by the caller.
+     */
+    @Override
+    public void init(String serviceName, String appId, String configPropertyPrefix, Configuration config) {
+        this.serviceName    = serviceName;
+        this.syncIntervalMs = config.getLong(configPropertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_SYNC_INTERVAL_MS, config.getLong(configPropertyPrefix + ".policy.pollIntervalMs", 30 * 1000L));
+
+        LOG.info("RangerAdminSyncClient(serviceName={}): syncIntervalMs={}, delegate={}", serviceName, syncIntervalMs, delegate);
+    }
+
+    @Override
+    public ServicePolicies getServicePoliciesIfUpdated(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception {
+        return getIfUpdated(Artifact.POLICIES, lastKnownVersion, lastActivationTimeInMillis, () -> delegate.getServicePoliciesIfUpdated(lastKnownVersion, lastActivationTimeInMillis));
+    }
+
+    @Override
+    public RangerRoles getRolesIfUpdated(long lastKnownRoleVersion, long lastActivationTimeInMills) throws Exception {
+        return getIfUpdated(Artifact.ROLES, lastKnownRoleVersion, lastActivationTimeInMills, () -> delegate.getRolesIfUpdated(lastKnownRoleVersion, lastActivationTimeInMills));
+    }
+
+    @Override
+    public ServiceTags getServiceTagsIfUpdated(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception {
+        return getIfUpdated(Artifact.TAGS, lastKnownVersion, lastActivationTimeInMillis, () -> delegate.getServiceTagsIfUpdated(lastKnownVersion, lastActivationTimeInMillis));
+    }
+
+    @Override
+    public RangerUserStore getUserStoreIfUpdated(long lastKnownUserStoreVersion, long lastActivationTimeInMillis) throws Exception {
+        return getIfUpdated(Artifact.USERSTORE, lastKnownUserStoreVersion, lastActivationTimeInMillis, () -> delegate.getUserStoreIfUpdated(lastKnownUserStoreVersion, lastActivationTimeInMillis));
+    }
+
+    @Override
+    public ServiceGdsInfo getGdsInfoIfUpdated(long lastKnownVersion, long lastActivationTimeInMillis) throws Exception {
+        return getIfUpdated(Artifact.GDS_INFO, lastKnownVersion, lastActivationTimeInMillis, () -> delegate.getGdsInfoIfUpdated(lastKnownVersion, lastActivationTimeInMillis));
+    }
+
+    @Override
+    public boolean supportsServiceChangeWait() {
+        return delegate.supportsServiceChangeWait();
+    }
+
+    @Override
+    public boolean supportsSync() {
+        return isSyncSupported && delegate.supportsSync();
+    }
+
+    @Override
+    public ServiceSyncData syncIfUpdated(RangerServiceVersions lastKnownVersions, long lastActivationTimeInMillis) throws Exception {
+        return delegate.syncIfUpdated(lastKnownVersions, lastActivationTimeInMillis);
+    }
+
+    @Override
+    public RangerServiceVersions waitForServiceChange(RangerServiceVersions lastKnownVersions, long timeoutMs) throws Exception {
+        return delegate.waitForServiceChange(lastKnownVersions, timeoutMs);
+    }
+
+    @Override
+    public RangerRole createRole(RangerRole request) throws Exception {
+        return delegate.createRole(request);
+    }
+
+    @Override
+    public void dropRole(String execUser, String roleName) throws Exception {
+        delegate.dropRole(execUser, roleName);
+    }
+
+    @Override
+    public List<String> getAllRoles(String execUser) throws Exception {
+        return delegate.getAllRoles(execUser);
+    }
+
+    @Override
+    public List<String> getUserRoles(String execUser) throws Exception {
+        return delegate.getUserRoles(execUser);
+    }
+
+    @Override
+    public RangerRole getRole(String execUser, String roleName) throws Exception {
+        return delegate.getRole(execUser, roleName);
+    }
+
+    @Override
+    public void grantRole(GrantRevokeRoleRequest request) throws Exception {
+        delegate.grantRole(request);
+    }
+
+    @Override
+    public void revokeRole(GrantRevokeRoleRequest request) throws Exception {
+        delegate.revokeRole(request);
+    }
+
+    @Override
+    public void grantAccess(GrantRevokeRequest request) throws Exception {
+        delegate.grantAccess(request);
+    }
+
+    @Override
+    public void revokeAccess(GrantRevokeRequest request) throws Exception {
+        delegate.revokeAccess(request);
+    }
+
+    @Override
+    public List<String> getTagTypes(String tagTypePattern) throws Exception {
+        return delegate.getTagTypes(tagTypePattern);
+    }
+
+    /**
+     * @return true if a downloaded artifact is waiting to be picked up by its consumer
+     */
+    public synchronized boolean isPending(Artifact artifact) {
+        return pending.containsKey(artifact);
+    }
+
+    /**
+     * @return versions last known to consumers of each artifact; null for artifacts not consumed in this plugin
+     */
+    public synchronized RangerServiceVersions getLastKnownVersions() {
+        return new RangerServiceVersions(serviceName, lastKnownVersions.get(Artifact.POLICIES), lastKnownVersions.get(Artifact.TAGS), lastKnownVersions.get(Artifact.ROLES), lastKnownVersions.get(Artifact.USERSTORE), lastKnownVersions.get(Artifact.GDS_INFO));
+    }
+
+    @Override
+    public String toString() {
+        return "RangerAdminSyncClient={serviceName=" + serviceName + ", syncIntervalMs=" + syncIntervalMs + ", isSyncSupported=" + isSyncSupported + ", delegate=" + delegate + "}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getIfUpdated(Artifact artifact, long lastKnownVersion, long lastActivationTimeInMillis, Callable<T> fallback) throws Exception {
+        if (!supportsSync()) {
+            return fallback.call();
+        }
+
+        synchronized (this) {
+            lastKnownVersions.put(artifact, lastKnownVersion);
+
+            boolean isStale = !syncedArtifacts.contains(artifact) || (System.currentTimeMillis() - lastSyncTimeMs) >= syncIntervalMs;
+
+            if (isStale && !pending.containsKey(artifact)) {
+                try {
+                    sync(lastActivationTimeInMillis);
+                } catch (RangerAdminOperationNotSupportedException excp) {
+                    LOG.warn("RangerAdminSyncClient(serviceName={}): sync is not supported. Will download policies, tags, roles, userstore and GDS info individually", serviceName, excp);
+
+                    isSyncSupported = false;
+
+                    pending.clear();
+
+                    return fallback.call();
+                }
+            }
+
+            T ret = (T) pending.remove(artifact);
+
+            if (ret != null) {
+                // consumer is expected to apply the returned version; if it doesn't, its next call will report the actual version
+                lastKnownVersions.put(artifact, getVersion(ret));
+            }
+
+            LOG.debug("RangerAdminSyncClient.getIfUpdated(artifact={}, lastKnownVersion={}): isStale={}, found={}", artifact, lastKnownVersion, isStale, ret != null);
+
+            return ret;
+        }
+    }
+
+    private void sync(long lastActivationTimeInMillis) throws Exception {
+        RangerServiceVersions versions = getLastKnownVersions();
+        Set<Artifact>         artifacts = EnumSet.copyOf(lastKnownVersions.keySet());
+
+        LOG.debug("==> RangerAdminSyncClient.sync({})", versions);
+
+        ServiceSyncData syncData = delegate.syncIfUpdated(versions, lastActivationTimeInMillis);
+
+        if (syncData != null) {
+            addPending(Artifact.POLICIES, syncData.getPolicies());
+            addPending(Artifact.TAGS, syncData.getTags());
+            addPending(Artifact.ROLES, syncData.getRoles());
+            addPending(Artifact.USERSTORE, syncData.getUserStore());
+            addPending(Artifact.GDS_INFO, syncData.getGdsInfo());
+        }
+
+        syncedArtifacts = artifacts;
+        lastSyncTimeMs  = System.currentTimeMillis();
+
+        LOG.debug("<== RangerAdminSyncClient.sync({}): ret={}", versions, syncData);
+    }
+
+    private static Long getVersion(Object artifact) {
+        final Long ret;
+
+        if (artifact instanceof ServicePolicies) {
+            ret = ((ServicePolicies) artifact).getPolicyVersion();
+        } else if (artifact instanceof ServiceTags) {
+            ret = ((ServiceTags) artifact).getTagVersion();
+        } else if (artifact instanceof RangerRoles) {
+            ret = ((RangerRoles) artifact).getRoleVersion();
+        } else if (artifact instanceof RangerUserStore) {
+            ret = ((RangerUserStore) artifact).getUserStoreVersion();
+        } else if (artifact instanceof ServiceGdsInfo) {
+            ret = ((ServiceGdsInfo) artifact).getGdsVersion();
+        } else {
+            ret = null;
+        }
+
+        return ret != null ? ret : -1L;
+    }
+
+    private void addPending(Artifact artifact, Object value) {
+        if (value != null) {
+            pending.put(artifact, value); // replaces an artifact downloaded earlier, which is not picked up yet
+        }
+    }
+}
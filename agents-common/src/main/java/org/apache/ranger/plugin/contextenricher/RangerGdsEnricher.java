@@ -171,6 +171,17 @@ public GdsPolicyEngine getGdsPolicyEngine() {
         return gdsPolicyEngine;
     }
 
+    /**
+     * Requests the refresher to download gdsInfo, without waiting for the download to complete.
+     */
+    public void triggerGdsInfoDownload() {
+        RangerGdsInfoRefresher gdsInfoRefresher = this.gdsInfoRefresher;
+
+        if (gdsInfoRefresher != null) {
+            gdsInfoRefresher.triggerDownload();
+        }
+    }
+
     private void setGdsInfoInPlugin() {
         LOG.debug("==> setGdsInfoInPlugin()");
 
@@ -251,6 +262,14 @@ final void startRefresher() {
             }
         }
 
+        void triggerDownload() {
+            BlockingQueue<DownloadTrigger> downloadQueue = this.downloadQueue;
+
+            if (downloadQueue != null) {
+                downloadQueue.offer(new DownloadTrigger());
+            }
+        }
+
         void cleanup() {
             LOG.debug("==> RangerGdsInfoRefresher.cleanup()");
 
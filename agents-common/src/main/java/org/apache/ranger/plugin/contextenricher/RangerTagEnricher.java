@@ -44,11 +44,13 @@
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCacheSnapshot;
 import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerReadWriteLock;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
 import org.apache.ranger.plugin.util.RangerServiceTagsDeltaUtil;
+import org.apache.ranger.plugin.util.RangerStringPool;
 import org.apache.ranger.plugin.util.ServiceTags;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -91,6 +93,8 @@ public class RangerTagEnricher extends RangerAbstractContextEnricher {
     private       EnrichedServiceTags            enrichedServiceTags;
     private       boolean                        disableCacheIfServiceNotFound = true;
     private       boolean                        dedupStrings                  = true;
+    private       boolean                        dedupStringsShared;
+    private       String                         cacheFormat                   = RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT_DEFAULT;
     private       Timer                          tagDownloadTimer;
     private       RangerServiceDefHelper         serviceDefHelper;
 
@@ -151,7 +155,8 @@ public void init() {
         String tagRetrieverClassName = getOption(TAG_RETRIEVER_CLASSNAME_OPTION);
         long   pollingIntervalMs     = getLongOption(TAG_REFRESHER_POLLINGINTERVAL_OPTION, 60 * 1000L);
 
-        dedupStrings               = getBooleanConfig(propertyPrefix + ".dedup.strings", true);
+        dedupStrings               = getBooleanConfig(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_DEFAULT);
+        dedupStringsShared         = getBooleanConfig(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED_DEFAULT);
         disableTrieLookupPrefilter = getBooleanOption(TAG_DISABLE_TRIE_PREFILTER_OPTION, false);
         serviceDefHelper           = new RangerServiceDefHelper(serviceDef, false);
 
@@ -173,6 +178,7 @@ public void init() {
 
             if (tagRetriever != null) {
                 disableCacheIfServiceNotFound = getBooleanConfig(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+                cacheFormat                   = RangerCacheSnapshot.getCacheFormat(getPluginConfig(), propertyPrefix);
 
                 String cacheDir      = getConfig(propertyPrefix + ".policy.cache.dir", null);
                 String cacheFilename = String.format("%s_%s_tag.json", appId, serviceName);
@@ -320,6 +326,15 @@ public void syncTagsWithAdmin(final DownloadTrigger token) throws InterruptedExc
         token.waitForCompletion();
     }
 
+    /**
+     * Requests the refresher to download tags, without waiting for the download to complete.
+     */
+    public void triggerTagsDownload() {
+        if (tagRefresher != null) {
+            tagDownloadQueue.offer(new DownloadTrigger());
+        }
+    }
+
     public EnrichedServiceTags getEnrichedServiceTags() {
         return enrichedServiceTags;
     }
@@ -347,7 +362,9 @@ protected void setServiceTags(final ServiceTags serviceTags, final boolean rebui
                 localEnrichedServiceTags = null;
             } else {
                 if (dedupStrings) {
-                    serviceTags.dedupStrings();
+                    serviceTags.dedupStrings(RangerStringPool.getStringTable(dedupStringsShared, "tags:" + serviceName));
+
+                    LOG.debug("setServiceTags(): deduplicated strings, shared={}, stringPool={}", dedupStringsShared, RangerStringPool.getInstance());
                 }
 
                 if (!serviceTags.getIsDelta()) {
@@ -919,7 +936,19 @@ final ServiceTags loadFromCache() {
 
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-            if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+            if (cacheFile != null && RangerCacheSnapshot.isSnapshotEnabled(tagEnricher.cacheFormat)) {
+                serviceTags = RangerCacheSnapshot.loadForCacheFile(cacheFile, ServiceTags.class);
+
+                if (serviceTags != null && !StringUtils.equals(tagEnricher.getServiceName(), serviceTags.getServiceName())) {
+                    LOG.warn("ignoring unexpected serviceName '{}' in snapshot for cache file '{}'", serviceTags.getServiceName(), cacheFile.getAbsolutePath());
+
+                    serviceTags.setServiceName(tagEnricher.getServiceName());
+                }
+            }
+
+            if (serviceTags != null) {
+                LOG.debug("loaded service-tags from snapshot for cache file {}", cacheFile.getAbsolutePath());
+            } else if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
                 Reader reader = null;
 
                 try {
@@ -958,7 +987,7 @@ final void saveToCache(ServiceTags serviceTags) {
             if (serviceTags != null) {
                 File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-                if (cacheFile != null) {
+                if (cacheFile != null && RangerCacheSnapshot.isJsonEnabled(tagEnricher.cacheFormat)) {
                     Writer writer = null;
 
                     try {
@@ -977,6 +1006,10 @@ final void saveToCache(ServiceTags serviceTags) {
                         }
                     }
                 }
+
+                if (cacheFile != null && RangerCacheSnapshot.isSnapshotEnabled(tagEnricher.cacheFormat)) {
+                    RangerCacheSnapshot.saveForCacheFile(cacheFile, serviceTags);
+                }
             } else {
                 LOG.info("service-tags is null for service={}. Nothing to save in cache", tagRetriever.getServiceName());
             }
@@ -989,6 +1022,10 @@ final void disableCache() {
 
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
+            if (cacheFile != null) {
+                RangerCacheSnapshot.disableForCacheFile(cacheFile);
+            }
+
             if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
                 LOG.warn("Cleaning up local tags cache");
 
@@ -25,7 +25,10 @@
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.DownloaderTask;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCacheSnapshot;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.apache.ranger.plugin.util.RangerStringPool;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +51,8 @@ public class RangerUserStoreEnricher extends RangerAbstractContextEnricher {
     private       RangerUserStore                rangerUserStore;
     private       boolean                        disableCacheIfServiceNotFound = true;
     private       boolean                        dedupStrings                  = true;
+    private       boolean                        dedupStringsShared;
+    private       String                         cacheFormat                   = RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT_DEFAULT;
     private       Timer                          userStoreDownloadTimer;
 
     @Override
@@ -60,7 +65,8 @@ public void init() {
         String userStoreRetrieverClassName = getOption(USERSTORE_RETRIEVER_CLASSNAME_OPTION);
         long   pollingIntervalMs           = getLongOption(USERSTORE_REFRESHER_POLLINGINTERVAL_OPTION, 3600 * 1000L);
 
-        dedupStrings = getBooleanConfig(propertyPrefix + ".dedup.strings", true);
+        dedupStrings       = getBooleanConfig(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_DEFAULT);
+        dedupStringsShared = getBooleanConfig(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED_DEFAULT);
 
         if (StringUtils.isNotBlank(userStoreRetrieverClassName)) {
             try {
@@ -80,6 +86,7 @@ public void init() {
 
             if (userStoreRetriever != null) {
                 disableCacheIfServiceNotFound = getBooleanConfig(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+                cacheFormat                   = RangerCacheSnapshot.getCacheFormat(getPluginConfig(), propertyPrefix);
 
                 String cacheDir      = getConfig(propertyPrefix + ".policy.cache.dir", null);
                 String cacheFilename = String.format("%s_%s_userstore.json", appId, serviceName);
@@ -184,6 +191,10 @@ public boolean isDisableCacheIfServiceNotFound() {
         return disableCacheIfServiceNotFound;
     }
 
+    public String getCacheFormat() {
+        return cacheFormat;
+    }
+
     public RangerUserStore getRangerUserStore() {
         return this.rangerUserStore;
     }
@@ -203,7 +214,9 @@ public void setRangerUserStore(final RangerUserStore rangerUserStore) {
             }
 
             if (dedupStrings) {
-                rangerUserStore.dedupStrings();
+                rangerUserStore.dedupStrings(RangerStringPool.getStringTable(dedupStringsShared, "userstore:" + serviceName));
+
+                LOG.debug("setRangerUserStore(): deduplicated strings, shared={}, stringPool={}", dedupStringsShared, RangerStringPool.getInstance());
             }
 
             this.rangerUserStore = rangerUserStore;
@@ -222,6 +235,15 @@ public Long getUserStoreVersion() {
         return localUserStore != null ? localUserStore.getUserStoreVersion() : null;
     }
 
+    /**
+     * Requests the refresher to download userstore, without waiting for the download to complete.
+     */
+    public void triggerUserStoreDownload() {
+        if (userStoreRefresher != null) {
+            userStoreDownloadQueue.offer(new DownloadTrigger());
+        }
+    }
+
     private void setRangerUserStoreInPlugin() {
         LOG.debug("==> setRangerUserStoreInPlugin()");
 
@@ -26,6 +26,7 @@
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.RangerCacheSnapshot;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerRESTClient;
 import org.apache.ranger.plugin.util.RangerRESTUtils;
@@ -248,7 +249,7 @@ public void saveToCache(RangerUserStore rangerUserStore) {
         if (rangerUserStore != null) {
             File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-            if (cacheFile != null) {
+            if (cacheFile != null && RangerCacheSnapshot.isJsonEnabled(userStoreEnricher.getCacheFormat())) {
                 Writer writer = null;
 
                 try {
@@ -267,6 +268,10 @@ public void saveToCache(RangerUserStore rangerUserStore) {
                     }
                 }
             }
+
+            if (cacheFile != null && RangerCacheSnapshot.isSnapshotEnabled(userStoreEnricher.getCacheFormat())) {
+                RangerCacheSnapshot.saveForCacheFile(cacheFile, rangerUserStore);
+            }
         } else {
             LOG.info("userstore information is null. Nothing to save in cache");
         }
@@ -281,7 +286,13 @@ private RangerUserStore loadFromCache() {
 
         File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+        if (cacheFile != null && RangerCacheSnapshot.isSnapshotEnabled(userStoreEnricher.getCacheFormat())) {
+            rangerUserStore = RangerCacheSnapshot.loadForCacheFile(cacheFile, RangerUserStore.class);
+        }
+
+        if (rangerUserStore != null) {
+            LOG.debug("loaded userstore information from snapshot for cache file {}", cacheFile.getAbsolutePath());
+        } else if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             Reader reader = null;
 
             try {
@@ -313,6 +324,10 @@ private void disableCache() {
 
         File cacheFile = StringUtils.isEmpty(this.cacheFile) ? null : new File(this.cacheFile);
 
+        if (cacheFile != null) {
+            RangerCacheSnapshot.disableForCacheFile(cacheFile);
+        }
+
         if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             LOG.warn("Cleaning up local userstore cache");
 
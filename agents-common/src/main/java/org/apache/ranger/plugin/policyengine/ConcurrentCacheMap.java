@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Thread-safe alternative to Collections.synchronizedMap(new CacheMap<>(capacity)).
+ *
+ * Entries are spread over a number of segments, each an access-ordered CacheMap guarded by its own monitor; hence
+ * threads operating on keys in different segments don't contend with each other. Capacity is distributed across
+ * segments, so that the total number of entries never exceeds the given capacity; eviction is LRU within a segment.
+ */
+public class ConcurrentCacheMap<K, V> extends AbstractMap<K, V> {
+    public static final int DEFAULT_SEGMENT_COUNT = 16;
+
+    private final int              capacity;
+    private final CacheMap<K, V>[] segments;
+    private final int              segmentShift;
+
+    public ConcurrentCacheMap(int capacity) {
+        this(capacity, DEFAULT_SEGMENT_COUNT);
+    }
+
+    public ConcurrentCacheMap(int capacity, int segmentCount) {
+        this(capacity, segmentCount, CacheMap::new);
+    }
+
+    /**
+     * @param segmentFactory creates the CacheMap of a segment, given its capacity - for example, to count evictions
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentCacheMap(int capacity, int segmentCount, IntFunction<? extends CacheMap<K, V>> segmentFactory) {
+        int count = 1;
+        int bits  = 0;
+
+        // largest power of 2 not exceeding segmentCount and capacity, so that each segment can hold at least one entry
+        while ((count << 1) <= segmentCount && (count << 1) <= capacity) {
+            count <<= 1;
+            bits++;
+        }
+
+        this.capacity     = capacity;
+        this.segments     = new CacheMap[count];
+        this.segmentShift = Integer.SIZE - bits;
+
+        for (int i = 0; i < count; i++) {
+            int segmentCapacity = (capacity / count) + (i < (capacity % count) ? 1 : 0);
+
+            segments[i] = segmentFactory.apply(segmentCapacity);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    @Override
+    public V get(Object key) {
+        CacheMap<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        CacheMap<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.containsKey(key);
+        }
+    }
+
+    @Override
+    public V put(K key, V value) {
+        CacheMap<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    @Override
+    public V remove(Object key) {
+        CacheMap<K, V> segment = segmentFor(key);
+
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+
+    @Override
+    public int size() {
+        int ret = 0;
+
+        for (CacheMap<K, V> segment : segments) {
+            synchronized (segment) {
+                ret += segment.size();
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (CacheMap<K, V> segment : segments) {
+            synchronized (segment) {
+                if (!segment.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        for (CacheMap<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return a point-in-time copy of the entries; changes to the returned set are not reflected in this map
+     */
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Map<K, V> ret = new HashMap<>();
+
+        for (CacheMap<K, V> segment : segments) {
+            synchronized (segment) {
+                ret.putAll(segment);
+            }
+        }
+
+        return ret.entrySet();
+    }
+
+    private CacheMap<K, V> segmentFor(Object key) {
+        if (segments.length == 1) {
+            return segments[0];
+        }
+
+        int hash = key == null ? 0 : key.hashCode();
+
+        // use the top bits of the mixed hash; lower bits are used by the segment's own hash-table
+        return segments[(hash * 0x9E3779B9) >>> segmentShift];
+    }
+}
@@ -318,6 +318,27 @@ public Map<String, RangerPolicyRepository> getZonePolicyRepositories() {
         return zonePolicyRepositories;
     }
 
+    /**
+     * @return count of resource trie nodes in this policy-engine that are not shared with the given policy-engine
+     */
+    public long getTrieNodeCount(PolicyEngine excluding) {
+        long ret = 0;
+
+        if (policyRepository != null) {
+            ret += policyRepository.getTrieNodeCount(excluding != null ? excluding.policyRepository : null);
+        }
+
+        if (tagPolicyRepository != null) {
+            ret += tagPolicyRepository.getTrieNodeCount(excluding != null ? excluding.tagPolicyRepository : null);
+        }
+
+        for (Map.Entry<String, RangerPolicyRepository> entry : zonePolicyRepositories.entrySet()) {
+            ret += entry.getValue().getTrieNodeCount(excluding != null ? excluding.zonePolicyRepositories.get(entry.getKey()) : null);
+        }
+
+        return ret;
+    }
+
     public List<RangerContextEnricher> getAllContextEnrichers() {
         return allContextEnrichers;
     }
@@ -416,7 +437,15 @@ public PolicyEngine cloneWithDelta(ServicePolicies servicePolicies) {
                 }
             }
 
+            if (isValidDeltas && isPrincipalIndexRebuildNeeded()) {
+                LOG.info("cloneWithDelta(): principal-index has grown due to policy deltas; policy-engine will be rebuilt");
+
+                isValidDeltas = false;
+            }
+
             if (isValidDeltas) {
+                long startTimeNanos = System.nanoTime();
+
                 if (writeLock.isLockingEnabled()) {
                     updatePolicyEngine(servicePolicies);
 
@@ -424,6 +453,8 @@ public PolicyEngine cloneWithDelta(ServicePolicies servicePolicies) {
                 } else {
                     ret = new PolicyEngine(this, servicePolicies);
                 }
+
+                PolicyEngineUpdateMetrics.getInstance().recordDeltaUpdate(System.nanoTime() - startTimeNanos, writeLock.isLockingEnabled());
             } else {
                 ret = null;
             }
@@ -603,6 +634,22 @@ private void reorderPolicyEvaluators() {
         LOG.debug("<== reorderEvaluators()");
     }
 
+    private boolean isPrincipalIndexRebuildNeeded() {
+        boolean ret = (policyRepository != null && policyRepository.isPrincipalIndexRebuildNeeded()) || (tagPolicyRepository != null && tagPolicyRepository.isPrincipalIndexRebuildNeeded());
+
+        if (!ret) {
+            for (RangerPolicyRepository zonePolicyRepository : zonePolicyRepositories.values()) {
+                if (zonePolicyRepository.isPrincipalIndexRebuildNeeded()) {
+                    ret = true;
+
+                    break;
+                }
+            }
+        }
+
+        return ret;
+    }
+
     private void cleanup() {
         LOG.debug("==> PolicyEngine.cleanup()");
 
@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.plugin.util.RangerPerfTracer;
+import org.slf4j.Logger;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide metrics of policy-engine updates on policy-deltas: time taken to apply deltas, resource tries copied
+ * or shared with the earlier policy-engine, and policy-engine snapshots that were replaced but are not yet garbage
+ * collected - for example, as they are still in use by requests that started before the switch.
+ *
+ * Memory retained by a replaced snapshot is estimated from the count of trie nodes that are not shared with the
+ * policy-engine that replaced it. Counting nodes walks the tries, hence is done only when perf logging of
+ * policyengine.update.metrics is enabled - see isRetainedBytesEnabled(); otherwise only snapshots are counted.
+ */
+public class PolicyEngineUpdateMetrics {
+    private static final PolicyEngineUpdateMetrics INSTANCE = new PolicyEngineUpdateMetrics();
+
+    private static final Logger PERF_UPDATE_METRICS_LOG = RangerPerfTracer.getPerfLogger("policyengine.update.metrics");
+
+    // rough estimate of heap used by a trie node: TrieNode object, its children map and the map entry in its parent
+    static final int ESTIMATED_TRIE_NODE_SIZE = 128;
+
+    private final AtomicLong             deltaUpdateCount         = new AtomicLong();
+    private final AtomicLong             inPlaceUpdateCount       = new AtomicLong();
+    private final AtomicLong             deltaUpdateTimeNanos     = new AtomicLong();
+    private final AtomicLong             maxDeltaUpdateTimeNanos  = new AtomicLong();
+    private final AtomicLong             lastDeltaUpdateTimeNanos = new AtomicLong();
+    private final AtomicLong             copiedTrieCount          = new AtomicLong();
+    private final AtomicLong             sharedTrieCount          = new AtomicLong();
+    private final AtomicLong             retainedSnapshotBytes    = new AtomicLong();
+    private final ReferenceQueue<Object> collectedSnapshots       = new ReferenceQueue<>();
+    private final Set<SnapshotRef>       retainedSnapshots        = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    PolicyEngineUpdateMetrics() {
+    }
+
+    public static PolicyEngineUpdateMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return true if the caller should count trie nodes of a replaced policy-engine, to estimate retained bytes
+     */
+    public static boolean isRetainedBytesEnabled() {
+        return RangerPerfTracer.isPerfTraceEnabled(PERF_UPDATE_METRICS_LOG);
+    }
+
+    public void recordDeltaUpdate(long elapsedNanos, boolean isInPlace) {
+        deltaUpdateCount.incrementAndGet();
+        deltaUpdateTimeNanos.addAndGet(elapsedNanos);
+        lastDeltaUpdateTimeNanos.set(elapsedNanos);
+        maxDeltaUpdateTimeNanos.accumulateAndGet(elapsedNanos, Math::max);
+
+        if (isInPlace) {
+            inPlaceUpdateCount.incrementAndGet();
+        }
+    }
+
+    public void recordTrieCopies(int copiedCount, int sharedCount) {
+        copiedTrieCount.addAndGet(copiedCount);
+        sharedTrieCount.addAndGet(sharedCount);
+    }
+
+    /**
+     * Tracks the given replaced policy-engine until it is garbage collected.
+     *
+     * @param snapshot           replaced policy-engine
+     * @param exclusiveNodeCount count of trie nodes in snapshot that are not shared with the current policy-engine
+     */
+    public void addRetainedSnapshot(Object snapshot, long exclusiveNodeCount) {
+        expungeCollectedSnapshots();
+
+        SnapshotRef ref = new SnapshotRef(snapshot, collectedSnapshots, exclusiveNodeCount * ESTIMATED_TRIE_NODE_SIZE);
+
+        retainedSnapshots.add(ref);
+        retainedSnapshotBytes.addAndGet(ref.estimatedBytes);
+    }
+
+    public long getDeltaUpdateCount() {
+        return deltaUpdateCount.get();
+    }
+
+    public long getInPlaceUpdateCount() {
+        return inPlaceUpdateCount.get();
+    }
+
+    public long getCopiedTrieCount() {
+        return copiedTrieCount.get();
+    }
+
+    public long getSharedTrieCount() {
+        return sharedTrieCount.get();
+    }
+
+    public int getRetainedSnapshotCount() {
+        expungeCollectedSnapshots();
+
+        return retainedSnapshots.size();
+    }
+
+    public long getRetainedSnapshotBytes() {
+        expungeCollectedSnapshots();
+
+        return retainedSnapshotBytes.get();
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> ret   = new LinkedHashMap<>();
+        long              count = getDeltaUpdateCount();
+
+        ret.put("deltaUpdates", count);
+        ret.put("inPlaceUpdates", getInPlaceUpdateCount());
+        ret.put("deltaUpdateTimeAvgMs", count > 0 ? TimeUnit.NANOSECONDS.toMillis(deltaUpdateTimeNanos.get() / count) : 0L);
+        ret.put("deltaUpdateTimeMaxMs", TimeUnit.NANOSECONDS.toMillis(maxDeltaUpdateTimeNanos.get()));
+        ret.put("deltaUpdateTimeLastMs", TimeUnit.NANOSECONDS.toMillis(lastDeltaUpdateTimeNanos.get()));
+        ret.put("copiedTries", getCopiedTrieCount());
+        ret.put("sharedTries", getSharedTrieCount());
+        ret.put("retainedSnapshots", (long) getRetainedSnapshotCount());
+        ret.put("retainedSnapshotBytes", getRetainedSnapshotBytes());
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "PolicyEngineUpdateMetrics={stats=" + getStats() + "}";
+    }
+
+    private void expungeCollectedSnapshots() {
+        for (Reference<?> ref = collectedSnapshots.poll(); ref != null; ref = collectedSnapshots.poll()) {
+            if (retainedSnapshots.remove(ref)) {
+                retainedSnapshotBytes.addAndGet(-((SnapshotRef) ref).estimatedBytes);
+            }
+        }
+    }
+
+    private static final class SnapshotRef extends WeakReference<Object> {
+        final long estimatedBytes;
+
+        SnapshotRef(Object snapshot, ReferenceQueue<Object> queue, long estimatedBytes) {
+            super(snapshot, queue);
+
+            this.estimatedBytes = estimatedBytes;
+        }
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.commons.collections.MapUtils;
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of access decisions made by RangerBasePlugin.isAccessAllowed().
+ *
+ * Entries are keyed on the request attributes that drive policy evaluation: user, groups, roles, resource,
+ * access-type, client/cluster attributes and the request-context entries listed in configuration. All entries
+ * are dropped together, by replacing the current generation, whenever the auth-context changes - i.e. on every
+ * update to policies, tags, roles, userstore or GDS info. A decision computed against an older generation is
+ * never published to a newer one.
+ *
+ * Requests carrying context entries not listed in configuration, inline policies or that were already
+ * pre-processed by the caller are not cached.
+ *
+ * Decisions are held in a ConcurrentCacheMap, so that lookups from concurrent authorization calls contend only
+ * when their keys fall in the same segment; LRU eviction is per segment.
+ */
+public class RangerAccessDecisionCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAccessDecisionCache.class);
+
+    private final int         cacheSize;
+    private final long        ttlMs;
+    private final Set<String> contextKeys;
+    private final AtomicLong  hitCount          = new AtomicLong();
+    private final AtomicLong  missCount         = new AtomicLong();
+    private final AtomicLong  bypassCount       = new AtomicLong();
+    private final AtomicLong  evictionCount     = new AtomicLong();
+    private final AtomicLong  expiryCount       = new AtomicLong();
+    private final AtomicLong  invalidationCount = new AtomicLong();
+
+    private volatile Generation generation;
+
+    public RangerAccessDecisionCache(RangerPluginConfig config) {
+        String propertyPrefix = config.getPropertyPrefix();
+
+        this.cacheSize   = config.getInt(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_SIZE, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_SIZE_DEFAULT);
+        this.ttlMs       = config.getLong(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_TTL_MS, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_TTL_MS_DEFAULT);
+        this.contextKeys = new HashSet<>(config.getTrimmedStringCollection(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_CONTEXT_KEYS));
+        this.generation  = new Generation(0, cacheSize, evictionCount);
+
+        LOG.info("RangerAccessDecisionCache(serviceName={}): cacheSize={}, ttlMs={}, contextKeys={}", config.getServiceName(), cacheSize, ttlMs, contextKeys);
+    }
+
+    public static boolean isEnabled(RangerPluginConfig config) {
+        return config != null && config.getBoolean(config.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_ENABLED, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_ENABLED_DEFAULT);
+    }
+
+    /**
+     * Looks up the decision for the given request.
+     *
+     * @return null if the request can't be cached; otherwise a lookup whose result is non-null on cache-hit. On
+     * cache-miss, the caller should evaluate the request and pass the final result to Lookup.cache().
+     */
+    public Lookup lookup(RangerAccessRequest request, RangerPolicyEngine policyEngine) {
+        final Lookup ret;
+
+        DecisionKey key = getKey(request, policyEngine);
+
+        if (key == null) {
+            bypassCount.incrementAndGet();
+
+            ret = null;
+        } else {
+            Generation     generation = this.generation;
+            CachedDecision decision   = generation.get(key);
+
+            if (decision != null && decision.isExpired(System.currentTimeMillis())) {
+                generation.remove(key);
+
+                expiryCount.incrementAndGet();
+
+                decision = null;
+            }
+
+            if (decision != null) {
+                hitCount.incrementAndGet();
+
+                ret = new Lookup(generation, key, decision.toResult(request));
+            } else {
+                missCount.incrementAndGet();
+
+                ret = new Lookup(generation, key, null);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Drops all cached decisions. Called whenever policies, tags, roles, userstore or GDS info change.
+     */
+    public void invalidate() {
+        Generation prevGeneration = this.generation;
+
+        this.generation = new Generation(prevGeneration.id + 1, cacheSize, evictionCount);
+
+        invalidationCount.incrementAndGet();
+
+        LOG.info("RangerAccessDecisionCache.invalidate(): generation={}, size={}, {}", prevGeneration.id, prevGeneration.size(), getStats());
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getBypassCount() {
+        return bypassCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getExpiryCount() {
+        return expiryCount.get();
+    }
+
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    public int getSize() {
+        return generation.size();
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+
+        ret.put("hits", getHitCount());
+        ret.put("misses", getMissCount());
+        ret.put("bypasses", getBypassCount());
+        ret.put("evictions", getEvictionCount());
+        ret.put("expiries", getExpiryCount());
+        ret.put("invalidations", getInvalidationCount());
+        ret.put("size", (long) getSize());
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerAccessDecisionCache={cacheSize=" + cacheSize + ", ttlMs=" + ttlMs + ", stats=" + getStats() + "}";
+    }
+
+    private DecisionKey getKey(RangerAccessRequest request, RangerPolicyEngine policyEngine) {
+        RangerAccessResource resource = request.getResource();
+
+        if (resource == null || request.getInlinePolicy() != null) {
+            return null;
+        }
+
+        Map<String, Object> context = request.getContext();
+
+        if (context != null && RangerAccessRequestUtil.getIsRequestPreprocessed(context)) {
+            return null;
+        }
+
+        List<Object> contextValues = null;
+
+        if (MapUtils.isNotEmpty(context)) {
+            for (Map.Entry<String, Object> entry : context.entrySet()) {
+                String name = entry.getKey();
+
+                if (contextKeys.contains(name)) {
+                    if (contextValues == null) {
+                        contextValues = new ArrayList<>();
+                    }
+
+                    contextValues.add(name);
+                    contextValues.add(entry.getValue());
+                } else if (!RangerAccessRequestUtil.KEY_CONTEXT_REQUEST.equals(name) && !RangerAccessRequestUtil.KEY_CONTEXT_IS_REQUEST_PREPROCESSED.equals(name)) {
+                    LOG.debug("RangerAccessDecisionCache.getKey(): context has entry {}, which is not a configured key. Skipping cache", name);
+
+                    return null;
+                }
+            }
+        }
+
+        // same as done in request pre-processing; needed to compute the cache-key of the resource
+        if (resource.getServiceDef() == null && resource instanceof RangerMutableResource) {
+            ((RangerMutableResource) resource).setServiceDef(policyEngine.getServiceDef());
+        }
+
+        String resourceKey = resource.getCacheKey();
+
+        return resourceKey != null ? new DecisionKey(request, resourceKey, contextValues) : null;
+    }
+
+    public final class Lookup {
+        private final Generation         generation;
+        private final DecisionKey        key;
+        private final RangerAccessResult result;
+
+        private Lookup(Generation generation, DecisionKey key, RangerAccessResult result) {
+            this.generation = generation;
+            this.key        = key;
+            this.result     = result;
+        }
+
+        public RangerAccessResult getResult() {
+            return result;
+        }
+
+        /**
+         * Caches the final result of evaluating the request. The result is added to the generation that was
+         * current at the time of lookup, so that results computed with stale policies/tags never get served.
+         */
+        public void cache(RangerAccessResult result) {
+            if (result != null && result.getAccessRequest() != null) {
+                generation.put(key, new CachedDecision(result, System.currentTimeMillis() + ttlMs));
+            }
+        }
+    }
+
+    private static final class Generation {
+        private final long                             id;
+        private final Map<DecisionKey, CachedDecision> decisions;
+
+        Generation(long id, int cacheSize, AtomicLong evictionCount) {
+            this.id        = id;
+            this.decisions = new ConcurrentCacheMap<>(cacheSize, ConcurrentCacheMap.DEFAULT_SEGMENT_COUNT, segmentCapacity -> new DecisionMap(segmentCapacity, evictionCount));
+        }
+
+        CachedDecision get(DecisionKey key) {
+            return decisions.get(key);
+        }
+
+        void put(DecisionKey key, CachedDecision decision) {
+            decisions.put(key, decision);
+        }
+
+        void remove(DecisionKey key) {
+            decisions.remove(key);
+        }
+
+        int size() {
+            return decisions.size();
+        }
+    }
+
+    private static final class DecisionMap extends CacheMap<DecisionKey, CachedDecision> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient AtomicLong evictionCount;
+
+        DecisionMap(int initialCapacity, AtomicLong evictionCount) {
+            super(initialCapacity);
+
+            this.evictionCount = evictionCount;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry eldest) {
+            boolean ret = super.removeEldestEntry(eldest);
+
+            if (ret) {
+                evictionCount.incrementAndGet();
+            }
+
+            return ret;
+        }
+    }
+
+    /*
+     * Values derived during request pre-processing (transformed user/groups, roles, client-IP, cluster, tags, zones,
+     * GDS result) depend only on the key and on the versions of policies/tags/roles/userstore/GDS info. Hence they
+     * are captured along with the result and copied into the request on cache-hit, so that audit logs generated
+     * from a cached decision are identical to the ones generated after a full evaluation.
+     */
+    private static final class CachedDecision {
+        private final RangerAccessResult  result;
+        private final String              user;
+        private final Set<String>         userGroups;
+        private final Set<String>         userRoles;
+        private final String              clientIPAddress;
+        private final String              clusterName;
+        private final String              clusterType;
+        private final Map<String, Object> context;
+        private final long                expiryTimeMs;
+
+        CachedDecision(RangerAccessResult result, long expiryTimeMs) {
+            RangerAccessRequest request = result.getAccessRequest();
+
+            this.result = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), null);
+
+            this.result.setAccessResultFrom(result);
+            this.result.setAuditResultFrom(result);
+
+            this.user            = request.getUser();
+            this.userGroups      = request.getUserGroups() != null ? new HashSet<>(request.getUserGroups()) : null;
+            this.userRoles       = request.getUserRoles() != null ? new HashSet<>(request.getUserRoles()) : null;
+            this.clientIPAddress = request.getClientIPAddress();
+            this.clusterName     = request.getClusterName();
+            this.clusterType     = request.getClusterType();
+            this.context         = request.getContext() != null ? new HashMap<>(request.getContext()) : new HashMap<>();
+            this.expiryTimeMs    = expiryTimeMs;
+
+            this.context.remove(RangerAccessRequestUtil.KEY_CONTEXT_REQUEST);
+        }
+
+        boolean isExpired(long now) {
+            return now > expiryTimeMs;
+        }
+
+        RangerAccessResult toResult(RangerAccessRequest request) {
+            if (request instanceof RangerAccessRequestImpl) {
+                RangerAccessRequestImpl reqImpl = (RangerAccessRequestImpl) request;
+
+                reqImpl.setUser(user);
+                reqImpl.setUserGroups(userGroups != null ? new HashSet<>(userGroups) : new HashSet<>());
+                reqImpl.setUserRoles(userRoles != null ? new HashSet<>(userRoles) : new HashSet<>());
+                reqImpl.setClientIPAddress(clientIPAddress);
+                reqImpl.setClusterName(clusterName);
+                reqImpl.setClusterType(clusterType);
+            }
+
+            if (request.getContext() != null) {
+                request.getContext().putAll(context);
+            }
+
+            RangerAccessResult ret = new RangerAccessResult(result.getPolicyType(), result.getServiceName(), result.getServiceDef(), request);
+
+            ret.setAccessResultFrom(result);
+            ret.setAuditResultFrom(result);
+
+            return ret;
+        }
+    }
+
+    private static final class DecisionKey {
+        private final String                                                         user;
+        private final Set<String>                                                    userGroups;
+        private final Set<String>                                                    userRoles;
+        private final String                                                         resource;
+        private final String                                                         ownerUser;
+        private final String                                                         accessType;
+        private final String                                                         action;
+        private final String                                                         clientType;
+        private final String                                                         clientIPAddress;
+        private final String                                                         remoteIPAddress;
+        private final List<String>                                                   forwardedAddresses;
+        private final String                                                         clusterName;
+        private final String                                                         clusterType;
+        private final boolean                                                        ignoreDescendantDeny;
+        private final RangerAccessRequest.ResourceMatchingScope                      matchingScope;
+        private final Map<String, RangerAccessRequest.ResourceElementMatchingScope> elementMatchingScopes;
+        private final List<Object>                                                   contextValues;
+        private final int                                                            hashCode;
+
+        DecisionKey(RangerAccessRequest request, String resource, List<Object> contextValues) {
+            this.user                  = request.getUser();
+            this.userGroups            = copyOf(request.getUserGroups());
+            this.userRoles             = copyOf(request.getUserRoles());
+            this.resource              = resource;
+            this.ownerUser             = request.getResource().getOwnerUser();
+            this.accessType            = request.getAccessType();
+            this.action                = request.getAction();
+            this.clientType            = request.getClientType();
+            this.clientIPAddress       = request.getClientIPAddress();
+            this.remoteIPAddress       = request.getRemoteIPAddress();
+            this.forwardedAddresses    = request.getForwardedAddresses() != null ? new ArrayList<>(request.getForwardedAddresses()) : null;
+            this.clusterName           = request.getClusterName();
+            this.clusterType           = request.getClusterType();
+            this.ignoreDescendantDeny  = request.ignoreDescendantDeny();
+            this.matchingScope         = request.getResourceMatchingScope();
+            this.elementMatchingScopes = MapUtils.isNotEmpty(request.getResourceElementMatchingScopes()) ? new HashMap<>(request.getResourceElementMatchingScopes()) : null;
+            this.contextValues         = contextValues;
+            this.hashCode              = Objects.hash(user, userGroups, userRoles, resource, ownerUser, accessType, action, clientType, clientIPAddress, remoteIPAddress,
+                                                      forwardedAddresses, clusterName, clusterType, ignoreDescendantDeny, matchingScope, elementMatchingScopes, contextValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof DecisionKey)) {
+                return false;
+            }
+
+            DecisionKey other = (DecisionKey) obj;
+
+            return hashCode == other.hashCode &&
+                    ignoreDescendantDeny == other.ignoreDescendantDeny &&
+                    matchingScope == other.matchingScope &&
+                    Objects.equals(resource, other.resource) &&
+                    Objects.equals(accessType, other.accessType) &&
+                    Objects.equals(user, other.user) &&
+                    Objects.equals(userGroups, other.userGroups) &&
+                    Objects.equals(userRoles, other.userRoles) &&
+                    Objects.equals(ownerUser, other.ownerUser) &&
+                    Objects.equals(action, other.action) &&
+                    Objects.equals(clientType, other.clientType) &&
+                    Objects.equals(clientIPAddress, other.clientIPAddress) &&
+                    Objects.equals(remoteIPAddress, other.remoteIPAddress) &&
+                    Objects.equals(forwardedAddresses, other.forwardedAddresses) &&
+                    Objects.equals(clusterName, other.clusterName) &&
+                    Objects.equals(clusterType, other.clusterType) &&
+                    Objects.equals(elementMatchingScopes, other.elementMatchingScopes) &&
+                    Objects.equals(contextValues, other.contextValues);
+        }
+
+        private static Set<String> copyOf(Collection<String> values) {
+            return values == null || values.isEmpty() ? Collections.emptySet() : new HashSet<>(values);
+        }
+    }
+}
@@ -19,8 +19,18 @@
 
 package org.apache.ranger.plugin.policyengine;
 
+import java.util.Set;
+
 public interface RangerAccessRequestProcessor {
     void preProcess(RangerAccessRequest request);
 
+    /**
+     * Same as preProcess(request), except that zones matching the resource and its children are already known to the caller;
+     * used while evaluating a batch of requests, where zone lookup for requests on the same parent resource is shared.
+     */
+    default void preProcess(RangerAccessRequest request, Set<String> resourceZoneNames) {
+        preProcess(request);
+    }
+
     default void enrich(RangerAccessRequest request) {}
 }
@@ -22,6 +22,7 @@
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.admin.client.RangerAdminRESTClient;
+import org.apache.ranger.admin.client.RangerAdminSyncClient;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.plugin.authn.DefaultJwtProvider;
 import org.apache.ranger.plugin.authn.JwtProvider;
@@ -29,11 +30,15 @@
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 import org.apache.ranger.plugin.service.RangerAuthContext;
 import org.apache.ranger.plugin.service.RangerAuthContextListener;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class RangerPluginContext {
@@ -42,14 +47,22 @@ public class RangerPluginContext {
     private final RangerPluginConfig                                                         config;
     private final Map<String, Map<RangerPolicy.RangerPolicyResource, RangerResourceMatcher>> resourceMatchers = new HashMap<>();
     private final ReentrantReadWriteLock                                                     lock             = new ReentrantReadWriteLock(true); // fair lock
+    private final RangerAccessDecisionCache                                                  decisionCache;
+    private final int                                                                        batchParallelism;
+    private final int                                                                        batchParallelThreshold;
+    private volatile ExecutorService                                                         batchExecutor;
     private       JwtProvider                                                                jwtProvider;
     private       RangerAuthContext                                                          authContext;
     private       RangerAuthContextListener                                                  authContextListener;
     private       RangerAdminClient                                                          adminClient;
 
     public RangerPluginContext(RangerPluginConfig config) {
-        this.config = config;
-        this.jwtProvider = new DefaultJwtProvider(config.getPropertyPrefix() + ".policy.rest.client", config);
+        this.config        = config;
+        this.jwtProvider   = new DefaultJwtProvider(config.getPropertyPrefix() + ".policy.rest.client", config);
+        this.decisionCache = RangerAccessDecisionCache.isEnabled(config) ? new RangerAccessDecisionCache(config) : null;
+
+        this.batchParallelism       = config.getInt(config.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_BATCH_PARALLELISM, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_BATCH_PARALLELISM_DEFAULT);
+        this.batchParallelThreshold = config.getInt(config.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_BATCH_PARALLEL_THRESHOLD, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_BATCH_PARALLEL_THRESHOLD_DEFAULT);
     }
 
     public RangerPluginConfig getConfig() {
@@ -115,7 +128,70 @@ public void setAuthContextListener(RangerAuthContextListener authContextListener
         this.authContextListener = authContextListener;
     }
 
+    public RangerAccessDecisionCache getDecisionCache() {
+        return decisionCache;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public int getBatchParallelThreshold() {
+        return batchParallelThreshold;
+    }
+
+    /**
+     * Executor used to evaluate large batches of access requests in parallel; created on first use.
+     *
+     * @return null if parallel batch evaluation is not enabled for this plugin
+     */
+    public ExecutorService getBatchExecutor() {
+        ExecutorService ret = batchExecutor;
+
+        if (ret == null && batchParallelism > 1) {
+            synchronized (this) {
+                ret = batchExecutor;
+
+                if (ret == null) {
+                    final String        threadNamePrefix = "RangerBatchEvaluator-" + config.getServiceName() + "-";
+                    final AtomicInteger threadCount      = new AtomicInteger();
+
+                    ret = Executors.newFixedThreadPool(batchParallelism, runnable -> {
+                        Thread thread = new Thread(runnable, threadNamePrefix + threadCount.incrementAndGet());
+
+                        thread.setDaemon(true);
+
+                        return thread;
+                    });
+
+                    LOG.info("Created executor for parallel evaluation of batched requests: parallelism={}, threshold={}", batchParallelism, batchParallelThreshold);
+
+                    batchExecutor = ret;
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    public void shutdownBatchExecutor() {
+        ExecutorService executor;
+
+        synchronized (this) {
+            executor      = batchExecutor;
+            batchExecutor = null;
+        }
+
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
     public void notifyAuthContextChanged() {
+        if (decisionCache != null) {
+            decisionCache.invalidate();
+        }
+
         RangerAuthContextListener authContextListener = this.authContextListener;
 
         if (authContextListener != null) {
@@ -162,6 +238,12 @@ public RangerAdminClient createAdminClient(RangerPluginConfig pluginConfig) {
 
         ret.init(pluginConfig.getServiceName(), pluginConfig.getAppId(), pluginConfig.getPropertyPrefix(), pluginConfig);
 
+        if (pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_SYNC_ENABLED, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_SYNC_ENABLED_DEFAULT)) {
+            ret = new RangerAdminSyncClient(ret);
+
+            ret.init(pluginConfig.getServiceName(), pluginConfig.getAppId(), pluginConfig.getPropertyPrefix(), pluginConfig);
+        }
+
         LOG.debug("<== RangerBasePlugin.createAdminClient({}, {}, {}): policySourceImpl={}, client={}",
                 pluginConfig.getServiceName(), pluginConfig.getAppId(), pluginConfig.getPropertyPrefix(), policySourceImpl, ret);
 
@@ -173,7 +255,8 @@ public RangerAdminClient createAdminClient(RangerPluginConfig pluginConfig) {
     public void registerJWTProvider(JwtProvider jwtProvider) {
         this.jwtProvider = jwtProvider;
 
-        RangerAdminRESTClient restClient = (adminClient instanceof RangerAdminRESTClient) ? (RangerAdminRESTClient) adminClient : null;
+        RangerAdminClient     adminClient = (this.adminClient instanceof RangerAdminSyncClient) ? ((RangerAdminSyncClient) this.adminClient).getDelegate() : this.adminClient;
+        RangerAdminRESTClient restClient  = (adminClient instanceof RangerAdminRESTClient) ? (RangerAdminRESTClient) adminClient : null;
         if (restClient != null) {
             restClient.setJwtProvider(jwtProvider);
         }
@@ -46,14 +46,23 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static org.apache.ranger.plugin.policyengine.PolicyEvaluatorForTag.MATCH_TYPE_COMPARATOR;
@@ -65,6 +74,8 @@ public class RangerPolicyEngineImpl implements RangerPolicyEngine {
     private static final Logger PERF_POLICYENGINE_AUDIT_LOG    = RangerPerfTracer.getPerfLogger("policyengine.audit");
     private static final Logger PERF_POLICYENGINE_GET_ACLS_LOG = RangerPerfTracer.getPerfLogger("policyengine.getResourceACLs");
 
+    private static final int BATCH_CHUNKS_PER_THREAD = 4;
+
     private final PolicyEngine                 policyEngine;
     private final RangerAccessRequestProcessor requestProcessor;
     private final ServiceConfig                serviceConfig;
@@ -255,12 +266,18 @@ public Collection<RangerAccessResult> evaluatePolicies(Collection<RangerAccessRe
             }
 
             if (requests != null) {
-                for (RangerAccessRequest request : requests) {
-                    requestProcessor.preProcess(request);
+                List<RangerAccessResult> results = isParallelBatch(requests) ? evaluatePoliciesInParallel(new ArrayList<>(requests), policyType) : null;
+
+                if (results != null) {
+                    ret.addAll(results);
+                } else {
+                    for (RangerAccessRequest request : requests) {
+                        requestProcessor.preProcess(request);
 
-                    RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+                        RangerAccessResult result = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
 
-                    ret.add(result);
+                        ret.add(result);
+                    }
                 }
             }
 
@@ -626,6 +643,213 @@ private RangerAccessResult zoneAwareAccessEvaluationWithNoAudit(RangerAccessRequ
         return ret;
     }
 
+    private boolean isParallelBatch(Collection<RangerAccessRequest> requests) {
+        RangerPluginContext pluginContext = policyEngine.getPluginContext();
+
+        return pluginContext != null && pluginContext.getBatchParallelism() > 1 && requests.size() > 1 && requests.size() >= pluginContext.getBatchParallelThreshold();
+    }
+
+    /*
+     * Requests are partitioned into chunks, which are evaluated by the calling thread along with up to (parallelism - 1)
+     * tasks submitted to the plugin's batch executor; results are stored at the index of the request, to preserve order.
+     * Requests on the same parent resource (like columns of a table) are grouped, so that a chunk looks up security-zones
+     * once for the group, instead of for each request.
+     *
+     * Returns null, to fall back to sequential evaluation, when the batch can't be evaluated in parallel.
+     */
+    private List<RangerAccessResult> evaluatePoliciesInParallel(List<RangerAccessRequest> requests, int policyType) {
+        RangerPluginContext pluginContext = policyEngine.getPluginContext();
+        ExecutorService     executor      = pluginContext.getBatchExecutor();
+
+        if (executor == null) {
+            return null;
+        }
+
+        Set<RangerAccessRequest> uniqueRequests = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (RangerAccessRequest request : requests) {
+            if (!uniqueRequests.add(request)) { // request instances are updated during evaluation, hence can't be shared between threads
+                LOG.debug("evaluatePoliciesInParallel(): batch has duplicate request instances; will be evaluated sequentially");
+
+                return null;
+            }
+        }
+
+        RangerPerfTracer perf = null;
+
+        if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_REQUEST_LOG)) {
+            perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_REQUEST_LOG, "RangerPolicyEngine.evaluatePoliciesInParallel(requestCount=" + requests.size() + ")");
+        }
+
+        final int                        count         = requests.size();
+        final int[]                      order         = new int[count];
+        final Map<String, Object>[]      parents       = getParentResources(requests, order);
+        final RangerAccessResult[]       results       = new RangerAccessResult[count];
+        final int                        parallelism   = Math.min(pluginContext.getBatchParallelism(), count);
+        final int                        chunkCount    = Math.min(count, parallelism * BATCH_CHUNKS_PER_THREAD);
+        final AtomicInteger              nextChunk     = new AtomicInteger();
+        final CountDownLatch             pendingChunks = new CountDownLatch(chunkCount);
+        final AtomicReference<Throwable> failure       = new AtomicReference<>();
+        final List<Future<?>>            helpers       = new ArrayList<>(parallelism - 1);
+        final Runnable                   chunkRunner   = () -> {
+            for (int chunk = nextChunk.getAndIncrement(); chunk < chunkCount; chunk = nextChunk.getAndIncrement()) {
+                int from = (int) ((long) chunk * count / chunkCount);
+                int to   = (int) ((long) (chunk + 1) * count / chunkCount);
+
+                try {
+                    evaluateBatchChunk(requests, order, parents, from, to, policyType, results);
+                } catch (Throwable excp) {
+                    failure.compareAndSet(null, excp);
+                } finally {
+                    pendingChunks.countDown();
+                }
+            }
+        };
+
+        try {
+            for (int i = 1; i < parallelism; i++) {
+                helpers.add(executor.submit(chunkRunner));
+            }
+        } catch (RejectedExecutionException excp) {
+            LOG.debug("evaluatePoliciesInParallel(): executor rejected task; remaining chunks will be evaluated by {} threads", helpers.size() + 1, excp);
+        }
+
+        chunkRunner.run();
+
+        // all chunks have been picked up; helpers still queued in the executor have nothing left to do
+        for (Future<?> helper : helpers) {
+            helper.cancel(false);
+        }
+
+        awaitUninterruptibly(pendingChunks); // requests are updated while being evaluated, so wait for helpers to complete
+
+        Throwable excp = failure.get();
+
+        if (excp instanceof RuntimeException) {
+            throw (RuntimeException) excp;
+        } else if (excp instanceof Error) {
+            throw (Error) excp;
+        } else if (excp != null) {
+            throw new RuntimeException(excp);
+        }
+
+        RangerPerfTracer.log(perf);
+
+        return Arrays.asList(results);
+    }
+
+    private void evaluateBatchChunk(List<RangerAccessRequest> requests, int[] order, Map<String, Object>[] parents, int from, int to, int policyType, RangerAccessResult[] results) {
+        Map<String, Object> lastParent  = null;
+        Set<String>         parentZones = null;
+
+        for (int i = from; i < to; i++) {
+            int                 idx     = order[i];
+            RangerAccessRequest request = requests.get(idx);
+            Map<String, Object> parent  = parents != null ? parents[i] : null;
+
+            if (parent != null && parent != lastParent) {
+                lastParent  = parent;
+                parentZones = policyEngine.getMatchedZonesForResourceAndChildren(parent);
+            }
+
+            // when no zone matches the parent or its children, then none would match this request either
+            if (parent != null && CollectionUtils.isEmpty(parentZones)) {
+                requestProcessor.preProcess(request, parentZones == null ? null : Collections.emptySet());
+            } else {
+                requestProcessor.preProcess(request);
+            }
+
+            results[idx] = zoneAwareAccessEvaluationWithNoAudit(request, policyType);
+        }
+    }
+
+    /*
+     * Populates order with request indexes, grouping requests on the same parent resource together. Groups are not
+     * needed when the service has no security-zones, in which case requests are evaluated in the given order.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object>[] getParentResources(List<RangerAccessRequest> requests, int[] order) {
+        final Map<String, Object>[] ret;
+
+        if (MapUtils.isEmpty(policyEngine.getZonePolicyRepositories())) {
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+
+            ret = null;
+        } else {
+            Map<Map<String, Object>, List<Integer>> groups   = new LinkedHashMap<>();
+            List<Integer>                           noParent = new ArrayList<>();
+
+            for (int i = 0; i < requests.size(); i++) {
+                Map<String, Object> parent = getParentResource(requests.get(i).getResource());
+
+                if (parent != null) {
+                    groups.computeIfAbsent(parent, k -> new ArrayList<>()).add(i);
+                } else {
+                    noParent.add(i);
+                }
+            }
+
+            int idx = 0;
+
+            ret = new Map[order.length];
+
+            for (Map.Entry<Map<String, Object>, List<Integer>> group : groups.entrySet()) {
+                for (Integer requestIdx : group.getValue()) {
+                    ret[idx]     = group.getKey();
+                    order[idx++] = requestIdx;
+                }
+            }
+
+            for (Integer requestIdx : noParent) {
+                order[idx++] = requestIdx;
+            }
+        }
+
+        return ret;
+    }
+
+    private Map<String, Object> getParentResource(RangerAccessResource resource) {
+        Map<String, Object> ret      = null;
+        Map<String, Object> resMap   = resource != null ? resource.getAsMap() : null;
+        String              leafName = null;
+
+        if (resMap != null && resMap.size() > 1) {
+            for (RangerServiceDef.RangerResourceDef resourceDef : policyEngine.getServiceDef().getResources()) {
+                if (resMap.containsKey(resourceDef.getName())) {
+                    leafName = resourceDef.getName();
+                }
+            }
+
+            if (leafName != null) {
+                ret = new HashMap<>(resMap);
+
+                ret.remove(leafName);
+            }
+        }
+
+        return ret;
+    }
+
+    private void awaitUninterruptibly(CountDownLatch latch) {
+        boolean isInterrupted = false;
+
+        while (true) {
+            try {
+                latch.await();
+
+                break;
+            } catch (InterruptedException excp) {
+                isInterrupted = true;
+            }
+        }
+
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private RangerAccessResult evaluatePoliciesNoAudit(RangerAccessRequest request, int policyType, String zoneName, RangerPolicyRepository policyRepository, RangerPolicyRepository tagPolicyRepository) {
         LOG.debug("==> RangerPolicyEngineImpl.evaluatePoliciesNoAudit({}, policyType={}, zoneName={})", request, policyType, zoneName);
 
@@ -44,6 +44,7 @@
 import org.apache.ranger.plugin.policyevaluator.RangerOptimizedPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
 import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPrincipalIndex;
 import org.apache.ranger.plugin.store.AbstractServiceStore;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerResourceEvaluatorsRetriever;
@@ -53,6 +54,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -73,7 +75,8 @@ public class RangerPolicyRepository {
     private static final Logger PERF_CONTEXTENRICHER_INIT_LOG = RangerPerfTracer.getPerfLogger("contextenricher.init");
     private static final Logger PERF_TRIE_OP_LOG              = RangerPerfTracer.getPerfLogger("resourcetrie.retrieval");
 
-    private static final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE = 64 * 1024;
+    private static final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE     = 64 * 1024;
+    private static final int RANGER_POLICYENGINE_AUDITRESULT_CACHE_SEGMENTS = ConcurrentCacheMap.DEFAULT_SEGMENT_COUNT;
 
     private final String                                                         serviceName;
     private final String                                                         zoneName;
@@ -92,6 +95,7 @@ public class RangerPolicyRepository {
     private final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> auditFilterResourceTrie;
     private final List<RangerPolicyEvaluator>                                    auditPolicyEvaluators;
     private final List<RangerPolicy>                                             policies;
+    private final RangerPrincipalIndex                                           principalIndex;
     private       List<RangerContextEnricher>                                    contextEnrichers;
     private       List<RangerPolicyEvaluator>                                    policyEvaluators;
     private       List<RangerPolicyEvaluator>                                    dataMaskPolicyEvaluators;
@@ -106,6 +110,7 @@ public class RangerPolicyRepository {
         this.appId                     = other.appId;
         this.options                   = other.options;
         this.pluginContext             = other.pluginContext;
+        this.principalIndex            = other.principalIndex;
         this.serviceDef                = other.serviceDef;
         this.policies                  = new ArrayList<>(other.policies);
         this.policyEvaluators          = new ArrayList<>(other.policyEvaluators);
@@ -117,47 +122,29 @@ public class RangerPolicyRepository {
         this.componentServiceDef       = other.componentServiceDef;
         this.policyEvaluatorsMap       = new HashMap<>(other.policyEvaluatorsMap);
 
-        if (other.policyResourceTrie != null) {
-            this.policyResourceTrie = new HashMap<>();
+        // resource tries of policy-types not updated by the deltas are shared with other, instead of being copied
+        final boolean[] isUpdatedPolicyType = getUpdatedPolicyTypes(deltas);
 
-            for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.policyResourceTrie.entrySet()) {
-                policyResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
-            }
-        } else {
-            this.policyResourceTrie = null;
-        }
-
-        if (other.dataMaskResourceTrie != null) {
-            this.dataMaskResourceTrie = new HashMap<>();
-
-            for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.dataMaskResourceTrie.entrySet()) {
-                dataMaskResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
-            }
-        } else {
-            this.dataMaskResourceTrie = null;
-        }
+        this.policyResourceTrie      = copyTrie(other.policyResourceTrie, isUpdatedPolicyType[RangerPolicy.POLICY_TYPE_ACCESS]);
+        this.dataMaskResourceTrie    = copyTrie(other.dataMaskResourceTrie, isUpdatedPolicyType[RangerPolicy.POLICY_TYPE_DATAMASK]);
+        this.rowFilterResourceTrie   = copyTrie(other.rowFilterResourceTrie, isUpdatedPolicyType[RangerPolicy.POLICY_TYPE_ROWFILTER]);
+        this.auditFilterResourceTrie = copyTrie(other.auditFilterResourceTrie, isUpdatedPolicyType[RangerPolicy.POLICY_TYPE_AUDIT]);
 
-        if (other.rowFilterResourceTrie != null) {
-            this.rowFilterResourceTrie = new HashMap<>();
+        int copiedTrieCount = 0;
 
-            for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.rowFilterResourceTrie.entrySet()) {
-                rowFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+        for (boolean isUpdated : isUpdatedPolicyType) {
+            if (isUpdated) {
+                copiedTrieCount++;
             }
-        } else {
-            this.rowFilterResourceTrie = null;
         }
 
-        if (other.auditFilterResourceTrie != null) {
-            this.auditFilterResourceTrie = new HashMap<>();
+        PolicyEngineUpdateMetrics.getInstance().recordTrieCopies(copiedTrieCount, isUpdatedPolicyType.length - copiedTrieCount);
 
-            for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.auditFilterResourceTrie.entrySet()) {
-                auditFilterResourceTrie.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
-            }
-        } else {
-            this.auditFilterResourceTrie = null;
-        }
+        if (other.accessAuditCache instanceof ConcurrentCacheMap) {
+            ConcurrentCacheMap<String, AuditInfo> otherCache = (ConcurrentCacheMap<String, AuditInfo>) other.accessAuditCache;
 
-        if (other.accessAuditCache != null) {
+            this.accessAuditCache = new ConcurrentCacheMap<>(otherCache.getCapacity(), otherCache.getSegmentCount());
+        } else if (other.accessAuditCache != null) {
             int auditResultCacheSize = other.accessAuditCache.size();
 
             this.accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
@@ -167,7 +154,7 @@ public class RangerPolicyRepository {
 
         final boolean isExistingPolicies = CollectionUtils.isNotEmpty(this.policies);
 
-        updateResourceTrie(deltas);
+        updateResourceTrie(deltas, this.auditFilterResourceTrie != other.auditFilterResourceTrie);
 
         if (CollectionUtils.isNotEmpty(this.policies)) {
             this.contextEnrichers = isExistingPolicies ? shareWith(other) : buildContextEnrichers(options);
@@ -195,6 +182,7 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
         this.appId                = pluginContext.getConfig().getAppId();
         this.options              = new RangerPolicyEngineOptions(pluginContext.getConfig().getPolicyEngineOptions(), new RangerServiceDefHelper(serviceDef, false));
         this.pluginContext        = pluginContext;
+        this.principalIndex       = options.enablePrincipalBitsets ? new RangerPrincipalIndex() : null;
 
         if (StringUtils.isEmpty(zoneName)) {
             this.policies = servicePolicies.getPolicies();
@@ -218,9 +206,16 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
             String propertyName = "ranger.plugin." + serviceName + ".policyengine.auditcachesize";
 
             if (options.cacheAuditResults) {
-                int auditResultCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
+                int     auditResultCacheSize = pluginContext.getConfig().getInt(propertyName, RANGER_POLICYENGINE_AUDITRESULT_CACHE_SIZE);
+                boolean useConcurrentCache   = pluginContext.getConfig().getBoolean("ranger.plugin." + serviceName + ".policyengine.auditcache.concurrent", false);
+
+                if (useConcurrentCache) {
+                    int segmentCount = pluginContext.getConfig().getInt("ranger.plugin." + serviceName + ".policyengine.auditcache.segments", RANGER_POLICYENGINE_AUDITRESULT_CACHE_SEGMENTS);
 
-                accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+                    accessAuditCache = new ConcurrentCacheMap<>(auditResultCacheSize, segmentCount);
+                } else {
+                    accessAuditCache = Collections.synchronizedMap(new CacheMap<>(auditResultCacheSize));
+                }
             } else {
                 accessAuditCache = null;
             }
@@ -264,6 +259,7 @@ public RangerPolicyRepository(ServicePolicies servicePolicies, RangerPluginConte
         this.appId                = pluginContext.getConfig().getAppId();
         this.options              = new RangerPolicyEngineOptions(pluginContext.getConfig().getPolicyEngineOptions(), new RangerServiceDefHelper(serviceDef, false));
         this.pluginContext        = pluginContext;
+        this.principalIndex       = options.enablePrincipalBitsets ? new RangerPrincipalIndex() : null;
         this.policies             = normalizeAndPrunePolicies(tagPolicies.getPolicies(), componentServiceDef.getName());
         this.policyVersion        = tagPolicies.getPolicyVersion() != null ? tagPolicies.getPolicyVersion() : -1;
 
@@ -393,6 +389,10 @@ public String getServiceName() {
         return serviceName;
     }
 
+    public boolean isPrincipalIndexRebuildNeeded() {
+        return principalIndex != null && principalIndex.isRebuildNeeded();
+    }
+
     public RangerServiceDef getServiceDef() {
         return serviceDef;
     }
@@ -514,7 +514,7 @@ void reorderPolicyEvaluators() {
         LOG.debug("<== reorderEvaluators()");
     }
 
-    String getZoneName() {
+    public String getZoneName() {
         return zoneName;
     }
 
@@ -640,7 +640,7 @@ Map<Long, RangerPolicyEvaluator> getPolicyEvaluatorsMap() {
         return policyEvaluatorsMap;
     }
 
-    RangerPolicyEvaluator getPolicyEvaluator(Long id) {
+    public RangerPolicyEvaluator getPolicyEvaluator(Long id) {
         return policyEvaluatorsMap.get(id);
     }
 
@@ -672,10 +672,26 @@ Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> getTrie(final int
         return ret;
     }
 
+    long getTrieNodeCount(RangerPolicyRepository excluding) {
+        long ret = 0;
+
+        for (int policyType = RangerPolicy.POLICY_TYPE_ACCESS; policyType <= RangerPolicy.POLICY_TYPE_AUDIT; policyType++) {
+            Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> trieMap = getTrie(policyType);
+
+            if (trieMap != null && (excluding == null || trieMap != excluding.getTrie(policyType))) {
+                for (RangerResourceTrie<RangerPolicyResourceEvaluator> trie : trieMap.values()) {
+                    ret += trie.getNodeCount();
+                }
+            }
+        }
+
+        return ret;
+    }
+
     void reinit(List<RangerPolicyDelta> deltas) {
         final boolean isExistingPolicies = CollectionUtils.isNotEmpty(this.policies);
 
-        updateResourceTrie(deltas);
+        updateResourceTrie(deltas, true);
 
         if (StringUtils.isEmpty(zoneName) && CollectionUtils.isNotEmpty(this.policies)) {
             if (!isExistingPolicies) {
@@ -956,6 +972,10 @@ private void init(RangerPolicyEngineOptions options) {
 
         this.policyEvaluatorsMap = createPolicyEvaluatorsMap();
 
+        if (principalIndex != null) {
+            principalIndex.setBuilt();
+        }
+
         if (LOG.isDebugEnabled()) {
             LOG.debug("policy evaluation order: {} policies", this.policyEvaluators.size());
 
@@ -1123,6 +1143,7 @@ private RangerPolicyEvaluator buildPolicyEvaluator(RangerPolicy policy, RangerSe
         }
 
         ret.setPluginContext(pluginContext);
+        ret.setPrincipalIndex(principalIndex);
         ret.init(policy, serviceDef, options);
 
         LOG.debug("<== RangerPolicyRepository.buildPolicyEvaluator({}, {}): {}", policy, serviceDef, ret);
@@ -1416,7 +1437,45 @@ private RangerPolicyEvaluator update(final RangerPolicyDelta delta, final Ranger
         return ret;
     }
 
-    private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
+    private boolean[] getUpdatedPolicyTypes(List<RangerPolicyDelta> deltas) {
+        boolean[] ret = new boolean[RangerPolicy.POLICY_TYPE_AUDIT + 1];
+
+        for (RangerPolicyDelta delta : deltas) {
+            if (!StringUtils.equals(delta.getServiceType(), this.serviceDef.getName())) {
+                continue;
+            }
+
+            Integer policyType = delta.getPolicyType();
+
+            if (policyType != null && policyType >= 0 && policyType < ret.length) {
+                ret[policyType] = true;
+            } else { // policy-type not known, copy tries of all policy-types
+                Arrays.fill(ret, true);
+
+                break;
+            }
+        }
+
+        return ret;
+    }
+
+    private Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> copyTrie(Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> other, boolean isUpdated) {
+        final Map<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> ret;
+
+        if (other == null || !isUpdated) {
+            ret = other;
+        } else {
+            ret = new HashMap<>();
+
+            for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : other.entrySet()) {
+                ret.put(entry.getKey(), new RangerResourceTrie<>(entry.getValue()));
+            }
+        }
+
+        return ret;
+    }
+
+    private void updateResourceTrie(List<RangerPolicyDelta> deltas, boolean wrapUpAuditFilterTrie) {
         boolean[] flags = new boolean[RangerPolicy.POLICY_TYPES.length];
 
         for (RangerPolicyDelta delta : deltas) {
@@ -1502,7 +1561,7 @@ private void updateResourceTrie(List<RangerPolicyDelta> deltas) {
             }
         }
 
-        if (auditFilterResourceTrie != null) {
+        if (wrapUpAuditFilterTrie && auditFilterResourceTrie != null) {
             for (Map.Entry<String, RangerResourceTrie<RangerPolicyResourceEvaluator>> entry : auditFilterResourceTrie.entrySet()) {
                 entry.getValue().wrapUpUpdate();
             }
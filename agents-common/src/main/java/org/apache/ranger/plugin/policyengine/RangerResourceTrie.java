@@ -59,6 +59,7 @@
 
     private static final String DEFAULT_WILDCARD_CHARS    = "*?";
     private static final String TRIE_BUILDER_THREAD_COUNT = "ranger.policyengine.trie.builder.thread.count";
+    private static final String TRIE_COMPACT_NODES        = "ranger.policyengine.trie.compact.nodes";
 
     private final RangerResourceDef resourceDef;
     private final boolean           optIgnoreCase;
@@ -66,6 +67,7 @@
     private final String            wildcardChars;
     private final boolean           isOptimizedForRetrieval;
     private final boolean           isOptimizedForSpace;
+    private final boolean           isCompactNodes;
     private final Character         separatorChar;
     private final TrieNode<T>       root;
     private       Set<T>            inheritedEvaluators;
@@ -86,6 +88,7 @@ public RangerResourceTrie(RangerResourceTrie<T> other) {
         this.optWildcard             = other.optWildcard;
         this.wildcardChars           = other.wildcardChars;
         this.isOptimizedForSpace     = other.isOptimizedForSpace;
+        this.isCompactNodes          = other.isCompactNodes;
         this.isOptimizedForRetrieval = other.isOptimizedForRetrieval;
         this.separatorChar           = other.separatorChar;
         this.inheritedEvaluators     = other.inheritedEvaluators != null ? new HashSet<>(other.inheritedEvaluators) : null;
@@ -158,6 +161,7 @@ public <E> RangerResourceTrie(RangerResourceDef resourceDef, List<E> evaluators,
         this.optWildcard             = RangerAbstractResourceMatcher.getOptionWildCard(matcherOptions);
         this.wildcardChars           = optWildcard ? DEFAULT_WILDCARD_CHARS + tokenReplaceSpecialChars : tokenReplaceSpecialChars;
         this.isOptimizedForSpace     = isOptimizedForSpace;
+        this.isCompactNodes          = isOptimizedForSpace && (config == null || config.getBoolean(TRIE_COMPACT_NODES, true));
         this.isOptimizedForRetrieval = !isOptimizedForSpace && isOptimizedForRetrieval;  // isOptimizedForSpace takes precedence
         this.separatorChar           = ServiceDefUtil.getCharOption(matcherOptions, OPTION_PATH_SEPARATOR, DEFAULT_PATH_SEPARATOR_CHAR);
 
@@ -294,6 +298,16 @@ public void wrapUpUpdate() {
         }
     }
 
+    public int getNodeCount() {
+        TrieData trieData = new TrieData();
+
+        if (root != null) {
+            root.populateTrieData(trieData);
+        }
+
+        return trieData.nodeCount;
+    }
+
     public StringBuilder dumpTrie() {
         StringBuilder sb = new StringBuilder();
         if (root != null) {
@@ -425,6 +439,7 @@ public String toString() {
         sb.append("; optIgnoreCase=").append(optIgnoreCase);
         sb.append("; optWildcard=").append(optWildcard);
         sb.append("; wildcardChars=").append(wildcardChars);
+        sb.append("; isCompactNodes=").append(isCompactNodes);
         sb.append("; nodeCount=").append(trieData.nodeCount);
         sb.append("; leafNodeCount=").append(trieData.leafNodeCount);
         sb.append("; singleChildNodeCount=").append(trieData.singleChildNodeCount);
@@ -991,7 +1006,7 @@ public String toString() {
     }
 
     class TrieNode<U extends T> {
-        private final    Map<Character, TrieNode<U>> children = new HashMap<>();
+        private final    Map<Character, TrieNode<U>> children = isCompactNodes ? new RangerTrieChildMap<>() : new HashMap<>();
         private          String                      str;
         private          TrieNode<U>                 parent;
         private volatile Set<U>                      evaluators;
@@ -1227,11 +1242,13 @@ void undoSetup() {
         void removeSelfFromTrie() {
             LOG.debug("==> removeSelfFromTrie({})", this);
 
-            if (evaluators == null && wildcardEvaluators == null && children.isEmpty()) {
+            if (isCompactNodes) {
+                compactChain();
+            } else if (evaluators == null && wildcardEvaluators == null && children.isEmpty()) {
                 TrieNode<U> parent = getParent();
 
                 if (parent != null) {
-                    parent.children.remove(str.charAt(0));
+                    parent.children.remove(getLookupChar(str, 0));
                 }
             } else {
                 LOG.debug("removeSelfFromTrie({}): node is not removed from Trie : [evaluators:{}, wildcard-evaluators:{}, number-of-children-nodes:{}]", this, evaluators, wildcardEvaluators, children.size());
@@ -1410,6 +1427,32 @@ void toString(String prefix, StringBuilder sb) {
             }
         }
 
+        /*
+         * Called after evaluators or children are removed. When this node has no evaluators of its own, it is either
+         * removed - if it has no children, or merged with its only child; so that the trie has the same shape as one
+         * built afresh with the remaining resources. Only done with compact nodes i.e. when optimized for space, as
+         * evaluators are not setup in the nodes, hence a node without evaluators doesn't affect traversal results.
+         */
+        private void compactChain() {
+            TrieNode<U> parent = getParent();
+
+            if (parent == null || str == null || evaluators != null || wildcardEvaluators != null) {
+                return;
+            }
+
+            if (children.isEmpty()) {
+                parent.children.remove(getLookupChar(str, 0));
+                parent.compactChain();
+            } else if (children.size() == 1) {
+                TrieNode<U> child = children.values().iterator().next();
+
+                LOG.debug("compactChain(): merging node [{}] with its only child [{}]", str, child.getStr());
+
+                child.setStr(str + child.getStr());
+                parent.addChild(child); // replaces this node, as the key is the first character of this node
+            }
+        }
+
         private void addChild(TrieNode<U> child) {
             children.put(getLookupChar(child.getStr(), 0), child);
             child.setParent(this);
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Memory efficient map of trie-node children, used by RangerResourceTrie when optimized for space.
+ *
+ * Keys are stored as primitive chars, avoiding HashMap.Node and boxed Character per child. Nodes with a few
+ * children - which is the case for most nodes in a trie - keep the keys in a sorted char[] with a parallel value
+ * array, looked up by binary search. Once the number of children exceeds MAX_SORTED_SIZE, the map switches to
+ * an open-addressing hash table with linear probing.
+ *
+ * Like HashMap, this class is not thread-safe. Views returned by entrySet() and values() don't support removal.
+ */
+final class RangerTrieChildMap<V> extends AbstractMap<Character, V> {
+    static final int MAX_SORTED_SIZE = 8;
+
+    private static final char[]   EMPTY_KEYS   = new char[0];
+    private static final Object[] EMPTY_VALUES = new Object[0];
+
+    private char[]   keys   = EMPTY_KEYS;
+    private Object[] values = EMPTY_VALUES;
+    private int      size;
+    private boolean  isHashed; // when true, keys/values are a hash table with null value denoting an empty slot
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof Character ? get(((Character) key).charValue()) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(char key) {
+        final int index = isHashed ? hashIndexOf(key) : Arrays.binarySearch(keys, 0, size, key);
+
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(Character key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null value not supported");
+        }
+
+        final char ch = key;
+
+        if (isHashed) {
+            int index = hashIndexOf(ch);
+
+            if (index >= 0) {
+                V ret = (V) values[index];
+
+                values[index] = value;
+
+                return ret;
+            }
+
+            if ((size + 1) * 4 > keys.length * 3) { // keep load factor under 0.75
+                rehash(keys.length * 2);
+            }
+
+            hashInsert(ch, value);
+        } else {
+            int index = Arrays.binarySearch(keys, 0, size, ch);
+
+            if (index >= 0) {
+                V ret = (V) values[index];
+
+                values[index] = value;
+
+                return ret;
+            }
+
+            if (size == MAX_SORTED_SIZE) {
+                rehash(MAX_SORTED_SIZE * 4);
+                hashInsert(ch, value);
+            } else {
+                int insertAt = -(index + 1);
+
+                if (size == keys.length) { // grow by one, as most nodes have only a few children
+                    keys   = Arrays.copyOf(keys, size + 1);
+                    values = Arrays.copyOf(values, size + 1);
+                }
+
+                System.arraycopy(keys, insertAt, keys, insertAt + 1, size - insertAt);
+                System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+
+                keys[insertAt]   = ch;
+                values[insertAt] = value;
+            }
+        }
+
+        size++;
+
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (!(key instanceof Character)) {
+            return null;
+        }
+
+        final char ch = (Character) key;
+        final V    ret;
+
+        if (isHashed) {
+            int index = hashIndexOf(ch);
+
+            if (index < 0) {
+                return null;
+            }
+
+            ret = (V) values[index];
+
+            hashDelete(index);
+        } else {
+            int index = Arrays.binarySearch(keys, 0, size, ch);
+
+            if (index < 0) {
+                return null;
+            }
+
+            ret = (V) values[index];
+
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+
+            values[size - 1] = null;
+        }
+
+        size--;
+
+        return ret;
+    }
+
+    @Override
+    public void clear() {
+        keys     = EMPTY_KEYS;
+        values   = EMPTY_VALUES;
+        size     = 0;
+        isHashed = false;
+    }
+
+    @Override
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void forEach(Consumer<? super V> action) {
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        action.accept((V) values[i]);
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<Character, V>> entrySet() {
+        return new AbstractSet<Map.Entry<Character, V>>() {
+            @Override
+            public Iterator<Map.Entry<Character, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int hash(char ch) {
+        int h = ch * 0x9E3779B9;
+
+        return h ^ (h >>> 16);
+    }
+
+    private int hashIndexOf(char ch) {
+        final int mask = keys.length - 1;
+
+        for (int i = hash(ch) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == ch) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void hashInsert(char ch, Object value) {
+        final int mask = keys.length - 1;
+        int       i    = hash(ch) & mask;
+
+        while (values[i] != null) {
+            i = (i + 1) & mask;
+        }
+
+        keys[i]   = ch;
+        values[i] = value;
+    }
+
+    // backward-shift deletion, so that lookups don't need tombstones
+    private void hashDelete(int index) {
+        final int mask = keys.length - 1;
+        int       hole = index;
+
+        values[hole] = null;
+
+        for (int i = (hole + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+
+            // move the entry into the hole if its home slot isn't cyclically within (hole, i]
+            if ((i > hole) ? (home <= hole || home > i) : (home <= hole && home > i)) {
+                keys[hole]   = keys[i];
+                values[hole] = values[i];
+                values[i]    = null;
+                hole         = i;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        char[]   oldKeys   = keys;
+        Object[] oldValues = values;
+
+        keys     = new char[capacity];
+        values   = new Object[capacity];
+        isHashed = true;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                hashInsert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private class SlotIterator {
+        private int next = -1;
+
+        SlotIterator() {
+            advance();
+        }
+
+        public boolean hasNext() {
+            return next < values.length;
+        }
+
+        int nextSlot() {
+            if (next >= values.length) {
+                throw new NoSuchElementException();
+            }
+
+            int ret = next;
+
+            advance();
+
+            return ret;
+        }
+
+        private void advance() {
+            do {
+                next++;
+            }
+            while (next < values.length && values[next] == null);
+        }
+    }
+
+    private final class ValueIterator extends SlotIterator implements Iterator<V> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            return (V) values[nextSlot()];
+        }
+    }
+
+    private final class EntryIterator extends SlotIterator implements Iterator<Map.Entry<Character, V>> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Character, V> next() {
+            int slot = nextSlot();
+
+            return new AbstractMap.SimpleImmutableEntry<>(keys[slot], (V) values[slot]);
+        }
+    }
+}
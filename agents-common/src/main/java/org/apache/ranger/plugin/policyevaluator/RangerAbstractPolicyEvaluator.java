@@ -76,6 +76,7 @@ public boolean containsKey(Object key) {
     };
 
     protected RangerPluginContext                 pluginContext;
+    private   RangerPrincipalIndex                principalIndex;
     private   RangerPolicy                        policy;
     private   RangerServiceDef                    serviceDef;
     private   boolean                             needsDynamicEval;
@@ -90,6 +91,17 @@ public void setPluginContext(RangerPluginContext pluginContext) {
         this.pluginContext = pluginContext;
     }
 
+    public RangerPrincipalIndex getPrincipalIndex() {
+        return principalIndex;
+    }
+
+    /**
+     * Sets the index to compile principals of policy items with; should be called before init()
+     */
+    public void setPrincipalIndex(RangerPrincipalIndex principalIndex) {
+        this.principalIndex = principalIndex;
+    }
+
     @Override
     public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyEngineOptions options) {
         LOG.debug("==> RangerAbstractPolicyEvaluator.init({}, {})", policy, serviceDef);
@@ -37,6 +37,7 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -47,8 +48,11 @@ public class RangerDefaultPolicyItemEvaluator extends RangerAbstractPolicyItemEv
     private static final Logger PERF_POLICYITEM_REQUEST_LOG      = RangerPerfTracer.getPerfLogger("policyitem.request");
     private static final Logger PERF_POLICYCONDITION_REQUEST_LOG = RangerPerfTracer.getPerfLogger("policycondition.request");
 
-    private boolean hasCurrentUser;
-    private boolean hasResourceOwner;
+    private boolean              hasCurrentUser;
+    private boolean              hasResourceOwner;
+    private boolean              hasPublicGroup;
+    private RangerPrincipalIndex principalIndex;
+    private BitSet               principalIds;
 
     public RangerDefaultPolicyItemEvaluator(RangerServiceDef serviceDef, RangerPolicy policy, RangerPolicyItem policyItem, int policyItemType, int policyItemIndex, RangerPolicyEngineOptions options) {
         super(serviceDef, policy, policyItem, policyItemType, policyItemIndex, options);
@@ -62,6 +66,11 @@ public void init() {
         List<String> users = policyItem.getUsers();
         this.hasCurrentUser   = CollectionUtils.isNotEmpty(users) && users.contains(RangerPolicyEngine.USER_CURRENT);
         this.hasResourceOwner = CollectionUtils.isNotEmpty(users) && users.contains(RangerPolicyEngine.RESOURCE_OWNER);
+        this.hasPublicGroup   = policyItem.getGroups() != null && policyItem.getGroups().contains(RangerPolicyEngine.GROUP_PUBLIC);
+
+        if (principalIndex != null) {
+            principalIds = principalIndex.compile(users, policyItem.getGroups(), policyItem.getRoles());
+        }
 
         LOG.debug("<== RangerDefaultPolicyItemEvaluator(policyId={}, conditionsCount={})", policyId, getConditionEvaluators().size());
     }
@@ -141,6 +150,17 @@ public boolean matchUserGroupAndOwner(String user, Set<String> userGroups, Set<S
         return ret;
     }
 
+    public RangerPrincipalIndex getPrincipalIndex() {
+        return principalIndex;
+    }
+
+    /**
+     * Sets the index to compile principals of the policy item with; should be called before init()
+     */
+    public void setPrincipalIndex(RangerPrincipalIndex principalIndex) {
+        this.principalIndex = principalIndex;
+    }
+
     @Override
     public boolean matchAccessType(String accessType) {
         LOG.debug("==> RangerDefaultPolicyItemEvaluator.matchAccessType({})", accessType);
@@ -243,7 +263,13 @@ private boolean matchUserGroupAndOwner(RangerAccessRequest request) {
         RangerAccessResource accessedResource = request.getResource();
         String               resourceOwner    = accessedResource != null ? accessedResource.getOwnerUser() : null;
 
-        if (!ret) {
+        if (principalIds != null) {
+            ret = (hasCurrentUser && user != null) || (hasPublicGroup && userGroups != null) || principalIds.intersects(principalIndex.getPrincipals(request, RangerAccessRequestUtil.getUserRoles(request)));
+
+            if (!ret && hasResourceOwner) {
+                ret = user != null && user.equals(resourceOwner);
+            }
+        } else {
             Set<String> roles = null;
             if (CollectionUtils.isNotEmpty(policyItem.getRoles())) {
                 roles = RangerAccessRequestUtil.getUserRoles(request);
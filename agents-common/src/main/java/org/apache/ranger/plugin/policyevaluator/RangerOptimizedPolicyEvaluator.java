@@ -33,6 +33,7 @@
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -64,6 +65,7 @@ public class RangerOptimizedPolicyEvaluator extends RangerDefaultPolicyEvaluator
     private Set<String> groups       = RangerBaseModelObject.nullSafeSet(null);
     private Set<String> users        = RangerBaseModelObject.nullSafeSet(null);
     private Set<String> accessPerms  = RangerBaseModelObject.nullSafeSet(null);
+    private BitSet      principalIds;
     private boolean     delegateAdmin;
     private boolean     hasAllPerms;
     private boolean     hasPublicGroup;
@@ -86,6 +88,10 @@ public void init(RangerPolicy policy, RangerServiceDef serviceDef, RangerPolicyE
 
         hasAllPerms = checkIfHasAllPerms();
 
+        if (getPrincipalIndex() != null) {
+            principalIds = getPrincipalIndex().compile(users, groups, roles);
+        }
+
         for (String user : users) {
             if (!hasCurrentUser && RangerPolicyEngine.USER_CURRENT.equalsIgnoreCase(user)) {
                 hasCurrentUser = true;
@@ -217,7 +223,7 @@ protected boolean hasMatchablePolicyItem(RangerAccessRequest request) {
         boolean ret = false;
 
         if (checkIfAllEvaluatorsInitialized()) {
-            if (hasPublicGroup || hasCurrentUser || isOwnerMatch(request) || users.contains(request.getUser()) || CollectionUtils.containsAny(groups, request.getUserGroups()) || (CollectionUtils.isNotEmpty(roles) && CollectionUtils.containsAny(roles, RangerAccessRequestUtil.getCurrentUserRolesFromContext(request.getContext())))) {
+            if (hasPublicGroup || hasCurrentUser || isOwnerMatch(request) || isPrincipalMatch(request)) {
                 if (hasAllPerms || request.isAccessTypeAny()) {
                     ret = true;
                 } else {
@@ -242,6 +248,18 @@ protected boolean hasMatchablePolicyItem(RangerAccessRequest request) {
         return ret;
     }
 
+    private boolean isPrincipalMatch(RangerAccessRequest request) {
+        final boolean ret;
+
+        if (principalIds != null) {
+            ret = principalIds.intersects(getPrincipalIndex().getPrincipals(request, RangerAccessRequestUtil.getCurrentUserRolesFromContext(request.getContext())));
+        } else {
+            ret = users.contains(request.getUser()) || CollectionUtils.containsAny(groups, request.getUserGroups()) || (CollectionUtils.isNotEmpty(roles) && CollectionUtils.containsAny(roles, RangerAccessRequestUtil.getCurrentUserRolesFromContext(request.getContext())));
+        }
+
+        return ret;
+    }
+
     private boolean isOwnerMatch(RangerAccessRequest request) {
         boolean ret = false;
 
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyevaluator;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Assigns dense integer ids to users, groups and roles referenced in policies of a policy repository, so that
+ * principals of a policy item can be compiled into a BitSet. Principals of a request are resolved to a BitSet once
+ * per request, after which matching a policy item is a word-wise AND of the two bitsets.
+ *
+ * Ids are only assigned while compiling policies; principals of requests that are not referenced in any policy
+ * are ignored. The index is shared by repositories created by applying policy deltas, hence is thread-safe.
+ * Ids of principals no longer referenced by policies are not released; instead, once deltas have added more than
+ * MIN_GROWTH_FOR_REBUILD ids and doubled the ids assigned at initial build, isRebuildNeeded() returns true so that
+ * the policy engine is rebuilt, with a new index, instead of applying further deltas.
+ *
+ * The bitset last resolved by a thread is kept in a thread-local, instead of in the request context, so that the
+ * context seen by callers - and by the decision cache - is not changed by evaluation. It is reused only for a
+ * request having the same user, groups and roles, compared by content as requests and their sets can be reused.
+ */
+public class RangerPrincipalIndex {
+    public static final int MIN_GROWTH_FOR_REBUILD = 1024;
+
+    private final Map<String, Integer>           userIds        = new ConcurrentHashMap<>();
+    private final Map<String, Integer>           groupIds       = new ConcurrentHashMap<>();
+    private final Map<String, Integer>           roleIds        = new ConcurrentHashMap<>();
+    private final AtomicInteger                  idCount        = new AtomicInteger();
+    private final ThreadLocal<RequestPrincipals> lastPrincipals = new ThreadLocal<>();
+    private volatile int                         builtIdCount;
+
+    /**
+     * Compiles the given principals into a bitset, assigning ids to principals not seen earlier.
+     */
+    public BitSet compile(Collection<String> users, Collection<String> groups, Collection<String> roles) {
+        BitSet ret = new BitSet();
+
+        addIds(ret, userIds, users);
+        addIds(ret, groupIds, groups);
+        addIds(ret, roleIds, roles);
+
+        return ret;
+    }
+
+    /**
+     * Records the number of ids assigned while building the repository; growth beyond this by policy deltas is
+     * checked in isRebuildNeeded().
+     */
+    public void setBuilt() {
+        builtIdCount = idCount.get();
+    }
+
+    /**
+     * @return true if policy deltas assigned so many ids, possibly of principals no longer referenced in policies,
+     * that the repository should be rebuilt with a new index
+     */
+    public boolean isRebuildNeeded() {
+        int growth = idCount.get() - builtIdCount;
+
+        return growth > MIN_GROWTH_FOR_REBUILD && growth > builtIdCount;
+    }
+
+    /**
+     * @param request request whose user and groups are resolved
+     * @param roles roles of the user to resolve; callers pass the roles they would otherwise match against
+     * @return bitset of user, groups and roles of the request. Computed once for the principals of a request, and
+     * reused by the calling thread while the principals and the ids in this index don't change
+     */
+    public BitSet getPrincipals(RangerAccessRequest request, Set<String> roles) {
+        final BitSet ret;
+
+        String            user   = request.getUser();
+        Set<String>       groups = request.getUserGroups();
+        int               count  = idCount.get();
+        RequestPrincipals cached = lastPrincipals.get();
+
+        if (roleIds.isEmpty()) {
+            roles = null;
+        }
+
+        if (cached != null && cached.isFor(user, groups, roles, count)) {
+            ret = cached.ids;
+        } else {
+            ret = resolve(user, groups, roles);
+
+            lastPrincipals.set(new RequestPrincipals(user, groups, roles, count, ret));
+        }
+
+        return ret;
+    }
+
+    public BitSet resolve(String user, Collection<String> groups, Collection<String> roles) {
+        BitSet ret = new BitSet(idCount.get());
+
+        if (user != null) {
+            setId(ret, userIds.get(user));
+        }
+
+        if (groups != null) {
+            for (String group : groups) {
+                setId(ret, groupIds.get(group));
+            }
+        }
+
+        if (roles != null) {
+            for (String role : roles) {
+                setId(ret, roleIds.get(role));
+            }
+        }
+
+        return ret;
+    }
+
+    public int getPrincipalCount() {
+        return idCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RangerPrincipalIndex={users=" + userIds.size() + ", groups=" + groupIds.size() + ", roles=" + roleIds.size() + ", builtIdCount=" + builtIdCount + "}";
+    }
+
+    private void addIds(BitSet bits, Map<String, Integer> ids, Collection<String> names) {
+        if (names != null) {
+            for (String name : names) {
+                if (name != null) {
+                    bits.set(ids.computeIfAbsent(name, k -> idCount.getAndIncrement()));
+                }
+            }
+        }
+    }
+
+    private static void setId(BitSet bits, Integer id) {
+        if (id != null) {
+            bits.set(id);
+        }
+    }
+
+    private static final class RequestPrincipals {
+        final String      user;
+        final Set<String> groups;
+        final Set<String> roles;
+        final int         idCount;
+        final BitSet      ids;
+
+        RequestPrincipals(String user, Set<String> groups, Set<String> roles, int idCount, BitSet ids) {
+            this.user    = user;
+            this.groups  = groups != null ? new HashSet<>(groups) : null;
+            this.roles   = roles != null ? new HashSet<>(roles) : null;
+            this.idCount = idCount;
+            this.ids     = ids;
+        }
+
+        // callers can reuse and update request objects and sets between evaluations; hence compare the contents.
+        // Ids assigned after resolving - by policy deltas - could match principals that were not found earlier
+        boolean isFor(String user, Set<String> groups, Set<String> roles, int idCount) {
+            return this.idCount == idCount && Objects.equals(this.user, user) && isSame(this.groups, groups) && isSame(this.roles, roles);
+        }
+
+        private static boolean isSame(Set<String> cached, Set<String> current) {
+            if (cached == null || current == null) {
+                return cached == current;
+            }
+
+            return cached.size() == current.size() && cached.containsAll(current);
+        }
+    }
+}
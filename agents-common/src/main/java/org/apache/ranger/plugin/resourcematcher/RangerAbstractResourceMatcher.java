@@ -52,6 +52,7 @@ public abstract class RangerAbstractResourceMatcher implements RangerResourceMat
     public static final String OPTION_TOKEN_DELIMITER_ESCAPE  = "tokenDelimiterEscape";
     public static final String OPTION_TOKEN_DELIMITER_PREFIX  = "tokenDelimiterPrefix";
     public static final String OPTION_REPLACE_REQ_EXPRESSIONS = "replaceReqExpressions";
+    public static final String OPTION_MULTI_PATTERN_MATCH     = "multiPatternMatch";
 
     protected RangerResourceDef      resourceDef;
     protected RangerPolicyResource   policyResource;
@@ -68,6 +69,7 @@ public abstract class RangerAbstractResourceMatcher implements RangerResourceMat
     protected char                   endDelimiterChar   = '}';
     protected char                   escapeChar         = '\\';
     protected String                 tokenPrefix        = "";
+    protected boolean                optMultiPatternMatch;
 
     public static boolean getOptionIgnoreCase(Map<String, String> options) {
         return ServiceDefUtil.getBooleanOption(options, OPTION_IGNORE_CASE, true);
@@ -109,6 +111,10 @@ public static boolean getOptionReplaceReqExpressions(Map<String, String> options
         return ServiceDefUtil.getBooleanOption(options, OPTION_REPLACE_REQ_EXPRESSIONS, true);
     }
 
+    public static boolean getOptionMultiPatternMatch(Map<String, String> options) {
+        return ServiceDefUtil.getBooleanOption(options, OPTION_MULTI_PATTERN_MATCH, false);
+    }
+
     @Override
     public void setResourceDef(RangerResourceDef resourceDef) {
         this.resourceDef = resourceDef;
@@ -129,6 +135,7 @@ public void init() {
         optQuotedCaseSensitive = getOptionQuotedCaseSensitive(options);
         optQuoteChars          = getOptionQuoteChars(options);
         optWildCard            = getOptionWildCard(options);
+        optMultiPatternMatch   = getOptionMultiPatternMatch(options);
 
         policyValues     = new ArrayList<>();
         policyIsExcludes = policyResource != null && policyResource.getIsExcludes();
@@ -236,6 +243,7 @@ public StringBuilder toString(StringBuilder sb) {
         sb.append("optQuotedCaseSensitive={").append(optQuotedCaseSensitive).append("} ");
         sb.append("optQuoteChars={").append(optQuoteChars).append("} ");
         sb.append("optWildCard={").append(optWildCard).append("} ");
+        sb.append("optMultiPatternMatch={").append(optMultiPatternMatch).append("} ");
 
         sb.append("policyValues={");
         if (policyValues != null) {
@@ -24,7 +24,9 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchType.NONE;
@@ -32,6 +34,9 @@
 public class RangerDefaultResourceMatcher extends RangerAbstractResourceMatcher {
     private static final Logger LOG = LoggerFactory.getLogger(RangerDefaultResourceMatcher.class);
 
+    private ResourceValuesAutomaton valuesAutomaton;  // all values other than the ones needing dynamic evaluation
+    private List<ResourceMatcher>   dynamicMatchers;  // matchers of values not in valuesAutomaton
+
     @Override
     public ResourceElementMatchType getMatchType(Object resource, ResourceElementMatchingScope matchingScope, Map<String, Object> evalContext) {
         LOG.debug("==> RangerDefaultResourceMatcher.getMatchType({}, {})", resource, evalContext);
@@ -46,22 +51,40 @@ public ResourceElementMatchType getMatchType(Object resource, ResourceElementMat
             if (resource instanceof String) {
                 String strValue = (String) resource;
 
-                for (ResourceMatcher resourceMatcher : resourceMatchers.getResourceMatchers()) {
+                if (valuesAutomaton != null && valuesAutomaton.isMatch(strValue)) {
+                    ret = ResourceElementMatchType.SELF;
+                }
+
+                for (ResourceMatcher resourceMatcher : getMatchersToEvaluate(isPrefixMatch)) {
+                    if (ret == ResourceElementMatchType.SELF) {
+                        break;
+                    }
+
                     ResourceElementMatchType matchType = resourceMatcher.getMatchType(strValue, matchingScope, evalContext);
 
                     if (matchType != NONE) {
                         ret = matchType;
                     }
-
-                    if (ret == ResourceElementMatchType.SELF) {
-                        break;
-                    }
                 }
             } else if (resource instanceof Collection) {
                 @SuppressWarnings("unchecked")
                 Collection<String> resourceValues = (Collection<String>) resource;
 
-                for (ResourceMatcher resourceMatcher : resourceMatchers.getResourceMatchers()) {
+                if (valuesAutomaton != null) {
+                    for (String resourceValue : resourceValues) {
+                        if (valuesAutomaton.isMatch(resourceValue)) {
+                            ret = ResourceElementMatchType.SELF;
+
+                            break;
+                        }
+                    }
+                }
+
+                for (ResourceMatcher resourceMatcher : getMatchersToEvaluate(isPrefixMatch)) {
+                    if (ret == ResourceElementMatchType.SELF) {
+                        break;
+                    }
+
                     for (String resourceValue : resourceValues) {
                         ResourceElementMatchType matchType = resourceMatcher.getMatchType(resourceValue, matchingScope, evalContext);
 
@@ -73,10 +96,6 @@ public ResourceElementMatchType getMatchType(Object resource, ResourceElementMat
                             break;
                         }
                     }
-
-                    if (ret == ResourceElementMatchType.SELF) {
-                        break;
-                    }
                 }
             }
         }
@@ -88,6 +107,43 @@ public ResourceElementMatchType getMatchType(Object resource, ResourceElementMat
         return ret;
     }
 
+    @Override
+    protected ResourceMatcherWrapper buildResourceMatchers() {
+        ResourceMatcherWrapper ret = super.buildResourceMatchers();
+
+        valuesAutomaton = null;
+        dynamicMatchers = null;
+
+        if (optMultiPatternMatch && ret != null) {
+            List<String>          staticValues = new ArrayList<>();
+            List<ResourceMatcher> matchers     = new ArrayList<>();
+
+            for (ResourceMatcher matcher : ret.getResourceMatchers()) {
+                if (matcher.getNeedsDynamicEval()) {
+                    matchers.add(matcher);
+                }
+            }
+
+            for (String policyValue : policyValues) {
+                if (!getMatcher(policyValue).getNeedsDynamicEval()) {
+                    staticValues.add(policyValue);
+                }
+            }
+
+            if (staticValues.size() > 1) {
+                valuesAutomaton = ResourceValuesAutomaton.compile(staticValues, optWildCard, optIgnoreCase, optQuotedCaseSensitive, optQuoteChars);
+
+                if (valuesAutomaton != null) {
+                    dynamicMatchers = matchers;
+                } else {
+                    LOG.warn("RangerDefaultResourceMatcher: failed to compile values {} of resource {}; values will be matched one at a time", staticValues, resourceDef != null ? resourceDef.getName() : null);
+                }
+            }
+        }
+
+        return ret;
+    }
+
     @Override
     public boolean isMatch(Object resource, ResourceElementMatchingScope matchingScope, Map<String, Object> evalContext) {
         LOG.debug("==> RangerDefaultResourceMatcher.isMatch({}, {})", resource, evalContext);
@@ -120,8 +176,17 @@ public StringBuilder toString(StringBuilder sb) {
 
         super.toString(sb);
 
+        if (valuesAutomaton != null) {
+            sb.append("valuesAutomaton={").append(valuesAutomaton).append("} ");
+        }
+
         sb.append("}");
 
         return sb;
     }
+
+    // valuesAutomaton finds only complete matches; hence for prefix-match, all values are evaluated by their matchers
+    private List<ResourceMatcher> getMatchersToEvaluate(boolean isPrefixMatch) {
+        return valuesAutomaton == null || isPrefixMatch ? resourceMatchers.getResourceMatchers() : dynamicMatchers;
+    }
 }
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.resourcematcher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Matches a resource value against all values of a policy resource in one scan of the resource value: the values,
+ * with wildcards '*' and '?', are compiled into a deterministic finite automaton. Matching semantics are same as
+ * the per-value matchers built by RangerAbstractResourceMatcher.getMatcher() - i.e. FilenameUtils.wildcardMatch()
+ * and String.regionMatches() for case-insensitive comparison.
+ *
+ * Values having tokens or request expressions can't be compiled, and must be matched by the per-value matchers.
+ */
+final class ResourceValuesAutomaton {
+    private static final Logger LOG = LoggerFactory.getLogger(ResourceValuesAutomaton.class);
+
+    static final int MAX_STATES = 65536;
+
+    private final Dfa    caseSensitiveDfa;
+    private final Dfa    caseInsensitiveDfa;
+    private final String quoteChars;
+
+    private ResourceValuesAutomaton(Dfa caseSensitiveDfa, Dfa caseInsensitiveDfa, String quoteChars) {
+        this.caseSensitiveDfa   = caseSensitiveDfa;
+        this.caseInsensitiveDfa = caseInsensitiveDfa;
+        this.quoteChars         = quoteChars;
+    }
+
+    /**
+     * @return automaton to match the given values; null if values can't be compiled within MAX_STATES states
+     */
+    static ResourceValuesAutomaton compile(Collection<String> values, boolean wildcard, boolean ignoreCase, boolean quotedCaseSensitive, String quoteChars) {
+        LOG.debug("==> ResourceValuesAutomaton.compile(values={}, wildcard={}, ignoreCase={}, quotedCaseSensitive={})", values, wildcard, ignoreCase, quotedCaseSensitive);
+
+        ResourceValuesAutomaton ret                = null;
+        Dfa                     caseSensitiveDfa   = null;
+        Dfa                     caseInsensitiveDfa = null;
+        boolean                 isCompiled         = true;
+
+        if (!ignoreCase || quotedCaseSensitive) {
+            caseSensitiveDfa = Dfa.compile(values, wildcard, false);
+            isCompiled       = caseSensitiveDfa != null;
+        }
+
+        if (isCompiled && ignoreCase) {
+            caseInsensitiveDfa = Dfa.compile(values, wildcard, true);
+            isCompiled         = caseInsensitiveDfa != null;
+        }
+
+        if (isCompiled) {
+            ret = new ResourceValuesAutomaton(caseSensitiveDfa, caseInsensitiveDfa, ignoreCase && quotedCaseSensitive ? quoteChars : null);
+        }
+
+        LOG.debug("<== ResourceValuesAutomaton.compile(values={}, wildcard={}, ignoreCase={}, quotedCaseSensitive={}): {}", values, wildcard, ignoreCase, quotedCaseSensitive, ret);
+
+        return ret;
+    }
+
+    boolean isMatch(String resourceValue) {
+        if (resourceValue == null) {
+            return false;
+        }
+
+        final Dfa dfa;
+
+        if (caseInsensitiveDfa == null) {
+            dfa = caseSensitiveDfa;
+        } else if (quoteChars != null && ResourceMatcher.startsWithAnyChar(resourceValue, quoteChars)) {
+            dfa = caseSensitiveDfa;
+        } else {
+            dfa = caseInsensitiveDfa;
+        }
+
+        return dfa.isMatch(resourceValue);
+    }
+
+    int getStateCount() {
+        return (caseSensitiveDfa != null ? caseSensitiveDfa.getStateCount() : 0) + (caseInsensitiveDfa != null ? caseInsensitiveDfa.getStateCount() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceValuesAutomaton={states=" + getStateCount() + ", quoteChars=" + quoteChars + "}";
+    }
+
+    // same equivalence as String.regionMatches(ignoreCase=true, ...), for chars other than surrogates
+    static char foldCase(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /*
+     * Transitions of state s are in labels/targets, from index transitionStart[s] to transitionStart[s + 1], sorted
+     * by label; chars not in labels lead to defaultTarget[s]. Target -1 is the dead state. State 0 is the start state.
+     */
+    private static final class Dfa {
+        private static final char TOKEN_CHAR     = 0;
+        private static final char TOKEN_ANY_CHAR = 1;
+        private static final char TOKEN_ANY_SEQ  = 2;
+        private static final char TOKEN_END      = 3;
+
+        private final boolean ignoreCase;
+        private final int[]   transitionStart;
+        private final char[]  labels;
+        private final int[]   targets;
+        private final int[]   defaultTarget;
+        private final BitSet  accepting;
+
+        private Dfa(boolean ignoreCase, int[] transitionStart, char[] labels, int[] targets, int[] defaultTarget, BitSet accepting) {
+            this.ignoreCase      = ignoreCase;
+            this.transitionStart = transitionStart;
+            this.labels          = labels;
+            this.targets         = targets;
+            this.defaultTarget   = defaultTarget;
+            this.accepting       = accepting;
+        }
+
+        static Dfa compile(Collection<String> values, boolean wildcard, boolean ignoreCase) {
+            // NFA: one token per position of each value; a position is a state - of having matched tokens before it
+            StringBuilder tokenChars  = new StringBuilder();
+            StringBuilder tokenTypes  = new StringBuilder();
+            BitSet        startStates = new BitSet();
+
+            for (String value : values) {
+                startStates.set(tokenTypes.length());
+
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+
+                    if (ignoreCase && Character.isSurrogate(c)) {
+                        LOG.debug("ResourceValuesAutomaton: value {} has surrogate chars, which are not supported for case-insensitive match", value);
+
+                        return null;
+                    }
+
+                    if (wildcard && c == '*') {
+                        if (i == 0 || value.charAt(i - 1) != '*') { // consecutive '*'s are same as one '*'
+                            tokenTypes.append(TOKEN_ANY_SEQ);
+                            tokenChars.append(c);
+                        }
+                    } else if (wildcard && c == '?') {
+                        tokenTypes.append(TOKEN_ANY_CHAR);
+                        tokenChars.append(c);
+                    } else {
+                        tokenTypes.append(TOKEN_CHAR);
+                        tokenChars.append(ignoreCase ? foldCase(c) : c);
+                    }
+                }
+
+                tokenTypes.append(TOKEN_END);
+                tokenChars.append('\0');
+            }
+
+            // subset construction
+            Map<BitSet, Integer> stateIds        = new HashMap<>();
+            List<BitSet>         states          = new ArrayList<>();
+            List<Integer>        transitionStart = new ArrayList<>();
+            StringBuilder        labels          = new StringBuilder();
+            List<Integer>        targets         = new ArrayList<>();
+            List<Integer>        defaultTarget   = new ArrayList<>();
+            BitSet               accepting       = new BitSet();
+
+            getStateId(closure(startStates, tokenTypes), stateIds, states);
+
+            for (int stateId = 0; stateId < states.size(); stateId++) {
+                BitSet                     state     = states.get(stateId);
+                BitSet                     onAnyChar = new BitSet();
+                TreeMap<Character, BitSet> onChar    = new TreeMap<>();
+
+                for (int pos = state.nextSetBit(0); pos >= 0; pos = state.nextSetBit(pos + 1)) {
+                    switch (tokenTypes.charAt(pos)) {
+                        case TOKEN_CHAR:
+                            onChar.computeIfAbsent(tokenChars.charAt(pos), k -> new BitSet()).set(pos + 1);
+                            break;
+
+                        case TOKEN_ANY_CHAR:
+                            onAnyChar.set(pos + 1);
+                            break;
+
+                        case TOKEN_ANY_SEQ:
+                            onAnyChar.set(pos);
+                            break;
+
+                        default: // TOKEN_END
+                            accepting.set(stateId);
+                            break;
+                    }
+                }
+
+                BitSet defaultState = closure(onAnyChar, tokenTypes);
+
+                transitionStart.add(labels.length());
+                defaultTarget.add(defaultState.isEmpty() ? -1 : getStateId(defaultState, stateIds, states));
+
+                for (Map.Entry<Character, BitSet> entry : onChar.entrySet()) {
+                    BitSet target = entry.getValue();
+
+                    target.or(onAnyChar);
+
+                    target = closure(target, tokenTypes);
+
+                    if (!target.equals(defaultState)) {
+                        labels.append(entry.getKey().charValue());
+                        targets.add(getStateId(target, stateIds, states));
+                    }
+                }
+
+                if (states.size() > MAX_STATES) {
+                    LOG.debug("ResourceValuesAutomaton: values {} need more than {} states", values, MAX_STATES);
+
+                    return null;
+                }
+            }
+
+            transitionStart.add(labels.length());
+
+            return new Dfa(ignoreCase, toIntArray(transitionStart), labels.toString().toCharArray(), toIntArray(targets), toIntArray(defaultTarget), accepting);
+        }
+
+        boolean isMatch(String value) {
+            int state = 0;
+
+            for (int i = 0; i < value.length(); i++) {
+                char c   = ignoreCase ? foldCase(value.charAt(i)) : value.charAt(i);
+                int  idx = Arrays.binarySearch(labels, transitionStart[state], transitionStart[state + 1], c);
+
+                state = idx >= 0 ? targets[idx] : defaultTarget[state];
+
+                if (state < 0) {
+                    return false;
+                }
+            }
+
+            return accepting.get(state);
+        }
+
+        int getStateCount() {
+            return defaultTarget.length;
+        }
+
+        // '*' matches empty sequence as well; hence position after '*' is reachable without consuming a char
+        private static BitSet closure(BitSet positions, CharSequence tokenTypes) {
+            for (int pos = positions.nextSetBit(0); pos >= 0; pos = positions.nextSetBit(pos + 1)) {
+                if (tokenTypes.charAt(pos) == TOKEN_ANY_SEQ) {
+                    positions.set(pos + 1);
+                }
+            }
+
+            return positions;
+        }
+
+        private static int getStateId(BitSet state, Map<BitSet, Integer> stateIds, List<BitSet> states) {
+            Integer ret = stateIds.get(state);
+
+            if (ret == null) {
+                ret = states.size();
+
+                stateIds.put(state, ret);
+                states.add(state);
+            }
+
+            return ret;
+        }
+
+        private static int[] toIntArray(List<Integer> list) {
+            int[] ret = new int[list.size()];
+
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = list.get(i);
+            }
+
+            return ret;
+        }
+    }
+}
@@ -44,6 +44,9 @@
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.model.validation.RangerServiceDefHelper;
+import org.apache.ranger.plugin.policyengine.PolicyEngine;
+import org.apache.ranger.plugin.policyengine.PolicyEngineUpdateMetrics;
+import org.apache.ranger.plugin.policyengine.RangerAccessDecisionCache;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
@@ -63,9 +66,11 @@
 import org.apache.ranger.plugin.util.GrantRevokeRoleRequest;
 import org.apache.ranger.plugin.util.PerfDataRecorder;
 import org.apache.ranger.plugin.util.PolicyRefresher;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerPolicyDeltaUtil;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerRolesUtil;
+import org.apache.ranger.plugin.util.RangerStringPool;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
@@ -98,6 +103,8 @@ public class RangerBasePlugin {
     private final DownloadTrigger           accessTrigger  = new DownloadTrigger();
     private final List<RangerChainedPlugin> chainedPlugins;
     private final boolean                   dedupStrings;
+    private final boolean                   dedupStringsShared;
+    private final RangerAccessDecisionCache decisionCache;
 
     private volatile RangerPolicyEngine  policyEngine;
     private volatile RangerAuthContext   currentAuthContext;
@@ -198,8 +205,18 @@ public RangerBasePlugin(RangerPluginConfig pluginConfig) {
 
         RangerRequestScriptEvaluator.init(pluginConfig);
 
-        this.dedupStrings   = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + ".dedup.strings", true);
-        this.chainedPlugins = initChainedPlugins();
+        this.dedupStrings       = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_DEFAULT);
+        this.dedupStringsShared = pluginConfig.getBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED_DEFAULT);
+        this.chainedPlugins     = initChainedPlugins();
+
+        if (pluginContext.getDecisionCache() != null && !chainedPlugins.isEmpty()) {
+            // decisions of chained plugins depend on their own policies/tags, changes to which are not tracked here
+            LOG.warn("{}: decision cache is not supported with chained plugins. Decisions will not be cached", pluginConfig.getServiceName());
+
+            this.decisionCache = null;
+        } else {
+            this.decisionCache = pluginContext.getDecisionCache();
+        }
     }
 
     public RangerBasePlugin(RangerPluginConfig pluginConfig, ServicePolicies policies, ServiceTags tags, RangerRoles roles) {
@@ -358,18 +375,26 @@ public void setRoles(RangerRoles roles) {
 
     public void setAuditExcludedUsersGroupsRoles(Set<String> users, Set<String> groups, Set<String> roles) {
         pluginConfig.setAuditExcludedUsersGroupsRoles(users, groups, roles);
+
+        invalidateDecisionCache();
     }
 
     public void setSuperUsersAndGroups(Set<String> users, Set<String> groups) {
         pluginConfig.setSuperUsersGroups(users, groups);
+
+        invalidateDecisionCache();
     }
 
     public void setIsFallbackSupported(boolean isFallbackSupported) {
         pluginConfig.setIsFallbackSupported(isFallbackSupported);
+
+        invalidateDecisionCache();
     }
 
     public void setServiceAdmins(Set<String> users) {
         pluginConfig.setServiceAdmins(users);
+
+        invalidateDecisionCache();
     }
 
     public RangerServiceDefHelper getServiceDefHelper() {
@@ -490,7 +515,9 @@ public void setPolicies(ServicePolicies policies) {
                 }
             } else {
                 if (dedupStrings) {
-                    policies.dedupStrings();
+                    policies.dedupStrings(RangerStringPool.getStringTable(dedupStringsShared, "policies:" + getServiceName()));
+
+                    LOG.debug("setPolicies(): deduplicated strings, shared={}, stringPool={}", dedupStringsShared, RangerStringPool.getInstance());
                 }
 
                 Boolean hasPolicyDeltas = RangerPolicyDeltaUtil.hasPolicyDeltas(policies);
@@ -601,6 +628,15 @@ public void setPolicies(ServicePolicies policies) {
                     pluginContext.notifyAuthContextChanged();
 
                     if (oldPolicyEngine != null && oldPolicyEngine != newPolicyEngine) {
+                        PolicyEngine oldEngine = ((RangerPolicyEngineImpl) oldPolicyEngine).getPolicyEngine();
+                        PolicyEngine newEngine = ((RangerPolicyEngineImpl) newPolicyEngine).getPolicyEngine();
+
+                        // requests in progress continue to use the old policy-engine; track it until it is garbage collected.
+                        // Counting its trie nodes walks all tries, hence only when the estimate is to be reported
+                        long exclusiveNodeCount = PolicyEngineUpdateMetrics.isRetainedBytesEnabled() ? oldEngine.getTrieNodeCount(newEngine) : 0;
+
+                        PolicyEngineUpdateMetrics.getInstance().addRetainedSnapshot(oldEngine, exclusiveNodeCount);
+
                         ((RangerPolicyEngineImpl) oldPolicyEngine).releaseResources(!isPolicyEngineShared);
                     }
 
@@ -644,6 +680,10 @@ public void cleanup() {
         if (policyEngine != null) {
             ((RangerPolicyEngineImpl) policyEngine).releaseResources(true);
         }
+
+        invalidateDecisionCache();
+
+        pluginContext.shutdownBatchExecutor();
     }
 
     public RangerAccessResultProcessor getResultProcessor() {
@@ -670,6 +710,20 @@ public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAcc
         RangerAccessResult ret          = null;
         RangerPolicyEngine policyEngine = this.policyEngine;
 
+        RangerAccessDecisionCache.Lookup cacheLookup = (decisionCache != null && policyEngine != null) ? decisionCache.lookup(request, policyEngine) : null;
+
+        if (cacheLookup != null && cacheLookup.getResult() != null) {
+            ret = cacheLookup.getResult();
+
+            LOG.debug("BasePlugin.isAccessAllowed: found in decision cache, result=[{}]", ret);
+
+            if (resultProcessor != null) {
+                resultProcessor.processResult(ret);
+            }
+
+            return ret;
+        }
+
         if (policyEngine != null) {
             ret = policyEngine.evaluatePolicies(request, RangerPolicy.POLICY_TYPE_ACCESS, null);
         }
@@ -701,6 +755,10 @@ public RangerAccessResult isAccessAllowed(RangerAccessRequest request, RangerAcc
             policyEngine.evaluateAuditPolicies(ret);
         }
 
+        if (cacheLookup != null) {
+            cacheLookup.cache(ret);
+        }
+
         if (resultProcessor != null) {
             resultProcessor.processResult(ret);
         }
@@ -1229,6 +1287,10 @@ public Long getPolicyVersion() {
         return policyEngine == null ? -1L : policyEngine.getPolicyVersion();
     }
 
+    public RangerAccessDecisionCache getDecisionCache() {
+        return decisionCache;
+    }
+
     protected RangerPolicyEngine getPolicyEngine() {
         return policyEngine;
     }
@@ -1282,6 +1344,14 @@ private void auditGrantRevoke(GrantRevokeRequest request, String action, boolean
         }
     }
 
+    private void invalidateDecisionCache() {
+        RangerAccessDecisionCache decisionCache = pluginContext.getDecisionCache();
+
+        if (decisionCache != null) {
+            decisionCache.invalidate();
+        }
+    }
+
     private RangerServiceDef getDefaultServiceDef() {
         RangerServiceDef ret = null;
 
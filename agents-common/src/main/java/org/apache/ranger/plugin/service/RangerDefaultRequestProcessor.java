@@ -74,6 +74,15 @@ public RangerDefaultRequestProcessor(PolicyEngine policyEngine) {
 
     @Override
     public void preProcess(RangerAccessRequest request) {
+        preProcess(request, false, null);
+    }
+
+    @Override
+    public void preProcess(RangerAccessRequest request, Set<String> resourceZoneNames) {
+        preProcess(request, true, resourceZoneNames);
+    }
+
+    private void preProcess(RangerAccessRequest request, boolean isZoneNamesKnown, Set<String> resourceZoneNames) {
         LOG.debug("==> preProcess({})", request);
 
         if (RangerAccessRequestUtil.getIsRequestPreprocessed(request.getContext())) {
@@ -141,7 +150,7 @@ public void preProcess(RangerAccessRequest request) {
             RangerAccessRequestUtil.setCurrentUserRolesInContext(request.getContext(), roles);
         }
 
-        Set<String> zoneNames = policyEngine.getMatchedZonesForResourceAndChildren(request.getResource());
+        Set<String> zoneNames = isZoneNamesKnown ? resourceZoneNames : policyEngine.getMatchedZonesForResourceAndChildren(request.getResource());
 
         RangerAccessRequestUtil.setResourceZoneNamesInContext(request, zoneNames);
 
@@ -22,8 +22,13 @@
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ranger.admin.client.RangerAdminClient;
+import org.apache.ranger.admin.client.RangerAdminOperationNotSupportedException;
+import org.apache.ranger.admin.client.RangerAdminSyncClient;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.contextenricher.RangerGdsEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.contextenricher.RangerUserStoreEnricher;
 import org.apache.ranger.plugin.policyengine.RangerPluginContext;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.slf4j.Logger;
@@ -45,20 +50,24 @@ public class PolicyRefresher extends Thread {
     private static final Logger LOG                        = LoggerFactory.getLogger(PolicyRefresher.class);
     private static final Logger PERF_POLICYENGINE_INIT_LOG = RangerPerfTracer.getPerfLogger("policyengine.init");
 
-    private final RangerBasePlugin               plugIn;
-    private final String                         serviceType;
-    private final String                         serviceName;
-    private final RangerAdminClient              rangerAdmin;
-    private final RangerRolesProvider            rolesProvider;
-    private final long                           pollingIntervalMs;
-    private final String                         cacheFileName;
-    private final String                         cacheDir;
-    private final BlockingQueue<DownloadTrigger> policyDownloadQueue = new LinkedBlockingQueue<>();
-    private       Timer                          policyDownloadTimer;
-    private       long                           lastKnownVersion    = -1L;
-    private       long                           lastActivationTimeInMillis;
-    private       boolean                        policiesSetInPlugin;
-    private       boolean                        serviceDefSetInPlugin;
+    private final    RangerBasePlugin               plugIn;
+    private final    String                         serviceType;
+    private final    String                         serviceName;
+    private final    RangerAdminClient              rangerAdmin;
+    private final    RangerRolesProvider            rolesProvider;
+    private final    long                           pollingIntervalMs;
+    private final    String                         cacheFileName;
+    private final    String                         cacheDir;
+    private final    String                         cacheFormat;
+    private final    BlockingQueue<DownloadTrigger> policyDownloadQueue = new LinkedBlockingQueue<>();
+    private final    boolean                        longPollEnabled;
+    private final    long                           longPollTimeoutMs;
+    private          Timer                          policyDownloadTimer;
+    private volatile Thread                         changeWatcher;
+    private          long                           lastKnownVersion    = -1L;
+    private          long                           lastActivationTimeInMillis;
+    private          boolean                        policiesSetInPlugin;
+    private          boolean                        serviceDefSetInPlugin;
 
     public PolicyRefresher(RangerBasePlugin plugIn) {
         LOG.debug("==> PolicyRefresher(serviceName={}).PolicyRefresher()", plugIn.getServiceName());
@@ -70,6 +79,7 @@ public PolicyRefresher(RangerBasePlugin plugIn) {
         this.serviceType = plugIn.getServiceType();
         this.serviceName = plugIn.getServiceName();
         this.cacheDir    = pluginConfig.get(propertyPrefix + ".policy.cache.dir");
+        this.cacheFormat = RangerCacheSnapshot.getCacheFormat(pluginConfig, propertyPrefix);
 
         String appId         = StringUtils.isEmpty(plugIn.getAppId()) ? serviceType : plugIn.getAppId();
         String cacheFilename = String.format("%s_%s.json", appId, serviceName);
@@ -79,12 +89,18 @@ public PolicyRefresher(RangerBasePlugin plugIn) {
 
         this.cacheFileName = cacheFilename;
 
+        if (!RangerCacheSnapshot.isJsonEnabled(cacheFormat)) {
+            LOG.info("{}: policies are cached in {} format; policy-deltas, if saved, are cached in JSON format", serviceName, cacheFormat);
+        }
+
         RangerPluginContext pluginContext = plugIn.getPluginContext();
         RangerAdminClient   adminClient   = pluginContext.getAdminClient();
 
         this.rangerAdmin       = (adminClient != null) ? adminClient : pluginContext.createAdminClient(pluginConfig);
         this.rolesProvider     = new RangerRolesProvider(getServiceType(), appId, getServiceName(), rangerAdmin, cacheDir, pluginConfig);
         this.pollingIntervalMs = pluginConfig.getLong(propertyPrefix + ".policy.pollIntervalMs", 30 * 1000L);
+        this.longPollEnabled   = pluginConfig.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_ENABLED, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_ENABLED_DEFAULT);
+        this.longPollTimeoutMs = pluginConfig.getLong(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_TIMEOUT_MS, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_TIMEOUT_MS_DEFAULT);
 
         setName("PolicyRefresher(serviceName=" + serviceName + ")-" + getId());
 
@@ -141,6 +157,26 @@ private void initRefresher() {
             LOG.error("Failed to start PolicyRefresher thread for serviceName={}", serviceName, e);
             throw e;
         }
+
+        if (longPollEnabled && rangerAdmin.supportsServiceChangeWait()) {
+            // downloads are triggered on change notifications from Ranger admin, instead of every pollingIntervalMs
+            changeWatcher = new Thread(this::watchForChanges, "PolicyChangeWatcher(serviceName=" + serviceName + ")-" + getId());
+
+            changeWatcher.setDaemon(true);
+            changeWatcher.start();
+
+            LOG.debug("Started {} to wait for changes in Ranger admin, with timeout {} milliseconds", changeWatcher.getName(), longPollTimeoutMs);
+        } else {
+            if (longPollEnabled) {
+                LOG.info("PolicyRefresher(serviceName={}): {} doesn't support waiting for changes. Will download policies every {} milliseconds", serviceName, rangerAdmin.getClass().getName(), pollingIntervalMs);
+            }
+
+            schedulePolicyDownloads();
+        }
+        LOG.debug("<== PolicyRefresher(serviceName={}).initRefresher()", serviceName);
+    }
+
+    private void schedulePolicyDownloads() {
         policyDownloadTimer = new Timer("policyDownloadTimer", true);
         try {
             policyDownloadTimer.schedule(new DownloaderTask(policyDownloadQueue), pollingIntervalMs, pollingIntervalMs);
@@ -152,18 +188,23 @@ private void initRefresher() {
             policyDownloadTimer = null;
             throw e;
         }
-        LOG.debug("<== PolicyRefresher(serviceName={}).initRefresher()", serviceName);
     }
 
     public void stopRefresher() {
-        Timer policyDownloadTimer = this.policyDownloadTimer;
+        Timer  policyDownloadTimer = this.policyDownloadTimer;
+        Thread changeWatcher       = this.changeWatcher;
 
         this.policyDownloadTimer = null;
+        this.changeWatcher       = null;
 
         if (policyDownloadTimer != null) {
             policyDownloadTimer.cancel();
         }
 
+        if (changeWatcher != null) {
+            changeWatcher.interrupt(); // daemon thread; not joined, as it could be waiting on Ranger admin for up to longPollTimeoutMs
+        }
+
         if (super.isAlive()) {
             super.interrupt();
 
@@ -197,6 +238,7 @@ public void run() {
 
                 loadRoles();
                 loadPolicy();
+                triggerEnricherDownloads();
             } catch (InterruptedException excp) {
                 LOG.info("PolicyRefresher(serviceName={}).run(): interrupted! Exiting thread", serviceName, excp);
 
@@ -211,6 +253,117 @@ public void run() {
         LOG.debug("<== PolicyRefresher(serviceName={}).run()", serviceName);
     }
 
+    /*
+     * Waits in Ranger admin for changes to policies or roles, and downloads them on change. Falls back to download
+     * every pollingIntervalMs if Ranger admin doesn't support waiting for changes.
+     */
+    private void watchForChanges() {
+        LOG.debug("==> PolicyRefresher(serviceName={}).watchForChanges()", serviceName);
+
+        while (changeWatcher == Thread.currentThread()) {
+            try {
+                long    policyVersion = lastKnownVersion;
+                long    roleVersion   = rolesProvider.getLastKnownRoleVersion();
+                boolean isChanged;
+                boolean backOff       = false;
+
+                try {
+                    RangerServiceVersions lastKnownVersions = getVersionsToWatch(policyVersion, roleVersion);
+                    RangerServiceVersions currentVersions   = rangerAdmin.waitForServiceChange(lastKnownVersions, longPollTimeoutMs);
+
+                    isChanged = currentVersions != null;
+
+                    LOG.debug("PolicyRefresher(serviceName={}): lastKnownVersions={}, currentVersions={}", serviceName, lastKnownVersions, currentVersions);
+                } catch (RangerAdminOperationNotSupportedException excp) {
+                    LOG.warn("PolicyRefresher(serviceName={}): waiting for changes is not supported. Will download policies every {} milliseconds", serviceName, pollingIntervalMs, excp);
+
+                    schedulePolicyDownloads();
+
+                    break;
+                } catch (Exception excp) {
+                    LOG.error("PolicyRefresher(serviceName={}): failed while waiting for changes. Will retry after {} milliseconds", serviceName, pollingIntervalMs, excp);
+
+                    isChanged = true; // download, as with periodic download
+                    backOff   = true;
+                }
+
+                if (isChanged) {
+                    DownloadTrigger trigger = new DownloadTrigger();
+
+                    policyDownloadQueue.put(trigger);
+                    trigger.waitForCompletion();
+
+                    // avoid a busy loop when the downloaded versions are not applied, for example due to errors
+                    if (policyVersion == lastKnownVersion && roleVersion == rolesProvider.getLastKnownRoleVersion()) {
+                        backOff = true;
+                    }
+                }
+
+                if (backOff) {
+                    Thread.sleep(pollingIntervalMs);
+                }
+            } catch (InterruptedException excp) {
+                LOG.info("PolicyRefresher(serviceName={}).watchForChanges(): interrupted! Exiting thread", serviceName);
+
+                break;
+            }
+        }
+
+        LOG.debug("<== PolicyRefresher(serviceName={}).watchForChanges()", serviceName);
+    }
+
+    /*
+     * With sync, changes in tags, userstore and GDS info are downloaded along with policies and roles; the enrichers
+     * are triggered to pick them up now, instead of at their next scheduled download.
+     */
+    private void triggerEnricherDownloads() {
+        if (rangerAdmin instanceof RangerAdminSyncClient) {
+            RangerAdminSyncClient syncClient = (RangerAdminSyncClient) rangerAdmin;
+
+            if (syncClient.isPending(RangerAdminSyncClient.Artifact.TAGS)) {
+                RangerTagEnricher tagEnricher = plugIn.getTagEnricher();
+
+                if (tagEnricher != null) {
+                    tagEnricher.triggerTagsDownload();
+                }
+            }
+
+            if (syncClient.isPending(RangerAdminSyncClient.Artifact.USERSTORE)) {
+                RangerUserStoreEnricher userStoreEnricher = plugIn.getUserStoreEnricher();
+
+                if (userStoreEnricher != null) {
+                    userStoreEnricher.triggerUserStoreDownload();
+                }
+            }
+
+            if (syncClient.isPending(RangerAdminSyncClient.Artifact.GDS_INFO)) {
+                RangerGdsEnricher gdsEnricher = plugIn.getGdsEnricher();
+
+                if (gdsEnricher != null) {
+                    gdsEnricher.triggerGdsInfoDownload();
+                }
+            }
+        }
+    }
+
+    /*
+     * With sync, also watch for changes in tags, userstore and GDS info consumed in this plugin
+     */
+    private RangerServiceVersions getVersionsToWatch(long policyVersion, long roleVersion) {
+        final RangerServiceVersions ret;
+
+        if (rangerAdmin instanceof RangerAdminSyncClient && rangerAdmin.supportsSync()) {
+            ret = ((RangerAdminSyncClient) rangerAdmin).getLastKnownVersions();
+
+            ret.setPolicyVersion(policyVersion);
+            ret.setRoleVersion(roleVersion);
+        } else {
+            ret = new RangerServiceVersions(serviceName, policyVersion, null, roleVersion, null, null);
+        }
+
+        return ret;
+    }
+
     public void syncPoliciesWithAdmin(DownloadTrigger token) throws InterruptedException {
         policyDownloadQueue.put(token);
         token.waitForCompletion();
@@ -257,13 +410,28 @@ public void saveToCache(ServicePolicies policies) {
                 if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.saveToCache(serviceName=" + serviceName + ")");
                 }
-                try (Writer writer = new FileWriter(cacheFile)) {
-                    JsonUtils.objectToWriter(writer, policies);
-                    deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
-                } catch (Exception excp) {
-                    LOG.error("failed to save policies to cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                boolean isDeltas = CollectionUtils.isNotEmpty(policies.getPolicyDeltas());
+
+                // deltas are not loaded on startup, hence are saved in JSON for every cache format
+                if (RangerCacheSnapshot.isJsonEnabled(cacheFormat) || isDeltas) {
+                    if (isDeltas && !RangerCacheSnapshot.isJsonEnabled(cacheFormat)) {
+                        LOG.debug("cache format is {}; saving policy-deltas in JSON format to '{}'", cacheFormat, cacheFile.getAbsolutePath());
+                    }
+
+                    try (Writer writer = new FileWriter(cacheFile)) {
+                        JsonUtils.objectToWriter(writer, policies);
+                    } catch (Exception excp) {
+                        LOG.error("failed to save policies to cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                    }
+                }
+
+                // snapshot is only for the cache file loaded on startup, not for the deltas preserved
+                if (RangerCacheSnapshot.isSnapshotEnabled(cacheFormat) && !isDeltas) {
+                    RangerCacheSnapshot.saveForCacheFile(cacheFile, policies);
                 }
 
+                deleteOldestVersionCacheFileInCacheDirectory(cacheFile.getParentFile());
+
                 RangerPerfTracer.log(perf);
             }
 
@@ -411,7 +579,31 @@ private ServicePolicies loadFromCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+        if (cacheFile != null && RangerCacheSnapshot.isSnapshotEnabled(cacheFormat)) {
+            RangerPerfTracer perf = null;
+
+            if (RangerPerfTracer.isPerfTraceEnabled(PERF_POLICYENGINE_INIT_LOG)) {
+                perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "PolicyRefresher.loadFromCache(serviceName=" + serviceName + ", snapshot=true)");
+            }
+
+            policies = RangerCacheSnapshot.loadForCacheFile(cacheFile, ServicePolicies.class);
+
+            RangerPerfTracer.log(perf);
+
+            if (policies != null) {
+                if (!StringUtils.equals(serviceName, policies.getServiceName())) {
+                    LOG.warn("ignoring unexpected serviceName '{}' in snapshot for cache file '{}'", policies.getServiceName(), cacheFile.getAbsolutePath());
+
+                    policies.setServiceName(serviceName);
+                }
+
+                lastKnownVersion = policies.getPolicyVersion() == null ? -1L : policies.getPolicyVersion();
+            }
+        }
+
+        if (policies != null) {
+            LOG.debug("loaded policies from snapshot for cache file {}", cacheFile.getAbsolutePath());
+        } else if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             Reader           reader = null;
             RangerPerfTracer perf   = null;
 
@@ -510,6 +702,10 @@ private void disableCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
+        if (cacheFile != null) {
+            RangerCacheSnapshot.disableForCacheFile(cacheFile);
+        }
+
         if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             LOG.warn("Cleaning up local cache");
 
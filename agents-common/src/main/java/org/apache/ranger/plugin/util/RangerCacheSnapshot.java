@@ -0,0 +1,478 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of objects saved in plugin caches - like ServicePolicies, ServiceTags, RangerRoles and RangerUserStore.
+ * Compared to the JSON cache files, a snapshot stores each distinct string once and is read from a memory-mapped file,
+ * without having to tokenize JSON text; strings are decoded only when first referenced, and the decoded instance is
+ * shared by all references in the loaded object.
+ *
+ * Layout (big-endian):
+ *   int    magic
+ *   int    format version
+ *   long   CRC32 of the rest of the file
+ *   int    string count
+ *   int    offset of tokens
+ *   for each string: int length, UTF-8 bytes
+ *   tokens: serialized form of the object, as a sequence of Jackson tokens; strings are referred by their index
+ *
+ * Snapshots are written to a temporary file, which is then moved over the earlier snapshot, so that a reader never
+ * sees a partially written snapshot.
+ */
+public class RangerCacheSnapshot {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerCacheSnapshot.class);
+
+    public static final String CACHE_FORMAT_JSON   = "json";
+    public static final String CACHE_FORMAT_BINARY = "binary";
+    public static final String CACHE_FORMAT_BOTH   = "both";
+    public static final String SNAPSHOT_FILE_EXT   = ".snapshot";
+
+    static final int MAGIC          = 0x52435348; // RCSH
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4;
+
+    private static final byte TOKEN_START_OBJECT = 1;
+    private static final byte TOKEN_END_OBJECT   = 2;
+    private static final byte TOKEN_START_ARRAY  = 3;
+    private static final byte TOKEN_END_ARRAY    = 4;
+    private static final byte TOKEN_FIELD_NAME   = 5;
+    private static final byte TOKEN_STRING       = 6;
+    private static final byte TOKEN_INT          = 7;
+    private static final byte TOKEN_LONG         = 8;
+    private static final byte TOKEN_DOUBLE       = 9;
+    private static final byte TOKEN_TRUE         = 10;
+    private static final byte TOKEN_FALSE        = 11;
+    private static final byte TOKEN_NULL         = 12;
+    private static final byte TOKEN_BIG_INTEGER  = 13;
+    private static final byte TOKEN_BIG_DECIMAL  = 14;
+
+    private RangerCacheSnapshot() {
+        // to block instantiation
+    }
+
+    /**
+     * @return cache format configured with property propertyPrefix + ".policy.cache.format": json (default), binary or both
+     */
+    public static String getCacheFormat(Configuration config, String propertyPrefix) {
+        String ret = config != null ? StringUtils.trimToNull(config.get(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT)) : null;
+
+        if (ret == null) {
+            ret = RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT_DEFAULT;
+        } else {
+            ret = ret.toLowerCase();
+
+            if (!CACHE_FORMAT_JSON.equals(ret) && !CACHE_FORMAT_BINARY.equals(ret) && !CACHE_FORMAT_BOTH.equals(ret)) {
+                LOG.warn("{}{}: invalid value {}; using {}", propertyPrefix, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT, ret, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT_DEFAULT);
+
+                ret = RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT_DEFAULT;
+            }
+        }
+
+        return ret;
+    }
+
+    public static boolean isJsonEnabled(String cacheFormat) {
+        return !CACHE_FORMAT_BINARY.equals(cacheFormat);
+    }
+
+    public static boolean isSnapshotEnabled(String cacheFormat) {
+        return CACHE_FORMAT_BINARY.equals(cacheFormat) || CACHE_FORMAT_BOTH.equals(cacheFormat);
+    }
+
+    public static File getSnapshotFile(File jsonCacheFile) {
+        return new File(jsonCacheFile.getPath() + SNAPSHOT_FILE_EXT);
+    }
+
+    /**
+     * Saves the object in the snapshot file for the given JSON cache file; failures are logged, as with JSON cache files.
+     */
+    public static void saveForCacheFile(File jsonCacheFile, Object obj) {
+        File snapshotFile = getSnapshotFile(jsonCacheFile);
+
+        try {
+            save(snapshotFile, obj);
+        } catch (Exception excp) {
+            LOG.error("failed to save snapshot to cache file '{}'", snapshotFile.getAbsolutePath(), excp);
+        }
+    }
+
+    /**
+     * Loads the object from the snapshot file for the given JSON cache file. The snapshot is ignored if it is older than
+     * the JSON cache file, which may have been written by an earlier version or replaced by hand.
+     *
+     * @return null if the snapshot doesn't exist, is older than the JSON cache file or is invalid
+     */
+    public static <T> T loadForCacheFile(File jsonCacheFile, Class<T> clz) {
+        T    ret          = null;
+        File snapshotFile = getSnapshotFile(jsonCacheFile);
+
+        if (!snapshotFile.isFile() || !snapshotFile.canRead()) {
+            LOG.debug("snapshot cache file does not exist or not readable '{}'", snapshotFile.getAbsolutePath());
+        } else if (jsonCacheFile.isFile() && jsonCacheFile.lastModified() > snapshotFile.lastModified()) {
+            LOG.warn("ignoring snapshot cache file '{}', as it is older than '{}'", snapshotFile.getAbsolutePath(), jsonCacheFile.getAbsolutePath());
+        } else {
+            try {
+                ret = load(snapshotFile, clz);
+            } catch (Exception excp) {
+                LOG.error("failed to load snapshot from cache file {}", snapshotFile.getAbsolutePath(), excp);
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Moves aside the snapshot file for the given JSON cache file, like the JSON cache file is when the service is not found.
+     */
+    public static void disableForCacheFile(File jsonCacheFile) {
+        File snapshotFile = getSnapshotFile(jsonCacheFile);
+
+        if (snapshotFile.isFile()) {
+            String renamedSnapshotFile = snapshotFile.getAbsolutePath() + "_" + System.currentTimeMillis();
+
+            if (!snapshotFile.renameTo(new File(renamedSnapshotFile))) {
+                LOG.error("Failed to move {} to {}", snapshotFile.getAbsolutePath(), renamedSnapshotFile);
+            } else {
+                LOG.warn("Moved {} to {}", snapshotFile.getAbsolutePath(), renamedSnapshotFile);
+            }
+        }
+    }
+
+    public static void save(File file, Object obj) throws IOException {
+        LOG.debug("==> RangerCacheSnapshot.save({})", file);
+
+        byte[] content = encode(obj);
+        Path   target  = file.toPath();
+        Path   tmpFile = new File(file.getPath() + ".tmp").toPath();
+
+        try (FileChannel channel = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tmpFile, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException excp) {
+            LOG.debug("atomic move not supported in {}; will replace the snapshot non-atomically", file.getParent());
+
+            Files.move(tmpFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        LOG.debug("<== RangerCacheSnapshot.save({}): size={}", file, content.length);
+    }
+
+    public static <T> T load(File file, Class<T> clz) throws IOException {
+        LOG.debug("==> RangerCacheSnapshot.load({})", file);
+
+        final T ret;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": invalid snapshot size " + size);
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            ret = decode(buffer, clz);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException excp) {
+            throw new IOException(file + ": invalid snapshot", excp);
+        }
+
+        LOG.debug("<== RangerCacheSnapshot.load({})", file);
+
+        return ret;
+    }
+
+    static byte[] encode(Object obj) throws IOException {
+        ObjectMapper          mapper  = JsonUtils.getMapper();
+        TokenBuffer           tokens  = new TokenBuffer(mapper, false);
+        Map<String, Integer>  strings = new HashMap<>();
+        ByteArrayOutputStream strBuf  = new ByteArrayOutputStream();
+        ByteArrayOutputStream tokBuf  = new ByteArrayOutputStream();
+        DataOutputStream      strOut  = new DataOutputStream(strBuf);
+        DataOutputStream      tokOut  = new DataOutputStream(tokBuf);
+
+        mapper.writeValue(tokens, obj);
+
+        try (JsonParser parser = tokens.asParser()) {
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                switch (token) {
+                    case START_OBJECT:
+                        tokOut.writeByte(TOKEN_START_OBJECT);
+                        break;
+                    case END_OBJECT:
+                        tokOut.writeByte(TOKEN_END_OBJECT);
+                        break;
+                    case START_ARRAY:
+                        tokOut.writeByte(TOKEN_START_ARRAY);
+                        break;
+                    case END_ARRAY:
+                        tokOut.writeByte(TOKEN_END_ARRAY);
+                        break;
+                    case FIELD_NAME:
+                        tokOut.writeByte(TOKEN_FIELD_NAME);
+                        tokOut.writeInt(getStringIndex(parser.currentName(), strings, strOut));
+                        break;
+                    case VALUE_STRING:
+                        tokOut.writeByte(TOKEN_STRING);
+                        tokOut.writeInt(getStringIndex(parser.getText(), strings, strOut));
+                        break;
+                    case VALUE_NUMBER_INT:
+                        switch (parser.getNumberType()) {
+                            case INT:
+                                tokOut.writeByte(TOKEN_INT);
+                                tokOut.writeInt(parser.getIntValue());
+                                break;
+                            case LONG:
+                                tokOut.writeByte(TOKEN_LONG);
+                                tokOut.writeLong(parser.getLongValue());
+                                break;
+                            default:
+                                tokOut.writeByte(TOKEN_BIG_INTEGER);
+                                tokOut.writeInt(getStringIndex(parser.getText(), strings, strOut));
+                                break;
+                        }
+                        break;
+                    case VALUE_NUMBER_FLOAT:
+                        if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+                            tokOut.writeByte(TOKEN_BIG_DECIMAL);
+                            tokOut.writeInt(getStringIndex(parser.getText(), strings, strOut));
+                        } else {
+                            tokOut.writeByte(TOKEN_DOUBLE);
+                            tokOut.writeDouble(parser.getDoubleValue());
+                        }
+                        break;
+                    case VALUE_TRUE:
+                        tokOut.writeByte(TOKEN_TRUE);
+                        break;
+                    case VALUE_FALSE:
+                        tokOut.writeByte(TOKEN_FALSE);
+                        break;
+                    case VALUE_NULL:
+                        tokOut.writeByte(TOKEN_NULL);
+                        break;
+                    default:
+                        throw new IOException("unsupported token " + token + " in " + obj.getClass().getName());
+                }
+            }
+        }
+
+        strOut.flush();
+        tokOut.flush();
+
+        ByteBuffer ret = ByteBuffer.allocate(HEADER_SIZE + strBuf.size() + tokBuf.size());
+
+        ret.putInt(MAGIC);
+        ret.putInt(FORMAT_VERSION);
+        ret.putLong(0); // CRC32, updated below
+        ret.putInt(strings.size());
+        ret.putInt(HEADER_SIZE + strBuf.size());
+        ret.put(strBuf.toByteArray());
+        ret.put(tokBuf.toByteArray());
+
+        CRC32 crc = new CRC32();
+
+        crc.update(ret.array(), 16, ret.capacity() - 16);
+
+        ret.putLong(8, crc.getValue());
+
+        return ret.array();
+    }
+
+    static <T> T decode(ByteBuffer buffer, Class<T> clz) throws IOException {
+        int magic   = buffer.getInt(0);
+        int version = buffer.getInt(4);
+
+        if (magic != MAGIC) {
+            throw new IOException("not a snapshot: invalid magic " + Integer.toHexString(magic));
+        } else if (version != FORMAT_VERSION) {
+            throw new IOException("unsupported snapshot version " + version + "; expected " + FORMAT_VERSION);
+        }
+
+        ByteBuffer content = buffer.duplicate();
+        CRC32      crc     = new CRC32();
+
+        content.position(16);
+        crc.update(content);
+
+        if (crc.getValue() != buffer.getLong(8)) {
+            throw new IOException("snapshot checksum mismatch");
+        }
+
+        StringTable  strings = new StringTable(buffer, buffer.getInt(16), HEADER_SIZE);
+        ObjectMapper mapper  = JsonUtils.getMapper();
+        TokenBuffer  tokens  = new TokenBuffer(mapper, false);
+        int          pos     = buffer.getInt(20);
+        int          limit   = buffer.limit();
+
+        while (pos < limit) {
+            byte token = buffer.get(pos++);
+
+            switch (token) {
+                case TOKEN_START_OBJECT:
+                    tokens.writeStartObject();
+                    break;
+                case TOKEN_END_OBJECT:
+                    tokens.writeEndObject();
+                    break;
+                case TOKEN_START_ARRAY:
+                    tokens.writeStartArray();
+                    break;
+                case TOKEN_END_ARRAY:
+                    tokens.writeEndArray();
+                    break;
+                case TOKEN_FIELD_NAME:
+                    tokens.writeFieldName(strings.get(buffer.getInt(pos)));
+                    pos += 4;
+                    break;
+                case TOKEN_STRING:
+                    tokens.writeString(strings.get(buffer.getInt(pos)));
+                    pos += 4;
+                    break;
+                case TOKEN_INT:
+                    tokens.writeNumber(buffer.getInt(pos));
+                    pos += 4;
+                    break;
+                case TOKEN_LONG:
+                    tokens.writeNumber(buffer.getLong(pos));
+                    pos += 8;
+                    break;
+                case TOKEN_DOUBLE:
+                    tokens.writeNumber(buffer.getDouble(pos));
+                    pos += 8;
+                    break;
+                case TOKEN_TRUE:
+                    tokens.writeBoolean(true);
+                    break;
+                case TOKEN_FALSE:
+                    tokens.writeBoolean(false);
+                    break;
+                case TOKEN_NULL:
+                    tokens.writeNull();
+                    break;
+                case TOKEN_BIG_INTEGER:
+                    tokens.writeNumber(new BigInteger(strings.get(buffer.getInt(pos))));
+                    pos += 4;
+                    break;
+                case TOKEN_BIG_DECIMAL:
+                    tokens.writeNumber(new BigDecimal(strings.get(buffer.getInt(pos))));
+                    pos += 4;
+                    break;
+                default:
+                    throw new IOException("invalid token " + token + " at offset " + (pos - 1));
+            }
+        }
+
+        try (JsonParser parser = tokens.asParser()) {
+            return mapper.readValue(parser, clz);
+        }
+    }
+
+    private static int getStringIndex(String str, Map<String, Integer> strings, DataOutputStream strOut) throws IOException {
+        Integer ret = strings.get(str);
+
+        if (ret == null) {
+            byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+
+            ret = strings.size();
+
+            strOut.writeInt(bytes.length);
+            strOut.write(bytes);
+
+            strings.put(str, ret);
+        }
+
+        return ret;
+    }
+
+    /*
+     * Strings are decoded from the buffer when first referenced; later references share the decoded instance
+     */
+    private static class StringTable {
+        private final ByteBuffer buffer;
+        private final int[]      offsets;
+        private final String[]   values;
+
+        StringTable(ByteBuffer buffer, int count, int offset) {
+            this.buffer  = buffer;
+            this.offsets = new int[count];
+            this.values  = new String[count];
+
+            for (int i = 0; i < count; i++) {
+                offsets[i] = offset;
+                offset    += 4 + buffer.getInt(offset);
+            }
+        }
+
+        String get(int idx) {
+            String ret = values[idx];
+
+            if (ret == null) {
+                int    offset = offsets[idx];
+                byte[] bytes  = new byte[buffer.getInt(offset)];
+
+                buffer.get(offset + 4, bytes);
+
+                ret         = new String(bytes, StandardCharsets.UTF_8);
+                values[idx] = ret;
+            }
+
+            return ret;
+        }
+    }
+}
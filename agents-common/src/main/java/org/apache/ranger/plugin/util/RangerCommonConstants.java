@@ -32,6 +32,39 @@ public class RangerCommonConstants {
     public static final String PLUGIN_CONFIG_SUFFIX_IN_PLACE_TAG_UPDATES    = ".supports.in.place.tag.updates";
     public static final String PLUGIN_CONFIG_SUFFIX_NAME_TRANSFORMATION     = ".supports.name.transformation";
 
+    public static final String  PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_ENABLED         = ".decision.cache.enabled";
+    public static final String  PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_SIZE            = ".decision.cache.size";
+    public static final String  PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_TTL_MS          = ".decision.cache.ttl.ms";
+    public static final String  PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_CONTEXT_KEYS    = ".decision.cache.context.keys";
+    public static final boolean PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_ENABLED_DEFAULT = false;
+    public static final int     PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_SIZE_DEFAULT    = 10000;
+    public static final long    PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_TTL_MS_DEFAULT  = 30 * 1000L;
+
+    public static final String  PLUGIN_CONFIG_SUFFIX_BATCH_PARALLELISM                = ".policyengine.batch.parallelism";
+    public static final String  PLUGIN_CONFIG_SUFFIX_BATCH_PARALLEL_THRESHOLD         = ".policyengine.batch.parallel.threshold";
+    public static final int     PLUGIN_CONFIG_SUFFIX_BATCH_PARALLELISM_DEFAULT        = 0;
+    public static final int     PLUGIN_CONFIG_SUFFIX_BATCH_PARALLEL_THRESHOLD_DEFAULT = 64;
+
+    public static final String  PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT         = ".policy.cache.format";
+    public static final String  PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT_DEFAULT = RangerCacheSnapshot.CACHE_FORMAT_JSON;
+
+    public static final String  PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS                = ".dedup.strings";
+    public static final String  PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED         = ".dedup.strings.shared";
+    public static final boolean PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_DEFAULT        = true;
+    public static final boolean PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED_DEFAULT = false;
+
+    public static final String  PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_ENABLED            = ".policy.longpoll.enabled";
+    public static final String  PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_TIMEOUT_MS         = ".policy.longpoll.timeoutMs";
+    public static final boolean PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_ENABLED_DEFAULT    = false;
+    public static final long    PLUGIN_CONFIG_SUFFIX_POLICY_LONGPOLL_TIMEOUT_MS_DEFAULT = 60 * 1000L;
+
+    public static final String  PLUGIN_CONFIG_SUFFIX_POLICY_SYNC_ENABLED         = ".policy.sync.enabled";
+    public static final String  PLUGIN_CONFIG_SUFFIX_POLICY_SYNC_INTERVAL_MS     = ".policy.sync.intervalMs";
+    public static final boolean PLUGIN_CONFIG_SUFFIX_POLICY_SYNC_ENABLED_DEFAULT = false;
+
+    public static final String  PLUGIN_CONFIG_SUFFIX_REST_CLIENT_COMPRESSION_ENABLED         = ".policy.rest.client.compression.enabled";
+    public static final boolean PLUGIN_CONFIG_SUFFIX_REST_CLIENT_COMPRESSION_ENABLED_DEFAULT = true;
+
     public static final String  PLUGINS_CONF_USERNAME_CASE_CONVERSION_PARAM          = "ranger.plugins.conf.ldap.username.caseconversion";
     public static final String  PLUGINS_CONF_GROUPNAME_CASE_CONVERSION_PARAM         = "ranger.plugins.conf.ldap.groupname.caseconversion";
     public static final String  PLUGINS_CONF_MAPPING_USERNAME                        = "ranger.plugins.conf.mapping.username.regex";
@@ -22,6 +22,7 @@
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.plugin.model.RangerMetrics;
+import org.apache.ranger.plugin.policyengine.PolicyEngineUpdateMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,6 +74,8 @@ public Map<String, Object> getValues() {
         values.put("os.spec", StringUtils.join(Arrays.asList(addSystemInfo()), ", "));
         values.put("os.vcpus", String.valueOf(OS.getAvailableProcessors()));
         values.put("memory", addMemoryDetails());
+        values.put("stringPool", RangerStringPool.getInstance().getStats());
+        values.put("policyEngineUpdates", PolicyEngineUpdateMetrics.getInstance().getStats());
 
         LOG.debug("<== RangerMetricsUtil.getValues(): {}", values);
 
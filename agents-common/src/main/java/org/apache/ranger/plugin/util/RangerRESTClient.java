@@ -29,6 +29,8 @@
 import org.apache.ranger.plugin.authn.JwtProvider;
 import org.glassfish.jersey.client.ClientConfig;
 import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.client.filter.EncodingFilter;
+import org.glassfish.jersey.message.GZipEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -143,6 +145,7 @@ public String getMethod() {
     private volatile Client       cookieAuthClient;
     private          JwtProvider  jwtProvider;
     private volatile String       authHeader;
+    private          boolean      isCompressionEnabled;
 
     public RangerRESTClient(String url, String sslConfigFileName, Configuration config) {
         this(url, sslConfigFileName, config, getPropertyPrefix(config));
@@ -390,6 +393,13 @@ public Response get(String relativeUrl, Map<String, String> params, Cookie sessi
         return performRequest(HttpMethod.GET, relativeUrl, params, null, sessionId);
     }
 
+    /**
+     * GET with a read timeout different from the one configured for this client - for example, for long-poll requests
+     */
+    public Response get(String relativeUrl, Map<String, String> params, Cookie sessionId, int readTimeoutMs) throws Exception {
+        return performRequest(HttpMethod.GET, relativeUrl, params, null, sessionId, readTimeoutMs);
+    }
+
     public Response post(String relativeUrl, Map<String, String> params, Object obj) throws Exception {
         return performRequest(HttpMethod.POST, relativeUrl, params, obj, null);
     }
@@ -482,7 +492,7 @@ protected WebTarget setQueryParams(WebTarget webTarget, Map<String, String> para
         return ret;
     }
 
-    private Invocation.Builder createInvocationBuilder(int currentIndex, String relativeURL, Map<String, String> params, Cookie sessionId) {
+    private Invocation.Builder createInvocationBuilder(int currentIndex, String relativeURL, Map<String, String> params, Cookie sessionId, int readTimeoutMs) {
         Client             clientToUse = sessionId != null ? getCookieAuthClient() : getClient();
         WebTarget          webTarget   = clientToUse.target(configuredURLs.get(currentIndex) + relativeURL);
 
@@ -494,10 +504,18 @@ private Invocation.Builder createInvocationBuilder(int currentIndex, String rela
             builder = builder.cookie(sessionId);
         }
 
+        if (readTimeoutMs > 0) {
+            builder = builder.property(ClientProperties.READ_TIMEOUT, readTimeoutMs);
+        }
+
         return builder;
     }
 
     private Response performRequest(HttpMethod method, String relativeUrl, Map<String, String> params, Object requestBody, Cookie sessionId) throws Exception {
+        return performRequest(method, relativeUrl, params, requestBody, sessionId, 0);
+    }
+
+    private Response performRequest(HttpMethod method, String relativeUrl, Map<String, String> params, Object requestBody, Cookie sessionId, int readTimeoutMs) throws Exception {
         Response finalResponse = null;
         int      startIndex    = this.lastKnownActiveUrlIndex;
         int      retryAttempt  = 0;
@@ -506,7 +524,7 @@ private Response performRequest(HttpMethod method, String relativeUrl, Map<Strin
             int currentIndex = (startIndex + index) % configuredURLs.size();
 
             try {
-                Invocation.Builder builder = createInvocationBuilder(currentIndex, relativeUrl, params, sessionId);
+                Invocation.Builder builder = createInvocationBuilder(currentIndex, relativeUrl, params, sessionId, readTimeoutMs);
 
                 if (HttpMethod.POST == method) {
                     finalResponse = builder.post(Entity.entity(requestBody, MediaType.APPLICATION_JSON));
@@ -640,6 +658,11 @@ private Client buildClient() {
         // Validate that MOXy prevention is properly configured
         RangerJersey2ClientBuilder.validateAntiMoxyConfiguration(config);
 
+        if (isCompressionEnabled) { // accept gzip-encoded responses, like policy downloads pre-compressed by Ranger admin
+            config.register(EncodingFilter.class);
+            config.register(GZipEncoder.class);
+        }
+
         if (jwtProvider != null) {
             config.register(new javax.ws.rs.client.ClientRequestFilter() {
                 @Override
@@ -719,6 +742,8 @@ private void init(Configuration config) {
             }
         }
 
+        isCompressionEnabled = config.getBoolean(propertyPrefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_REST_CLIENT_COMPRESSION_ENABLED, RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_REST_CLIENT_COMPRESSION_ENABLED_DEFAULT);
+
         String username = config.get(propertyPrefix + ".policy.rest.client.username");
         String password = config.get(propertyPrefix + ".policy.rest.client.password");
 
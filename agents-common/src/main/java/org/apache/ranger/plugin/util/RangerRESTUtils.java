@@ -34,6 +34,10 @@ public class RangerRESTUtils {
     public static final  String REST_URL_SERVICE_GRANT_ACCESS                     = "/service/plugins/services/grant/";
     public static final  String REST_URL_SERVICE_REVOKE_ACCESS                    = "/service/plugins/services/revoke/";
     public static final  String REST_URL_POLICY_GET_FOR_SECURE_SERVICE_IF_UPDATED = "/service/plugins/secure/policies/download/";
+    public static final  String REST_URL_POLICY_WAIT_FOR_SERVICE_CHANGE           = "/service/plugins/policies/wait/";
+    public static final  String REST_URL_POLICY_WAIT_FOR_SECURE_SERVICE_CHANGE    = "/service/plugins/secure/policies/wait/";
+    public static final  String REST_URL_SYNC_FOR_SERVICE_IF_UPDATED              = "/service/plugins/sync/";
+    public static final  String REST_URL_SYNC_FOR_SECURE_SERVICE_IF_UPDATED       = "/service/plugins/secure/sync/";
     public static final  String REST_URL_SECURE_SERVICE_GRANT_ACCESS              = "/service/plugins/secure/services/grant/";
     public static final  String REST_URL_SECURE_SERVICE_REVOKE_ACCESS             = "/service/plugins/secure/services/revoke/";
     public static final  String REST_URL_SERVICE_CREATE_ROLE                      = "/service/public/v2/api/roles/";
@@ -58,6 +62,8 @@ public class RangerRESTUtils {
     public static final  String REST_PARAM_PLUGIN_ID                              = "pluginId";
     public static final  String REST_PARAM_LAST_KNOWN_ROLE_VERSION                = "lastKnownRoleVersion";
     public static final  String REST_PARAM_LAST_KNOWN_USERSTORE_VERSION           = "lastKnownUserStoreVersion";
+    public static final  String REST_PARAM_LAST_KNOWN_TAG_VERSION                 = "lastKnownTagVersion";
+    public static final  String REST_PARAM_WAIT_TIMEOUT_MS                        = "timeoutMs";
     public static final  String REST_URL_SERVICE_GET_USERSTORE                    = "/service/xusers/download/";
     public static final  String REST_URL_SERVICE_SERCURE_GET_USERSTORE            = "/service/xusers/secure/download/";
     public static final  String REST_PARAM_LAST_KNOWN_GDS_VERSION                 = "lastKnownGdsVersion";
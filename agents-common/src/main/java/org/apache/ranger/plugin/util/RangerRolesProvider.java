@@ -45,6 +45,7 @@ public class RangerRolesProvider {
     private final String            cacheFileName;
     private final String            cacheFileNamePrefix;
     private final String            cacheDir;
+    private final String            cacheFormat;
     private final boolean           disableCacheIfServiceNotFound;
     private       long              lastActivationTimeInMillis;
     private       long              lastKnownRoleVersion = -1L;
@@ -75,6 +76,7 @@ public RangerRolesProvider(String serviceType, String appId, String serviceName,
         String propertyPrefix = config.getPropertyPrefix();
 
         disableCacheIfServiceNotFound = config.getBoolean(propertyPrefix + ".disable.cache.if.servicenotfound", true);
+        cacheFormat                   = RangerCacheSnapshot.getCacheFormat(config, propertyPrefix);
 
         LOG.debug("<== RangerRolesProvider(serviceName={}).RangerRolesProvider()", serviceName);
     }
@@ -87,6 +89,10 @@ public void setLastActivationTimeInMillis(long lastActivationTimeInMillis) {
         this.lastActivationTimeInMillis = lastActivationTimeInMillis;
     }
 
+    public long getLastKnownRoleVersion() {
+        return lastKnownRoleVersion;
+    }
+
     public void loadUserGroupRoles(RangerBasePlugin plugIn) {
         LOG.debug("==> RangerRolesProvider(serviceName= {} serviceType= {}).loadUserGroupRoles()", serviceName, serviceType);
 
@@ -183,24 +189,30 @@ public void saveToCache(RangerRoles roles) {
                     perf = RangerPerfTracer.getPerfTracer(PERF_POLICYENGINE_INIT_LOG, "RangerRolesProvider.saveToCache(serviceName=" + serviceName + ")");
                 }
 
-                Writer writer = null;
+                if (RangerCacheSnapshot.isJsonEnabled(cacheFormat)) {
+                    Writer writer = null;
 
-                try {
-                    writer = new FileWriter(cacheFile);
+                    try {
+                        writer = new FileWriter(cacheFile);
 
-                    JsonUtils.objectToWriter(writer, roles);
-                } catch (Exception excp) {
-                    LOG.error("failed to save roles to cache file '{}'", cacheFile.getAbsolutePath(), excp);
-                } finally {
-                    if (writer != null) {
-                        try {
-                            writer.close();
-                        } catch (Exception excp) {
-                            LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                        JsonUtils.objectToWriter(writer, roles);
+                    } catch (Exception excp) {
+                        LOG.error("failed to save roles to cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                    } finally {
+                        if (writer != null) {
+                            try {
+                                writer.close();
+                            } catch (Exception excp) {
+                                LOG.error("error while closing opened cache file '{}'", cacheFile.getAbsolutePath(), excp);
+                            }
                         }
                     }
                 }
 
+                if (RangerCacheSnapshot.isSnapshotEnabled(cacheFormat)) {
+                    RangerCacheSnapshot.saveForCacheFile(cacheFile, roles);
+                }
+
                 RangerPerfTracer.log(perf);
             }
         } else {
@@ -259,7 +271,23 @@ private RangerRoles loadUserGroupRolesFromCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
-        if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
+        if (cacheFile != null && RangerCacheSnapshot.isSnapshotEnabled(cacheFormat)) {
+            roles = RangerCacheSnapshot.loadForCacheFile(cacheFile, RangerRoles.class);
+
+            if (roles != null) {
+                if (!StringUtils.equals(serviceName, roles.getServiceName())) {
+                    LOG.warn("ignoring unexpected serviceName '{}' in snapshot for cache file '{}'", roles.getServiceName(), cacheFile.getAbsolutePath());
+
+                    roles.setServiceName(serviceName);
+                }
+
+                lastKnownRoleVersion = roles.getRoleVersion() == null ? -1 : roles.getRoleVersion().longValue();
+            }
+        }
+
+        if (roles != null) {
+            LOG.debug("loaded userGroupRoles from snapshot for cache file {}", cacheFile.getAbsolutePath());
+        } else if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             Reader           reader = null;
             RangerPerfTracer perf   = null;
 
@@ -314,6 +342,10 @@ private void disableCache() {
 
         File cacheFile = cacheDir == null ? null : new File(cacheDir + File.separator + cacheFileName);
 
+        if (cacheFile != null) {
+            RangerCacheSnapshot.disableForCacheFile(cacheFile);
+        }
+
         if (cacheFile != null && cacheFile.isFile() && cacheFile.canRead()) {
             LOG.warn("Cleaning up local RangerRoles cache");
 
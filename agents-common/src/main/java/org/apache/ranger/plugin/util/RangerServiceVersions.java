@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Objects;
+
+/**
+ * Versions of policies, tags, roles, userstore and GDS info of a service; used by plugins to wait for changes in
+ * Ranger admin (long-poll), instead of polling for each of them periodically.
+ *
+ * A null version is not watched for changes.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RangerServiceVersions implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String serviceName;
+    private Long   policyVersion;
+    private Long   tagVersion;
+    private Long   roleVersion;
+    private Long   userStoreVersion;
+    private Long   gdsVersion;
+
+    public RangerServiceVersions() {
+    }
+
+    public RangerServiceVersions(String serviceName, Long policyVersion, Long tagVersion, Long roleVersion, Long userStoreVersion, Long gdsVersion) {
+        this.serviceName      = serviceName;
+        this.policyVersion    = policyVersion;
+        this.tagVersion       = tagVersion;
+        this.roleVersion      = roleVersion;
+        this.userStoreVersion = userStoreVersion;
+        this.gdsVersion       = gdsVersion;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public Long getPolicyVersion() {
+        return policyVersion;
+    }
+
+    public void setPolicyVersion(Long policyVersion) {
+        this.policyVersion = policyVersion;
+    }
+
+    public Long getTagVersion() {
+        return tagVersion;
+    }
+
+    public void setTagVersion(Long tagVersion) {
+        this.tagVersion = tagVersion;
+    }
+
+    public Long getRoleVersion() {
+        return roleVersion;
+    }
+
+    public void setRoleVersion(Long roleVersion) {
+        this.roleVersion = roleVersion;
+    }
+
+    public Long getUserStoreVersion() {
+        return userStoreVersion;
+    }
+
+    public void setUserStoreVersion(Long userStoreVersion) {
+        this.userStoreVersion = userStoreVersion;
+    }
+
+    public Long getGdsVersion() {
+        return gdsVersion;
+    }
+
+    public void setGdsVersion(Long gdsVersion) {
+        this.gdsVersion = gdsVersion;
+    }
+
+    /**
+     * @param lastKnown versions known to the plugin; only non-null versions in lastKnown are compared
+     * @return true if any of the versions watched in lastKnown is different in this object
+     */
+    public boolean isChangedFrom(RangerServiceVersions lastKnown) {
+        return isChanged(lastKnown.policyVersion, policyVersion) ||
+                isChanged(lastKnown.tagVersion, tagVersion) ||
+                isChanged(lastKnown.roleVersion, roleVersion) ||
+                isChanged(lastKnown.userStoreVersion, userStoreVersion) ||
+                isChanged(lastKnown.gdsVersion, gdsVersion);
+    }
+
+    @Override
+    public String toString() {
+        return "RangerServiceVersions={serviceName=" + serviceName +
+                ", policyVersion=" + policyVersion +
+                ", tagVersion=" + tagVersion +
+                ", roleVersion=" + roleVersion +
+                ", userStoreVersion=" + userStoreVersion +
+                ", gdsVersion=" + gdsVersion +
+                "}";
+    }
+
+    private static boolean isChanged(Long lastKnownVersion, Long currentVersion) {
+        return lastKnownVersion != null && !Objects.equals(lastKnownVersion, currentVersion == null ? Long.valueOf(-1L) : currentVersion);
+    }
+}
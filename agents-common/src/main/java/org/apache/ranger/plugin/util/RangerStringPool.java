@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide pool of canonical String instances, used to deduplicate strings in policies, tags and userstore
+ * downloaded by all plugins in the JVM. Strings are held weakly, so that a string is dropped from the pool once
+ * the models referring to it - for example, the policy-engine replaced on a policy refresh - are collected.
+ *
+ * Lookups in the pool are serialized, hence plugins use it only when configured with
+ * ranger.plugin.{serviceType}.dedup.strings.shared=true; by default strings of each model are deduplicated using a
+ * table limited to the model.
+ *
+ * asStringTable() returns a view of the pool that can be passed to existing dedupStrings(Map) methods of models.
+ * Bytes saved are tracked per source - like policies of a service - and only for the latest string table of the
+ * source, i.e. for the model currently in use; strings deduplicated again on every refresh are not counted twice.
+ */
+public class RangerStringPool {
+    private static final RangerStringPool INSTANCE = new RangerStringPool();
+
+    // estimated sizes, with compressed oops, of a String object and of the header of its byte[]
+    private static final int STRING_OBJECT_SIZE = 24;
+    private static final int ARRAY_HEADER_SIZE  = 16;
+    private static final int OBJECT_ALIGNMENT   = 8;
+
+    private final Map<String, WeakReference<String>> pool        = new WeakHashMap<>();
+    private final Map<String, AtomicLong>            savedBytes  = new ConcurrentHashMap<>();
+    private final AtomicLong                         lookupCount = new AtomicLong();
+    private final AtomicLong                         dedupCount  = new AtomicLong();
+
+    RangerStringPool() {
+    }
+
+    public static RangerStringPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the table to deduplicate strings of a downloaded model with: a view of the process-wide pool if
+     * useSharedPool is true, otherwise a new table whose scope is limited to the model.
+     *
+     * @param source identifies the model being deduplicated, like "policies:" + serviceName
+     */
+    public static Map<String, String> getStringTable(boolean useSharedPool, String source) {
+        return useSharedPool ? INSTANCE.asStringTable(source) : new HashMap<>();
+    }
+
+    public static long getStringSize(String str) {
+        long dataLen = isLatin1(str) ? str.length() : 2L * str.length();
+
+        return STRING_OBJECT_SIZE + align(ARRAY_HEADER_SIZE + dataLen);
+    }
+
+    /**
+     * @return the canonical instance of the given string; the given instance if an equal string is not in the pool
+     */
+    public String intern(String str) {
+        return intern(str, null);
+    }
+
+    /**
+     * Returns a view of the pool to deduplicate a new version of the model identified by source. Bytes saved
+     * earlier for the source are discarded, as the previous version of the model is being replaced.
+     */
+    public Map<String, String> asStringTable(String source) {
+        AtomicLong sourceSavedBytes = new AtomicLong();
+
+        savedBytes.put(source, sourceSavedBytes);
+
+        return new StringTable(sourceSavedBytes);
+    }
+
+    public int getSize() {
+        synchronized (pool) {
+            return pool.size();
+        }
+    }
+
+    public long getLookupCount() {
+        return lookupCount.get();
+    }
+
+    public long getDedupCount() {
+        return dedupCount.get();
+    }
+
+    /**
+     * @return estimated heap bytes released by replacing duplicate strings with their canonical instances, in the
+     * models deduplicated last for each source
+     */
+    public long getSavedBytes() {
+        long ret = 0;
+
+        for (AtomicLong sourceSavedBytes : savedBytes.values()) {
+            ret += sourceSavedBytes.get();
+        }
+
+        return ret;
+    }
+
+    public long getSavedBytes(String source) {
+        AtomicLong ret = savedBytes.get(source);
+
+        return ret != null ? ret.get() : 0;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+
+        ret.put("lookups", getLookupCount());
+        ret.put("dedups", getDedupCount());
+        ret.put("savedBytes", getSavedBytes());
+        ret.put("size", (long) getSize());
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerStringPool={stats=" + getStats() + "}";
+    }
+
+    private String intern(String str, AtomicLong sourceSavedBytes) {
+        if (str == null) {
+            return null;
+        }
+
+        final String ret;
+
+        lookupCount.incrementAndGet();
+
+        synchronized (pool) {
+            WeakReference<String> ref       = pool.get(str);
+            String                canonical = ref != null ? ref.get() : null;
+
+            if (canonical == null) {
+                pool.put(str, new WeakReference<>(str));
+
+                ret = str;
+            } else {
+                ret = canonical;
+            }
+        }
+
+        if (ret != str) {
+            dedupCount.incrementAndGet();
+
+            if (sourceSavedBytes != null) {
+                sourceSavedBytes.addAndGet(getStringSize(str));
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isLatin1(String str) {
+        for (int i = 0; i < str.length(); i++) {
+            if (str.charAt(i) > 0xFF) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long align(long size) {
+        return (size + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    /*
+     * Map view of the pool, as expected by StringUtil.dedupString(): putIfAbsent(str, str) returns the canonical
+     * instance of str if it is a different instance, null otherwise.
+     */
+    private class StringTable extends AbstractMap<String, String> {
+        private final AtomicLong savedBytes;
+
+        StringTable(AtomicLong savedBytes) {
+            this.savedBytes = savedBytes;
+        }
+
+        @Override
+        public String putIfAbsent(String key, String value) {
+            String ret = intern(key, savedBytes);
+
+            return ret == key ? null : ret;
+        }
+
+        @Override
+        public String get(Object key) {
+            synchronized (pool) {
+                WeakReference<String> ref = pool.get(key);
+
+                return ref != null ? ref.get() : null;
+            }
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return getSize();
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            Map<String, String> ret = new HashMap<>();
+
+            synchronized (pool) {
+                for (Map.Entry<String, WeakReference<String>> entry : pool.entrySet()) {
+                    String str = entry.getValue().get();
+
+                    if (str != null) {
+                        ret.put(entry.getKey(), str);
+                    }
+                }
+            }
+
+            return ret.entrySet();
+        }
+    }
+}
@@ -119,8 +119,10 @@ public void setGroupCloudIdMapping(Map<String, String> groupCloudIdMapping) {
     }
 
     public void dedupStrings() {
-        Map<String, String> strTbl = new HashMap<>();
+        dedupStrings(new HashMap<>());
+    }
 
+    public void dedupStrings(Map<String, String> strTbl) {
         userAttrMapping     = StringUtil.dedupStringsMapOfMap(userAttrMapping, strTbl);
         groupAttrMapping    = StringUtil.dedupStringsMapOfMap(groupAttrMapping, strTbl);
         userGroupMapping    = StringUtil.dedupStringsMapOfSet(userGroupMapping, strTbl);
@@ -283,8 +283,10 @@ public void setSecurityZones(Map<String, SecurityZoneInfo> securityZones) {
     }
 
     public void dedupStrings() {
-        Map<String, String> strTbl = new HashMap<>();
+        dedupStrings(new HashMap<>());
+    }
 
+    public void dedupStrings(Map<String, String> strTbl) {
         serviceName   = StringUtil.dedupString(serviceName, strTbl);
         auditMode     = StringUtil.dedupString(auditMode, strTbl);
         serviceConfig = StringUtil.dedupStringsMap(serviceConfig, strTbl);
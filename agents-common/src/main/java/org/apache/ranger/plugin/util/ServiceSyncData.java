@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Policies, tags, roles, userstore and GDS info of a service downloaded by a plugin in a single request to Ranger
+ * admin. Only the artifacts that changed since the versions known to the plugin are included; others are null.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ServiceSyncData implements java.io.Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String          serviceName;
+    private ServicePolicies policies;
+    private ServiceTags     tags;
+    private RangerRoles     roles;
+    private RangerUserStore userStore;
+    private ServiceGdsInfo  gdsInfo;
+
+    public ServiceSyncData() {
+    }
+
+    public ServiceSyncData(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public void setServiceName(String serviceName) {
+        this.serviceName = serviceName;
+    }
+
+    public ServicePolicies getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(ServicePolicies policies) {
+        this.policies = policies;
+    }
+
+    public ServiceTags getTags() {
+        return tags;
+    }
+
+    public void setTags(ServiceTags tags) {
+        this.tags = tags;
+    }
+
+    public RangerRoles getRoles() {
+        return roles;
+    }
+
+    public void setRoles(RangerRoles roles) {
+        this.roles = roles;
+    }
+
+    public RangerUserStore getUserStore() {
+        return userStore;
+    }
+
+    public void setUserStore(RangerUserStore userStore) {
+        this.userStore = userStore;
+    }
+
+    public ServiceGdsInfo getGdsInfo() {
+        return gdsInfo;
+    }
+
+    public void setGdsInfo(ServiceGdsInfo gdsInfo) {
+        this.gdsInfo = gdsInfo;
+    }
+
+    public boolean isEmpty() {
+        return policies == null && tags == null && roles == null && userStore == null && gdsInfo == null;
+    }
+
+    @Override
+    public String toString() {
+        return "ServiceSyncData={serviceName=" + serviceName +
+                ", policyVersion=" + (policies != null ? policies.getPolicyVersion() : null) +
+                ", tagVersion=" + (tags != null ? tags.getTagVersion() : null) +
+                ", roleVersion=" + (roles != null ? roles.getRoleVersion() : null) +
+                ", userStoreVersion=" + (userStore != null ? userStore.getUserStoreVersion() : null) +
+                ", gdsVersion=" + (gdsInfo != null ? gdsInfo.getGdsVersion() : null) +
+                "}";
+    }
+}
@@ -320,8 +320,10 @@ public int dedupTags() {
     }
 
     public void dedupStrings() {
-        Map<String, String> strTbl = new HashMap<>();
+        dedupStrings(new HashMap<>());
+    }
 
+    public void dedupStrings(Map<String, String> strTbl) {
         op          = StringUtil.dedupString(op, strTbl);
         serviceName = StringUtil.dedupString(serviceName, strTbl);
 
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.admin.client;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceSyncData;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRangerAdminSyncClient {
+    @Test
+    public void testSingleDownloadServesAllConsumers() throws Exception {
+        SyncingAdminClient    delegate   = new SyncingAdminClient();
+        RangerAdminSyncClient syncClient = createSyncClient(delegate, 60 * 1000L);
+
+        // policies downloaded along with roles are held for PolicyRefresher
+        delegate.syncData = createSyncData(10L, null, 5L);
+
+        assertNotNull(syncClient.getRolesIfUpdated(-1L, 0L));
+        assertEquals(Long.valueOf(10L), syncClient.getServicePoliciesIfUpdated(-1L, 0L).getPolicyVersion());
+        assertEquals(1, delegate.requests.size());
+
+        delegate.syncData = createSyncData(null, 20L, null);
+
+        // first request from a consumer downloads, to include its artifact in subsequent syncs
+        assertEquals(Long.valueOf(20L), syncClient.getServiceTagsIfUpdated(-1L, 0L).getTagVersion());
+        assertEquals(2, delegate.requests.size());
+
+        RangerServiceVersions lastRequest = delegate.requests.get(1);
+
+        assertEquals(Long.valueOf(10L), lastRequest.getPolicyVersion());
+        assertEquals(Long.valueOf(5L), lastRequest.getRoleVersion());
+        assertEquals(Long.valueOf(-1L), lastRequest.getTagVersion());
+        assertNull(lastRequest.getUserStoreVersion(), "userstore is not consumed, hence must not be downloaded");
+
+        // within syncInterval, consumers are served without requests to Ranger admin
+        assertNull(syncClient.getRolesIfUpdated(5L, 0L));
+        assertNull(syncClient.getServicePoliciesIfUpdated(10L, 0L));
+        assertNull(syncClient.getServiceTagsIfUpdated(20L, 0L));
+        assertEquals(2, delegate.requests.size());
+    }
+
+    @Test
+    public void testChangedArtifactsAreHeldForConsumers() throws Exception {
+        SyncingAdminClient    delegate   = new SyncingAdminClient();
+        RangerAdminSyncClient syncClient = createSyncClient(delegate, 0L);
+
+        delegate.syncData = createSyncData(null, null, null);
+
+        assertNull(syncClient.getServicePoliciesIfUpdated(10L, 0L));
+        assertNull(syncClient.getServiceTagsIfUpdated(20L, 0L));
+
+        ServiceSyncData syncData = createSyncData(11L, 21L, null);
+
+        delegate.syncData = syncData;
+
+        assertSame(syncData.getPolicies(), syncClient.getServicePoliciesIfUpdated(10L, 0L));
+        assertTrue(syncClient.isPending(RangerAdminSyncClient.Artifact.TAGS));
+
+        int requestCount = delegate.requests.size();
+
+        assertSame(syncData.getTags(), syncClient.getServiceTagsIfUpdated(20L, 0L));
+        assertEquals(requestCount, delegate.requests.size(), "held tags must be served without a request to Ranger admin");
+        assertFalse(syncClient.isPending(RangerAdminSyncClient.Artifact.TAGS));
+    }
+
+    @Test
+    public void testFallbackWhenSyncIsNotSupported() throws Exception {
+        SyncingAdminClient    delegate   = new SyncingAdminClient();
+        RangerAdminSyncClient syncClient = createSyncClient(delegate, 60 * 1000L);
+
+        delegate.isSyncSupported = false;
+
+        assertEquals(Long.valueOf(7L), syncClient.getServicePoliciesIfUpdated(-1L, 0L).getPolicyVersion());
+        assertFalse(syncClient.supportsSync());
+        assertEquals(Long.valueOf(7L), syncClient.getServicePoliciesIfUpdated(-1L, 0L).getPolicyVersion());
+        assertEquals(1, delegate.requests.size());
+        assertEquals(2, delegate.policyDownloadCount);
+    }
+
+    @Test
+    public void testSyncDataJsonRoundTrip() {
+        ServiceSyncData syncData = createSyncData(10L, null, 5L);
+        String          json     = JsonUtils.objectToJson(syncData);
+        ServiceSyncData copy     = JsonUtils.jsonToObject(json, ServiceSyncData.class);
+
+        assertFalse(json.contains("\"tags\""));
+        assertEquals("dev_hive", copy.getServiceName());
+        assertEquals(Long.valueOf(10L), copy.getPolicies().getPolicyVersion());
+        assertEquals(Long.valueOf(5L), copy.getRoles().getRoleVersion());
+        assertNull(copy.getTags());
+        assertFalse(copy.isEmpty());
+        assertTrue(new ServiceSyncData("dev_hive").isEmpty());
+    }
+
+    private static RangerAdminSyncClient createSyncClient(RangerAdminClient delegate, long syncIntervalMs) {
+        RangerAdminSyncClient ret    = new RangerAdminSyncClient(delegate);
+        Configuration         config = new Configuration(false);
+
+        config.setLong("ranger.plugin.hive.policy.sync.intervalMs", syncIntervalMs);
+
+        ret.init("dev_hive", "hive", "ranger.plugin.hive", config);
+
+        return ret;
+    }
+
+    private static ServiceSyncData createSyncData(Long policyVersion, Long tagVersion, Long roleVersion) {
+        ServiceSyncData ret = new ServiceSyncData("dev_hive");
+
+        if (policyVersion != null) {
+            ServicePolicies policies = new ServicePolicies();
+
+            policies.setServiceName("dev_hive");
+            policies.setPolicyVersion(policyVersion);
+
+            ret.setPolicies(policies);
+        }
+
+        if (tagVersion != null) {
+            ServiceTags tags = new ServiceTags();
+
+            tags.setServiceName("dev_hive");
+            tags.setTagVersion(tagVersion);
+
+            ret.setTags(tags);
+        }
+
+        if (roleVersion != null) {
+            RangerRoles roles = new RangerRoles();
+
+            roles.setServiceName("dev_hive");
+            roles.setRoleVersion(roleVersion);
+
+            ret.setRoles(roles);
+        }
+
+        return ret;
+    }
+
+    private static class SyncingAdminClient extends AbstractRangerAdminClient {
+        final List<RangerServiceVersions> requests = new ArrayList<>();
+        ServiceSyncData                   syncData;
+        boolean                           isSyncSupported = true;
+        int                               policyDownloadCount;
+
+        @Override
+        public ServicePolicies getServicePoliciesIfUpdated(long lastKnownVersion, long lastActivationTimeInMillis) {
+            policyDownloadCount++;
+
+            return createSyncData(7L, null, null).getPolicies();
+        }
+
+        @Override
+        public boolean supportsSync() {
+            return true;
+        }
+
+        @Override
+        public ServiceSyncData syncIfUpdated(RangerServiceVersions lastKnownVersions, long lastActivationTimeInMillis) throws RangerAdminOperationNotSupportedException {
+            requests.add(lastKnownVersions);
+
+            if (!isSyncSupported) {
+                throw new RangerAdminOperationNotSupportedException("sync not supported");
+            }
+
+            return syncData;
+        }
+    }
+}
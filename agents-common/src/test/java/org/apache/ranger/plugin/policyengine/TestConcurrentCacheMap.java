@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestConcurrentCacheMap {
+    @Test
+    public void testSingleSegmentEvictsLeastRecentlyUsed() {
+        ConcurrentCacheMap<String, String> cache = new ConcurrentCacheMap<>(4, 1);
+
+        for (int i = 0; i < 4; i++) {
+            cache.put(String.valueOf(i), String.valueOf(i));
+        }
+
+        assertEquals("0", cache.get("0")); // 1 is now the least recently used entry
+
+        cache.put("4", "4");
+
+        assertEquals(4, cache.size());
+        assertNull(cache.get("1"));
+        assertEquals("0", cache.get("0"));
+        assertEquals("4", cache.get("4"));
+    }
+
+    @Test
+    public void testSizeNeverExceedsCapacity() {
+        int[] capacities = {0, 1, 5, 16, 17, 1000};
+
+        for (int capacity : capacities) {
+            ConcurrentCacheMap<Integer, Integer> cache = new ConcurrentCacheMap<>(capacity, 16);
+
+            assertTrue(cache.getSegmentCount() <= Math.max(1, capacity), "segmentCount=" + cache.getSegmentCount() + ", capacity=" + capacity);
+
+            for (int i = 0; i < capacity * 10 + 10; i++) {
+                cache.put(i, i);
+
+                assertTrue(cache.size() <= capacity, "size=" + cache.size() + ", capacity=" + capacity);
+            }
+
+            assertEquals(capacity, cache.getCapacity());
+        }
+    }
+
+    @Test
+    public void testMapOperations() {
+        ConcurrentCacheMap<String, String> cache = new ConcurrentCacheMap<>(100);
+
+        assertTrue(cache.isEmpty());
+
+        cache.put("key1", "value1");
+        cache.put("key2", "value2");
+        cache.put(null, "nullValue");
+
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.entrySet().size());
+        assertEquals("nullValue", cache.get(null));
+        assertTrue(cache.containsKey("key1"));
+        assertEquals("value1", cache.remove("key1"));
+        assertNull(cache.get("key1"));
+
+        cache.clear();
+
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final int                                  capacity = 1000;
+        final ConcurrentCacheMap<Integer, Integer> cache    = new ConcurrentCacheMap<>(capacity);
+        final ExecutorService                      executor = Executors.newFixedThreadPool(8);
+
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+
+            for (int t = 0; t < 8; t++) {
+                final int offset = t * 10000;
+
+                futures.add(executor.submit(() -> {
+                    boolean ret = true;
+
+                    for (int i = 0; i < 10000; i++) {
+                        int key = offset + i;
+
+                        cache.put(key, key);
+
+                        Integer value = cache.get(key % 2 == 0 ? key : key - 1);
+
+                        ret = ret && (value == null || value == (key % 2 == 0 ? key : key - 1));
+                    }
+
+                    return ret;
+                }));
+            }
+
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get(), "cache returned value of a different key");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertTrue(cache.size() <= capacity, "size=" + cache.size() + ", capacity=" + capacity);
+    }
+}
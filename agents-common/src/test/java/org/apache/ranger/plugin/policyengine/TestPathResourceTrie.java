@@ -29,6 +29,7 @@
 import org.apache.ranger.plugin.resourcematcher.RangerResourceMatcher;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -37,6 +38,7 @@
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestPathResourceTrie {
     private static final RangerResourceDef       PATH_RESOURCE_DEF = getPathResourceDef();
@@ -66,7 +68,8 @@ public class TestPathResourceTrie {
             EVAL_TMPdTXT,
             EVAL_TMPA_B);
 
-    private final RangerResourceTrie<RangerResourceEvaluator> trie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS);
+    private final RangerResourceTrie<RangerResourceEvaluator> trie        = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS);
+    private final RangerResourceTrie<RangerResourceEvaluator> compactTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, EVALUATORS, false, true, null);
 
     @Test
     public void testChildrenScope() {
@@ -113,11 +116,42 @@ public void testSelfScope() {
         verifyEvaluators("invalid: does-not-begin-with-sep", scope);
     }
 
+    @Test
+    public void testCompactTrieAfterDelete() {
+        List<RangerResourceEvaluator> toDelete  = Arrays.asList(EVAL_TMP_AB, EVAL_TMPFILE, EVAL_TMP_AC_D_E_F);
+        List<RangerResourceEvaluator> remaining = new ArrayList<>(EVALUATORS);
+
+        remaining.removeAll(toDelete);
+
+        RangerResourceTrie<RangerResourceEvaluator> updatedTrie = new RangerResourceTrie<>(compactTrie);
+
+        for (RangerResourceEvaluator evaluator : toDelete) {
+            updatedTrie.delete(evaluator.getPolicyResource().get(PATH_RESOURCE_DEF.getName()), evaluator);
+        }
+
+        updatedTrie.wrapUpUpdate();
+
+        RangerResourceTrie<RangerResourceEvaluator> expectedTrie = new RangerResourceTrie<>(PATH_RESOURCE_DEF, remaining, false, true, null);
+
+        // nodes left without evaluators should be removed or merged with their only child, same as in a trie built afresh
+        assertTrue(TestPolicyEngine.compareSubtree(expectedTrie, updatedTrie), "trie after delete: " + updatedTrie.dumpTrie() + "; expected: " + expectedTrie.dumpTrie());
+
+        for (String resource : Arrays.asList("/", "/tmp", "/tmp/", "/tmp/a", "/tmp/ac/d", "/tmpfile", "/tmpa/b")) {
+            for (ResourceElementMatchingScope scope : ResourceElementMatchingScope.values()) {
+                assertEquals(expectedTrie.getEvaluatorsForResource(resource, scope), updatedTrie.getEvaluatorsForResource(resource, scope), "incorrect evaluators for resource " + resource + ", scope " + scope);
+            }
+        }
+    }
+
     private void verifyEvaluators(String resource, ResourceElementMatchingScope scope, RangerResourceEvaluator... evaluators) {
         Set<RangerResourceEvaluator> expected = evaluators.length == 0 ? null : new HashSet<>(Arrays.asList(evaluators));
         Set<RangerResourceEvaluator> result   = trie.getEvaluatorsForResource(resource, scope);
 
         assertEquals(expected, result, "incorrect evaluators for resource " + resource);
+
+        result = compactTrie.getEvaluatorsForResource(resource, scope);
+
+        assertEquals(expected, result, "incorrect evaluators for resource " + resource + " in trie optimized for space");
     }
 
     private static RangerResourceDef getPathResourceDef() {
@@ -50,6 +50,7 @@
 import org.apache.ranger.plugin.policyresourcematcher.RangerResourceEvaluator;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerRequestedResources;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerUserStore;
@@ -78,6 +79,7 @@
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.TreeSet;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -692,6 +694,33 @@ public void testValiditySchedulerApplicable() {
         runValiditySchedulerTests(resourceName);
     }
 
+    @Test
+    public void testPolicyEngine_batchEvaluation() {
+        runBatchTests("/policyengine/test_policyengine_hive.json");
+        runBatchTests("/policyengine/test_policyengine_hive_incremental_delete.json"); // with security-zones
+    }
+
+    @Test
+    public void testPolicyEngine_principalBitsets() {
+        String[] resourceFiles = {"/policyengine/test_policyengine_hive.json",
+                "/policyengine/test_policyengine_hive_incremental_update.json",
+                "/policyengine/test_policyengine_hdfs_zones.json",
+                "/policyengine/test_policyengine_tag_hive.json",
+                "/policyengine/test_policyengine_hive_mask_filter.json",
+                "/policyengine/test_policyengine_owner.json",
+                "/policyengine/test_policyengine_with_roles.json"};
+
+        RangerPolicyEngineOptions options = pluginContext.getConfig().getPolicyEngineOptions();
+
+        options.enablePrincipalBitsets = true;
+
+        try {
+            runTestsFromResourceFiles(resourceFiles);
+        } finally {
+            options.enablePrincipalBitsets = false;
+        }
+    }
+
     private void runTestsFromResourceFiles(String[] resourceNames) {
         for (String resourceName : resourceNames) {
             InputStream       inStream = this.getClass().getResourceAsStream(resourceName);
@@ -950,6 +979,60 @@ private void runTestCaseTests(RangerPolicyEngine policyEngine, RangerServiceDef
         });
     }
 
+    private void runBatchTests(String resourceName) {
+        PolicyEngineTestCase testCase = gsonBuilder.fromJson(new InputStreamReader(this.getClass().getResourceAsStream(resourceName)), PolicyEngineTestCase.class);
+
+        ServicePolicies servicePolicies = new ServicePolicies();
+        servicePolicies.setPolicyVersion(100L);
+        servicePolicies.setServiceName(testCase.serviceName);
+        servicePolicies.setServiceDef(testCase.serviceDef);
+        servicePolicies.setPolicies(testCase.policies);
+        servicePolicies.setSecurityZones(testCase.securityZones);
+        servicePolicies.setServiceConfig(testCase.serviceConfig);
+
+        RangerPluginConfig config = new RangerPluginConfig("hive", null, "hive-batch", "cl1", "on-prem", null);
+
+        config.setInt(config.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_BATCH_PARALLELISM, 4);
+        config.setInt(config.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_BATCH_PARALLEL_THRESHOLD, 2);
+
+        RangerPluginContext       batchPluginContext = new RangerPluginContext(config);
+        RangerPolicyEngine        policyEngine       = new RangerPolicyEngineImpl(servicePolicies, batchPluginContext, null);
+        List<RangerAccessRequest> requests           = new ArrayList<>();
+        List<TestData>            tests              = new ArrayList<>();
+
+        for (TestData test : testCase.tests) {
+            Map<String, Object> context = test.request.getContext();
+
+            if (test.result != null && !context.containsKey(RangerAccessRequestUtil.KEY_CONTEXT_TAGS) && !context.containsKey(RangerAccessRequestUtil.KEY_CONTEXT_REQUESTED_RESOURCES)) {
+                requests.add(test.request);
+                tests.add(test);
+            }
+        }
+
+        try {
+            List<RangerAccessResult> results = new ArrayList<>(policyEngine.evaluatePolicies(requests, RangerPolicy.POLICY_TYPE_ACCESS, null));
+
+            ThreadPoolExecutor batchExecutor = (ThreadPoolExecutor) batchPluginContext.getBatchExecutor();
+
+            assertTrue(batchExecutor.getTaskCount() > 0, "requests were not evaluated in batch executor - " + resourceName);
+            assertEquals(tests.size(), results.size(), "result count mismatched! - " + resourceName);
+
+            for (int i = 0; i < tests.size(); i++) {
+                TestData           test         = tests.get(i);
+                RangerAccessResult result       = results.get(i);
+                RangerAccessResult singleResult = policyEngine.evaluatePolicies(test.request, RangerPolicy.POLICY_TYPE_ACCESS, null);
+
+                assertEquals(test.request, result.getAccessRequest(), "result out of order! - " + test.name);
+                assertEquals(test.result.getIsAllowed(), result.getIsAllowed(), "isAllowed mismatched! - " + test.name);
+                assertEquals(singleResult.getIsAllowed(), result.getIsAllowed(), "isAllowed mismatched with single request evaluation! - " + test.name);
+                assertEquals(singleResult.getPolicyId(), result.getPolicyId(), "policyId mismatched with single request evaluation! - " + test.name);
+                assertEquals(singleResult.getIsAudited(), result.getIsAudited(), "isAudited mismatched with single request evaluation! - " + test.name);
+            }
+        } finally {
+            batchPluginContext.shutdownBatchExecutor();
+        }
+    }
+
     private void setPluginConfig(RangerPluginConfig conf, String suffix, Set<String> value) {
         conf.set(conf.getPropertyPrefix() + suffix, CollectionUtils.isNotEmpty(value) ? StringUtils.join(value, ',') : "");
     }
@@ -66,6 +66,8 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestPolicyEngineForDeltas {
@@ -315,8 +317,15 @@ private void runTests(InputStreamReader reader, String testName) {
                     servicePolicies.setSecurityZones(testsInfo.updatedPolicies.securityZones);
                 }
 
+                RangerPolicyEngineImpl oldPolicyEngine   = policyEngine;
+                long                   deltaUpdateCount = PolicyEngineUpdateMetrics.getInstance().getDeltaUpdateCount();
+
                 policyEngine = (RangerPolicyEngineImpl) RangerPolicyEngineImpl.getPolicyEngine(policyEngine, servicePolicies);
                 testsInfo    = null;
+
+                assertEquals(deltaUpdateCount + 1, PolicyEngineUpdateMetrics.getInstance().getDeltaUpdateCount());
+
+                assertTriesSharedForUnchangedPolicyTypes(oldPolicyEngine.getPolicyEngine(), policyEngine.getPolicyEngine(), servicePolicies.getPolicyDeltas());
             } else {
                 testsInfo = null;
             }
@@ -324,6 +333,36 @@ private void runTests(InputStreamReader reader, String testName) {
         while (testsInfo != null && testsInfo.tests != null);
     }
 
+    private void assertTriesSharedForUnchangedPolicyTypes(PolicyEngine oldEngine, PolicyEngine newEngine, List<RangerPolicyDelta> deltas) {
+        if (oldEngine == newEngine) { // deltas applied in-place
+            return;
+        }
+
+        RangerPolicyRepository oldRepository = oldEngine.getPolicyRepository();
+        RangerPolicyRepository newRepository = newEngine.getPolicyRepository();
+        Set<Integer>           policyTypes   = new HashSet<>();
+
+        for (RangerPolicyDelta delta : deltas) {
+            if (StringUtils.equals(delta.getServiceType(), oldRepository.getServiceDef().getName())) {
+                policyTypes.add(delta.getPolicyType());
+            }
+        }
+
+        for (int policyType = RangerPolicy.POLICY_TYPE_ACCESS; policyType <= RangerPolicy.POLICY_TYPE_AUDIT; policyType++) {
+            if (oldRepository.getTrie(policyType) == null) {
+                continue;
+            }
+
+            if (policyTypes.contains(policyType)) {
+                assertNotSame(oldRepository.getTrie(policyType), newRepository.getTrie(policyType), "trie must be copied for updated policyType " + policyType);
+            } else {
+                assertSame(oldRepository.getTrie(policyType), newRepository.getTrie(policyType), "trie must be shared for unchanged policyType " + policyType);
+            }
+        }
+
+        assertTrue(oldEngine.getTrieNodeCount(newEngine) <= oldEngine.getTrieNodeCount(null));
+    }
+
     private void runTestCaseTests(RangerPolicyEngine policyEngine, RangerServiceDef serviceDef, String testName, List<TestData> tests) {
         RangerAccessRequest request;
 
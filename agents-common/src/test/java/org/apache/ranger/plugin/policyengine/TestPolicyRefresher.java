@@ -21,9 +21,13 @@
 
 import org.apache.ranger.admin.client.RangerAdminClient;
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
 import org.apache.ranger.plugin.util.DownloadTrigger;
 import org.apache.ranger.plugin.util.PolicyRefresher;
+import org.apache.ranger.plugin.util.RangerCacheSnapshot;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerServiceNotFoundException;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.junit.jupiter.api.AfterEach;
@@ -43,6 +47,7 @@
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -432,6 +437,30 @@ public void testCorruptedCacheFileHandling() throws Exception {
         newRefresher.join(2000);
     }
 
+    @Test
+    public void testDeltasSavedAsJsonAndPrunedInBinaryCacheFormat() throws Exception {
+        when(mockPluginConfig.get(eq("ranger.plugin.test.service" + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT))).thenReturn(RangerCacheSnapshot.CACHE_FORMAT_BINARY);
+
+        when(mockPluginConfig.getInt(argThat(name -> name != null && name.endsWith("max.versions.to.preserve")), anyInt())).thenReturn(1);
+
+        PolicyRefresher binaryRefresher = new PolicyRefresher(mockPlugin);
+        File            deltasDir       = new File(tempCacheDir, "deltas");
+        String          cacheFileName   = APP_ID + "_" + SERVICE_NAME + ".json";
+
+        for (long version = 2; version <= 4; version++) {
+            ServicePolicies deltas = createMockServicePolicies(version);
+
+            deltas.setPolicyDeltas(Collections.singletonList(new RangerPolicyDelta(version, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, version, new RangerPolicy())));
+
+            binaryRefresher.saveToCache(deltas);
+        }
+
+        String[] deltaFiles = deltasDir.list();
+
+        assertEquals(1, deltaFiles != null ? deltaFiles.length : 0, "older versions of deltas must be pruned");
+        assertEquals(cacheFileName + "_4", deltaFiles[0], "deltas must be saved in JSON format");
+    }
+
     private ServicePolicies createMockServicePolicies(long version) {
         ServicePolicies policies = new ServicePolicies();
         policies.setServiceName(SERVICE_NAME);
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRangerAccessDecisionCache {
+    @Test
+    public void testRequestWithNullGroupsAndRoles() throws Exception {
+        RangerServiceDef          serviceDef = EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_HIVE_NAME);
+        RangerPluginConfig        config     = new RangerPluginConfig(serviceDef.getName(), "cl1_hive", "hive", "cl1", "on-prem", new RangerPolicyEngineOptions());
+        RangerAccessDecisionCache cache      = new RangerAccessDecisionCache(config);
+
+        RangerAccessDecisionCache.Lookup lookup = cache.lookup(createRequest(serviceDef), null);
+
+        assertNotNull(lookup, "request must be cacheable");
+        assertNull(lookup.getResult());
+
+        RangerAccessResult result = new RangerAccessResult(0, "cl1_hive", serviceDef, createRequest(serviceDef));
+
+        result.setIsAllowed(true);
+        result.setIsAccessDetermined(true);
+
+        lookup.cache(result);
+
+        RangerAccessRequestImpl request = createRequest(serviceDef);
+
+        lookup = cache.lookup(request, null);
+
+        assertNotNull(lookup);
+        assertNotNull(lookup.getResult(), "expected cache-hit");
+        assertTrue(lookup.getResult().getIsAllowed());
+        assertSame(request, lookup.getResult().getAccessRequest());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    // request that reports null groups and roles, as allowed for RangerAccessRequest implementations
+    private static RangerAccessRequestImpl createRequest(RangerServiceDef serviceDef) {
+        RangerAccessResourceImpl resource = new RangerAccessResourceImpl(Collections.singletonMap("database", "db1"));
+
+        resource.setServiceDef(serviceDef);
+
+        RangerAccessRequestImpl ret = new RangerAccessRequestImpl() {
+            @Override
+            public Set<String> getUserGroups() {
+                return null;
+            }
+
+            @Override
+            public Set<String> getUserRoles() {
+                return null;
+            }
+        };
+
+        ret.setResource(resource);
+        ret.setAccessType("select");
+        ret.setUser("user1");
+
+        return ret;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class TestRangerTrieChildMap {
+    @Test
+    public void testSortedAndHashedModes() {
+        RangerTrieChildMap<String> map      = new RangerTrieChildMap<>();
+        Map<Character, String>     expected = new HashMap<>();
+
+        // enough keys to switch from sorted arrays to hash table
+        for (char ch : "/tmp_abcdefghijklmnoqrsuvwxyz0123456789\u00e9\u4e2d".toCharArray()) {
+            assertEquals(expected.put(ch, String.valueOf(ch)), map.put(ch, String.valueOf(ch)));
+            assertEquals(expected, map);
+        }
+
+        assertEquals("/", map.put('/', "root"));
+        assertEquals("root", map.get('/'));
+        assertNull(map.get('Z'));
+        assertNull(map.get("not-a-character"));
+
+        expected.put('/', "root");
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(new ArrayList<>(expected.values()).size(), map.values().size());
+    }
+
+    @Test
+    public void testRemoveRetainsOtherEntries() {
+        Random random = new Random(1234);
+
+        for (int count : new int[] {1, RangerTrieChildMap.MAX_SORTED_SIZE, 100}) {
+            RangerTrieChildMap<Integer> map      = new RangerTrieChildMap<>();
+            Map<Character, Integer>     expected = new HashMap<>();
+            List<Character>             keys     = new ArrayList<>();
+
+            for (int i = 0; i < count; i++) {
+                char ch = (char) ('!' + random.nextInt(2000));
+
+                map.put(ch, i);
+                expected.put(ch, i);
+                keys.add(ch);
+            }
+
+            for (Character key : keys) {
+                assertEquals(expected.remove(key), map.remove(key));
+                assertEquals(expected, map);
+
+                for (Map.Entry<Character, Integer> entry : expected.entrySet()) {
+                    assertEquals(entry.getValue(), map.get(entry.getKey().charValue()));
+                }
+            }
+
+            assertEquals(0, map.size());
+        }
+    }
+}
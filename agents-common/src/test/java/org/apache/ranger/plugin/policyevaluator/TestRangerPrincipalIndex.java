@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.policyevaluator;
+
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRangerPrincipalIndex {
+    @Test
+    public void testCompileAndResolve() {
+        RangerPrincipalIndex index = new RangerPrincipalIndex();
+        BitSet               item1 = index.compile(Arrays.asList("user1", "user2"), Collections.singletonList("analysts"), null);
+        BitSet               item2 = index.compile(null, Collections.singletonList("admins"), Collections.singletonList("auditor"));
+        BitSet               item3 = index.compile(Collections.singletonList("user1"), null, null);
+
+        assertEquals(5, index.getPrincipalCount());
+        assertEquals(item1.nextSetBit(0), item3.nextSetBit(0), "same user must get the same id");
+
+        BitSet user1       = index.resolve("user1", null, null);
+        BitSet analyst     = index.resolve("user3", Collections.singleton("analysts"), null);
+        BitSet auditor     = index.resolve("user3", Collections.singleton("others"), Collections.singleton("auditor"));
+        BitSet groupAsUser = index.resolve("analysts", null, null);
+        BitSet roleAsGroup = index.resolve(null, Collections.singleton("auditor"), null);
+
+        assertTrue(item1.intersects(user1));
+        assertTrue(item1.intersects(analyst));
+        assertFalse(item2.intersects(analyst));
+        assertTrue(item2.intersects(auditor));
+        assertFalse(item1.intersects(groupAsUser), "users and groups must not share ids");
+        assertFalse(item2.intersects(roleAsGroup), "groups and roles must not share ids");
+        assertEquals(5, index.getPrincipalCount(), "resolve must not assign ids");
+    }
+
+    @Test
+    public void testRequestPrincipalsAreCached() {
+        RangerPrincipalIndex    index   = new RangerPrincipalIndex();
+        BitSet                  item    = index.compile(null, Collections.singletonList("analysts"), Collections.singletonList("auditor"));
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "select", "user1", new HashSet<>(Collections.singletonList("others")), null);
+
+        Map<String, Object> context = new HashMap<>(request.getContext());
+        BitSet              ids     = index.getPrincipals(request, RangerAccessRequestUtil.getUserRoles(request));
+
+        assertFalse(item.intersects(ids));
+        assertSame(ids, index.getPrincipals(request, RangerAccessRequestUtil.getUserRoles(request)));
+        assertEquals(context, request.getContext(), "request context must not be updated");
+
+        RangerAccessRequestUtil.setCurrentUserRolesInContext(request.getContext(), Collections.singleton("auditor"));
+
+        BitSet idsWithRoles = index.getPrincipals(request, RangerAccessRequestUtil.getUserRoles(request));
+
+        assertNotSame(ids, idsWithRoles);
+        assertTrue(item.intersects(idsWithRoles));
+
+        request.setUserGroups(Collections.singleton("analysts"));
+        RangerAccessRequestUtil.setCurrentUserRolesInContext(request.getContext(), Collections.emptySet());
+
+        assertTrue(item.intersects(index.getPrincipals(request, RangerAccessRequestUtil.getUserRoles(request))));
+
+        // ids assigned after the request was resolved, as done on applying policy deltas
+        BitSet newItem = index.compile(Collections.singletonList("user1"), null, null);
+
+        assertTrue(newItem.intersects(index.getPrincipals(request, RangerAccessRequestUtil.getUserRoles(request))));
+    }
+
+    @Test
+    public void testReusedGroupsSetIsUpdated() {
+        RangerPrincipalIndex    index   = new RangerPrincipalIndex();
+        BitSet                  item    = index.compile(null, Collections.singletonList("analysts"), null);
+        Set<String>             groups  = new HashSet<>(Collections.singletonList("others"));
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "select", "user1", groups, null);
+
+        assertFalse(item.intersects(index.getPrincipals(request, null)));
+
+        // same request and groups instance, updated by the caller for the next evaluation
+        groups.add("analysts");
+
+        assertTrue(item.intersects(index.getPrincipals(request, null)), "cached principals must not be used after groups are updated");
+
+        groups.remove("analysts");
+
+        assertFalse(item.intersects(index.getPrincipals(request, null)));
+    }
+
+    @Test
+    public void testRolesPassedByCaller() {
+        RangerPrincipalIndex    index   = new RangerPrincipalIndex();
+        BitSet                  item    = index.compile(null, null, Collections.singletonList("auditor"));
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(new RangerAccessResourceImpl(), "select", "user1", Collections.emptySet(), null);
+
+        request.setUserRoles(Collections.singleton("auditor"));
+
+        assertFalse(item.intersects(index.getPrincipals(request, RangerAccessRequestUtil.getCurrentUserRolesFromContext(request.getContext()))));
+        assertTrue(item.intersects(index.getPrincipals(request, RangerAccessRequestUtil.getUserRoles(request))));
+    }
+
+    @Test
+    public void testRebuildNeeded() {
+        RangerPrincipalIndex index = new RangerPrincipalIndex();
+
+        index.compile(Arrays.asList("user1", "user2"), null, null);
+        index.setBuilt();
+
+        assertFalse(index.isRebuildNeeded());
+
+        // principals added by policy deltas
+        for (int i = 0; i < RangerPrincipalIndex.MIN_GROWTH_FOR_REBUILD; i++) {
+            index.compile(Collections.singletonList("delta-user" + i), null, null);
+        }
+
+        assertFalse(index.isRebuildNeeded());
+
+        index.compile(Collections.singletonList("delta-user"), null, null);
+
+        assertTrue(index.isRebuildNeeded());
+    }
+}
@@ -27,13 +27,17 @@
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchType.NONE;
 import static org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchType.PREFIX;
 import static org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchType.SELF;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RangerDefaultResourceMatcherTest {
     Object[][] data = {
@@ -155,6 +159,65 @@ public void testIsPrefixMatch() {
         }
     }
 
+    @Test
+    public void testMultiPatternMatch() {
+        List<String> policyValues = Arrays.asList("db1", "sales_*", "*_tmp", "fin?nce", "a*b*c", "report*2024", "\"Quoted\"*", "ABC", "x**y", "emp?", "tbl_{USER}", "*?");
+        List<String> resources    = Arrays.asList("db1", "DB1", "db", "db12", "sales_q1", "SALES_", "sales", "emp_tmp", "_TMP", "tmp", "finance", "FINANCE", "fiance",
+                "abc", "aXbYc", "acb", "abcab", "report_2024", "report2024x", "\"Quoted\"x", "\"quoted\"x", "\"QUOTED\"", "abc", "x", "xy", "XZZY", "x*y",
+                "emp1", "emp", "fin?nce", "tbl_user", "tbl_USER", "tbl_", "r", "s", "\"", "*");
+        Map<String, Object> evalContext = new HashMap<>();
+
+        RangerAccessRequestUtil.setCurrentUserInContext(evalContext, "user");
+
+        for (boolean ignoreCase : new boolean[] {false, true}) {
+            for (boolean quotedCaseSensitive : new boolean[] {false, true}) {
+                for (boolean wildcard : new boolean[] {false, true}) {
+                    for (boolean excludes : new boolean[] {false, true}) {
+                        Map<String, String> options = new HashMap<>();
+
+                        options.put(RangerAbstractResourceMatcher.OPTION_IGNORE_CASE, Boolean.toString(ignoreCase));
+                        options.put(RangerAbstractResourceMatcher.OPTION_QUOTED_CASE_SENSITIVE, Boolean.toString(quotedCaseSensitive));
+                        options.put(RangerAbstractResourceMatcher.OPTION_WILD_CARD, Boolean.toString(wildcard));
+
+                        // "*?" in policy values makes match-any matcher when wildcard is enabled; skip it for those cases
+                        List<String>   values   = wildcard ? policyValues.subList(0, policyValues.size() - 1) : policyValues;
+                        MatcherWrapper expected = new MatcherWrapper(values, excludes, options);
+
+                        options.put(RangerAbstractResourceMatcher.OPTION_MULTI_PATTERN_MATCH, Boolean.TRUE.toString());
+
+                        MatcherWrapper actual = new MatcherWrapper(values, excludes, options);
+
+                        assertTrue(actual.toString().contains("valuesAutomaton="), "valuesAutomaton not built for options " + options);
+
+                        for (ResourceElementMatchingScope matchScope : ResourceElementMatchingScope.values()) {
+                            for (String resource : resources) {
+                                String message = String.format("Resource=%s, options=%s, excludes=%s, matchScope=%s", resource, options, excludes, matchScope);
+
+                                assertEquals(expected.getMatchType(resource, matchScope, evalContext), actual.getMatchType(resource, matchScope, evalContext), message);
+                            }
+
+                            assertEquals(expected.getMatchType(resources, matchScope, evalContext), actual.getMatchType(resources, matchScope, evalContext));
+                            assertEquals(expected.getMatchType(Arrays.asList("db", "emp1"), matchScope, evalContext), actual.getMatchType(Arrays.asList("db", "emp1"), matchScope, evalContext));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMultiPatternMatchAnyValue() {
+        Map<String, String> options = new HashMap<>();
+
+        options.put(RangerAbstractResourceMatcher.OPTION_MULTI_PATTERN_MATCH, Boolean.TRUE.toString());
+
+        MatcherWrapper matcher = new MatcherWrapper(Arrays.asList("db1", "*", "db2"), false, options);
+
+        assertTrue(matcher.isMatchAny());
+        assertFalse(matcher.toString().contains("valuesAutomaton="));
+        assertEquals(SELF, matcher.getMatchType("db3", ResourceElementMatchingScope.SELF, new HashMap<>()));
+    }
+
     String getMessage(Object[] row) {
         return String.format("Resource=%s, Policy=%s, excludes=%s, matchScope=%s, matchType=%s, result=%s",
                 row[0], row[1], row[2], row[3], row[4], row[5]);
@@ -179,5 +242,16 @@ static class MatcherWrapper extends RangerDefaultResourceMatcher {
 
             init();
         }
+
+        MatcherWrapper(List<String> policyValues, boolean exclude, Map<String, String> matcherOptions) {
+            RangerResourceDef resourceDef = new RangerResourceDef();
+
+            resourceDef.setMatcherOptions(matcherOptions);
+
+            setResourceDef(resourceDef);
+            setPolicyResource(new RangerPolicy.RangerPolicyResource(policyValues, exclude, false));
+
+            init();
+        }
     }
 }
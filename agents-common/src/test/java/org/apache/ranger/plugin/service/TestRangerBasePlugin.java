@@ -29,6 +29,7 @@
 import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
 import org.apache.ranger.plugin.audit.RangerDefaultAuditHandler;
 import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessDecisionCache;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequest;
 import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
 import org.apache.ranger.plugin.policyengine.RangerAccessResource;
@@ -39,6 +40,7 @@
 import org.apache.ranger.plugin.policyengine.RangerResourceACLs;
 import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerRoles;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
@@ -62,6 +64,8 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TestRangerBasePlugin {
     static Gson                      gsonBuilder;
@@ -88,6 +92,61 @@ public void testBasePluginHive() throws Exception {
         runTestsFromResourceFile("/plugin/test_base_plugin_hive.json");
     }
 
+    @Test
+    public void testBasePluginHiveWithDecisionCache() throws Exception {
+        String                   resourceFile = "/plugin/test_base_plugin_hive.json";
+        RangerBasePluginTestCase testCase     = readTestCase(new InputStreamReader(this.getClass().getResourceAsStream(resourceFile)));
+        RangerPluginConfig       pluginConfig = new RangerPluginConfig(testCase.policies.getServiceDef().getName(), testCase.policies.getServiceName(), "hive", "cl1", "on-prem", peOptions);
+
+        pluginConfig.setBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DECISION_CACHE_ENABLED, true);
+
+        RangerBasePlugin          plugin        = new RangerBasePlugin(pluginConfig, testCase.policies, testCase.tags, testCase.roles, testCase.userStore, testCase.gdsInfo);
+        RangerAccessDecisionCache decisionCache = plugin.getDecisionCache();
+
+        assertNotNull(decisionCache, "decision cache was null");
+
+        int expectedCount = 0;
+
+        // requests are pre-processed in place during evaluation, hence fresh copies are read for each iteration
+        for (int i = 0; i < 2; i++) {
+            RangerBasePluginTestCase iterTestCase = readTestCase(new InputStreamReader(this.getClass().getResourceAsStream(resourceFile)));
+
+            for (TestData test : iterTestCase.tests) {
+                if (test.result != null) {
+                    RangerAccessResult result = plugin.isAccessAllowed(test.request);
+
+                    assertNotNull(result, "result was null! - " + test.name);
+                    assertEquals(test.result.getIsAllowed(), result.getIsAllowed(), "isAllowed mismatched! - " + test.name);
+                    assertEquals(test.result.getIsAccessDetermined(), result.getIsAccessDetermined(), "isAccessDetermined mismatched! - " + test.name);
+                    assertEquals(test.result.getPolicyId(), result.getPolicyId(), "isAllowed mismatched! - " + test.name);
+                    assertEquals(test.result.getIsAudited(), result.getIsAudited(), "isAudited mismatched! - " + test.name);
+                    assertEquals(test.result.getIsAuditedDetermined(), result.getIsAuditedDetermined(), "isAuditedDetermined mismatched! - " + test.name);
+                    assertEquals(test.request.getUser(), result.getAccessRequest().getUser(), "user mismatched! - " + test.name);
+
+                    if (i == 0) {
+                        expectedCount++;
+                    }
+                }
+            }
+        }
+
+        assertEquals(expectedCount, decisionCache.getMissCount(), "decision cache miss count");
+        assertEquals(expectedCount, decisionCache.getHitCount(), "decision cache hit count");
+
+        plugin.setRoles(testCase.roles);
+
+        assertEquals(0, decisionCache.getSize(), "decision cache size after roles update");
+
+        RangerAccessRequest request = readTestCase(new InputStreamReader(this.getClass().getResourceAsStream(resourceFile))).tests.get(0).request;
+
+        request.getContext().put("unknownContextKey", "value");
+
+        RangerAccessDecisionCache.Lookup lookup = decisionCache.lookup(request, plugin.getPolicyEngine());
+
+        assertNull(lookup, "request with unknown context entry must not be cached");
+        assertTrue(decisionCache.getBypassCount() > 0, "decision cache bypass count");
+    }
+
     private void runTestsFromResourceFile(String resourceFile) throws Exception {
         InputStream       inStream = this.getClass().getResourceAsStream(resourceFile);
         InputStreamReader reader   = new InputStreamReader(inStream);
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRangerCacheSnapshot {
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ServicePolicies policies = createServicePolicies(50);
+        File            file     = cacheDir.resolve("hive_dev_hive.json.snapshot").toFile();
+
+        RangerCacheSnapshot.save(file, policies);
+
+        ServicePolicies loaded = RangerCacheSnapshot.load(file, ServicePolicies.class);
+
+        assertNotNull(loaded);
+        assertEquals(JsonUtils.objectToJson(policies), JsonUtils.objectToJson(loaded));
+        assertFalse(new File(file.getPath() + ".tmp").exists(), "temporary file should have been moved");
+    }
+
+    @Test
+    public void testStringsAreShared() throws Exception {
+        File file = cacheDir.resolve("hive_dev_hive.json.snapshot").toFile();
+
+        RangerCacheSnapshot.save(file, createServicePolicies(2));
+
+        ServicePolicies loaded = RangerCacheSnapshot.load(file, ServicePolicies.class);
+        String          user1  = loaded.getPolicies().get(0).getPolicyItems().get(0).getUsers().get(0);
+        String          user2  = loaded.getPolicies().get(1).getPolicyItems().get(0).getUsers().get(0);
+
+        assertEquals("user1", user1);
+        assertSame(user1, user2);
+    }
+
+    @Test
+    public void testCorruptSnapshotIsRejected() throws Exception {
+        File jsonFile     = cacheDir.resolve("hive_dev_hive.json").toFile();
+        File snapshotFile = RangerCacheSnapshot.getSnapshotFile(jsonFile);
+
+        RangerCacheSnapshot.save(snapshotFile, createServicePolicies(5));
+
+        try (RandomAccessFile raf = new RandomAccessFile(snapshotFile, "rw")) {
+            long pos = raf.length() / 2;
+
+            raf.seek(pos);
+
+            int val = raf.read();
+
+            raf.seek(pos);
+            raf.write(val ^ 0xff);
+        }
+
+        assertThrows(IOException.class, () -> RangerCacheSnapshot.load(snapshotFile, ServicePolicies.class));
+        assertNull(RangerCacheSnapshot.loadForCacheFile(jsonFile, ServicePolicies.class));
+    }
+
+    @Test
+    public void testSnapshotOlderThanJsonIsIgnored() throws Exception {
+        ServicePolicies policies     = createServicePolicies(5);
+        File            jsonFile     = cacheDir.resolve("hive_dev_hive.json").toFile();
+        File            snapshotFile = RangerCacheSnapshot.getSnapshotFile(jsonFile);
+
+        RangerCacheSnapshot.saveForCacheFile(jsonFile, policies);
+
+        assertNotNull(RangerCacheSnapshot.loadForCacheFile(jsonFile, ServicePolicies.class), "snapshot without JSON cache file should be loaded");
+
+        Files.write(jsonFile.toPath(), JsonUtils.objectToJson(policies).getBytes());
+
+        assertTrue(jsonFile.setLastModified(snapshotFile.lastModified() + 10000));
+        assertNull(RangerCacheSnapshot.loadForCacheFile(jsonFile, ServicePolicies.class));
+    }
+
+    @Test
+    public void testDisable() throws Exception {
+        File jsonFile = cacheDir.resolve("hive_dev_hive.json").toFile();
+
+        RangerCacheSnapshot.saveForCacheFile(jsonFile, createServicePolicies(1));
+        RangerCacheSnapshot.disableForCacheFile(jsonFile);
+
+        assertFalse(RangerCacheSnapshot.getSnapshotFile(jsonFile).exists());
+        assertNull(RangerCacheSnapshot.loadForCacheFile(jsonFile, ServicePolicies.class));
+    }
+
+    @Test
+    public void testCacheFormat() {
+        Configuration config = new Configuration(false);
+        String        prefix = "ranger.plugin.hive";
+
+        assertEquals(RangerCacheSnapshot.CACHE_FORMAT_JSON, RangerCacheSnapshot.getCacheFormat(config, prefix));
+        assertEquals(RangerCacheSnapshot.CACHE_FORMAT_JSON, RangerCacheSnapshot.getCacheFormat(null, prefix));
+
+        config.set(prefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT, "Both");
+
+        assertEquals(RangerCacheSnapshot.CACHE_FORMAT_BOTH, RangerCacheSnapshot.getCacheFormat(config, prefix));
+        assertTrue(RangerCacheSnapshot.isJsonEnabled(RangerCacheSnapshot.CACHE_FORMAT_BOTH));
+        assertTrue(RangerCacheSnapshot.isSnapshotEnabled(RangerCacheSnapshot.CACHE_FORMAT_BOTH));
+        assertFalse(RangerCacheSnapshot.isJsonEnabled(RangerCacheSnapshot.CACHE_FORMAT_BINARY));
+        assertFalse(RangerCacheSnapshot.isSnapshotEnabled(RangerCacheSnapshot.CACHE_FORMAT_JSON));
+
+        config.set(prefix + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_CACHE_FORMAT, "xml");
+
+        assertEquals(RangerCacheSnapshot.CACHE_FORMAT_JSON, RangerCacheSnapshot.getCacheFormat(config, prefix));
+    }
+
+    private ServicePolicies createServicePolicies(int policyCount) {
+        ServicePolicies  ret        = new ServicePolicies();
+        RangerServiceDef serviceDef = new RangerServiceDef();
+
+        serviceDef.setName("hive");
+        serviceDef.setId(3L);
+
+        ret.setServiceName("dev_hive");
+        ret.setServiceId(1L);
+        ret.setPolicyVersion(42L);
+        ret.setPolicyUpdateTime(new Date());
+        ret.setServiceDef(serviceDef);
+
+        List<RangerPolicy> policies = new ArrayList<>();
+
+        for (int i = 0; i < policyCount; i++) {
+            RangerPolicy                      policy    = new RangerPolicy();
+            Map<String, RangerPolicyResource> resources = new HashMap<>();
+            RangerPolicyItem                  item      = new RangerPolicyItem();
+
+            resources.put("database", new RangerPolicyResource("db" + i));
+            resources.put("table", new RangerPolicyResource("*"));
+
+            item.setUsers(Collections.singletonList("user1"));
+            item.setGroups(Collections.singletonList("group" + (i % 3)));
+            item.setAccesses(Collections.singletonList(new RangerPolicyItemAccess("select")));
+
+            policy.setId((long) i);
+            policy.setName("policy-" + i);
+            policy.setService("dev_hive");
+            policy.setResources(resources);
+            policy.setPolicyItems(Collections.singletonList(item));
+            policy.setUpdateTime(new Date());
+
+            policies.add(policy);
+        }
+
+        ret.setPolicies(policies);
+
+        return ret;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRangerServiceVersions {
+    @Test
+    public void testChangeOnlyInWatchedVersions() {
+        RangerServiceVersions current   = new RangerServiceVersions("dev_hive", 10L, 5L, 3L, 7L, 1L);
+        RangerServiceVersions lastKnown = new RangerServiceVersions("dev_hive", 10L, null, 3L, null, null);
+
+        assertFalse(current.isChangedFrom(lastKnown));
+
+        current.setTagVersion(6L);
+        current.setUserStoreVersion(8L);
+
+        assertFalse(current.isChangedFrom(lastKnown), "unwatched versions must not be reported as changed");
+
+        current.setRoleVersion(4L);
+
+        assertTrue(current.isChangedFrom(lastKnown));
+    }
+
+    @Test
+    public void testMissingVersionIsTreatedAsInitial() {
+        RangerServiceVersions current = new RangerServiceVersions("dev_hive", null, null, null, null, null);
+
+        assertFalse(current.isChangedFrom(new RangerServiceVersions("dev_hive", -1L, null, null, null, null)));
+        assertTrue(current.isChangedFrom(new RangerServiceVersions("dev_hive", 1L, null, null, null, null)));
+    }
+
+    @Test
+    public void testJsonRoundTrip() {
+        RangerServiceVersions versions = new RangerServiceVersions("dev_hive", 10L, null, 3L, null, null);
+        String                json     = JsonUtils.objectToJson(versions);
+        RangerServiceVersions copy     = JsonUtils.jsonToObject(json, RangerServiceVersions.class);
+
+        assertFalse(json.contains("tagVersion"));
+        assertEquals("dev_hive", copy.getServiceName());
+        assertEquals(Long.valueOf(10L), copy.getPolicyVersion());
+        assertEquals(Long.valueOf(3L), copy.getRoleVersion());
+        assertNull(copy.getTagVersion());
+        assertFalse(copy.isChangedFrom(versions));
+    }
+}
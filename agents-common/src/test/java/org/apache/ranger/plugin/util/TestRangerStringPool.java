@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.plugin.util;
+
+import org.apache.ranger.authorization.utils.StringUtil;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRangerStringPool {
+    @Test
+    public void testIntern() {
+        RangerStringPool pool  = new RangerStringPool();
+        String           str1  = new String("sales_db");
+        String           str2  = new String("sales_db");
+        String           other = new String("finance_db");
+
+        assertNotSame(str1, str2);
+        assertSame(str1, pool.intern(str1));
+        assertSame(str1, pool.intern(str2));
+        assertSame(other, pool.intern(other));
+        assertNull(pool.intern(null));
+
+        assertEquals(3, pool.getLookupCount());
+        assertEquals(1, pool.getDedupCount());
+        assertEquals(0, pool.getSavedBytes(), "saved bytes are tracked only for string tables");
+        assertEquals(2, pool.getSize());
+    }
+
+    @Test
+    public void testStringSize() {
+        assertEquals(24 + 24, RangerStringPool.getStringSize("sales_db"));  // 16 + 8 bytes
+        assertEquals(24 + 32, RangerStringPool.getStringSize("sales_db1")); // 16 + 9 bytes, aligned to 8
+        assertEquals(24 + 16, RangerStringPool.getStringSize(""));
+        assertEquals(24 + 24, RangerStringPool.getStringSize("\u0100abc")); // 16 + 2 * 4 bytes
+    }
+
+    @Test
+    public void testStringTable() {
+        RangerStringPool    pool   = new RangerStringPool();
+        Map<String, String> strTbl = pool.asStringTable("test");
+        String              str1   = new String("user1");
+        String              str2   = new String("user1");
+
+        assertSame(str1, StringUtil.dedupString(str1, strTbl));
+        assertSame(str1, StringUtil.dedupString(str2, strTbl));
+        assertSame(str1, strTbl.get("user1"));
+        assertTrue(strTbl.containsKey("user1"));
+        assertEquals(Collections.singletonMap("user1", "user1"), new HashMap<>(strTbl));
+        assertEquals(1, pool.getDedupCount());
+        assertEquals(RangerStringPool.getStringSize(str2), pool.getSavedBytes("test"));
+    }
+
+    @Test
+    public void testSavedBytesPerRefresh() {
+        RangerStringPool pool      = new RangerStringPool();
+        ServicePolicies  policies1 = createServicePolicies("dev_hive", "sales_db", "analyst");
+
+        policies1.dedupStrings(pool.asStringTable("policies:dev_hive"));
+
+        long savedBytes = pool.getSavedBytes();
+
+        assertTrue(savedBytes > 0, "serviceName of policies is deduplicated");
+
+        // refreshes replace the earlier version of the model; saved bytes must not accumulate
+        createServicePolicies("dev_hive", "sales_db", "analyst").dedupStrings(pool.asStringTable("policies:dev_hive"));
+
+        long refreshSavedBytes = pool.getSavedBytes();
+
+        for (int i = 0; i < 3; i++) {
+            createServicePolicies("dev_hive", "sales_db", "analyst").dedupStrings(pool.asStringTable("policies:dev_hive"));
+
+            assertEquals(refreshSavedBytes, pool.getSavedBytes());
+        }
+
+        assertEquals(pool.getSavedBytes("policies:dev_hive"), pool.getSavedBytes());
+
+        createServiceTags("dev_hive", "sales_db").dedupStrings(pool.asStringTable("tags:dev_hive"));
+
+        assertEquals(pool.getSavedBytes("policies:dev_hive") + pool.getSavedBytes("tags:dev_hive"), pool.getSavedBytes());
+    }
+
+    @Test
+    public void testSharedAcrossModels() {
+        Map<String, String> strTbl   = new RangerStringPool().asStringTable("test");
+        ServicePolicies     policies = createServicePolicies("dev_hive", "sales_db", "analyst");
+        ServiceTags         tags     = createServiceTags("dev_hive", "sales_db");
+        RangerUserStore     users    = createUserStore("analyst");
+
+        policies.dedupStrings(strTbl);
+        tags.dedupStrings(strTbl);
+        users.dedupStrings(strTbl);
+
+        RangerPolicy policy    = policies.getPolicies().get(0);
+        String       policyDb  = policy.getResources().get("database").getValues().get(0);
+        String       tagDb     = tags.getServiceResources().get(0).getResourceElements().get("database").getValues().get(0);
+        String       policyGrp = policy.getPolicyItems().get(0).getGroups().get(0);
+        String       userGrp   = users.getUserGroupMapping().get("user1").iterator().next();
+
+        assertSame(policies.getServiceName(), tags.getServiceName());
+        assertSame(policyDb, tagDb);
+        assertSame(policyGrp, userGrp);
+    }
+
+    @Test
+    public void testGetStringTable() {
+        Map<String, String> local = RangerStringPool.getStringTable(false, "test");
+
+        assertNotSame(local, RangerStringPool.getStringTable(false, "test"));
+        assertFalse(RangerStringPool.getStringTable(true, "test") instanceof HashMap);
+        assertTrue(RangerStringPool.getInstance().getStats().containsKey("savedBytes"));
+    }
+
+    private ServicePolicies createServicePolicies(String serviceName, String database, String group) {
+        ServicePolicies  ret    = new ServicePolicies();
+        RangerPolicy     policy = new RangerPolicy();
+        RangerPolicyItem item   = new RangerPolicyItem();
+
+        item.setGroups(new ArrayList<>(Collections.singletonList(new String(group))));
+
+        policy.setService(new String(serviceName));
+        policy.setResources(Collections.singletonMap("database", new RangerPolicyResource(new String(database))));
+        policy.setPolicyItems(new ArrayList<>(Collections.singletonList(item)));
+
+        ret.setServiceName(new String(serviceName));
+        ret.setPolicies(new ArrayList<>(Collections.singletonList(policy)));
+
+        return ret;
+    }
+
+    private ServiceTags createServiceTags(String serviceName, String database) {
+        ServiceTags           ret      = new ServiceTags();
+        RangerServiceResource resource = new RangerServiceResource();
+
+        resource.setServiceName(new String(serviceName));
+        resource.setResourceElements(Collections.singletonMap("database", new RangerPolicyResource(new String(database))));
+
+        ret.setServiceName(new String(serviceName));
+        ret.setServiceResources(new ArrayList<>(Collections.singletonList(resource)));
+
+        return ret;
+    }
+
+    private RangerUserStore createUserStore(String group) {
+        RangerUserStore ret = new RangerUserStore();
+
+        ret.setUserGroupMapping(Collections.singletonMap("user1", new HashSet<>(Collections.singletonList(new String(group)))));
+
+        return ret;
+    }
+}
@@ -24,6 +24,7 @@
 import org.apache.ranger.audit.model.AuditEventBase;
 import org.apache.ranger.audit.model.AuthzAuditEvent;
 import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.utils.AuditEventJsonSerializer;
 import org.apache.ranger.audit.utils.AuditMessageQueueUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -139,7 +140,7 @@ Partition key is agentId (aka plugin ID). AuditPartitioner allocates configured
              If unconfigured plugins are there in the audit message it uses buffer partitions.
             **/
             final String key     = authzEvent.getAgentId();
-            final String message = MiscUtil.stringify(event);
+            final String message = AuditEventJsonSerializer.toJson(event);
 
             try {
                 if (kafkaProducer != null) {
@@ -206,7 +207,7 @@ public synchronized boolean log(final Collection<AuditEventBase> events, String
                 }
 
                 authzEvents.add(authzEvent);
-                messages.add(MiscUtil.stringify(event));
+                messages.add(AuditEventJsonSerializer.toJson(event));
             }
         }
 
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.audit;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.MiscUtil;
+import org.apache.ranger.audit.utils.AuditEventJsonSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing a batch of audit events as JSON lines, as done by RangerJSONAuditWriter and AuditFileSpool: with
+ * MiscUtil.stringify() and a PrintWriter, vs AuditEventJsonSerializer writing UTF-8 bytes directly to the stream.
+ * Add "-prof gc" to compare the allocation rate.
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar AuditEventSerializationBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AuditEventSerializationBenchmark {
+    @Param("1000")
+    public int batchSize;
+
+    private final OutputStream out    = OutputStream.nullOutputStream();
+    private final PrintWriter  writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+    private List<AuditEventBase> events;
+
+    @Setup(Level.Trial)
+    public void createEvents() {
+        events = new ArrayList<>(batchSize);
+
+        for (int i = 0; i < batchSize; i++) {
+            events.add(createEvent(i));
+        }
+    }
+
+    @Benchmark
+    public void stringify() {
+        for (AuditEventBase event : events) {
+            writer.println(MiscUtil.stringify(event));
+        }
+
+        writer.flush();
+    }
+
+    @Benchmark
+    public void serializer() throws IOException {
+        AuditEventJsonSerializer serializer = AuditEventJsonSerializer.getInstance().reset();
+
+        for (AuditEventBase event : events) {
+            serializer.appendLine(event);
+        }
+
+        serializer.writeTo(out);
+    }
+
+    private static AuditEventBase createEvent(int idx) {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setRepositoryType(1);
+        ret.setRepositoryName("dev_hive");
+        ret.setUser("user" + (idx % 100));
+        ret.setEventTime(new Date(System.currentTimeMillis() + idx));
+        ret.setAccessType("select");
+        ret.setResourcePath("db" + (idx % 10) + "/table" + idx + "/col" + (idx % 20));
+        ret.setResourceType("@column");
+        ret.setAction("select");
+        ret.setAccessResult((short) 1);
+        ret.setAgentId("hiveServer2");
+        ret.setPolicyId(idx % 50);
+        ret.setAclEnforcer("ranger-acl");
+        ret.setSessionId("a4b3c2d1-" + idx);
+        ret.setClientType("HIVESERVER2");
+        ret.setClientIP("10.0.0." + (idx % 255));
+        ret.setRequestData("select col" + (idx % 20) + " from db" + (idx % 10) + ".table" + idx + " where name = \"user\"");
+        ret.setAgentHostname("hs2.example.com");
+        ret.setLogType("RangerAudit");
+        ret.setEventId("b6f2b0a4-" + idx);
+        ret.setSeqNum(idx);
+        ret.setEventCount(1);
+        ret.setTags(new HashSet<>(Arrays.asList("PII")));
+        ret.setAdditionalInfo("{\"remote-ip-address\":\"10.0.1.1\", \"forwarded-ip-addresses\":\"[]\"}");
+        ret.setClusterName("cl1");
+        ret.setPolicyVersion(3L);
+
+        return ret;
+    }
+}
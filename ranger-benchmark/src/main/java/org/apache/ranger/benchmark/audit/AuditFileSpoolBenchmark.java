@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.audit;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.provider.DummyAuditProvider;
+import org.apache.ranger.audit.queue.AuditBatchQueue;
+import org.apache.ranger.audit.queue.AuditFileSpool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the rate at which AuditFileSpool stores audit events when the destination is down, with the text format
+ * (JSON lines, not forced to disk) and the segment format (CRC-framed records, forced to disk every commitEvents
+ * events). Spool files are written to a temporary directory, which is deleted at the end of the trial.
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar AuditFileSpoolBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditFileSpoolBenchmark {
+    private static final int BATCH_SIZE = 100;
+
+    @Param({AuditFileSpool.FILE_FORMAT_TEXT, AuditFileSpool.FILE_FORMAT_SEGMENT})
+    public String fileFormat;
+
+    @Param({"100", "1000"})
+    public int commitEvents;
+
+    private final List<AuditEventBase> batch = new ArrayList<>(BATCH_SIZE);
+
+    private Path           spoolDir;
+    private AuditFileSpool spool;
+
+    @Setup(Level.Trial)
+    public void createSpool() throws IOException {
+        spoolDir = Files.createTempDirectory("ranger-audit-spool");
+
+        Properties props = new Properties();
+
+        props.setProperty("bench." + AuditFileSpool.PROP_FILE_SPOOL_LOCAL_DIR, spoolDir.toString());
+        props.setProperty("bench." + AuditFileSpool.PROP_FILE_SPOOL_FILE_FORMAT, fileFormat);
+        props.setProperty("bench." + AuditFileSpool.PROP_FILE_SPOOL_COMMIT_EVENTS, Integer.toString(commitEvents));
+
+        DummyAuditProvider consumer = new DummyAuditProvider();
+
+        spool = new AuditFileSpool(new AuditBatchQueue(consumer), consumer); // not started: events are only stored
+
+        spool.init(props, "bench");
+
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(createEvent(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSpool() throws IOException {
+        spool.stop();
+
+        try (Stream<Path> files = Files.walk(spoolDir)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void stashLogs() {
+        spool.stashLogs(batch);
+    }
+
+    private static AuditEventBase createEvent(int idx) {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setRepositoryType(1);
+        ret.setRepositoryName("dev_hdfs");
+        ret.setUser("user" + (idx % 10));
+        ret.setEventTime(new Date());
+        ret.setAccessType("read");
+        ret.setResourcePath("/data/warehouse/db1/table" + idx);
+        ret.setResourceType("path");
+        ret.setAction("read");
+        ret.setAccessResult((short) 1);
+        ret.setAgentId("hdfs");
+        ret.setPolicyId(idx % 50);
+        ret.setClientIP("10.0.0." + (idx % 255));
+        ret.setAgentHostname("nn1.example.com");
+        ret.setLogType("RangerAudit");
+        ret.setEventId("b6f2b0a4-" + idx);
+        ret.setSeqNum(idx);
+        ret.setEventCount(1);
+
+        return ret;
+    }
+}
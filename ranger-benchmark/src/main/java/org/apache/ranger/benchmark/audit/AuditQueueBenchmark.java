@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.audit;
+
+import org.apache.ranger.audit.model.AuditEventBase;
+import org.apache.ranger.audit.model.AuthzAuditEvent;
+import org.apache.ranger.audit.queue.AuditQueue;
+import org.apache.ranger.audit.queue.RingBufferBlockingQueue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the queue implementations available to AuditBatchQueue/AuditAsyncQueue (queue.type=blocking|ringbuffer),
+ * with many authorizer threads enqueuing audit events - as done by RPC handler threads in NameNode - and a single
+ * consumer thread draining the queue in batches, like AuditBatchQueue.runLogAudit().
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar AuditQueueBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(128)
+@State(Scope.Benchmark)
+public class AuditQueueBenchmark {
+    @Param({AuditQueue.QUEUE_TYPE_BLOCKING, AuditQueue.QUEUE_TYPE_RING_BUFFER})
+    public String queueType;
+
+    @Param("1048576")
+    public int queueSize;
+
+    @Param("1000")
+    public int batchSize;
+
+    private final AuditEventBase event = createEvent();
+
+    private BlockingQueue<AuditEventBase> queue;
+    private Thread                        consumerThread;
+
+    @Setup(Level.Trial)
+    public void startConsumer() {
+        if (AuditQueue.QUEUE_TYPE_RING_BUFFER.equals(queueType)) {
+            queue = new RingBufferBlockingQueue<>(queueSize);
+        } else {
+            queue = new ArrayBlockingQueue<>(queueSize);
+        }
+
+        consumerThread = new Thread(this::consume, "AuditQueueBenchmark-consumer");
+
+        consumerThread.setDaemon(true);
+        consumerThread.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopConsumer() throws InterruptedException {
+        consumerThread.interrupt();
+        consumerThread.join();
+    }
+
+    @Benchmark
+    public void put() throws InterruptedException {
+        queue.put(event);
+    }
+
+    @Benchmark
+    public boolean offer(DropCounters counters) {
+        boolean ret = queue.offer(event);
+
+        if (ret) {
+            counters.queued++;
+        } else {
+            counters.dropped++;
+        }
+
+        return ret;
+    }
+
+    private void consume() {
+        List<AuditEventBase> batch = new ArrayList<>(batchSize);
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                AuditEventBase first = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                if (first != null) {
+                    batch.add(first);
+
+                    queue.drainTo(batch, batchSize - 1);
+
+                    batch.clear();
+                }
+            }
+        } catch (InterruptedException excp) {
+            // benchmark trial is complete
+        }
+    }
+
+    private static AuditEventBase createEvent() {
+        AuthzAuditEvent ret = new AuthzAuditEvent();
+
+        ret.setRepositoryName("dev_hdfs");
+        ret.setUser("user1");
+        ret.setAccessType("read");
+        ret.setResourcePath("/data/warehouse/db1/table1");
+        ret.setAccessResult((short) 1);
+
+        return ret;
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class DropCounters {
+        public long queued;
+        public long dropped;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queued  = 0;
+            dropped = 0;
+        }
+    }
+}
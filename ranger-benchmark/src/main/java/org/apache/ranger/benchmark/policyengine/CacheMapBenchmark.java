@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.policyengine;
+
+import org.apache.ranger.plugin.policyengine.CacheMap;
+import org.apache.ranger.plugin.policyengine.ConcurrentCacheMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the audit-result cache implementations used by RangerPolicyRepository, with many authorizer threads
+ * looking up and populating the cache concurrently - as done in NameNode/HiveServer2.
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar CacheMapBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class CacheMapBenchmark {
+    @Param({"synchronized", "concurrent"})
+    public String implementation;
+
+    @Param("65536")
+    public int cacheSize;
+
+    // number of distinct resources accessed; a value larger than cacheSize results in evictions
+    @Param({"16384", "262144"})
+    public int keyCount;
+
+    // percentage of operations that are lookups; others update the cache
+    @Param("90")
+    public int readPercent;
+
+    private Map<String, Boolean> cache;
+    private String[]             keys;
+
+    @Setup(Level.Trial)
+    public void initCache() {
+        if ("concurrent".equals(implementation)) {
+            cache = new ConcurrentCacheMap<>(cacheSize);
+        } else {
+            cache = Collections.synchronizedMap(new CacheMap<>(cacheSize));
+        }
+
+        keys = new String[keyCount];
+
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "/data/warehouse/db" + (i % 100) + "/table" + i;
+            cache.put(keys[i], Boolean.TRUE);
+        }
+    }
+
+    @Benchmark
+    public Boolean lookupOrUpdate() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String            key    = keys[random.nextInt(keyCount)];
+
+        if (random.nextInt(100) < readPercent) {
+            return cache.get(key);
+        } else {
+            return cache.put(key, Boolean.TRUE);
+        }
+    }
+}
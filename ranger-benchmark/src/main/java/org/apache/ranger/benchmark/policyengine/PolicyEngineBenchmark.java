@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.policyengine;
+
+import org.apache.ranger.authorization.hadoop.config.RangerPluginConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResult;
+import org.apache.ranger.plugin.policyengine.RangerPluginContext;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineImpl;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
+import org.apache.ranger.plugin.policyengine.RangerResourceTrie;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator.RangerPolicyResourceEvaluator;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Policy engine hot paths: RangerPolicyEngineImpl.evaluatePolicies() for access, masking and row-filter policies,
+ * RangerResourceTrie.getEvaluatorsForResource() and RangerDefaultPolicyEvaluator.evaluate().
+ *
+ * Policies and requests are generated from ranger-tools perftest fixtures by PolicyEngineFixtures. Each invocation
+ * creates a new request, as done by plugins for every authorization call.
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar PolicyEngineBenchmark -p policyCount=1000
+ * To run with different number of threads, use PolicyEngineBenchmarkRunner.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PolicyEngineBenchmark {
+    private static final int REQUEST_COUNT = 1024; // power of 2, see RequestState.next()
+
+    @Benchmark
+    public RangerAccessResult evaluateAccessPolicies(EngineState engine, RequestState requests) {
+        int idx = requests.next();
+
+        return engine.policyEngine.evaluatePolicies(requests.createRequest(idx, true, requests.accessTypes[idx]), RangerPolicy.POLICY_TYPE_ACCESS, null);
+    }
+
+    @Benchmark
+    public RangerAccessResult evaluateDataMaskPolicies(EngineState engine, RequestState requests) {
+        return engine.policyEngine.evaluatePolicies(requests.createRequest(requests.next(), true, "select"), RangerPolicy.POLICY_TYPE_DATAMASK, null);
+    }
+
+    @Benchmark
+    public RangerAccessResult evaluateRowFilterPolicies(EngineState engine, RequestState requests) {
+        return engine.policyEngine.evaluatePolicies(requests.createRequest(requests.next(), false, "select"), RangerPolicy.POLICY_TYPE_ROWFILTER, null);
+    }
+
+    @Benchmark
+    public Set<RangerPolicyResourceEvaluator> trieGetEvaluatorsForResource(EngineState engine, RequestState requests) {
+        return engine.tableTrie.getEvaluatorsForResource(requests.tables[requests.next()]);
+    }
+
+    @Benchmark
+    public RangerAccessResult policyEvaluatorEvaluate(EngineState engine, RequestState requests) {
+        int                     idx       = requests.next();
+        RangerPolicyEvaluator   evaluator = engine.policyEvaluators[idx % engine.policyEvaluators.length];
+        RangerAccessRequestImpl request   = requests.createRequest(idx, true, requests.accessTypes[idx]);
+        RangerAccessResult      result    = new RangerAccessResult(RangerPolicy.POLICY_TYPE_ACCESS, engine.serviceName, engine.serviceDef, request);
+
+        evaluator.evaluate(request, result);
+
+        return result;
+    }
+
+    @State(Scope.Benchmark)
+    public static class EngineState {
+        @Param({"100", "1000", "5000"})
+        public int policyCount;
+
+        @Param({"0", "20", "50"})
+        public int wildcardPercent;
+
+        @Param({"false", "true"})
+        public boolean principalBitsets;
+
+        String                                            serviceName;
+        RangerServiceDef                                  serviceDef;
+        RangerPolicyEngineImpl                            policyEngine;
+        RangerResourceTrie<RangerPolicyResourceEvaluator> tableTrie;
+        RangerPolicyEvaluator[]                           policyEvaluators;
+
+        @Setup(Level.Trial)
+        public void initEngine() {
+            ServicePolicies           servicePolicies = PolicyEngineFixtures.createServicePolicies(policyCount, wildcardPercent, PolicyEngineFixtures.DEFAULT_SEED);
+            RangerPolicyEngineOptions options         = new RangerPolicyEngineOptions();
+
+            options.evaluatorType          = RangerPolicyEvaluator.EVALUATOR_TYPE_OPTIMIZED;
+            options.cacheAuditResults      = false;
+            options.enablePrincipalBitsets = principalBitsets;
+
+            RangerPluginContext pluginContext = new RangerPluginContext(new RangerPluginConfig(servicePolicies.getServiceDef().getName(), servicePolicies.getServiceName(), "benchmark", "cl1", "on-prem", options));
+
+            serviceName  = servicePolicies.getServiceName();
+            policyEngine = new RangerPolicyEngineImpl(servicePolicies, pluginContext, null);
+            serviceDef   = policyEngine.getServiceDef();
+
+            List<RangerPolicyEvaluator>         evaluators         = policyEngine.getPolicyEngine().getPolicyRepository().getPolicyEvaluators();
+            List<RangerPolicyResourceEvaluator> resourceEvaluators = new ArrayList<>();
+
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                resourceEvaluators.addAll(evaluator.getResourceEvaluators());
+            }
+
+            policyEvaluators = evaluators.toArray(new RangerPolicyEvaluator[0]);
+            tableTrie        = new RangerResourceTrie<>(getResourceDef(PolicyEngineFixtures.RESOURCE_TABLE), resourceEvaluators, options.optimizeTrieForRetrieval, options.optimizeTrieForSpace, pluginContext);
+        }
+
+        private RangerResourceDef getResourceDef(String name) {
+            for (RangerResourceDef resourceDef : serviceDef.getResources()) {
+                if (name.equals(resourceDef.getName())) {
+                    return resourceDef;
+                }
+            }
+
+            throw new IllegalStateException(name + ": resource not found in service-def " + serviceDef.getName());
+        }
+    }
+
+    /**
+     * Per-thread copy of resources, as request processing updates resource and request context.
+     */
+    @State(Scope.Thread)
+    public static class RequestState {
+        RangerAccessResourceImpl[] columnResources;
+        RangerAccessResourceImpl[] tableResources;
+        String[]                   tables;
+        String[]                   users;
+        Set<String>[]              groups;
+        String[]                   accessTypes;
+        int                        next;
+
+        @Setup(Level.Trial)
+        @SuppressWarnings("unchecked")
+        public void initRequests(EngineState engine) {
+            List<Map<String, String>> specs = PolicyEngineFixtures.createRequestSpecs(REQUEST_COUNT, PolicyEngineFixtures.DEFAULT_SEED);
+
+            columnResources = new RangerAccessResourceImpl[REQUEST_COUNT];
+            tableResources  = new RangerAccessResourceImpl[REQUEST_COUNT];
+            tables          = new String[REQUEST_COUNT];
+            users           = new String[REQUEST_COUNT];
+            groups          = new Set[REQUEST_COUNT];
+            accessTypes     = new String[REQUEST_COUNT];
+
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                Map<String, String> spec = specs.get(i);
+
+                columnResources[i] = PolicyEngineFixtures.createResource(spec, engine.serviceDef, true);
+                tableResources[i]  = PolicyEngineFixtures.createResource(spec, engine.serviceDef, false);
+                tables[i]          = spec.get(PolicyEngineFixtures.RESOURCE_TABLE);
+                users[i]           = spec.get("user");
+                groups[i]          = Collections.singleton(spec.get("group"));
+                accessTypes[i]     = spec.get("accessType");
+            }
+        }
+
+        int next() {
+            next = (next + 1) & (REQUEST_COUNT - 1);
+
+            return next;
+        }
+
+        RangerAccessRequestImpl createRequest(int idx, boolean isColumn, String accessType) {
+            return new RangerAccessRequestImpl(isColumn ? columnResources[idx] : tableResources[idx], accessType, users[idx], groups[idx], null);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.policyengine;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs policy engine benchmarks once for each thread count, since JMH takes a single thread count per run.
+ *
+ * Thread counts are read from system property ranger.benchmark.threads (default: 1,4,16); arguments are passed to JMH.
+ * For example:
+ *   java -Dranger.benchmark.threads=1,8,32 -cp ranger-benchmark/target/ranger-benchmarks.jar \
+ *        org.apache.ranger.benchmark.policyengine.PolicyEngineBenchmarkRunner PolicyEngineBenchmark.evaluateAccessPolicies -p wildcardPercent=20
+ */
+public final class PolicyEngineBenchmarkRunner {
+    public static final String PROP_THREADS    = "ranger.benchmark.threads";
+    public static final String DEFAULT_THREADS = "1,4,16";
+    public static final String DEFAULT_INCLUDE = PolicyEngineBenchmarkRunner.class.getPackage().getName() + ".(PolicyEngine|TagEnricher|ServicePoliciesDeserialization)Benchmark";
+
+    private PolicyEngineBenchmarkRunner() {
+        // to block instantiation
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions                  cmdOptions = new CommandLineOptions(args);
+        Map<Integer, Collection<RunResult>> results    = new LinkedHashMap<>();
+
+        for (String value : System.getProperty(PROP_THREADS, DEFAULT_THREADS).split(",")) {
+            int            threads = Integer.parseInt(value.trim());
+            OptionsBuilder options = new OptionsBuilder();
+
+            options.parent(cmdOptions).threads(threads);
+
+            if (cmdOptions.getIncludes().isEmpty()) {
+                options.include(DEFAULT_INCLUDE);
+            }
+
+            results.put(threads, new Runner(options.build()).run());
+        }
+
+        for (Map.Entry<Integer, Collection<RunResult>> entry : results.entrySet()) {
+            System.out.println();
+            System.out.println("# Threads: " + entry.getKey());
+
+            ResultFormatFactory.getInstance(ResultFormatType.TEXT, System.out).writeOut(entry.getValue());
+        }
+    }
+}
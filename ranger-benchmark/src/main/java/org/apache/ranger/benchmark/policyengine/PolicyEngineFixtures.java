@@ -0,0 +1,298 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.policyengine;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerDataMaskPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemAccess;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemRowFilterInfo;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.model.RangerServiceResource;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates policies, tags and requests for the benchmarks, starting from the perftest fixtures of ranger-tools
+ * (testdata/*.json). Given the same arguments, the generated data is the same across runs - so that results of
+ * different commits can be compared.
+ */
+public final class PolicyEngineFixtures {
+    public static final String SERVICE_POLICIES_FIXTURE = "/testdata/test_servicepolicies_hive.json";
+    public static final String POLICY_FIXTURE           = "/testdata/single-policy-template.json";
+    public static final String REQUEST_FIXTURE          = "/testdata/single-request-template.json";
+    public static final String SERVICE_TAGS_FIXTURE     = "/testdata/test_servicetags_hive.json";
+
+    public static final String RESOURCE_DATABASE = "database";
+    public static final String RESOURCE_TABLE    = "table";
+    public static final String RESOURCE_COLUMN   = "column";
+
+    public static final long DEFAULT_SEED = 20151212L;
+
+    private static final int      DATABASE_COUNT = 10;
+    private static final int      TABLE_COUNT    = 100;
+    private static final int      COLUMN_COUNT   = 1000;
+    private static final int      USER_COUNT     = 1000;
+    private static final int      GROUP_COUNT    = 100;
+    private static final String[] ACCESS_TYPES   = {"select", "update", "create", "drop", "alter"};
+
+    private static final Gson GSON = new GsonBuilder().setDateFormat("yyyyMMdd-HH:mm:ss.SSS-Z").create();
+
+    private PolicyEngineFixtures() {
+        // to block instantiation
+    }
+
+    /**
+     * @param policyCount     number of access policies; additionally, policyCount/10 masking and row-filter policies are generated
+     * @param wildcardPercent percentage of policies having wildcards in table/column names, instead of explicit names
+     */
+    public static ServicePolicies createServicePolicies(int policyCount, int wildcardPercent, long seed) {
+        ServicePolicies    ret            = GSON.fromJson(readResource(SERVICE_POLICIES_FIXTURE), ServicePolicies.class);
+        String             policyTemplate = readResource(POLICY_FIXTURE);
+        Random             random         = new Random(seed);
+        RangerServiceDef   serviceDef     = ret.getServiceDef();
+        RangerServiceDef   hiveServiceDef = getEmbeddedServiceDef(serviceDef.getName());
+        List<RangerPolicy> policies       = new ArrayList<>();
+        int                maskCount      = Math.max(1, policyCount / 10);
+
+        // fixture service-def doesn't include masking and row-filter definitions
+        serviceDef.setDataMaskDef(hiveServiceDef.getDataMaskDef());
+        serviceDef.setRowFilterDef(hiveServiceDef.getRowFilterDef());
+
+        for (int i = 0; i < policyCount; i++) {
+            policies.add(createPolicy(policyTemplate, policies.size() + 1, RangerPolicy.POLICY_TYPE_ACCESS, random.nextInt(100) < wildcardPercent, random));
+        }
+
+        for (int i = 0; i < maskCount; i++) {
+            policies.add(createPolicy(policyTemplate, policies.size() + 1, RangerPolicy.POLICY_TYPE_DATAMASK, random.nextInt(100) < wildcardPercent, random));
+        }
+
+        for (int i = 0; i < maskCount; i++) {
+            policies.add(createPolicy(policyTemplate, policies.size() + 1, RangerPolicy.POLICY_TYPE_ROWFILTER, random.nextInt(100) < wildcardPercent, random));
+        }
+
+        ret.setPolicies(policies);
+        ret.setPolicyVersion(1L);
+
+        return ret;
+    }
+
+    /**
+     * @param resourceCount number of tagged database/table resources; tag definition and tag are from the fixture
+     */
+    public static ServiceTags createServiceTags(int resourceCount, long seed) {
+        ServiceTags                 ret              = GSON.fromJson(readResource(SERVICE_TAGS_FIXTURE), ServiceTags.class);
+        RangerServiceResource       resourceTemplate = ret.getServiceResources().get(0);
+        List<Long>                  tagIds           = ret.getResourceToTagIds().get(resourceTemplate.getId());
+        List<RangerServiceResource> resources        = new ArrayList<>(resourceCount);
+        Map<Long, List<Long>>       resourceToTagIds = new HashMap<>();
+        Random                      random           = new Random(seed);
+
+        for (int i = 0; i < resourceCount; i++) {
+            RangerServiceResource             resource = new RangerServiceResource();
+            Map<String, RangerPolicyResource> elements = new LinkedHashMap<>();
+
+            elements.put(RESOURCE_DATABASE, new RangerPolicyResource(database(random.nextInt(DATABASE_COUNT))));
+            elements.put(RESOURCE_TABLE, new RangerPolicyResource(table(random.nextInt(TABLE_COUNT))));
+
+            resource.setId((long) i + 1);
+            resource.setServiceName(ret.getServiceName());
+            resource.setResourceElements(elements);
+
+            resources.add(resource);
+            resourceToTagIds.put(resource.getId(), tagIds);
+        }
+
+        ret.setServiceResources(resources);
+        ret.setResourceToTagIds(resourceToTagIds);
+
+        return ret;
+    }
+
+    /**
+     * @return request specs, each a map of resource-name to value along with "user", "group" and "accessType" entries
+     */
+    public static List<Map<String, String>> createRequestSpecs(int count, long seed) {
+        Map<String, Object>       template = getRequestTemplate();
+        Random                    random   = new Random(seed);
+        List<Map<String, String>> ret      = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            Map<String, String> spec = new HashMap<>();
+
+            spec.put(RESOURCE_DATABASE, database(random.nextInt(DATABASE_COUNT)));
+            spec.put(RESOURCE_TABLE, table(random.nextInt(TABLE_COUNT)));
+            spec.put(RESOURCE_COLUMN, column(random.nextInt(COLUMN_COUNT)));
+            spec.put("user", user(random.nextInt(USER_COUNT)));
+            spec.put("group", group(random.nextInt(GROUP_COUNT)));
+            spec.put("accessType", i % 2 == 0 ? (String) template.get("accessType") : ACCESS_TYPES[random.nextInt(ACCESS_TYPES.length)]);
+
+            ret.add(spec);
+        }
+
+        return ret;
+    }
+
+    public static RangerAccessResourceImpl createResource(Map<String, String> spec, RangerServiceDef serviceDef, boolean includeColumn) {
+        RangerAccessResourceImpl ret = new RangerAccessResourceImpl();
+
+        ret.setValue(RESOURCE_DATABASE, spec.get(RESOURCE_DATABASE));
+        ret.setValue(RESOURCE_TABLE, spec.get(RESOURCE_TABLE));
+
+        if (includeColumn) {
+            ret.setValue(RESOURCE_COLUMN, spec.get(RESOURCE_COLUMN));
+        }
+
+        ret.setServiceDef(serviceDef);
+
+        return ret;
+    }
+
+    public static String readResource(String name) {
+        try (InputStream in = PolicyEngineFixtures.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalStateException(name + ": resource not found");
+            }
+
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getRequestTemplate() {
+        Map<String, Object> ret = GSON.fromJson(readResource(REQUEST_FIXTURE), Map.class);
+
+        return (Map<String, Object>) ret.get("request");
+    }
+
+    private static RangerPolicy createPolicy(String template, long id, int policyType, boolean isWildcard, Random random) {
+        RangerPolicy                      ret       = GSON.fromJson(template, RangerPolicy.class);
+        RangerPolicyItem                  item      = ret.getPolicyItems().get(0);
+        List<String>                      users     = pickFew(random, "user_", USER_COUNT, 20);
+        List<String>                      groups    = pickFew(random, "group_", GROUP_COUNT, 2);
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put(RESOURCE_DATABASE, new RangerPolicyResource(database(random.nextInt(DATABASE_COUNT))));
+
+        if (isWildcard) {
+            resources.put(RESOURCE_TABLE, new RangerPolicyResource("tbl_" + random.nextInt(10) + "*"));
+        } else {
+            resources.put(RESOURCE_TABLE, new RangerPolicyResource(pickFew(random, "tbl_", TABLE_COUNT, 5), false, false));
+        }
+
+        if (policyType != RangerPolicy.POLICY_TYPE_ROWFILTER) {
+            if (isWildcard) {
+                resources.put(RESOURCE_COLUMN, new RangerPolicyResource("*"));
+            } else {
+                resources.put(RESOURCE_COLUMN, new RangerPolicyResource(pickFew(random, "col_", COLUMN_COUNT, 10), false, false));
+            }
+        }
+
+        ret.setId(id);
+        ret.setName("generated-policy-" + id);
+        ret.setPolicyType(policyType);
+        ret.setResources(resources);
+        ret.setPolicyItems(new ArrayList<>());
+
+        List<RangerPolicyItemAccess> select = Collections.singletonList(new RangerPolicyItemAccess("select"));
+
+        switch (policyType) {
+            case RangerPolicy.POLICY_TYPE_DATAMASK:
+                ret.setDataMaskPolicyItems(Collections.singletonList(new RangerDataMaskPolicyItem(select, new RangerPolicyItemDataMaskInfo("MASK_SHOW_LAST_4", null, null), users, groups, null, null, false)));
+                break;
+
+            case RangerPolicy.POLICY_TYPE_ROWFILTER:
+                ret.setRowFilterPolicyItems(Collections.singletonList(new RangerRowFilterPolicyItem(new RangerPolicyItemRowFilterInfo("region = 'r" + id + "'"), select, users, groups, null, null, false)));
+                break;
+
+            default:
+                item.setUsers(users);
+                item.setGroups(groups);
+                item.setDelegateAdmin(false);
+
+                ret.getPolicyItems().add(item);
+                break;
+        }
+
+        return ret;
+    }
+
+    private static RangerServiceDef getEmbeddedServiceDef(String serviceType) {
+        try {
+            return EmbeddedServiceDefsUtil.instance().getEmbeddedServiceDef(serviceType);
+        } catch (Exception excp) {
+            throw new IllegalStateException("failed to load service-def " + serviceType, excp);
+        }
+    }
+
+    private static List<String> pickFew(Random random, String prefix, int range, int maxCount) {
+        Set<String> ret   = new HashSet<>();
+        int         count = 1 + random.nextInt(maxCount);
+
+        for (int i = 0; i < count; i++) {
+            ret.add(prefix + random.nextInt(range));
+        }
+
+        return new ArrayList<>(ret);
+    }
+
+    private static String database(int i) {
+        return "db_" + i;
+    }
+
+    private static String table(int i) {
+        return "tbl_" + i;
+    }
+
+    private static String column(int i) {
+        return "col_" + i;
+    }
+
+    private static String user(int i) {
+        return "user_" + i;
+    }
+
+    private static String group(int i) {
+        return "group_" + i;
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.policyengine;
+
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerServiceDef.RangerResourceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequest.ResourceElementMatchingScope;
+import org.apache.ranger.plugin.resourcematcher.RangerAbstractResourceMatcher;
+import org.apache.ranger.plugin.resourcematcher.RangerDefaultResourceMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures RangerDefaultResourceMatcher.isMatch() for a policy resource listing many values, a mix of exact and
+ * wildcard values, with and without the values compiled into a single automaton (matcher option multiPatternMatch).
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar ResourceMatcherBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResourceMatcherBenchmark {
+    private static final int RESOURCE_COUNT = 1024;
+
+    @Param({"10", "100", "1000"})
+    public int valueCount;
+
+    // percentage of values having wildcards
+    @Param({"0", "50"})
+    public int wildcardPercent;
+
+    @Param({"false", "true"})
+    public boolean multiPatternMatch;
+
+    private RangerDefaultResourceMatcher matcher;
+    private String[]                     resources;
+    private Map<String, Object>          evalContext;
+    private int                          nextIdx;
+
+    @Setup(Level.Trial)
+    public void initMatcher() {
+        Random              random         = new Random(PolicyEngineFixtures.DEFAULT_SEED);
+        List<String>        values         = new ArrayList<>(valueCount);
+        Map<String, String> matcherOptions = new HashMap<>();
+        RangerResourceDef   resourceDef    = new RangerResourceDef();
+
+        for (int i = 0; i < valueCount; i++) {
+            boolean isWildcard = random.nextInt(100) < wildcardPercent;
+
+            values.add(isWildcard ? ("tbl_" + i + "_*") : ("table_" + i));
+        }
+
+        matcherOptions.put(RangerAbstractResourceMatcher.OPTION_WILD_CARD, Boolean.TRUE.toString());
+        matcherOptions.put(RangerAbstractResourceMatcher.OPTION_IGNORE_CASE, Boolean.TRUE.toString());
+        matcherOptions.put(RangerAbstractResourceMatcher.OPTION_MULTI_PATTERN_MATCH, Boolean.toString(multiPatternMatch));
+
+        resourceDef.setName(PolicyEngineFixtures.RESOURCE_TABLE);
+        resourceDef.setMatcherOptions(matcherOptions);
+
+        matcher = new RangerDefaultResourceMatcher();
+
+        matcher.setResourceDef(resourceDef);
+        matcher.setPolicyResource(new RangerPolicyResource(values, Boolean.FALSE, Boolean.FALSE));
+        matcher.init();
+
+        // half of the resources match one of the values
+        resources = new String[RESOURCE_COUNT];
+
+        for (int i = 0; i < RESOURCE_COUNT; i++) {
+            int idx = random.nextInt(valueCount);
+
+            if (i % 2 == 0) {
+                resources[i] = values.get(idx).replace("*", "sales");
+            } else {
+                resources[i] = "Table_" + (valueCount + idx);
+            }
+        }
+
+        evalContext = Collections.emptyMap();
+    }
+
+    @Benchmark
+    public boolean isMatch() {
+        String resource = resources[nextIdx++ & (RESOURCE_COUNT - 1)];
+
+        return matcher.isMatch(resource, ResourceElementMatchingScope.SELF, evalContext);
+    }
+}
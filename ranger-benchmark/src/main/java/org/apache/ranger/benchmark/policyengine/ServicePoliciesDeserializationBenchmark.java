@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.policyengine;
+
+import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.plugin.util.JsonUtilsV2;
+import org.apache.ranger.plugin.util.RangerCacheSnapshot;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of ServicePolicies, as done by plugins on receiving policies from Ranger Admin (RangerAdminRESTClient)
+ * and on loading policies from the local cache file (PolicyRefresher), as JSON or as binary snapshot (RangerCacheSnapshot).
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar ServicePoliciesDeserializationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServicePoliciesDeserializationBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int policyCount;
+
+    @Param({"0", "50"})
+    public int wildcardPercent;
+
+    private String adminResponseJson;
+    private String cacheFileJson;
+    private File   snapshotFile;
+
+    @Setup(Level.Trial)
+    public void initJson() throws IOException {
+        ServicePolicies servicePolicies = PolicyEngineFixtures.createServicePolicies(policyCount, wildcardPercent, PolicyEngineFixtures.DEFAULT_SEED);
+
+        // each is serialized with the mapper used to deserialize, as their date formats differ
+        adminResponseJson = JsonUtilsV2.getMapper().writeValueAsString(servicePolicies);
+        cacheFileJson     = JsonUtils.objectToJson(servicePolicies);
+        snapshotFile      = File.createTempFile("ranger-benchmark-policies", RangerCacheSnapshot.SNAPSHOT_FILE_EXT);
+
+        RangerCacheSnapshot.save(snapshotFile, servicePolicies);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSnapshot() {
+        if (snapshotFile != null && !snapshotFile.delete()) {
+            snapshotFile.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public ServicePolicies fromAdminResponse() throws IOException {
+        return JsonUtilsV2.jsonToObj(adminResponseJson, ServicePolicies.class);
+    }
+
+    @Benchmark
+    public ServicePolicies fromCacheFile() {
+        return JsonUtils.jsonToObject(new StringReader(cacheFileJson), ServicePolicies.class);
+    }
+
+    @Benchmark
+    public ServicePolicies fromSnapshotFile() throws IOException {
+        return RangerCacheSnapshot.load(snapshotFile, ServicePolicies.class);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.benchmark.policyengine;
+
+import org.apache.ranger.plugin.contextenricher.RangerTagEnricher;
+import org.apache.ranger.plugin.model.RangerServiceDef;
+import org.apache.ranger.plugin.policyengine.RangerAccessRequestImpl;
+import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceTags;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RangerTagEnricher.enrich() with resources tagged as in ranger-tools perftest fixture test_servicetags_hive.json.
+ *
+ * Run with: java -jar ranger-benchmark/target/ranger-benchmarks.jar TagEnricherBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TagEnricherBenchmark {
+    private static final int REQUEST_COUNT = 1024; // power of 2, see RequestState.next()
+
+    @Benchmark
+    public RangerAccessRequestImpl enrich(EnricherState enricher, RequestState requests) {
+        int                     idx     = requests.next();
+        RangerAccessRequestImpl request = new RangerAccessRequestImpl(requests.resources[idx], requests.accessTypes[idx], requests.users[idx], null, null);
+
+        enricher.tagEnricher.enrich(request);
+
+        return request;
+    }
+
+    @State(Scope.Benchmark)
+    public static class EnricherState {
+        // number of tagged resources
+        @Param({"100", "1000", "10000"})
+        public int resourceCount;
+
+        RangerServiceDef  serviceDef;
+        RangerTagEnricher tagEnricher;
+
+        @Setup(Level.Trial)
+        public void initEnricher() {
+            ServicePolicies servicePolicies = PolicyEngineFixtures.createServicePolicies(0, 0, PolicyEngineFixtures.DEFAULT_SEED);
+            ServiceTags     serviceTags     = PolicyEngineFixtures.createServiceTags(resourceCount, PolicyEngineFixtures.DEFAULT_SEED);
+
+            serviceDef  = servicePolicies.getServiceDef();
+            tagEnricher = new RangerTagEnricher();
+
+            tagEnricher.setServiceName(servicePolicies.getServiceName());
+            tagEnricher.setServiceDef(serviceDef);
+            tagEnricher.init();
+            tagEnricher.setServiceTags(serviceTags);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class RequestState {
+        RangerAccessResourceImpl[] resources;
+        String[]                   users;
+        String[]                   accessTypes;
+        int                        next;
+
+        @Setup(Level.Trial)
+        public void initRequests(EnricherState enricher) {
+            List<Map<String, String>> specs = PolicyEngineFixtures.createRequestSpecs(REQUEST_COUNT, PolicyEngineFixtures.DEFAULT_SEED);
+
+            resources   = new RangerAccessResourceImpl[REQUEST_COUNT];
+            users       = new String[REQUEST_COUNT];
+            accessTypes = new String[REQUEST_COUNT];
+
+            for (int i = 0; i < REQUEST_COUNT; i++) {
+                Map<String, String> spec = specs.get(i);
+
+                resources[i]   = PolicyEngineFixtures.createResource(spec, enricher.serviceDef, true);
+                users[i]       = spec.get("user");
+                accessTypes[i] = spec.get("accessType");
+            }
+        }
+
+        int next() {
+            next = (next + 1) & (REQUEST_COUNT - 1);
+
+            return next;
+        }
+    }
+}
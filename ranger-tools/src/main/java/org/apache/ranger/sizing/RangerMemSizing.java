@@ -44,7 +44,9 @@
 import org.apache.ranger.plugin.policyengine.RangerAccessResourceImpl;
 import org.apache.ranger.plugin.policyengine.RangerPolicyEngineOptions;
 import org.apache.ranger.plugin.service.RangerBasePlugin;
+import org.apache.ranger.plugin.util.RangerCommonConstants;
 import org.apache.ranger.plugin.util.RangerRoles;
+import org.apache.ranger.plugin.util.RangerStringPool;
 import org.apache.ranger.plugin.util.RangerUserStore;
 import org.apache.ranger.plugin.util.ServiceGdsInfo;
 import org.apache.ranger.plugin.util.ServicePolicies;
@@ -90,8 +92,10 @@ public class RangerMemSizing {
     private final String      gdsInfoFile;
     private final boolean     deDup;
     private final boolean     deDupStrings;
+    private final boolean     sharedStringPool;
     private final String      optimizationMode;
     private final boolean     reuseResourceMatchers;
+    private final boolean     compactTrieNodes;
     private final PrintStream out;
 
     public RangerMemSizing(CommandLine cmdLine) {
@@ -107,8 +111,10 @@ public RangerMemSizing(CommandLine cmdLine) {
         this.gdsInfoFile           = cmdLine.getOptionValue('g');
         this.deDup                 = Boolean.parseBoolean(cmdLine.getOptionValue("d", "true"));
         this.deDupStrings          = this.deDup;
+        this.sharedStringPool      = Boolean.parseBoolean(cmdLine.getOptionValue('s', "false"));
         this.optimizationMode      = StringUtils.startsWithIgnoreCase(cmdLine.getOptionValue('o', "space"), "s") ? OPT_MODE_SPACE : OPT_MODEL_RETRIEVAL;
         this.reuseResourceMatchers = Boolean.parseBoolean(cmdLine.getOptionValue('m', "true"));
+        this.compactTrieNodes      = Boolean.parseBoolean(cmdLine.getOptionValue('n', "true"));
     }
 
     public static void main(String[] args) {
@@ -174,14 +180,22 @@ public void run() {
         }
 
         out.println("  DeDup:         " + deDup);
+        out.println("  SharedStrings: " + (deDupStrings && sharedStringPool));
         out.println("  OptMode:       " + optimizationMode);
         out.println("  ReuseMatchers: " + reuseResourceMatchers);
+        out.println("  CompactTrie:   " + (compactTrieNodes && optimizationMode.equals(OPT_MODE_SPACE)));
         out.println();
 
         out.println("Results:");
         out.println("*****************************");
         tracker.print(out, true);
         out.println("*****************************");
+
+        if (deDupStrings && sharedStringPool) {
+            RangerStringPool stringPool = RangerStringPool.getInstance();
+
+            out.println("StringPool:      size=" + stringPool.getSize() + ", dedups=" + stringPool.getDedupCount() + ", savedBytes=" + stringPool.getSavedBytes());
+        }
     }
 
     private ServicePolicies loadPolicies(String fileName, PerfMemTimeTracker parent) {
@@ -211,7 +225,7 @@ private ServicePolicies loadPolicies(String fileName, PerfMemTimeTracker parent)
             if (deDupStrings) {
                 PerfMemTimeTracker tracker = new PerfMemTimeTracker("DeDupStrings");
 
-                ret.dedupStrings();
+                ret.dedupStrings(RangerStringPool.getStringTable(sharedStringPool, "policies"));
 
                 tracker.stop();
                 loadTracker.addChild(tracker);
@@ -269,7 +283,7 @@ private ServiceTags loadTags(String fileName, PerfMemTimeTracker parent) {
             if (deDupStrings) {
                 PerfMemTimeTracker tracker = new PerfMemTimeTracker("DeDupStrings");
 
-                ret.dedupStrings();
+                ret.dedupStrings(RangerStringPool.getStringTable(sharedStringPool, "tags"));
 
                 tracker.stop();
                 loadTracker.addChild(tracker);
@@ -345,7 +359,7 @@ private RangerUserStore loadUserStore(String fileName, PerfMemTimeTracker parent
             if (deDupStrings) {
                 PerfMemTimeTracker tracker = new PerfMemTimeTracker("DeDupStrings");
 
-                ret.dedupStrings();
+                ret.dedupStrings(RangerStringPool.getStringTable(sharedStringPool, "userstore"));
 
                 tracker.stop();
                 loadTracker.addChild(tracker);
@@ -418,6 +432,9 @@ private RangerBasePlugin createRangerPlugin(ServicePolicies policies, ServiceTag
             String             serviceName  = policies.getServiceName();
             RangerPluginConfig pluginConfig = new RangerPluginConfig(serviceType, serviceName, serviceType, null, null, getPolicyEngineOptions());
 
+            pluginConfig.setBoolean("ranger.policyengine.trie.compact.nodes", compactTrieNodes);
+            pluginConfig.setBoolean(pluginConfig.getPropertyPrefix() + RangerCommonConstants.PLUGIN_CONFIG_SUFFIX_DEDUP_STRINGS_SHARED, sharedStringPool);
+
             PerfMemTimeTracker tracker = new PerfMemTimeTracker("RangerBasePlugin initialization");
 
             log("Initializing RangerBasePlugin...");
@@ -573,6 +590,8 @@ private static CommandLine parseArgs(String[] args) {
         Option optimizeMode          = new Option("o", "optMode", true, "optimization mode: space|retrieval");
         Option reuseResourceMatchers = new Option("m", "reuseResourceMatchers", true, "reuse resource matchers: true|false");
         Option genResourceKeys       = new Option("k", "genResourceKeys", true, "list of resourceKeys (comma separated) to generate requests for");
+        Option compactTrieNodes      = new Option("n", "compactTrieNodes", true, "compact trie nodes, when optMode is space: true|false");
+        Option sharedStringPool      = new Option("s", "sharedStringPool", true, "deDup strings of policies, tags and userStore using a shared pool: true|false");
 
         Options options = new Options();
 
@@ -589,6 +608,8 @@ private static CommandLine parseArgs(String[] args) {
         options.addOption(optimizeMode);
         options.addOption(reuseResourceMatchers);
         options.addOption(genResourceKeys);
+        options.addOption(compactTrieNodes);
+        options.addOption(sharedStringPool);
 
         try {
             CommandLine cmdLine = new DefaultParser().parse(options, args);
@@ -48,6 +48,8 @@
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
 import org.apache.ranger.plugin.model.RangerRole;
 import org.apache.ranger.plugin.util.ServiceDefUtil;
+import org.apache.ranger.security.context.RangerAdminOpContext;
+import org.apache.ranger.security.context.RangerContextHolder;
 import org.apache.ranger.service.XGroupService;
 import org.apache.ranger.view.VXGroup;
 import org.apache.ranger.view.VXResponse;
@@ -60,11 +62,14 @@
 import javax.servlet.http.HttpServletResponse;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.apache.ranger.service.RangerBaseModelService.OPERATION_CREATE_CONTEXT;
@@ -136,9 +141,11 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
         final Set<String> accessTypes    = new HashSet<>();
         final Set<String> conditionTypes = new HashSet<>();
         final Set<String> dataMaskTypes  = new HashSet<>();
-        boolean           oldBulkMode    = RangerBizUtil.isBulkMode();
+        boolean           isBulkMode     = RangerBizUtil.isBulkMode();
         final Long policyId = policy.getId();
 
+        final RangerAdminOpContext opContext = isBulkMode ? RangerContextHolder.getOpContext() : null;
+
         List<RangerPolicy.RangerPolicyItemCondition> rangerPolicyConditions = policy.getConditions();
 
         if (CollectionUtils.isNotEmpty(rangerPolicyConditions)) {
@@ -201,7 +208,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 xPolResources.add(xPolRes);
             }
 
-            batchInsert(xPolResources, daoMgr.getXXPolicyRefResource(), oldBulkMode);
+            batchInsert(xPolResources, daoMgr.getXXPolicyRefResource());
         }
 
         if (createPrincipalsIfAbsent && !rangerBizUtil.checkAdminAccess()) {
@@ -221,7 +228,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                     .collect(Collectors.toSet());
 
             List<XXPolicyRefRole> xPolRoles = new ArrayList<>();
-            Map<String, Long>     nameToId  = daoMgr.getXXRole().getIdsByRoleNames(filteredRoleNames);
+            Map<String, Long>     nameToId  = getIds(filteredRoleNames, opContext != null ? opContext.getRoleIds() : null, daoMgr.getXXRole()::getIdsByRoleNames);
 
             for (String roleName : filteredRoleNames) {
                 Long                 roleId     = nameToId.get(roleName);
@@ -245,7 +252,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 }
             }
 
-            batchInsert(xPolRoles, daoMgr.getXXPolicyRefRole(), oldBulkMode);
+            batchInsert(xPolRoles, daoMgr.getXXPolicyRefRole());
         }
 
         if (CollectionUtils.isNotEmpty(groupNames)) {
@@ -256,7 +263,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                     .collect(Collectors.toSet());
 
             List<XXPolicyRefGroup> xPolGroups = new ArrayList<>();
-            Map<String, Long>      nameToId   = daoMgr.getXXGroup().getIdsByGroupNames(filteredGroupNames);
+            Map<String, Long>      nameToId   = getIds(filteredGroupNames, opContext != null ? opContext.getGroupIds() : null, daoMgr.getXXGroup()::getIdsByGroupNames);
 
             for (String groupName : filteredGroupNames) {
                 Long                  groupId    = nameToId.get(groupName);
@@ -280,7 +287,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 }
             }
 
-            batchInsert(xPolGroups, daoMgr.getXXPolicyRefGroup(), oldBulkMode);
+            batchInsert(xPolGroups, daoMgr.getXXPolicyRefGroup());
         }
 
         if (CollectionUtils.isNotEmpty(userNames)) {
@@ -291,7 +298,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                     .collect(Collectors.toSet());
 
             List<XXPolicyRefUser> xPolUsers = new ArrayList<>();
-            Map<String, Long>     nameToId  = daoMgr.getXXUser().getIdsByUserNames(filteredUserNames);
+            Map<String, Long>     nameToId  = getIds(filteredUserNames, opContext != null ? opContext.getUserIds() : null, daoMgr.getXXUser()::getIdsByUserNames);
 
             for (String userName : filteredUserNames) {
                 Long                 userId     = nameToId.get(userName);
@@ -315,7 +322,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 }
             }
 
-            batchInsert(xPolUsers, daoMgr.getXXPolicyRefUser(), oldBulkMode);
+            batchInsert(xPolUsers, daoMgr.getXXPolicyRefUser());
         }
 
         // ignore built-in access-types while creating ref-table entries
@@ -341,7 +348,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 xPolAccesses.add(xPolAccess);
             }
 
-            batchInsert(xPolAccesses, daoMgr.getXXPolicyRefAccessType(), oldBulkMode);
+            batchInsert(xPolAccesses, daoMgr.getXXPolicyRefAccessType());
         }
 
         if (CollectionUtils.isNotEmpty(conditionTypes)) {
@@ -368,7 +375,7 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 xPolConds.add(xPolCond);
             }
 
-            batchInsert(xPolConds, daoMgr.getXXPolicyRefCondition(), oldBulkMode);
+            batchInsert(xPolConds, daoMgr.getXXPolicyRefCondition());
         }
 
         if (CollectionUtils.isNotEmpty(dataMaskTypes)) {
@@ -391,7 +398,60 @@ public void createNewPolMappingForRefTable(RangerPolicy policy, XXPolicy xPolicy
                 xxDataMaskInfos.add(xxDataMaskInfo);
             }
 
-            batchInsert(xxDataMaskInfos, daoMgr.getXXPolicyRefDataMaskType(), oldBulkMode);
+            batchInsert(xxDataMaskInfos, daoMgr.getXXPolicyRefDataMaskType());
+        }
+
+        if (isBulkMode) {
+            // flush ref-table entries of the policy together, so that inserts into each table are sent in a JDBC batch
+            daoMgr.getXXDBBase().flush();
+        }
+    }
+
+    /**
+     * Looks up ids of users, groups and roles referenced in given policies - with one query for each type of
+     * principal, instead of one per policy. Ids are cached in the operation context, for use by
+     * createNewPolMappingForRefTable() in bulk mode, until clearPrincipalIdCache() is called.
+     */
+    public void cachePrincipalIds(Collection<RangerPolicy> policies) {
+        LOG.debug("==> PolicyRefUpdater.cachePrincipalIds(policyCount={})", policies == null ? 0 : policies.size());
+
+        if (CollectionUtils.isNotEmpty(policies)) {
+            RangerAdminOpContext opContext  = RangerContextHolder.getOrCreateOpContext();
+            Set<String>          roleNames  = new HashSet<>();
+            Set<String>          groupNames = new HashSet<>();
+            Set<String>          userNames  = new HashSet<>();
+
+            for (RangerPolicy policy : policies) {
+                for (List<? extends RangerPolicyItem> policyItems : getAllPolicyItems(policy)) {
+                    for (RangerPolicyItem policyItem : policyItems) {
+                        roleNames.addAll(policyItem.getRoles());
+                        groupNames.addAll(policyItem.getGroups());
+                        userNames.addAll(policyItem.getUsers());
+                    }
+                }
+            }
+
+            if (opContext.getRoleIds() == null) {
+                opContext.setRoleIds(new HashMap<>());
+                opContext.setGroupIds(new HashMap<>());
+                opContext.setUserIds(new HashMap<>());
+            }
+
+            getIds(roleNames, opContext.getRoleIds(), daoMgr.getXXRole()::getIdsByRoleNames);
+            getIds(groupNames, opContext.getGroupIds(), daoMgr.getXXGroup()::getIdsByGroupNames);
+            getIds(userNames, opContext.getUserIds(), daoMgr.getXXUser()::getIdsByUserNames);
+
+            LOG.debug("<== PolicyRefUpdater.cachePrincipalIds(policyCount={}): roles={}, groups={}, users={}", policies.size(), opContext.getRoleIds().size(), opContext.getGroupIds().size(), opContext.getUserIds().size());
+        }
+    }
+
+    public void clearPrincipalIdCache() {
+        RangerAdminOpContext opContext = RangerContextHolder.getOpContext();
+
+        if (opContext != null) {
+            opContext.setRoleIds(null);
+            opContext.setGroupIds(null);
+            opContext.setUserIds(null);
         }
     }
 
@@ -822,15 +882,47 @@ private Long createUser() {
         }
     }
 
-    private <T> void batchInsert(List<T> entities, BaseDao<T> dao, boolean oldBulkMode) {
+    /**
+     * @param cache ids looked up earlier; ids not found in the cache are looked up in the database, in batches, and added to the cache. Can be null
+     */
+    private static Map<String, Long> getIds(Set<String> names, Map<String, Long> cache, Function<Collection<String>, Map<String, Long>> lookup) {
+        final Map<String, Long> ret;
+
+        if (cache == null) {
+            ret = lookup.apply(names);
+        } else {
+            List<String> toLookup = new ArrayList<>();
+
+            ret = new HashMap<>();
+
+            for (String name : names) {
+                Long id = cache.get(name);
+
+                if (id != null) {
+                    ret.put(name, id);
+                } else if (StringUtils.isNotBlank(name)) {
+                    toLookup.add(name);
+                }
+            }
+
+            for (int fromIndex = 0; fromIndex < toLookup.size(); fromIndex += RangerBizUtil.BATCH_PERSIST_SIZE) {
+                Map<String, Long> ids = lookup.apply(toLookup.subList(fromIndex, Math.min(fromIndex + RangerBizUtil.BATCH_PERSIST_SIZE, toLookup.size())));
+
+                cache.putAll(ids);
+                ret.putAll(ids);
+            }
+        }
+
+        return ret;
+    }
+
+    private <T> void batchInsert(List<T> entities, BaseDao<T> dao) {
         if (CollectionUtils.isNotEmpty(entities)) {
             long startTimeMs = System.currentTimeMillis();
 
             LOG.debug("Batch insert started for create/update {} with {} records.", dao.getClass().getSimpleName(), entities.size());
 
-            RangerBizUtil.setBulkMode(false);
-            dao.batchCreate(entities);
-            RangerBizUtil.setBulkMode(oldBulkMode);
+            dao.batchCreate(entities); // in bulk mode, flushed at the end of createNewPolMappingForRefTable()
 
             LOG.debug("Batch insert completed for create/update {} with {} records in {} ms.", dao.getClass().getSimpleName(), entities.size(), (System.currentTimeMillis() - startTimeMs));
         }
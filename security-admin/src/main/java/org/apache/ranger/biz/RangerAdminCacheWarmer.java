@@ -0,0 +1,295 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.plugin.model.RangerServiceHeaderInfo;
+import org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Loads policies, tags, roles and userstore of services into Ranger admin caches once the application context is
+ * initialized, so that the first download requests from plugins - after a restart, or after failover to this
+ * instance - are served from the caches instead of all of them waiting on the per-service cache lock for the load
+ * from the database. Services are loaded in parallel, in a bounded thread pool; each service is loaded in its own
+ * read-only transaction. Warm-up runs in the background and doesn't delay startup; isReady() reports its completion.
+ */
+@Component
+public class RangerAdminCacheWarmer implements ApplicationListener<ContextRefreshedEvent> {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerAdminCacheWarmer.class);
+
+    public static final String PROP_ENABLED    = "ranger.admin.cache.warmup.enabled";
+    public static final String PROP_SERVICES   = "ranger.admin.cache.warmup.services";
+    public static final String PROP_THREADS    = "ranger.admin.cache.warmup.threads";
+    public static final String PROP_TIMEOUT_MS = "ranger.admin.cache.warmup.timeout.ms";
+
+    public enum WarmUpState { NOT_STARTED, IN_PROGRESS, COMPLETED, TIMED_OUT, FAILED, DISABLED }
+
+    private final AtomicBoolean isStarted          = new AtomicBoolean(false);
+    private final AtomicInteger loadedServiceCount = new AtomicInteger();
+    private final AtomicInteger failedServiceCount = new AtomicInteger();
+
+    @Autowired
+    RangerDaoManager daoMgr;
+
+    @Autowired
+    ServiceDBStore svcStore;
+
+    @Autowired
+    TagDBStore tagStore;
+
+    @Autowired
+    RoleDBStore roleStore;
+
+    @Autowired
+    XUserMgr xUserMgr;
+
+    @Autowired
+    @Qualifier(value = "transactionManager")
+    PlatformTransactionManager txManager;
+
+    private volatile WarmUpState     state = WarmUpState.NOT_STARTED;
+    private volatile ExecutorService executor;
+    private volatile int             serviceCount;
+    private volatile long            startTimeMs;
+    private volatile long            timeTakenMs;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!isStarted.compareAndSet(false, true)) { // refresh of child contexts
+            return;
+        }
+
+        RangerAdminConfig config    = RangerAdminConfig.getInstance();
+        boolean           isEnabled = config.getBoolean(PROP_ENABLED, true);
+
+        LOG.info("{}={}", PROP_ENABLED, isEnabled);
+
+        if (!isEnabled) {
+            state = WarmUpState.DISABLED;
+
+            return;
+        }
+
+        int         threadCount = Math.max(1, config.getInt(PROP_THREADS, 4));
+        long        timeoutMs   = config.getLong(PROP_TIMEOUT_MS, 10 * 60 * 1000L);
+        Set<String> services    = toSet(config.get(PROP_SERVICES));
+
+        LOG.info("{}={}", PROP_SERVICES, services.isEmpty() ? "<all>" : services);
+        LOG.info("{}={}", PROP_THREADS, threadCount);
+        LOG.info("{}={}", PROP_TIMEOUT_MS, timeoutMs);
+
+        Thread thread = new Thread(() -> warmUp(services, threadCount, timeoutMs), "RangerAdminCacheWarmer");
+
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void destroy() {
+        ExecutorService executor = this.executor;
+
+        if (executor != null) {
+            LOG.info("attempt to shutdown RangerAdminCacheWarmer");
+
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true once warm-up is over - irrespective of its outcome - or is disabled
+     */
+    public boolean isReady() {
+        WarmUpState state = this.state;
+
+        return state != WarmUpState.NOT_STARTED && state != WarmUpState.IN_PROGRESS;
+    }
+
+    public WarmUpState getState() {
+        return state;
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        ret.put("state", state);
+        ret.put("services", serviceCount);
+        ret.put("loaded", loadedServiceCount.get());
+        ret.put("failed", failedServiceCount.get());
+        ret.put("timeTakenMs", state == WarmUpState.IN_PROGRESS ? (System.currentTimeMillis() - startTimeMs) : timeTakenMs);
+
+        return ret;
+    }
+
+    void warmUp(Set<String> serviceNames, int threadCount, long timeoutMs) {
+        LOG.info("==> RangerAdminCacheWarmer.warmUp(services={}, threads={})", serviceNames.isEmpty() ? "<all>" : serviceNames, threadCount);
+
+        startTimeMs = System.currentTimeMillis();
+        state       = WarmUpState.IN_PROGRESS;
+
+        WarmUpState finalState = WarmUpState.FAILED;
+
+        try {
+            List<RangerServiceHeaderInfo> services = getServicesToLoad(serviceNames);
+
+            serviceCount = services.size();
+            executor     = Executors.newFixedThreadPool(threadCount, new WarmUpThreadFactory());
+
+            executor.submit(this::loadUserStore);
+
+            for (RangerServiceHeaderInfo service : services) {
+                executor.submit(() -> loadService(service.getName()));
+            }
+
+            executor.shutdown();
+
+            if (executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                finalState = WarmUpState.COMPLETED;
+            } else {
+                finalState = WarmUpState.TIMED_OUT;
+
+                LOG.warn("RangerAdminCacheWarmer: warm-up did not complete in {}ms. Remaining services will be loaded on first request", timeoutMs);
+
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException excp) {
+            LOG.warn("RangerAdminCacheWarmer: warm-up interrupted");
+
+            Thread.currentThread().interrupt();
+        } catch (Throwable excp) {
+            LOG.error("RangerAdminCacheWarmer: warm-up failed", excp);
+        } finally {
+            timeTakenMs = System.currentTimeMillis() - startTimeMs;
+            state       = finalState;
+        }
+
+        LOG.info("<== RangerAdminCacheWarmer.warmUp(services={}, threads={}): {}", serviceNames.isEmpty() ? "<all>" : serviceNames, threadCount, getStatus());
+    }
+
+    void loadService(String serviceName) {
+        LOG.debug("==> RangerAdminCacheWarmer.loadService({})", serviceName);
+
+        long startTimeMs = System.currentTimeMillis();
+
+        try {
+            executeReadOnly(() -> {
+                svcStore.getServicePoliciesIfUpdated(serviceName, -1L, false);
+                tagStore.getServiceTagsIfUpdated(serviceName, -1L, false);
+                roleStore.getRoles(serviceName, -1L);
+
+                return null;
+            });
+
+            loadedServiceCount.incrementAndGet();
+        } catch (Throwable excp) {
+            LOG.warn("RangerAdminCacheWarmer: failed to load caches of service {}. Will be loaded on first request", serviceName, excp);
+
+            failedServiceCount.incrementAndGet();
+        }
+
+        LOG.debug("<== RangerAdminCacheWarmer.loadService({}): timeTakenMs={}", serviceName, System.currentTimeMillis() - startTimeMs);
+    }
+
+    void loadUserStore() {
+        try {
+            executeReadOnly(() -> xUserMgr.getRangerUserStoreIfUpdated(-1L));
+        } catch (Throwable excp) {
+            LOG.warn("RangerAdminCacheWarmer: failed to load userstore. Will be loaded on first request", excp);
+        }
+    }
+
+    private List<RangerServiceHeaderInfo> getServicesToLoad(Set<String> serviceNames) {
+        List<RangerServiceHeaderInfo> ret      = new ArrayList<>();
+        List<RangerServiceHeaderInfo> services = executeReadOnly(() -> daoMgr.getXXService().findServiceHeaders());
+
+        if (services != null) {
+            for (RangerServiceHeaderInfo service : services) {
+                // policies of tag services are downloaded along with policies of resource services
+                boolean isResourceService = !Boolean.TRUE.equals(service.getIsTagService()) && !EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_GDS_NAME.equals(service.getType());
+
+                if (isResourceService && (serviceNames.isEmpty() || serviceNames.contains(service.getName()))) {
+                    ret.add(service);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private <T> T executeReadOnly(Callable<T> action) {
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+        txTemplate.setReadOnly(true);
+        txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        return txTemplate.execute(status -> {
+            try {
+                return action.call();
+            } catch (Exception excp) {
+                throw new RuntimeException(excp);
+            }
+        });
+    }
+
+    private static Set<String> toSet(String value) {
+        return StringUtils.isBlank(value) ? Set.of() : Arrays.stream(value.split(",")).map(String::trim).filter(StringUtils::isNotEmpty).collect(Collectors.toSet());
+    }
+
+    private static class WarmUpThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "RangerAdminCacheWarmer-" + threadCount.incrementAndGet());
+
+            t.setDaemon(true);
+
+            return t;
+        }
+    }
+}
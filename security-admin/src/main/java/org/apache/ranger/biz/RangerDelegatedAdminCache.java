@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.policyengine.PolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyRepository;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.RangerReadWriteLock;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Policy evaluators that can grant delegated-admin to a principal - i.e. access policies having a delegated-admin
+ * allow item for the user, one of its groups or roles - computed once per principal and zone, for a policy-admin of a
+ * service. Delegated-admin checks for a policy evaluate only these, instead of every policy of the service.
+ *
+ * Candidates depend only on policy items and not on resources, hence are updated in place for policy-deltas applied
+ * to the policy-admin: only the changed policies are re-evaluated for each cached principal. Roles of the principal
+ * are part of the key, so that a change in role membership doesn't need invalidation.
+ */
+class RangerDelegatedAdminCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerDelegatedAdminCache.class);
+
+    public static final String PROP_ENABLED        = "ranger.admin.delegated.admin.cache.enabled";
+    public static final String PROP_MAX_PRINCIPALS = "ranger.admin.delegated.admin.cache.max.principals";
+
+    private static final String UNZONED = "";
+
+    private final boolean                                                      isEnabled;
+    private final int                                                          maxPrincipals;
+    private final Map<PrincipalKey, Map<String, List<RangerPolicyEvaluator>>> candidates;
+
+    RangerDelegatedAdminCache() {
+        RangerAdminConfig config = RangerAdminConfig.getInstance();
+
+        this.isEnabled     = config.getBoolean(PROP_ENABLED, true);
+        this.maxPrincipals = config.getInt(PROP_MAX_PRINCIPALS, 1000);
+        this.candidates    = new ConcurrentHashMap<>();
+    }
+
+    private RangerDelegatedAdminCache(RangerDelegatedAdminCache other) {
+        this.isEnabled     = other.isEnabled;
+        this.maxPrincipals = other.maxPrincipals;
+        this.candidates    = new ConcurrentHashMap<>();
+
+        for (Map.Entry<PrincipalKey, Map<String, List<RangerPolicyEvaluator>>> entry : other.candidates.entrySet()) {
+            this.candidates.put(entry.getKey(), new ConcurrentHashMap<>(entry.getValue())); // lists are immutable, hence shared
+        }
+    }
+
+    boolean isEnabled() {
+        return isEnabled;
+    }
+
+    int getPrincipalCount() {
+        return candidates.size();
+    }
+
+    /**
+     * Should be called with read-lock of the policy-engine that owns the repository held.
+     *
+     * @return evaluators in the repository that can grant delegated-admin to the principal
+     */
+    List<RangerPolicyEvaluator> getCandidateEvaluators(RangerPolicyRepository repository, String zoneName, String user, Set<String> userGroups, Set<String> roles) {
+        PrincipalKey                             key            = new PrincipalKey(user, userGroups, roles);
+        Map<String, List<RangerPolicyEvaluator>> zoneCandidates = candidates.get(key);
+
+        if (zoneCandidates == null) {
+            if (candidates.size() >= maxPrincipals) {
+                LOG.debug("RangerDelegatedAdminCache: principal count reached {}. Clearing the cache", maxPrincipals);
+
+                candidates.clear();
+            }
+
+            zoneCandidates = candidates.computeIfAbsent(key.copy(), k -> new ConcurrentHashMap<>());
+        }
+
+        return zoneCandidates.computeIfAbsent(toZoneKey(zoneName), z -> Collections.unmodifiableList(getCandidateEvaluators(repository.getPolicyEvaluators(), key)));
+    }
+
+    /**
+     * @return copy of this cache, updated for policy-deltas applied to create the given policy-engine
+     */
+    RangerDelegatedAdminCache copyWithDeltas(PolicyEngine policyEngine, ServicePolicies servicePolicies) {
+        RangerDelegatedAdminCache ret = new RangerDelegatedAdminCache(this);
+
+        ret.applyDeltas(policyEngine, servicePolicies);
+
+        return ret;
+    }
+
+    /**
+     * Updates cached candidates for policy-deltas applied to the given policy-engine; candidates are cleared for
+     * deltas other than policy create/update/delete.
+     */
+    void applyDeltas(PolicyEngine policyEngine, ServicePolicies servicePolicies) {
+        if (candidates.isEmpty() || servicePolicies == null) {
+            return;
+        }
+
+        LOG.debug("==> RangerDelegatedAdminCache.applyDeltas(principalCount={})", candidates.size());
+
+        List<RangerPolicyDelta> deltas = new ArrayList<>();
+
+        if (servicePolicies.getPolicyDeltas() != null) {
+            deltas.addAll(servicePolicies.getPolicyDeltas());
+        }
+
+        if (servicePolicies.getSecurityZones() != null) {
+            for (ServicePolicies.SecurityZoneInfo zoneInfo : servicePolicies.getSecurityZones().values()) {
+                if (zoneInfo.getPolicyDeltas() != null) {
+                    deltas.addAll(zoneInfo.getPolicyDeltas());
+                }
+            }
+        }
+
+        Set<Long>                     changedPolicyIds = new HashSet<>();
+        Map<String, Collection<Long>> addedPolicyIds   = new HashMap<>();
+        boolean                       isClearNeeded    = false;
+
+        for (RangerPolicyDelta delta : deltas) {
+            Integer changeType = delta.getChangeType();
+
+            if (changeType == null || delta.getPolicyId() == null) {
+                isClearNeeded = true;
+            } else if (changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE || changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE) {
+                changedPolicyIds.add(delta.getPolicyId());
+
+                if (isAccessPolicy(delta.getPolicy())) {
+                    addedPolicyIds.computeIfAbsent(toZoneKey(delta.getZoneName()), z -> new ArrayList<>()).add(delta.getPolicyId());
+                }
+            } else if (changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE) {
+                changedPolicyIds.add(delta.getPolicyId());
+            } else {
+                isClearNeeded = true;
+            }
+
+            if (isClearNeeded) {
+                break;
+            }
+        }
+
+        try (RangerReadWriteLock.RangerLock writeLock = policyEngine.getWriteLock()) {
+            if (isClearNeeded) {
+                LOG.debug("RangerDelegatedAdminCache.applyDeltas(): deltas other than policy changes found. Clearing the cache");
+
+                candidates.clear();
+            } else if (!changedPolicyIds.isEmpty()) {
+                Map<String, List<RangerPolicyEvaluator>> addedEvaluators = new HashMap<>();
+
+                for (Map.Entry<String, Collection<Long>> entry : addedPolicyIds.entrySet()) {
+                    RangerPolicyRepository      repository = policyEngine.getRepositoryForZone(UNZONED.equals(entry.getKey()) ? null : entry.getKey());
+                    List<RangerPolicyEvaluator> evaluators = new ArrayList<>();
+
+                    if (repository != null) {
+                        for (Long policyId : entry.getValue()) {
+                            RangerPolicyEvaluator evaluator = repository.getPolicyEvaluator(policyId);
+
+                            if (evaluator != null) {
+                                evaluators.add(evaluator);
+                            }
+                        }
+                    }
+
+                    addedEvaluators.put(entry.getKey(), evaluators);
+                }
+
+                for (Map.Entry<PrincipalKey, Map<String, List<RangerPolicyEvaluator>>> entry : candidates.entrySet()) {
+                    PrincipalKey key = entry.getKey();
+
+                    for (Map.Entry<String, List<RangerPolicyEvaluator>> zoneEntry : entry.getValue().entrySet()) {
+                        List<RangerPolicyEvaluator> updated = new ArrayList<>(zoneEntry.getValue().size());
+
+                        for (RangerPolicyEvaluator evaluator : zoneEntry.getValue()) {
+                            if (!changedPolicyIds.contains(evaluator.getPolicyId())) {
+                                updated.add(evaluator);
+                            }
+                        }
+
+                        updated.addAll(getCandidateEvaluators(addedEvaluators.getOrDefault(zoneEntry.getKey(), Collections.emptyList()), key));
+
+                        zoneEntry.setValue(Collections.unmodifiableList(updated));
+                    }
+                }
+            }
+        }
+
+        LOG.debug("<== RangerDelegatedAdminCache.applyDeltas(principalCount={}): changedPolicies={}, isCleared={}", candidates.size(), changedPolicyIds.size(), isClearNeeded);
+    }
+
+    static boolean isCandidate(RangerPolicyEvaluator evaluator, String user, Set<String> userGroups, Set<String> roles) {
+        RangerPolicy policy = evaluator.getPolicy();
+
+        if (policy == null || policy.getPolicyItems() == null) { // can't tell; let the evaluator decide
+            return true;
+        }
+
+        for (RangerPolicyItem policyItem : policy.getPolicyItems()) {
+            if (policyItem != null && Boolean.TRUE.equals(policyItem.getDelegateAdmin()) && isMatch(policyItem, user, userGroups, roles)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static List<RangerPolicyEvaluator> getCandidateEvaluators(List<RangerPolicyEvaluator> evaluators, PrincipalKey key) {
+        List<RangerPolicyEvaluator> ret = new ArrayList<>();
+
+        if (evaluators != null) {
+            for (RangerPolicyEvaluator evaluator : evaluators) {
+                if (isCandidate(evaluator, key.user, key.userGroups, key.roles)) {
+                    ret.add(evaluator);
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    private static boolean isMatch(RangerPolicyItem policyItem, String user, Set<String> userGroups, Set<String> roles) {
+        List<String> itemUsers  = policyItem.getUsers();
+        List<String> itemGroups = policyItem.getGroups();
+        List<String> itemRoles  = policyItem.getRoles();
+
+        if (CollectionUtils.isNotEmpty(itemUsers)) {
+            for (String itemUser : itemUsers) {
+                // {USER}, {OWNER} and other macros are resolved by the evaluator
+                if (StringUtils.equals(itemUser, user) || StringUtils.contains(itemUser, '{')) {
+                    return true;
+                }
+            }
+        }
+
+        if (CollectionUtils.isNotEmpty(itemGroups)) {
+            for (String itemGroup : itemGroups) {
+                if (RangerPolicyEngine.GROUP_PUBLIC.equals(itemGroup) || userGroups.contains(itemGroup) || StringUtils.contains(itemGroup, '{')) {
+                    return true;
+                }
+            }
+        }
+
+        if (CollectionUtils.isNotEmpty(itemRoles) && !roles.isEmpty()) {
+            for (String itemRole : itemRoles) {
+                if (roles.contains(itemRole)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private static boolean isAccessPolicy(RangerPolicy policy) {
+        return policy != null && (policy.getPolicyType() == null || policy.getPolicyType() == RangerPolicy.POLICY_TYPE_ACCESS);
+    }
+
+    private static String toZoneKey(String zoneName) {
+        return StringUtils.isEmpty(zoneName) ? UNZONED : zoneName;
+    }
+
+    private static final class PrincipalKey {
+        final String      user;
+        final Set<String> userGroups;
+        final Set<String> roles;
+        final int         hashCode;
+
+        PrincipalKey(String user, Set<String> userGroups, Set<String> roles) {
+            this.user       = user;
+            this.userGroups = userGroups != null ? userGroups : Collections.emptySet();
+            this.roles      = roles != null ? roles : Collections.emptySet();
+            this.hashCode   = Objects.hash(this.user, this.userGroups, this.roles);
+        }
+
+        // sets given by the caller are copied before the key is retained in the cache
+        PrincipalKey copy() {
+            return new PrincipalKey(user, new HashSet<>(userGroups), new HashSet<>(roles));
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof PrincipalKey)) {
+                return false;
+            }
+
+            PrincipalKey other = (PrincipalKey) obj;
+
+            return hashCode == other.hashCode && Objects.equals(user, other.user) && userGroups.equals(other.userGroups) && roles.equals(other.roles);
+        }
+    }
+}
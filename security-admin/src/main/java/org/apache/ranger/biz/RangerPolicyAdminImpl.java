@@ -75,16 +75,23 @@ public Object get(Object key) {
 
     private final PolicyEngine                 policyEngine;
     private final RangerAccessRequestProcessor requestProcessor;
+    private final RangerDelegatedAdminCache    delegatedAdminCache;
     private       ServiceDBStore               serviceDBStore;
 
     RangerPolicyAdminImpl(ServicePolicies servicePolicies, RangerPluginContext pluginContext, RangerRoles roles) {
-        this.policyEngine     = new PolicyEngine(servicePolicies, pluginContext, roles, ServiceDBStore.SUPPORTS_IN_PLACE_POLICY_UPDATES);
-        this.requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
+        this.policyEngine        = new PolicyEngine(servicePolicies, pluginContext, roles, ServiceDBStore.SUPPORTS_IN_PLACE_POLICY_UPDATES);
+        this.requestProcessor    = new RangerDefaultRequestProcessor(policyEngine);
+        this.delegatedAdminCache = new RangerDelegatedAdminCache();
     }
 
     private RangerPolicyAdminImpl(final PolicyEngine policyEngine) {
-        this.policyEngine     = policyEngine;
-        this.requestProcessor = new RangerDefaultRequestProcessor(policyEngine);
+        this(policyEngine, new RangerDelegatedAdminCache());
+    }
+
+    private RangerPolicyAdminImpl(final PolicyEngine policyEngine, final RangerDelegatedAdminCache delegatedAdminCache) {
+        this.policyEngine        = policyEngine;
+        this.requestProcessor    = new RangerDefaultRequestProcessor(policyEngine);
+        this.delegatedAdminCache = delegatedAdminCache;
     }
 
     public static RangerPolicyAdmin getPolicyAdmin(final RangerPolicyAdminImpl other, final ServicePolicies servicePolicies) {
@@ -94,10 +101,13 @@ public static RangerPolicyAdmin getPolicyAdmin(final RangerPolicyAdminImpl other
             PolicyEngine policyEngine = other.policyEngine.cloneWithDelta(servicePolicies);
 
             if (policyEngine != null) {
+                // delegated-admin candidates of unchanged policies remain valid; only the changed policies are re-evaluated
                 if (policyEngine == other.policyEngine) {
+                    other.delegatedAdminCache.applyDeltas(policyEngine, servicePolicies);
+
                     ret = other;
                 } else {
-                    ret = new RangerPolicyAdminImpl(policyEngine);
+                    ret = new RangerPolicyAdminImpl(policyEngine, other.delegatedAdminCache.copyWithDeltas(policyEngine, servicePolicies));
                 }
             }
         }
@@ -586,9 +596,10 @@ private Set<String> getAllowedAccesses(RangerPolicyRepository matchedRepository,
         // RANGER-3082
         // Convert policy resources to by substituting macros with ASTERISK
         Map<String, RangerPolicyResource> modifiedResource = getPolicyResourcesWithMacrosReplaced(resource, wildcardEvalContext);
+        List<RangerPolicyEvaluator>       evaluators       = delegatedAdminCache.isEnabled() ? delegatedAdminCache.getCandidateEvaluators(matchedRepository, matchedRepository.getZoneName(), user, userGroups, roles) : matchedRepository.getPolicyEvaluators();
         Set<String>                       ret              = null;
 
-        for (RangerPolicyEvaluator evaluator : matchedRepository.getPolicyEvaluators()) {
+        for (RangerPolicyEvaluator evaluator : evaluators) {
             Set<String> allowedAccesses = evaluator.getAllowedAccesses(modifiedResource, user, userGroups, roles, accessTypes, evalContext);
 
             if (CollectionUtils.isNotEmpty(allowedAccesses)) {
@@ -0,0 +1,245 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.apache.ranger.db.XXGlobalStateDao.RANGER_GLOBAL_STATE_NAME_ROLE;
+import static org.apache.ranger.db.XXGlobalStateDao.RANGER_GLOBAL_STATE_NAME_USER_GROUP;
+
+/**
+ * Holds plugin requests waiting for changes in versions of policies, tags, roles, userstore or GDS info of a
+ * service (long-poll), without holding a servlet thread. While there are waiting requests, versions of all services
+ * are read from the database every check-interval - in a single query, irrespective of number of waiting requests;
+ * this also detects changes made via other Ranger admin instances.
+ */
+@Component
+public class RangerServiceVersionWatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerServiceVersionWatcher.class);
+
+    public static final String PROP_CHECK_INTERVAL_MS = "ranger.admin.plugin.wait.check.interval.ms";
+    public static final String PROP_MAX_TIMEOUT_MS    = "ranger.admin.plugin.wait.max.timeout.ms";
+    public static final String PROP_MAX_WAITERS       = "ranger.admin.plugin.wait.max.waiters";
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    RangerDaoManager daoMgr;
+
+    @Autowired
+    @Qualifier(value = "transactionManager")
+    PlatformTransactionManager txManager;
+
+    long checkIntervalMs = 1000;
+    long maxTimeoutMs    = 2 * 60 * 1000;
+    int  maxWaiters      = 10000;
+
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void init() {
+        RangerAdminConfig config = RangerAdminConfig.getInstance();
+
+        checkIntervalMs = config.getLong(PROP_CHECK_INTERVAL_MS, checkIntervalMs);
+        maxTimeoutMs    = config.getLong(PROP_MAX_TIMEOUT_MS, maxTimeoutMs);
+        maxWaiters      = config.getInt(PROP_MAX_WAITERS, maxWaiters);
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "RangerServiceVersionWatcher");
+
+            t.setDaemon(true);
+
+            return t;
+        });
+
+        scheduler.scheduleWithFixedDelay(this::notifyChangedServices, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+
+        LOG.info("{}={}", PROP_CHECK_INTERVAL_MS, checkIntervalMs);
+        LOG.info("{}={}", PROP_MAX_TIMEOUT_MS, maxTimeoutMs);
+        LOG.info("{}={}", PROP_MAX_WAITERS, maxWaiters);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        LOG.info("attempt to shutdown RangerServiceVersionWatcher");
+
+        scheduler.shutdownNow();
+
+        for (Waiter waiter : waiters) {
+            if (waiters.remove(waiter)) {
+                waiter.asyncResponse.resume(Response.notModified().build());
+            }
+        }
+    }
+
+    public int getWaiterCount() {
+        return waiters.size();
+    }
+
+    /**
+     * Returns current versions of the service immediately if any version in lastKnownVersions has changed; otherwise
+     * suspends asyncResponse until a change or timeout. Must be called within a transaction.
+     *
+     * @param timeoutMs requested by the plugin; a value not in (0, max-timeout] is replaced by max-timeout, so that
+     *                  every request held is released within max-timeout
+     *
+     * @return false if the request can't be held, as the count of waiting requests reached the limit
+     */
+    public boolean waitForChange(String serviceName, RangerServiceVersions lastKnownVersions, long timeoutMs, AsyncResponse asyncResponse) {
+        LOG.debug("==> RangerServiceVersionWatcher.waitForChange({}, {}, {})", serviceName, lastKnownVersions, timeoutMs);
+
+        boolean               ret             = true;
+        RangerServiceVersions currentVersions = getServiceVersions(serviceName);
+
+        if (currentVersions == null || currentVersions.isChangedFrom(lastKnownVersions)) {
+            resume(asyncResponse, currentVersions);
+        } else if (waiters.size() >= maxWaiters) {
+            LOG.warn("RangerServiceVersionWatcher: count of waiting requests reached the limit {}. serviceName={}", maxWaiters, serviceName);
+
+            ret = false;
+        } else {
+            Waiter waiter = new Waiter(serviceName, lastKnownVersions, asyncResponse);
+
+            // added before setting the timeout, so that the timeout handler always finds the waiter
+            waiters.add(waiter);
+
+            asyncResponse.setTimeoutHandler(ar -> {
+                if (waiters.remove(waiter)) {
+                    ar.resume(Response.notModified().build());
+                }
+            });
+            asyncResponse.setTimeout(getEffectiveTimeoutMs(timeoutMs), TimeUnit.MILLISECONDS);
+        }
+
+        LOG.debug("<== RangerServiceVersionWatcher.waitForChange({}, {}, {}): ret={}", serviceName, lastKnownVersions, timeoutMs, ret);
+
+        return ret;
+    }
+
+    long getEffectiveTimeoutMs(long timeoutMs) {
+        long maxTimeout = Math.max(1, maxTimeoutMs);
+
+        return timeoutMs > 0 ? Math.min(timeoutMs, maxTimeout) : maxTimeout;
+    }
+
+    RangerServiceVersions getServiceVersions(String serviceName) {
+        XXServiceVersionInfo versionInfo = daoMgr.getXXServiceVersionInfo().findByServiceName(serviceName);
+
+        return versionInfo != null ? toServiceVersions(serviceName, versionInfo, getGlobalRoleVersion(), getUserStoreVersion()) : null;
+    }
+
+    void notifyChangedServices() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+
+        try {
+            TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+            txTemplate.setReadOnly(true);
+            txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+            Map<String, RangerServiceVersions> serviceVersions = txTemplate.execute(status -> getAllServiceVersions());
+
+            for (Waiter waiter : waiters) {
+                RangerServiceVersions currentVersions = serviceVersions != null ? serviceVersions.get(waiter.serviceName) : null;
+
+                // service not found: let the plugin download, to handle service deletion
+                if ((currentVersions == null || currentVersions.isChangedFrom(waiter.lastKnownVersions)) && waiters.remove(waiter)) {
+                    resume(waiter.asyncResponse, currentVersions);
+                }
+            }
+        } catch (Throwable excp) {
+            LOG.error("RangerServiceVersionWatcher: failed to check for changes in service versions", excp);
+        }
+    }
+
+    private Map<String, RangerServiceVersions> getAllServiceVersions() {
+        Map<String, RangerServiceVersions> ret              = new HashMap<>();
+        List<Object[]>                     versionInfos     = daoMgr.getXXServiceVersionInfo().getAllWithServiceNames();
+        Long                               roleVersion      = getGlobalRoleVersion();
+        Long                               userStoreVersion = getUserStoreVersion();
+
+        for (Object[] objs : versionInfos) {
+            if (objs.length == 2 && objs[0] instanceof XXServiceVersionInfo && objs[1] instanceof String) {
+                String serviceName = (String) objs[1];
+
+                ret.put(serviceName, toServiceVersions(serviceName, (XXServiceVersionInfo) objs[0], roleVersion, userStoreVersion));
+            }
+        }
+
+        return ret;
+    }
+
+    private RangerServiceVersions toServiceVersions(String serviceName, XXServiceVersionInfo versionInfo, Long globalRoleVersion, Long userStoreVersion) {
+        Long roleVersion = ServiceDBStore.isSupportsRolesDownloadByService() ? versionInfo.getRoleVersion() : globalRoleVersion;
+
+        return new RangerServiceVersions(serviceName, versionInfo.getPolicyVersion(), versionInfo.getTagVersion(), roleVersion, userStoreVersion, versionInfo.getGdsVersion());
+    }
+
+    private Long getGlobalRoleVersion() {
+        return ServiceDBStore.isSupportsRolesDownloadByService() ? null : daoMgr.getXXGlobalState().getAppDataVersion(RANGER_GLOBAL_STATE_NAME_ROLE);
+    }
+
+    private Long getUserStoreVersion() {
+        return daoMgr.getXXGlobalState().getAppDataVersion(RANGER_GLOBAL_STATE_NAME_USER_GROUP);
+    }
+
+    private static void resume(AsyncResponse asyncResponse, RangerServiceVersions currentVersions) {
+        asyncResponse.resume(currentVersions != null ? currentVersions : new RangerServiceVersions());
+    }
+
+    private static final class Waiter {
+        final String                serviceName;
+        final RangerServiceVersions lastKnownVersions;
+        final AsyncResponse         asyncResponse;
+
+        Waiter(String serviceName, RangerServiceVersions lastKnownVersions, AsyncResponse asyncResponse) {
+            this.serviceName       = serviceName;
+            this.lastKnownVersions = lastKnownVersions;
+            this.asyncResponse     = asyncResponse;
+        }
+    }
+}
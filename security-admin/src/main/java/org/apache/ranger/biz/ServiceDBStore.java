@@ -19,19 +19,22 @@
 
 package org.apache.ranger.biz;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.thirdparty.com.google.common.base.Joiner;
-import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.ranger.audit.provider.MiscUtil;
 import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
 import org.apache.ranger.authorization.utils.JsonUtils;
@@ -46,12 +49,14 @@
 import org.apache.ranger.common.RangerCommonEnums;
 import org.apache.ranger.common.RangerConstants;
 import org.apache.ranger.common.RangerFactory;
+import org.apache.ranger.common.RangerPolicySearchIndex;
 import org.apache.ranger.common.RangerServicePoliciesCache;
 import org.apache.ranger.common.RangerVersionInfo;
 import org.apache.ranger.common.SearchCriteria;
 import org.apache.ranger.common.StringUtil;
 import org.apache.ranger.common.UserSessionBase;
 import org.apache.ranger.common.db.RangerTransactionSynchronizationAdapter;
+import org.apache.ranger.common.view.VList;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.db.XXAccessTypeDefDao;
 import org.apache.ranger.db.XXAccessTypeDefGrantsDao;
@@ -187,14 +192,16 @@
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
-import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -255,11 +262,14 @@ public class ServiceDBStore extends AbstractServiceStore {
     private static final    String                        LINE_SEPARATOR                    = "\n";
     private static final    String                        FILE_HEADER                       = "ID|Name|Resources|Roles|Groups|Users|Accesses|Service Type|Status|Policy Type|Delegate Admin|isRecursive|isExcludes|Service Name|Description|isAuditEnabled|Policy Conditions|Policy Condition Type|Masking Options|Row Filter Expr|Policy Label Name";
     private static final    String                        COMMA_DELIMITER                   = "|";
+    private static final    String                        EXCEL_CONTENT_TYPE                = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final    int                           EXCEL_ROW_ACCESS_WINDOW_SIZE      = 100;
     private static final    String                        DEFAULT_CSV_SANITIZATION_PATTERN  = "^[=+\\-@\\t\\r]";
     private static final    Pattern                       CSV_SANITIZATION_PATTERN          = Pattern.compile(PropertiesUtil.getProperty("ranger.admin.csv.sanitization.pattern", DEFAULT_CSV_SANITIZATION_PATTERN));
     private static final    Comparator<RangerPolicyDelta> POLICY_DELTA_ID_COMPARATOR        = new RangerPolicyDeltaComparator();
     public static           boolean                       SUPPORTS_POLICY_DELTAS;
     public static           boolean                       SUPPORTS_IN_PLACE_POLICY_UPDATES;
+    public static           boolean                       SUPPORTS_INCREMENTAL_POLICY_CACHE;
     public static           Integer                       RETENTION_PERIOD_IN_DAYS          = 7;
     public static           Integer                       TAG_RETENTION_PERIOD_IN_DAYS      = 3;
     public static           boolean                       SUPPORTS_PURGE_LOGIN_RECORDS;
@@ -426,6 +436,10 @@ public static boolean isSupportsPolicyDeltas() {
         return SUPPORTS_POLICY_DELTAS;
     }
 
+    public static boolean isSupportsIncrementalPolicyCache() {
+        return SUPPORTS_INCREMENTAL_POLICY_CACHE;
+    }
+
     public static boolean isSupportsRolesDownloadByService() {
         return isRolesDownloadedByService;
     }
@@ -1790,13 +1804,19 @@ public ServicePolicies getServicePoliciesIfUpdated(String serviceName, Long last
         return ret;
     }
 
+    /**
+     * Called by the policy cache to bring its policies up to date. When incremental update of the cache is enabled,
+     * deltas are retrieved from policy change-log even if deltas are not supported for plugins; this avoids reading all
+     * policies of the service from the database after each policy change.
+     */
     @Override
     public ServicePolicies getServicePolicyDeltasOrPolicies(String serviceName, Long lastKnownVersion) throws Exception {
-        boolean getOnlyDeltas = false;
+        boolean getOnlyDeltas  = false;
+        boolean isDeltaEnabled = SUPPORTS_POLICY_DELTAS || SUPPORTS_INCREMENTAL_POLICY_CACHE;
 
-        LOG.debug("Support for incremental policy updates enabled using \"ranger.admin{}\" configuation parameter :[{}]", RangerCommonConstants.RANGER_ADMIN_SUFFIX_POLICY_DELTA, SUPPORTS_POLICY_DELTAS);
+        LOG.debug("Support for incremental policy updates enabled using \"ranger.admin{}\" configuation parameter :[{}], incremental update of policy cache :[{}]", RangerCommonConstants.RANGER_ADMIN_SUFFIX_POLICY_DELTA, SUPPORTS_POLICY_DELTAS, SUPPORTS_INCREMENTAL_POLICY_CACHE);
 
-        return getServicePolicies(serviceName, lastKnownVersion, getOnlyDeltas, SUPPORTS_POLICY_DELTAS, Long.MAX_VALUE);
+        return getServicePolicies(serviceName, lastKnownVersion, getOnlyDeltas, isDeltaEnabled, Long.MAX_VALUE);
     }
 
     @Override
@@ -2002,8 +2022,9 @@ public void initStore() {
                     TRANSACTION_RECORDS_RETENTION_PERIOD_IN_DAYS = config.getInt("ranger.admin.init.purge.transaction_records.retention.days", 0);
                     POLICY_EXPORT_LOGS_RETENTION_PERIOD_IN_DAYS  = config.getInt("ranger.admin.init.purge.policy_export_logs.retention.days", 0);
 
-                    isRolesDownloadedByService       = config.getBoolean("ranger.support.for.service.specific.role.download", false);
-                    SUPPORTS_IN_PLACE_POLICY_UPDATES = SUPPORTS_POLICY_DELTAS && config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES, RangerCommonConstants.RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT);
+                    isRolesDownloadedByService        = config.getBoolean("ranger.support.for.service.specific.role.download", false);
+                    SUPPORTS_IN_PLACE_POLICY_UPDATES  = SUPPORTS_POLICY_DELTAS && config.getBoolean("ranger.admin" + RangerCommonConstants.RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES, RangerCommonConstants.RANGER_ADMIN_SUFFIX_IN_PLACE_POLICY_UPDATES_DEFAULT);
+                    SUPPORTS_INCREMENTAL_POLICY_CACHE = config.getBoolean("ranger.admin.policy.cache.incremental.update", true);
 
                     LOG.info("SUPPORTS_POLICY_DELTAS={}", SUPPORTS_POLICY_DELTAS);
                     LOG.info("RETENTION_PERIOD_IN_DAYS={}", RETENTION_PERIOD_IN_DAYS);
@@ -2016,6 +2037,7 @@ public void initStore() {
                     LOG.info("POLICY_EXPORT_LOGS_RETENTION_PERIOD_IN_DAYS={}", POLICY_EXPORT_LOGS_RETENTION_PERIOD_IN_DAYS);
                     LOG.info("isRolesDownloadedByService={}", isRolesDownloadedByService);
                     LOG.info("SUPPORTS_IN_PLACE_POLICY_UPDATES={}", SUPPORTS_IN_PLACE_POLICY_UPDATES);
+                    LOG.info("SUPPORTS_INCREMENTAL_POLICY_CACHE={}", SUPPORTS_INCREMENTAL_POLICY_CACHE);
 
                     TransactionTemplate  txTemplate = new TransactionTemplate(txManager);
                     final ServiceDBStore dbStore    = this;
@@ -2339,7 +2361,7 @@ public void getPoliciesInExcel(List<RangerPolicy> policies, HttpServletResponse
         LOG.debug("==> ServiceDBStore.getPoliciesInExcel()");
 
         String timeStamp     = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String excelFileName = "Ranger_Policies_" + timeStamp + ".xls";
+        String excelFileName = "Ranger_Policies_" + timeStamp + ".xlsx";
 
         writeExcel(policies, excelFileName, response);
     }
@@ -2347,31 +2369,13 @@ public void getPoliciesInExcel(List<RangerPolicy> policies, HttpServletResponse
     public void getPoliciesInCSV(List<RangerPolicy> policies, HttpServletResponse response) throws Exception {
         LOG.debug("==> ServiceDBStore.getPoliciesInCSV()");
 
-        ServletOutputStream out         = null;
-        String              csvfilename = null;
+        String timeStamp   = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+        String csvfilename = "Ranger_Policies_" + timeStamp + ".csv";
 
         try {
-            String timeStamp = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-
-            csvfilename = "Ranger_Policies_" + timeStamp + ".csv";
-            out         = response.getOutputStream();
-
-            StringBuilder sb = writeCSV(policies, csvfilename, response);
-
-            IOUtils.write(sb.toString(), out, "UTF-8");
+            writeCSV(policies, csvfilename, response);
         } catch (Exception e) {
             LOG.error("Error while generating report file {}", csvfilename, e);
-
-            e.printStackTrace();
-        } finally {
-            try {
-                if (out != null) {
-                    out.flush();
-                    out.close();
-                }
-            } catch (Exception ex) {
-                // ignored
-            }
         }
     }
 
@@ -3939,7 +3943,7 @@ private List<RangerPolicy> getServicePolicies(XXService service, SearchFilter fi
 
             LOG.debug("Using{}way of filtering service-policies", useLegacyResourceSearch ? " old " : " new ");
 
-            ret = new ArrayList<>(policies);
+            ret = getCandidatePolicies(service.getName(), servicePolicies, searchFilter);
 
             predicateUtil.applyFilter(ret, searchFilter);
 
@@ -3989,6 +3993,27 @@ private List<RangerPolicy> getServicePolicies(XXService service, SearchFilter fi
         return ret;
     }
 
+    /**
+     * Returns policies of the service to apply the search-filter on: when the filter has user/group/role/label/resource
+     * criteria, only the policies found for these criteria in the policy search index; all policies otherwise.
+     */
+    private List<RangerPolicy> getCandidatePolicies(String serviceName, ServicePolicies servicePolicies, SearchFilter filter) {
+        List<RangerPolicy> ret = null;
+
+        if (RangerPolicySearchIndex.hasIndexedCriteria(filter)) {
+            RangerPolicySearchIndex searchIndex = RangerServicePoliciesCache.getInstance().getPolicySearchIndex(serviceName);
+
+            // the index is updated in place with policy-deltas; use it only if it is of the same version as the policies
+            if (searchIndex != null && Objects.equals(searchIndex.getPolicyVersion(), servicePolicies.getPolicyVersion())) {
+                ret = searchIndex.getCandidatePolicies(filter);
+
+                LOG.debug("ServiceDBStore.getCandidatePolicies({}): found {} of {} policies in search index", serviceName, ret == null ? null : ret.size(), searchIndex.getPolicyCount());
+            }
+        }
+
+        return ret != null ? ret : new ArrayList<>(servicePolicies.getPolicies());
+    }
+
     private List<RangerPolicy> getServicePoliciesFromDb(XXService service) {
         LOG.debug("==> ServiceDBStore.getServicePoliciesFromDb({})", service.getName());
 
@@ -4477,7 +4502,7 @@ private static void persistChangeLog(XXService service, VERSION_TYPE versionType
         } else {
             Integer policyDeltaChange = serviceVersionUpdater.policyDeltaChange;
 
-            if (policyDeltaChange == RangerPolicyDelta.CHANGE_TYPE_RANGER_ADMIN_START || isSupportsPolicyDeltas()) {
+            if (policyDeltaChange == RangerPolicyDelta.CHANGE_TYPE_RANGER_ADMIN_START || isSupportsPolicyDeltas() || isSupportsIncrementalPolicyCache()) {
                 // Build and save PolicyChangeLog
                 XXPolicyChangeLog policyChangeLog = new XXPolicyChangeLog();
 
@@ -4550,10 +4575,14 @@ private boolean isResourceInList(String resource, List<XXResourceDef> xResourceD
         return false;
     }
 
+    /**
+     * Rows are flushed to a temporary file once the row access window is full, so heap used by the workbook doesn't
+     * grow with the number of policies; the workbook is then streamed to the response.
+     */
     private void writeExcel(List<RangerPolicy> policies, String excelFileName, HttpServletResponse response) throws IOException {
-        OutputStream outStream = null;
+        SXSSFWorkbook workbook = new SXSSFWorkbook(EXCEL_ROW_ACCESS_WINDOW_SIZE);
 
-        try (Workbook workbook = new HSSFWorkbook()) {
+        try {
             Sheet sheet = workbook.createSheet();
 
             createHeaderRow(sheet);
@@ -4642,43 +4671,43 @@ private void writeExcel(List<RangerPolicy> policies, String excelFileName, HttpS
                 }
             }
 
-            ByteArrayOutputStream outByteStream = new ByteArrayOutputStream();
-
-            workbook.write(outByteStream);
-
-            byte[] outArray = outByteStream.toByteArray();
-
-            response.setContentType("application/ms-excel");
-            response.setContentLength(outArray.length);
+            response.setContentType(EXCEL_CONTENT_TYPE);
             response.setHeader("Expires:", "0");
             response.setHeader("Content-Disposition", "attachment; filename=" + excelFileName);
             response.setStatus(HttpServletResponse.SC_OK);
 
-            outStream = response.getOutputStream();
-
-            outStream.write(outArray);
-            outStream.flush();
+            try (OutputStream outStream = response.getOutputStream()) {
+                workbook.write(outStream);
+                outStream.flush();
+            }
         } catch (IOException ex) {
             LOG.error("Failed to create report file {}", excelFileName, ex);
         } catch (Exception ex) {
             LOG.error("Error while generating report file {}", excelFileName, ex);
         } finally {
-            if (outStream != null) {
-                outStream.close();
-            }
+            workbook.dispose();
+            workbook.close();
         }
     }
 
-    private StringBuilder writeCSV(List<RangerPolicy> policies, String cSVFileName, HttpServletResponse response) {
+    /**
+     * Rows of each policy are written to the response as soon as they are built, instead of buffering the entire report.
+     */
+    private void writeCSV(List<RangerPolicy> policies, String cSVFileName, HttpServletResponse response) throws IOException {
         response.setContentType("text/csv");
+        response.setHeader("Content-Disposition", "attachment; filename=" + cSVFileName);
+        response.setStatus(HttpServletResponse.SC_OK);
 
-        StringBuilder csvBuffer = new StringBuilder();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8))) {
+            writer.write(FILE_HEADER);
+            writer.write(LINE_SEPARATOR);
 
-        csvBuffer.append(FILE_HEADER);
-        csvBuffer.append(LINE_SEPARATOR);
+            if (CollectionUtils.isEmpty(policies)) {
+                return;
+            }
 
-        if (!CollectionUtils.isEmpty(policies)) {
             Map<String, String> svcNameToSvcType = new HashMap<>();
+            StringBuilder       csvBuffer        = new StringBuilder();
 
             for (RangerPolicy policy : policies) {
                 List<RangerPolicyItem>          policyItems          = policy.getPolicyItems();
@@ -4740,13 +4769,12 @@ private StringBuilder writeCSV(List<RangerPolicy> policies, String cSVFileName,
                         writeCSVForPolicyItems(svcNameToSvcType, policy, policyItem, null, null, csvBuffer, POLICY_DENY_INCLUDE);
                     }
                 }
-            }
-        }
 
-        response.setHeader("Content-Disposition", "attachment; filename=" + cSVFileName);
-        response.setStatus(HttpServletResponse.SC_OK);
+                writer.append(csvBuffer);
 
-        return csvBuffer;
+                csvBuffer.setLength(0);
+            }
+        }
     }
 
     private void writeCSVForPolicyItems(Map<String, String> svcNameToSvcType, RangerPolicy policy, RangerPolicyItem policyItem, RangerDataMaskPolicyItem dataMaskPolicyItem, RangerRowFilterPolicyItem rowFilterPolicyItem, StringBuilder csvBuffer, String policyConditionType) {
@@ -4993,52 +5021,73 @@ private <T> void writeJson(List<T> objList, String jsonFileName, HttpServletResp
         response.setContentType("text/json");
         response.setHeader("Content-Disposition", "attachment; filename=" + jsonFileName);
 
-        ServletOutputStream out = null;
-        String              json;
+        final VList  exportList;
+        final String listFieldName;
 
         switch (type) {
             case POLICY:
                 RangerExportPolicyList rangerExportPolicyList = new RangerExportPolicyList();
 
-                rangerExportPolicyList.setGenericPolicies(objList);
+                rangerExportPolicyList.setPolicies(null);
                 rangerExportPolicyList.setMetaDataInfo(getMetaDataInfo());
 
-                json = JsonUtils.objectToJson(rangerExportPolicyList);
+                exportList    = rangerExportPolicyList;
+                listFieldName = "policies";
                 break;
             case ROLE:
                 RangerExportRoleList rangerExportRoleList = new RangerExportRoleList();
 
-                rangerExportRoleList.setGenericRoleList(objList);
-
                 Map<String, Object> metaDataInfo = getMetaDataInfo();
 
-                metaDataInfo.put(EXPORT_COUNT, rangerExportRoleList.getListSize());
+                metaDataInfo.put(EXPORT_COUNT, objList != null ? objList.size() : 0);
 
+                rangerExportRoleList.setRoleList(null);
                 rangerExportRoleList.setMetaDataInfo(metaDataInfo);
 
-                json = JsonUtils.objectToJson(rangerExportRoleList);
+                exportList    = rangerExportRoleList;
+                listFieldName = "roles";
                 break;
             default:
                 throw restErrorUtil.createRESTException("Invalid type " + type);
         }
 
-        try {
-            out = response.getOutputStream();
-
+        try (OutputStream out = response.getOutputStream()) {
             response.setStatus(HttpServletResponse.SC_OK);
 
-            IOUtils.write(json, out, "UTF-8");
+            writeJson(exportList, listFieldName, objList, out);
         } catch (Exception e) {
             LOG.error("Error while exporting json file {}", jsonFileName, e);
-        } finally {
-            try {
-                if (out != null) {
-                    out.flush();
-                    out.close();
+        }
+    }
+
+    /**
+     * Writes fields of exportList followed by objList, serializing one object at a time to the given stream; this avoids
+     * building the entire document in memory, which can be hundreds of MB for services with many policies.
+     */
+    private <T> void writeJson(VList exportList, String listFieldName, List<T> objList, OutputStream out) throws IOException {
+        ObjectMapper mapper = JsonUtils.getMapper();
+        JsonNode     fields = mapper.valueToTree(exportList);
+
+        try (JsonGenerator generator = mapper.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+
+            for (Iterator<Entry<String, JsonNode>> iter = fields.fields(); iter.hasNext(); ) {
+                Entry<String, JsonNode> field = iter.next();
+
+                generator.writeFieldName(field.getKey());
+                generator.writeTree(field.getValue());
+            }
+
+            generator.writeArrayFieldStart(listFieldName);
+
+            if (objList != null) {
+                for (T obj : objList) {
+                    generator.writeObject(obj);
                 }
-            } catch (Exception ex) {
-                // ignored
             }
+
+            generator.writeEndArray();
+            generator.writeEndObject();
         }
     }
 
@@ -19,10 +19,13 @@
 
 package org.apache.ranger.biz;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.util.Time;
+import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.biz.ServiceDBStore.REMOVE_REF_TYPE;
 import org.apache.ranger.common.AppConstants;
 import org.apache.ranger.common.ContextUtil;
@@ -119,17 +122,22 @@
 import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 
 import static org.apache.ranger.db.XXGlobalStateDao.RANGER_GLOBAL_STATE_NAME_USER_GROUP;
 import static org.apache.ranger.service.RangerBaseModelService.OPERATION_CREATE_CONTEXT;
@@ -143,10 +151,17 @@ public class XUserMgr extends XUserMgrBase {
     static final Set<String> roleAssignmentUpdatedUsers = new HashSet<>();
     static final String      MSG_DATA_ACCESS_DENY       = "Logged-In user is not allowed to access requested user data";
 
+    public static final String UGSYNC_DELTA_GROUPS         = "groups";
+    public static final String UGSYNC_DELTA_USERS          = "users";
+    public static final String UGSYNC_DELTA_GROUP_USERS    = "groupUsers";
+    public static final String UGSYNC_DELTA_DELETED_USERS  = "deletedUsers";
+    public static final String UGSYNC_DELTA_DELETED_GROUPS = "deletedGroups";
+
     private static final String USER                       = "User";
     private static final String GROUP                      = "Group";
     private static final int    MAX_DB_TRANSACTION_RETRIES = 5;
     private static final int    PASSWORD_LENGTH            = 16;
+    private static final int    UGSYNC_DELTA_CHUNK_SIZE    = PropertiesUtil.getIntProperty("ranger.admin.ugsync.delta.chunk.size", 1000);
 
     @Autowired
     RangerBizUtil msBizUtil;
@@ -2995,6 +3010,80 @@ public int createOrDeleteXGroupUserList(List<GroupUserInfo> groupUserInfoList) {
         return updatedGroups;
     }
 
+    /**
+     * Applies changes to users, groups and group memberships read from the given JSON stream, of the form:
+     *   { "groups": [ VXGroup ], "users": [ VXUser ], "groupUsers": [ GroupUserInfo ], "deletedUsers": [ name ], "deletedGroups": [ name ] }
+     * Sections are applied in the order they appear in the stream, hence groups and users should precede memberships
+     * referring to them. Entries are read and applied in chunks of ranger.admin.ugsync.delta.chunk.size, each chunk in
+     * its own transaction; userstore version is updated once, after all chunks are applied. As users and groups are
+     * created or updated and removals of missing entries are ignored, a batch that failed midway can be sent again.
+     *
+     * @return number of entries applied in each section
+     */
+    public Map<String, Integer> applyUserGroupDelta(InputStream in) {
+        logger.debug("==> XUserMgr.applyUserGroupDelta()");
+
+        checkAdminAccess();
+
+        xaBizUtil.blockAuditorRoleUser();
+
+        Map<String, Integer> ret         = new LinkedHashMap<>();
+        long                 startTimeMs = System.currentTimeMillis();
+
+        try (JsonParser parser = JsonUtils.getMapper().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw restErrorUtil.createRESTException("Invalid user/group delta: expected a JSON object", MessageEnums.INVALID_INPUT_DATA);
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.getCurrentName();
+
+                parser.nextToken();
+
+                switch (section) {
+                    case UGSYNC_DELTA_GROUPS:
+                        ret.merge(section, applyInChunks(parser, VXGroup.class, this::createOrUpdateXGroupsInBatch), Integer::sum);
+                        break;
+                    case UGSYNC_DELTA_USERS:
+                        ret.merge(section, applyInChunks(parser, VXUser.class, this::createOrUpdateXUsersInBatch), Integer::sum);
+                        break;
+                    case UGSYNC_DELTA_GROUP_USERS:
+                        ret.merge(section, applyInChunks(parser, GroupUserInfo.class, xGroupUserService::createOrDeleteXGroupUsers), Integer::sum);
+                        break;
+                    case UGSYNC_DELTA_DELETED_USERS:
+                        ret.merge(section, applyInChunks(parser, String.class, names -> daoManager.getXXUser().updateIsVisibleByNames(names, RangerCommonEnums.IS_HIDDEN)), Integer::sum);
+                        break;
+                    case UGSYNC_DELTA_DELETED_GROUPS:
+                        ret.merge(section, applyInChunks(parser, String.class, names -> daoManager.getXXGroup().updateIsVisibleByNames(names, RangerCommonEnums.IS_HIDDEN)), Integer::sum);
+                        break;
+                    default:
+                        logger.warn("applyUserGroupDelta(): ignoring unknown section {}", section);
+
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        } catch (WebApplicationException excp) {
+            throw excp;
+        } catch (Throwable excp) {
+            logger.error("XUserMgr.applyUserGroupDelta(): failed after applying {}", ret, excp);
+
+            throw restErrorUtil.createRESTException("Failed to apply user/group delta: " + excp.getMessage(), MessageEnums.ERROR_CREATING_OBJECT);
+        } finally {
+            if (!ret.isEmpty()) { // update userstore version for chunks applied, even if a later chunk failed
+                executeInNewTransaction(status -> {
+                    updateUserStoreVersion("applyUserGroupDelta(" + ret + ")");
+
+                    return null;
+                });
+            }
+        }
+
+        logger.info("applyUserGroupDelta(): applied {} in {} ms", ret, System.currentTimeMillis() - startTimeMs);
+
+        return ret;
+    }
+
     @Transactional(readOnly = false, propagation = Propagation.REQUIRED)
     public List<String> updateUserRoleAssignments(UsersGroupRoleAssignments ugRoleAssignments) {
         List<String>        updatedUsers      = new ArrayList<>();
@@ -3774,6 +3863,94 @@ private VXUser updateXUser(VXUser vXUser, VXPortalUser oldUserProfile) {
         return vXUser;
     }
 
+    private <T> int applyInChunks(JsonParser parser, Class<T> entryType, Function<List<T>, Integer> chunkApplier) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw restErrorUtil.createRESTException("Invalid user/group delta: expected an array in " + parser.getCurrentName(), MessageEnums.INVALID_INPUT_DATA);
+        }
+
+        int     ret   = 0;
+        List<T> chunk = new ArrayList<>();
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            T entry = parser.readValueAs(entryType);
+
+            if (entry != null) {
+                chunk.add(entry);
+            }
+
+            if (chunk.size() >= UGSYNC_DELTA_CHUNK_SIZE) {
+                ret += executeInNewTransaction(status -> chunkApplier.apply(chunk));
+
+                chunk.clear();
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            ret += executeInNewTransaction(status -> chunkApplier.apply(chunk));
+        }
+
+        return ret;
+    }
+
+    private int createOrUpdateXGroupsInBatch(List<VXGroup> groups) {
+        List<VXGroup> validGroups = new ArrayList<>(groups.size());
+
+        for (VXGroup vXGroup : groups) {
+            if (vXGroup.getName() == null || "null".equalsIgnoreCase(vXGroup.getName()) || vXGroup.getName().trim().isEmpty()) {
+                logger.warn("Ignoring invalid groupname {}", vXGroup.getName());
+
+                continue;
+            }
+
+            validGroups.add(vXGroup);
+        }
+
+        return validGroups.isEmpty() ? 0 : xGroupService.createOrUpdateXGroupsWithOutLogin(validGroups);
+    }
+
+    private int createOrUpdateXUsersInBatch(List<VXUser> users) {
+        int ret = 0;
+
+        for (VXUser vXUser : users) {
+            final String userName  = vXUser.getName();
+            final String firstName = vXUser.getFirstName();
+
+            if (userName == null || "null".equalsIgnoreCase(userName) || userName.trim().isEmpty()) {
+                logger.warn("Ignoring user {}: invalid username", userName);
+
+                continue;
+            }
+
+            if (firstName == null || "null".equalsIgnoreCase(firstName) || firstName.trim().isEmpty()) {
+                logger.warn("Ignoring user {}: invalid firstName {}", userName, firstName);
+
+                continue;
+            }
+
+            checkAccess(vXUser);
+
+            VXPortalUser vXPortalUser = userMgr.getUserProfileByLoginId(userName);
+
+            if (vXPortalUser == null) {
+                createXUser(vXUser, userName);
+            } else {
+                updateXUser(vXUser, vXPortalUser);
+            }
+
+            ret++;
+        }
+
+        return ret;
+    }
+
+    private <T> T executeInNewTransaction(TransactionCallback<T> action) {
+        TransactionTemplate txTemplate = new TransactionTemplate(txManager);
+
+        txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        return txTemplate.execute(action);
+    }
+
     private void updateUserStoreVersion(String label) {
         try {
             daoManager.getXXGlobalState().onGlobalAppDataChange(RANGER_GLOBAL_STATE_NAME_USER_GROUP);
@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.authorization.hadoop.config.RangerAdminConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized - and compressed - payloads of download responses (policies, tags, roles, userstore, GDS info), kept per
+ * service and version. Download of the same version by many plugins, like after restart of a large cluster, is then
+ * served by streaming the same bytes instead of serializing the cached object again for every request.
+ *
+ * Download endpoints mark a response as cacheable with markCacheable(); the payload is created and sent by
+ * RangerDownloadPayloadFilter. The version given to markCacheable() must identify the response content completely.
+ */
+public class RangerDownloadPayloadCache {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerDownloadPayloadCache.class);
+
+    public static final String ATTR_PAYLOAD_KEY = "org.apache.ranger.download.payload.key";
+
+    public static final String PROP_ENABLED                 = "ranger.admin.download.payload.cache.enabled";
+    public static final String PROP_MAX_ENTRIES_PER_SERVICE = "ranger.admin.download.payload.cache.max.entries.per.service";
+    public static final String PROP_COMPRESS_MIN_BYTES      = "ranger.admin.download.payload.compress.min.bytes";
+
+    private static final Map<String, RangerDownloadPayloadCache> INSTANCES = new ConcurrentHashMap<>();
+
+    private final String                            name;
+    private final boolean                           enabled;
+    private final int                               maxEntriesPerService;
+    private final int                               compressMinBytes;
+    private final Map<String, Map<String, Payload>> payloads         = new HashMap<>();
+    private final AtomicLong                        requestCount     = new AtomicLong();
+    private final AtomicLong                        hitCount         = new AtomicLong();
+    private final AtomicLong                        notModifiedCount = new AtomicLong();
+    private final AtomicLong                        compressedCount  = new AtomicLong();
+    private final AtomicLong                        bytesSent        = new AtomicLong();
+    private final AtomicLong                        bytesSerialized  = new AtomicLong();
+    private final AtomicLong                        bytesSaved       = new AtomicLong();
+
+    public RangerDownloadPayloadCache(String name) {
+        RangerAdminConfig config = RangerAdminConfig.getInstance();
+
+        this.name                 = name;
+        this.enabled              = config.getBoolean(PROP_ENABLED, true);
+        this.maxEntriesPerService = config.getInt(PROP_MAX_ENTRIES_PER_SERVICE, 4);
+        this.compressMinBytes     = config.getInt(PROP_COMPRESS_MIN_BYTES, 1024);
+
+        INSTANCES.put(name, this);
+    }
+
+    public static Collection<RangerDownloadPayloadCache> getInstances() {
+        return Collections.unmodifiableCollection(INSTANCES.values());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Marks the response to the given download request as cacheable.
+     *
+     * @param version identifies the content of the response - for example: policy-version, tag-policy-version and
+     *                the version from which policy-deltas are computed
+     */
+    public void markCacheable(HttpServletRequest request, String serviceName, String version) {
+        if (enabled && request != null && StringUtils.isNotBlank(serviceName) && version != null) {
+            request.setAttribute(ATTR_PAYLOAD_KEY, new PayloadKey(this, serviceName, version));
+        }
+    }
+
+    public void invalidate(String serviceName) {
+        LOG.debug("RangerDownloadPayloadCache({}).invalidate({})", name, serviceName);
+
+        synchronized (payloads) {
+            if (StringUtils.isBlank(serviceName)) {
+                payloads.clear();
+            } else {
+                payloads.remove(serviceName.trim());
+            }
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> ret      = new LinkedHashMap<>();
+        long              requests = requestCount.get();
+
+        ret.put("Requests", requests);
+        ret.put("Hits", hitCount.get());
+        ret.put("HitRatioPercent", requests > 0 ? (hitCount.get() * 100 / requests) : 0L);
+        ret.put("NotModified", notModifiedCount.get());
+        ret.put("Compressed", compressedCount.get());
+        ret.put("BytesSent", bytesSent.get());
+        ret.put("BytesSerialized", bytesSerialized.get());
+        ret.put("BytesSaved", bytesSaved.get());
+
+        return ret;
+    }
+
+    @Override
+    public String toString() {
+        return "RangerDownloadPayloadCache={name=" + name + ", enabled=" + enabled + ", stats=" + getStats() + "}";
+    }
+
+    Payload getPayload(PayloadKey key, PayloadWriter writer) throws IOException {
+        final Payload ret;
+
+        synchronized (payloads) {
+            Map<String, Payload> servicePayloads = payloads.computeIfAbsent(key.serviceName, k -> new LinkedHashMap<String, Payload>(maxEntriesPerService + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Payload> eldest) {
+                    return size() > maxEntriesPerService;
+                }
+            });
+
+            ret = servicePayloads.computeIfAbsent(key.version, k -> new Payload(key.serviceName, key.version));
+        }
+
+        requestCount.incrementAndGet();
+
+        // concurrent requests for the same version wait here for the first one to serialize
+        if (ret.init(writer, compressMinBytes)) {
+            bytesSerialized.addAndGet(ret.getJson().length);
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        return ret;
+    }
+
+    void recordNotModified() {
+        notModifiedCount.incrementAndGet();
+    }
+
+    void recordSent(Payload payload, boolean isCompressed) {
+        if (isCompressed) {
+            compressedCount.incrementAndGet();
+            bytesSent.addAndGet(payload.getGzip().length);
+            bytesSaved.addAndGet(payload.getJson().length - payload.getGzip().length);
+        } else {
+            bytesSent.addAndGet(payload.getJson().length);
+        }
+    }
+
+    interface PayloadWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    static final class PayloadKey {
+        final RangerDownloadPayloadCache cache;
+        final String                     serviceName;
+        final String                     version;
+
+        PayloadKey(RangerDownloadPayloadCache cache, String serviceName, String version) {
+            this.cache       = cache;
+            this.serviceName = serviceName;
+            this.version     = version;
+        }
+    }
+
+    static final class Payload {
+        final String    eTag;
+        private byte[]  json;
+        private byte[]  gzip;
+        private boolean isInitialized;
+
+        Payload(String serviceName, String version) {
+            this.eTag = "\"" + serviceName + "-" + version + "\"";
+        }
+
+        String getETag() {
+            return eTag;
+        }
+
+        synchronized byte[] getJson() {
+            return json;
+        }
+
+        synchronized byte[] getGzip() {
+            return gzip;
+        }
+
+        /**
+         * @return true if this call serialized the payload; false if the payload was serialized earlier
+         */
+        synchronized boolean init(PayloadWriter writer, int compressMinBytes) throws IOException {
+            if (isInitialized) {
+                return false;
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+            writer.write(out);
+
+            json = out.toByteArray();
+
+            if (json.length >= compressMinBytes) {
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+
+                try (GZIPOutputStream gzipOut = new GZIPOutputStream(compressed)) {
+                    gzipOut.write(json);
+                }
+
+                gzip = compressed.toByteArray();
+            }
+
+            isInitialized = true;
+
+            return true;
+        }
+    }
+}
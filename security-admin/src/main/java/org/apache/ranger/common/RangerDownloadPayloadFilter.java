@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.common.RangerDownloadPayloadCache.Payload;
+import org.apache.ranger.common.RangerDownloadPayloadCache.PayloadKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.Providers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Sends download responses marked cacheable by RangerDownloadPayloadCache.markCacheable() from the serialized payload
+ * cache: gzip-compressed to clients that accept it, and with an ETag - a request with matching If-None-Match header
+ * gets SC_NOT_MODIFIED, without the payload.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class RangerDownloadPayloadFilter implements ContainerResponseFilter {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerDownloadPayloadFilter.class);
+
+    private static final String ENCODING_GZIP = "gzip";
+
+    @Context
+    private Providers providers;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+        Object key = requestContext.getProperty(RangerDownloadPayloadCache.ATTR_PAYLOAD_KEY);
+
+        if (!(key instanceof PayloadKey) || responseContext.getStatus() != Response.Status.OK.getStatusCode() || !responseContext.hasEntity()) {
+            return;
+        }
+
+        PayloadKey                 payloadKey = (PayloadKey) key;
+        RangerDownloadPayloadCache cache      = payloadKey.cache;
+        Object                     entity     = responseContext.getEntity();
+        Payload                    payload    = cache.getPayload(payloadKey, out -> writeEntity(entity, responseContext, out));
+
+        responseContext.getHeaders().putSingle(HttpHeaders.ETAG, payload.getETag());
+        responseContext.getHeaders().putSingle(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (isETagMatch(requestContext.getHeaderString(HttpHeaders.IF_NONE_MATCH), payload.getETag())) {
+            LOG.debug("RangerDownloadPayloadFilter({}): not modified. serviceName={}, version={}", cache.getName(), payloadKey.serviceName, payloadKey.version);
+
+            cache.recordNotModified();
+
+            responseContext.setStatus(Response.Status.NOT_MODIFIED.getStatusCode());
+            responseContext.setEntity(null);
+
+            return;
+        }
+
+        boolean isCompressed = payload.getGzip() != null && isGzipAccepted(requestContext.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+
+        if (isCompressed) {
+            responseContext.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, ENCODING_GZIP);
+        }
+
+        responseContext.setEntity(isCompressed ? payload.getGzip() : payload.getJson(), responseContext.getEntityAnnotations(), MediaType.APPLICATION_JSON_TYPE);
+
+        cache.recordSent(payload, isCompressed);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void writeEntity(Object entity, ContainerResponseContext responseContext, OutputStream out) throws IOException {
+        Class<?>          type   = entity.getClass();
+        MessageBodyWriter writer = providers.getMessageBodyWriter(type, type, responseContext.getEntityAnnotations(), MediaType.APPLICATION_JSON_TYPE);
+
+        if (writer == null) {
+            throw new IOException("no writer found for " + type.getName());
+        }
+
+        writer.writeTo(entity, type, type, responseContext.getEntityAnnotations(), MediaType.APPLICATION_JSON_TYPE, responseContext.getHeaders(), out);
+    }
+
+    static boolean isGzipAccepted(String acceptEncoding) {
+        if (StringUtils.isNotBlank(acceptEncoding)) {
+            for (String encoding : acceptEncoding.split(",")) {
+                String[] parts = encoding.trim().split(";");
+
+                if (ENCODING_GZIP.equalsIgnoreCase(parts[0].trim()) || "x-gzip".equalsIgnoreCase(parts[0].trim())) {
+                    return parts.length < 2 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+
+        return false;
+    }
+
+    static boolean isETagMatch(String ifNoneMatch, String eTag) {
+        if (StringUtils.isNotBlank(ifNoneMatch)) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String value = StringUtils.removeStart(tag.trim(), "W/");
+
+                if (value.equals("*") || value.equals(eTag)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
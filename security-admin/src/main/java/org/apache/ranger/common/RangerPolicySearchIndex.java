@@ -0,0 +1,382 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.util.SearchFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index of policies of a service, used to narrow down the policies to evaluate search-filter predicates on:
+ * users, groups, roles, policy-labels and resource-values to ids of policies that refer to them. Resource-values
+ * are held in a trie per resource, keyed by the literal prefix of the value - i.e. the part before the first
+ * wildcard - which finds the policies whose values can match a given resource. The index is built from cached
+ * policies of a service and is updated with policy-deltas, i.e. with policy create/update/delete changes.
+ *
+ * Lookups return a superset of matching policies; SearchFilter predicates must still be applied on the result.
+ */
+public class RangerPolicySearchIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(RangerPolicySearchIndex.class);
+
+    private final String                        serviceType;
+    private final Map<Long, RangerPolicy>       policies       = new HashMap<>();
+    private final Map<String, Set<Long>>        users          = new HashMap<>();
+    private final Map<String, Set<Long>>        groups         = new HashMap<>();
+    private final Map<String, Set<Long>>        roles          = new HashMap<>();
+    private final Map<String, Set<Long>>        labels         = new HashMap<>();
+    private final Map<String, Set<Long>>        resourceValues = new HashMap<>();
+    private final Map<String, ResourceTrieNode> resourceTries  = new HashMap<>();
+    private       Long                          policyVersion;
+
+    public RangerPolicySearchIndex(String serviceType, Long policyVersion, List<RangerPolicy> policies) {
+        this.serviceType   = serviceType;
+        this.policyVersion = policyVersion;
+
+        if (policies != null) {
+            for (RangerPolicy policy : policies) {
+                addPolicy(policy);
+            }
+        }
+
+        LOG.debug("RangerPolicySearchIndex(serviceType={}, policyVersion={}): policies={}, users={}, groups={}, roles={}, labels={}, resourceValues={}", serviceType, policyVersion, this.policies.size(), users.size(), groups.size(), roles.size(), labels.size(), resourceValues.size());
+    }
+
+    public static boolean hasIndexedCriteria(SearchFilter filter) {
+        return filter != null && (StringUtils.isNotEmpty(filter.getParam(SearchFilter.USER)) ||
+                StringUtils.isNotEmpty(filter.getParam(SearchFilter.GROUP)) ||
+                StringUtils.isNotEmpty(filter.getParam(SearchFilter.ROLE)) ||
+                StringUtils.isNotEmpty(filter.getParam(SearchFilter.POLICY_LABELS_PARTIAL)) ||
+                StringUtils.isNotEmpty(filter.getParam(SearchFilter.POL_RESOURCE)) ||
+                MapUtils.isNotEmpty(filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true)));
+    }
+
+    public synchronized Long getPolicyVersion() {
+        return policyVersion;
+    }
+
+    public synchronized int getPolicyCount() {
+        return policies.size();
+    }
+
+    public synchronized void applyDeltas(List<RangerPolicyDelta> deltas, Long policyVersion) {
+        LOG.debug("==> RangerPolicySearchIndex.applyDeltas(serviceType={}, deltaCount={}, policyVersion={})", serviceType, deltas == null ? 0 : deltas.size(), policyVersion);
+
+        if (deltas != null) {
+            for (RangerPolicyDelta delta : deltas) {
+                Integer changeType = delta.getChangeType();
+
+                if (!StringUtils.equals(serviceType, delta.getServiceType()) || delta.getPolicyId() == null || changeType == null) {
+                    continue;
+                }
+
+                if (changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE || changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE || changeType == RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE) {
+                    removePolicy(policies.get(delta.getPolicyId()));
+
+                    if (changeType != RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE) {
+                        addPolicy(delta.getPolicy());
+                    }
+                }
+            }
+        }
+
+        this.policyVersion = policyVersion;
+
+        LOG.debug("<== RangerPolicySearchIndex.applyDeltas(serviceType={}, policyVersion={}): policies={}", serviceType, policyVersion, policies.size());
+    }
+
+    /**
+     * @return policies, ordered by id, that might satisfy user/group/role/policy-label/resource criteria in the filter;
+     *         null if the filter has none of these criteria
+     */
+    public synchronized List<RangerPolicy> getCandidatePolicies(SearchFilter filter) {
+        Set<Long> policyIds = null;
+
+        policyIds = retain(policyIds, filter.getParam(SearchFilter.USER), users);
+        policyIds = retain(policyIds, filter.getParam(SearchFilter.GROUP), groups);
+        policyIds = retain(policyIds, filter.getParam(SearchFilter.ROLE), roles);
+        policyIds = retain(policyIds, filter.getParam(SearchFilter.POLICY_LABELS_PARTIAL), labels);
+        policyIds = retain(policyIds, filter.getParam(SearchFilter.POL_RESOURCE), resourceValues);
+
+        Map<String, String> resources = filter.getParamsWithPrefix(SearchFilter.RESOURCE_PREFIX, true);
+
+        if (MapUtils.isNotEmpty(resources)) {
+            for (Map.Entry<String, String> entry : resources.entrySet()) {
+                ResourceTrieNode trie = resourceTries.get(entry.getKey());
+                Set<Long>        ids  = new HashSet<>();
+
+                if (trie != null && entry.getValue() != null) {
+                    trie.collectMatches(entry.getValue(), ids);
+                }
+
+                policyIds = retain(policyIds, ids);
+            }
+        }
+
+        final List<RangerPolicy> ret;
+
+        if (policyIds == null) {
+            ret = null;
+        } else {
+            List<Long> ids = new ArrayList<>(policyIds);
+
+            Collections.sort(ids);
+
+            ret = new ArrayList<>(ids.size());
+
+            for (Long id : ids) {
+                ret.add(policies.get(id));
+            }
+        }
+
+        LOG.debug("RangerPolicySearchIndex.getCandidatePolicies(serviceType={}, filter={}): policies={}, candidates={}", serviceType, filter, policies.size(), ret == null ? null : ret.size());
+
+        return ret;
+    }
+
+    private void addPolicy(RangerPolicy policy) {
+        if (policy == null || policy.getId() == null) {
+            return;
+        }
+
+        Long policyId = policy.getId();
+
+        policies.put(policyId, policy);
+
+        for (List<? extends RangerPolicyItem> policyItems : getPolicyItems(policy)) {
+            for (RangerPolicyItem policyItem : policyItems) {
+                add(users, policyItem.getUsers(), policyId);
+                add(groups, policyItem.getGroups(), policyId);
+                add(roles, policyItem.getRoles(), policyId);
+            }
+        }
+
+        add(labels, policy.getPolicyLabels(), policyId);
+
+        if (policy.getResources() != null) {
+            for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+                List<String> values = entry.getValue() != null ? entry.getValue().getValues() : null;
+
+                if (values != null) {
+                    ResourceTrieNode trie = resourceTries.computeIfAbsent(entry.getKey(), k -> new ResourceTrieNode());
+
+                    for (String value : values) {
+                        if (value != null) {
+                            trie.add(value, policyId);
+                        }
+                    }
+
+                    add(resourceValues, values, policyId);
+                }
+            }
+        }
+    }
+
+    private void removePolicy(RangerPolicy policy) {
+        if (policy == null || policy.getId() == null) {
+            return;
+        }
+
+        Long policyId = policy.getId();
+
+        policies.remove(policyId);
+
+        for (List<? extends RangerPolicyItem> policyItems : getPolicyItems(policy)) {
+            for (RangerPolicyItem policyItem : policyItems) {
+                remove(users, policyItem.getUsers(), policyId);
+                remove(groups, policyItem.getGroups(), policyId);
+                remove(roles, policyItem.getRoles(), policyId);
+            }
+        }
+
+        remove(labels, policy.getPolicyLabels(), policyId);
+
+        if (policy.getResources() != null) {
+            for (Map.Entry<String, RangerPolicyResource> entry : policy.getResources().entrySet()) {
+                List<String>     values = entry.getValue() != null ? entry.getValue().getValues() : null;
+                ResourceTrieNode trie   = resourceTries.get(entry.getKey());
+
+                if (values != null) {
+                    if (trie != null) {
+                        for (String value : values) {
+                            if (value != null) {
+                                trie.remove(value, 0, policyId);
+                            }
+                        }
+                    }
+
+                    remove(resourceValues, values, policyId);
+                }
+            }
+        }
+    }
+
+    private static List<List<? extends RangerPolicyItem>> getPolicyItems(RangerPolicy policy) {
+        List<List<? extends RangerPolicyItem>> ret = new ArrayList<>(6);
+
+        ret.add(policy.getPolicyItems());
+        ret.add(policy.getDenyPolicyItems());
+        ret.add(policy.getAllowExceptions());
+        ret.add(policy.getDenyExceptions());
+        ret.add(policy.getDataMaskPolicyItems());
+        ret.add(policy.getRowFilterPolicyItems());
+
+        ret.removeIf(CollectionUtils::isEmpty);
+
+        return ret;
+    }
+
+    private static void add(Map<String, Set<Long>> index, Collection<String> keys, Long policyId) {
+        if (keys != null) {
+            for (String key : keys) {
+                if (key != null) {
+                    index.computeIfAbsent(key, k -> new HashSet<>()).add(policyId);
+                }
+            }
+        }
+    }
+
+    private static void remove(Map<String, Set<Long>> index, Collection<String> keys, Long policyId) {
+        if (keys != null) {
+            for (String key : keys) {
+                Set<Long> policyIds = key != null ? index.get(key) : null;
+
+                if (policyIds != null) {
+                    policyIds.remove(policyId);
+
+                    if (policyIds.isEmpty()) {
+                        index.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    // search-filter matches users, groups, roles, labels and resource-values that contain the given value, ignoring case
+    private static Set<Long> retain(Set<Long> policyIds, String value, Map<String, Set<Long>> index) {
+        if (StringUtils.isEmpty(value)) {
+            return policyIds;
+        }
+
+        Set<Long> ids = new HashSet<>();
+
+        for (Map.Entry<String, Set<Long>> entry : index.entrySet()) {
+            if (StringUtils.containsIgnoreCase(entry.getKey(), value)) {
+                ids.addAll(entry.getValue());
+            }
+        }
+
+        return retain(policyIds, ids);
+    }
+
+    private static Set<Long> retain(Set<Long> policyIds, Set<Long> ids) {
+        if (policyIds == null) {
+            return ids;
+        }
+
+        policyIds.retainAll(ids);
+
+        return policyIds;
+    }
+
+    private static final class ResourceTrieNode {
+        private Map<Character, ResourceTrieNode> children;
+        private Set<Long>                        policyIds;
+
+        void add(String value, Long policyId) {
+            ResourceTrieNode node = this;
+
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+
+                if (isWildcard(ch)) {
+                    break;
+                }
+
+                if (node.children == null) {
+                    node.children = new HashMap<>();
+                }
+
+                node = node.children.computeIfAbsent(ch, c -> new ResourceTrieNode());
+            }
+
+            if (node.policyIds == null) {
+                node.policyIds = new HashSet<>();
+            }
+
+            node.policyIds.add(policyId);
+        }
+
+        // returns true if this node is empty after removal, for the parent to prune it
+        boolean remove(String value, int idx, Long policyId) {
+            if (idx < value.length() && !isWildcard(value.charAt(idx))) {
+                ResourceTrieNode child = children != null ? children.get(value.charAt(idx)) : null;
+
+                if (child != null && child.remove(value, idx + 1, policyId)) {
+                    children.remove(value.charAt(idx));
+
+                    if (children.isEmpty()) {
+                        children = null;
+                    }
+                }
+            } else if (policyIds != null) {
+                policyIds.remove(policyId);
+
+                if (policyIds.isEmpty()) {
+                    policyIds = null;
+                }
+            }
+
+            return children == null && policyIds == null;
+        }
+
+        // collects ids of policies having a value whose literal prefix is a prefix of the given value
+        void collectMatches(String value, Set<Long> ret) {
+            ResourceTrieNode node = this;
+
+            for (int i = 0; node != null; i++) {
+                if (node.policyIds != null) {
+                    ret.addAll(node.policyIds);
+                }
+
+                node = (i < value.length() && node.children != null) ? node.children.get(value.charAt(i)) : null;
+            }
+        }
+
+        private static boolean isWildcard(char ch) {
+            return ch == '*' || ch == '?';
+        }
+    }
+}
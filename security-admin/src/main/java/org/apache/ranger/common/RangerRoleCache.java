@@ -43,7 +43,8 @@ public class RangerRoleCache {
     private final int           waitTimeInSeconds;
     private final ReentrantLock lock = new ReentrantLock();
 
-    private final RangerRoleCacheWrapper roleCacheWrapper = new RangerRoleCacheWrapper();
+    private final RangerRoleCacheWrapper     roleCacheWrapper = new RangerRoleCacheWrapper();
+    private final RangerDownloadPayloadCache payloadCache     = new RangerDownloadPayloadCache("RoleDownload");
 
     private RangerRoleCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
@@ -68,6 +69,10 @@ public static RangerRoleCache getInstance() {
         return me;
     }
 
+    public RangerDownloadPayloadCache getPayloadCache() {
+        return payloadCache;
+    }
+
     public RangerRoles getLatestRangerRoleOrCached(String serviceName, RoleDBStore roleDBStore, Long lastKnownRoleVersion, Long rangerRoleVersionInDB) throws Exception {
         RangerRoles ret = null;
 
@@ -53,13 +53,16 @@ public class RangerServicePoliciesCache {
 
     private final int                                 waitTimeInSeconds;
     private final boolean                             dedupStrings;
+    private final boolean                             useSearchIndex;
     private final Map<String, ServicePoliciesWrapper> servicePoliciesMap = new HashMap<>();
+    private final RangerDownloadPayloadCache          payloadCache       = new RangerDownloadPayloadCache("PolicyDownload");
 
     private RangerServicePoliciesCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
 
         waitTimeInSeconds = config.getInt("ranger.admin.policy.download.cache.max.waittime.for.update", MAX_WAIT_TIME_FOR_UPDATE);
         dedupStrings      = config.getBoolean("ranger.admin.policy.dedup.strings", Boolean.TRUE);
+        useSearchIndex    = config.getBoolean("ranger.admin.policy.search.index.enabled", Boolean.TRUE);
     }
 
     public static RangerServicePoliciesCache getInstance() {
@@ -146,6 +149,36 @@ public ServicePolicies getServicePolicies(String serviceName, Long serviceId, Lo
         return ret;
     }
 
+    /**
+     * Returns search index of cached policies of the service; the index is built on first call after a full load of
+     * policies, and is kept up to date with policy-deltas thereafter.
+     *
+     * @return null if the service policies are not cached, or if search index is disabled
+     */
+    public RangerPolicySearchIndex getPolicySearchIndex(String serviceName) {
+        RangerPolicySearchIndex ret = null;
+
+        if (useSearchIndex && StringUtils.isNotBlank(serviceName)) {
+            final ServicePoliciesWrapper servicePoliciesWrapper;
+
+            synchronized (this) {
+                servicePoliciesWrapper = servicePoliciesMap.get(serviceName);
+            }
+
+            if (servicePoliciesWrapper != null) {
+                ret = servicePoliciesWrapper.getSearchIndex();
+            }
+        }
+
+        LOG.debug("RangerServicePoliciesCache.getPolicySearchIndex({}): policyVersion={}", serviceName, ret != null ? ret.getPolicyVersion() : null);
+
+        return ret;
+    }
+
+    public RangerDownloadPayloadCache getPayloadCache() {
+        return payloadCache;
+    }
+
     /**
      * Reset policy cache using serviceName if provided.
      * If serviceName is empty, reset everything.
@@ -158,6 +191,8 @@ public boolean resetCache(final String serviceName) {
 
         boolean ret = false;
 
+        payloadCache.invalidate(serviceName);
+
         synchronized (this) {
             if (!servicePoliciesMap.isEmpty()) {
                 if (StringUtils.isBlank(serviceName)) {
@@ -290,7 +325,10 @@ private class ServicePoliciesWrapper {
         ServicePolicies          servicePolicies;
         Date                     updateTime;
         long                     longestDbLoadTimeInMs = -1;
+        long                     fullLoadCount;
+        long                     incrementalUpdateCount;
         ServicePolicyDeltasCache deltaCache;
+        RangerPolicySearchIndex  searchIndex;
 
         ServicePoliciesWrapper(Long serviceId) {
             this.serviceId  = serviceId;
@@ -402,6 +440,33 @@ ServicePolicies getLatestOrCached(String serviceName, ServiceStore serviceStore,
             return ret;
         }
 
+        RangerPolicySearchIndex getSearchIndex() {
+            RangerPolicySearchIndex ret        = null;
+            boolean                 lockResult = false;
+
+            try {
+                lockResult = lock.tryLock(waitTimeInSeconds, TimeUnit.SECONDS);
+
+                if (lockResult) {
+                    if (servicePolicies != null && (searchIndex == null || !Objects.equals(searchIndex.getPolicyVersion(), servicePolicies.getPolicyVersion()))) {
+                        searchIndex = new RangerPolicySearchIndex(servicePolicies.getServiceDef() != null ? servicePolicies.getServiceDef().getName() : null, servicePolicies.getPolicyVersion(), servicePolicies.getPolicies());
+                    }
+
+                    ret = searchIndex;
+                } else {
+                    LOG.warn("Could not get lock in [{}] seconds to build policy search index; policies will be searched without the index", waitTimeInSeconds);
+                }
+            } catch (InterruptedException exception) {
+                LOG.error("getSearchIndex:lock got interrupted..", exception);
+            } finally {
+                if (lockResult) {
+                    lock.unlock();
+                }
+            }
+
+            return ret;
+        }
+
         boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownVersion) throws Exception {
             LOG.debug("==> ServicePoliciesWrapper.getLatest(serviceName={}, lastKnownVersion={})", serviceName, lastKnownVersion);
 
@@ -438,12 +503,18 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
                         LOG.debug("Initializing ServicePolicies cache for the first time");
 
                         servicePolicies = servicePoliciesFromDb;
+                        searchIndex     = null;
+
+                        fullLoadCount++;
                     } else if (servicePoliciesFromDb.getPolicyDeltas() == null) {
                         // service-policies are loaded because service/service-def changed
                         LOG.debug("Complete set of policies are loaded from database, because of some disqualifying event");
 
                         servicePolicies          = servicePoliciesFromDb;
+                        searchIndex              = null;
                         isCacheReloadedByDQEvent = true;
+
+                        fullLoadCount++;
                     } else { // Previously cached service policies are still valid - no service/service-def change
                         // Rebuild policies cache from original policies and deltas
                         LOG.debug("Retrieved policy-deltas from database. These will be applied on top of ServicePolicy version:[{}], policy-deltas:[{}]", cachedServicePoliciesVersion, servicePoliciesFromDb.getPolicyDeltas());
@@ -453,6 +524,13 @@ boolean getLatest(String serviceName, ServiceStore serviceStore, Long lastKnownV
 
                         servicePolicies.setPolicies(newPolicies);
                         servicePolicies.setPolicyVersion(servicePoliciesFromDb.getPolicyVersion());
+                        servicePolicies.setPolicyUpdateTime(servicePoliciesFromDb.getPolicyUpdateTime());
+
+                        if (searchIndex != null) {
+                            searchIndex.applyDeltas(servicePoliciesFromDb.getPolicyDeltas(), servicePoliciesFromDb.getPolicyVersion());
+                        }
+
+                        incrementalUpdateCount++;
 
                         checkCacheSanity(serviceName, serviceStore, false);
 
@@ -497,6 +575,8 @@ StringBuilder toString(StringBuilder sb) {
 
             sb.append("updateTime=").append(updateTime)
                     .append(", longestDbLoadTimeInMs=").append(longestDbLoadTimeInMs)
+                    .append(", fullLoadCount=").append(fullLoadCount)
+                    .append(", incrementalUpdateCount=").append(incrementalUpdateCount)
                     .append(", Service-Version:").append(servicePolicies != null ? servicePolicies.getPolicyVersion() : "null")
                     .append(", Number-Of-Policies:").append(servicePolicies != null && servicePolicies.getPolicies() != null ? servicePolicies.getPolicies().size() : 0)
                     .append(", Number-Of-Policy-Deltas:").append(servicePolicies != null && servicePolicies.getPolicyDeltas() != null ? servicePolicies.getPolicyDeltas().size() : 0);
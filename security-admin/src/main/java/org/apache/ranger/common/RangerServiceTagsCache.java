@@ -48,6 +48,7 @@ public class RangerServiceTagsCache {
     private final boolean dedupStrings;
 
     private final Map<String, ServiceTagsWrapper> serviceTagsMap = new HashMap<>();
+    private final RangerDownloadPayloadCache      payloadCache   = new RangerDownloadPayloadCache("TagDownload");
 
     private RangerServiceTagsCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
@@ -157,6 +158,10 @@ public ServiceTags getServiceTags(String serviceName, Long serviceId, Long lastK
         return ret;
     }
 
+    public RangerDownloadPayloadCache getPayloadCache() {
+        return payloadCache;
+    }
+
     /**
      * Reset service tag cache using serviceName if provided.
      * If serviceName is empty, reset everything.
@@ -169,6 +174,8 @@ public boolean resetCache(final String serviceName) {
 
         boolean ret = false;
 
+        payloadCache.invalidate(serviceName);
+
         synchronized (this) {
             if (!serviceTagsMap.isEmpty()) {
                 if (StringUtils.isBlank(serviceName)) {
@@ -40,10 +40,11 @@ public class RangerUserStoreCache {
 
     public static volatile RangerUserStoreCache sInstance;
 
-    private final int             waitTimeInSeconds;
-    private final boolean         dedupStrings;
-    private final ReentrantLock   lock = new ReentrantLock();
-    private       RangerUserStore rangerUserStore;
+    private final int                        waitTimeInSeconds;
+    private final boolean                    dedupStrings;
+    private final ReentrantLock              lock         = new ReentrantLock();
+    private final RangerDownloadPayloadCache payloadCache = new RangerDownloadPayloadCache("UserStoreDownload");
+    private       RangerUserStore            rangerUserStore;
 
     private RangerUserStoreCache() {
         RangerAdminConfig config = RangerAdminConfig.getInstance();
@@ -70,6 +71,10 @@ public static RangerUserStoreCache getInstance() {
         return me;
     }
 
+    public RangerDownloadPayloadCache getPayloadCache() {
+        return payloadCache;
+    }
+
     public RangerUserStore getRangerUserStore() {
         return this.rangerUserStore;
     }
@@ -54,6 +54,8 @@
 public class ServiceGdsInfoCache extends RangerAdminCache<String, ServiceGdsInfo> {
     private static final Logger LOG = LoggerFactory.getLogger(ServiceGdsInfoCache.class);
 
+    private static final RangerDownloadPayloadCache PAYLOAD_CACHE = new RangerDownloadPayloadCache("GdsDownload");
+
     @Autowired
     RangerDaoManager daoMgr;
 
@@ -86,6 +88,10 @@ public ServiceGdsInfoCache() {
         super("gds-info", null);
     }
 
+    public static RangerDownloadPayloadCache getPayloadCache() {
+        return PAYLOAD_CACHE;
+    }
+
     @PostConstruct
     public void init() {
         setLoader(new ServiceGdsInfoLoader(txManager));
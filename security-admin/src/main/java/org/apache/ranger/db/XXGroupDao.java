@@ -22,6 +22,8 @@
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.biz.RangerBizUtil;
+import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.RangerCommonEnums;
 import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.entity.XXGroup;
@@ -35,6 +37,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -135,6 +138,46 @@ public Map<String, Long> getIdsByGroupNames(Collection<String> groupNames) {
         return Collections.emptyMap();
     }
 
+    public List<XXGroup> findByGroupNames(Collection<String> groupNames) {
+        if (CollectionUtils.isEmpty(groupNames)) {
+            return new ArrayList<>();
+        }
+
+        List<XXGroup> ret      = new ArrayList<>();
+        List<String>  nameList = new ArrayList<>(groupNames);
+
+        // limit the size of IN clause, as in XGroupUserService
+        for (int fromIndex = 0; fromIndex < nameList.size(); fromIndex += RangerBizUtil.BATCH_PERSIST_SIZE) {
+            ret.addAll(getEntityManager()
+                    .createNamedQuery("XXGroup.findByGroupNames", tClass)
+                    .setParameter("names", nameList.subList(fromIndex, Math.min(fromIndex + RangerBizUtil.BATCH_PERSIST_SIZE, nameList.size())))
+                    .getResultList());
+        }
+
+        return ret;
+    }
+
+    public int updateIsVisibleByNames(Collection<String> groupNames, Integer isVisible) {
+        int ret = 0;
+
+        if (CollectionUtils.isNotEmpty(groupNames)) {
+            List<String> nameList   = new ArrayList<>(groupNames);
+            Date         updateTime = DateUtil.getUTCDate();
+
+            // limit the size of IN clause, as in XGroupUserService
+            for (int fromIndex = 0; fromIndex < nameList.size(); fromIndex += RangerBizUtil.BATCH_PERSIST_SIZE) {
+                ret += getEntityManager()
+                        .createNamedQuery("XXGroup.updateIsVisibleByNames")
+                        .setParameter("isVisible", isVisible)
+                        .setParameter("updateTime", updateTime)
+                        .setParameter("names", nameList.subList(fromIndex, Math.min(fromIndex + RangerBizUtil.BATCH_PERSIST_SIZE, nameList.size())))
+                        .executeUpdate();
+            }
+        }
+
+        return ret;
+    }
+
     private GroupInfo toGroupInfo(Object[] row) {
         String              name        = (String) row[0];
         String              description = (String) row[1];
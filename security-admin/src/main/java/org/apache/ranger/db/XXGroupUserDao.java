@@ -19,7 +19,9 @@
 
 package org.apache.ranger.db;
 
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.entity.XXGroupUser;
 import org.slf4j.Logger;
@@ -29,6 +31,7 @@
 import javax.persistence.NoResultException;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -47,6 +50,40 @@ public void deleteByGroupIdAndUserId(Long groupId, Long userId) {
         getEntityManager().createNamedQuery("XXGroupUser.deleteByGroupIdAndUserId").setParameter("userId", userId).setParameter("parentGroupId", groupId).executeUpdate();
     }
 
+    public int deleteByGroupIdAndUserIds(Long groupId, Collection<Long> userIds) {
+        int ret = 0;
+
+        if (groupId != null && CollectionUtils.isNotEmpty(userIds)) {
+            ret = getEntityManager().createNamedQuery("XXGroupUser.deleteByGroupIdAndUserIds").setParameter("parentGroupId", groupId).setParameter("userIds", userIds).executeUpdate();
+        }
+
+        return ret;
+    }
+
+    /**
+     * @param groupIds -- Ids of X_GROUP table
+     * @return ids of users in each of the given groups, keyed by group id
+     */
+    public Map<Long, Set<Long>> findUserIdsByGroupIds(Collection<Long> groupIds) {
+        Map<Long, Set<Long>> ret = new HashMap<>();
+
+        if (CollectionUtils.isNotEmpty(groupIds)) {
+            List<Long> idList = new ArrayList<>(groupIds);
+
+            // limit the size of IN clause, as in XGroupUserService
+            for (int fromIndex = 0; fromIndex < idList.size(); fromIndex += RangerBizUtil.BATCH_PERSIST_SIZE) {
+                List<Long>     batch = idList.subList(fromIndex, Math.min(fromIndex + RangerBizUtil.BATCH_PERSIST_SIZE, idList.size()));
+                List<Object[]> rows  = getEntityManager().createNamedQuery("XXGroupUser.findUserIdsByGroupIds", Object[].class).setParameter("groupIds", batch).getResultList();
+
+                for (Object[] row : rows) {
+                    ret.computeIfAbsent((Long) row[0], k -> new HashSet<>()).add((Long) row[1]);
+                }
+            }
+        }
+
+        return ret;
+    }
+
     public List<XXGroupUser> findByUserId(Long userId) {
         if (userId != null) {
             try {
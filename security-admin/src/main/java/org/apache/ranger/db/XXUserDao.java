@@ -22,6 +22,8 @@
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ranger.authorization.utils.JsonUtils;
+import org.apache.ranger.biz.RangerBizUtil;
+import org.apache.ranger.common.DateUtil;
 import org.apache.ranger.common.RangerCommonEnums;
 import org.apache.ranger.common.db.BaseDao;
 import org.apache.ranger.entity.XXUser;
@@ -36,6 +38,7 @@
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -205,6 +208,27 @@ public Map<String, Long> getIdsByUserNames(Collection<String> names) {
         return Collections.emptyMap();
     }
 
+    public int updateIsVisibleByNames(Collection<String> names, Integer isVisible) {
+        int ret = 0;
+
+        if (CollectionUtils.isNotEmpty(names)) {
+            List<String> nameList   = new ArrayList<>(names);
+            Date         updateTime = DateUtil.getUTCDate();
+
+            // limit the size of IN clause, as in XGroupUserService
+            for (int fromIndex = 0; fromIndex < nameList.size(); fromIndex += RangerBizUtil.BATCH_PERSIST_SIZE) {
+                ret += getEntityManager()
+                        .createNamedQuery("XXUser.updateIsVisibleByNames")
+                        .setParameter("isVisible", isVisible)
+                        .setParameter("updateTime", updateTime)
+                        .setParameter("names", nameList.subList(fromIndex, Math.min(fromIndex + RangerBizUtil.BATCH_PERSIST_SIZE, nameList.size())))
+                        .executeUpdate();
+            }
+        }
+
+        return ret;
+    }
+
     private UserInfo toUserInfo(Object[] row) {
         String              name         = (String) row[0];
         String              description  = (String) row[1];
@@ -21,6 +21,7 @@
 
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourceContextEnricher;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourceDenyConditions;
+import org.apache.ranger.metrics.source.RangerAdminMetricsSourceDownload;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourceGds;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourcePolicyMasking;
 import org.apache.ranger.metrics.source.RangerAdminMetricsSourcePolicyResourceAccess;
@@ -76,6 +77,9 @@ public class RangerAdminMetricsWrapper {
     @Autowired
     private RangerAdminMetricsSourceGds gdsSource;
 
+    @Autowired
+    private RangerAdminMetricsSourceDownload downloadSource;
+
     @PostConstruct
     public void init() {
         LOG.info("===>> RangerAdminMetricsWrapper.init()");
@@ -107,6 +111,9 @@ public void init() {
             //Source: Gds
             sourceWrappers.add(new RangerMetricsSourceWrapper("RangerAdminMetricsSourceGds", "Gds in Ranger Admin", context, gdsSource));
 
+            //Source: Download
+            sourceWrappers.add(new RangerMetricsSourceWrapper("RangerAdminMetricsSourceDownload", "Policy, tag, role, userstore and GDS download payload cache in Ranger Admin", context, downloadSource));
+
             rangerMetricsSystemWrapper.init(context, sourceWrappers, Collections.emptyList());
         } catch (Exception e) {
             LOG.error("RangerAdminMetricsWrapper: Exception occured while initializing Metric Starter:", e);
@@ -31,6 +31,7 @@
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.ServiceGdsInfoCache;
 import org.apache.ranger.common.ServiceUtil;
 import org.apache.ranger.plugin.model.RangerGds;
 import org.apache.ranger.plugin.model.RangerGds.DataShareInDatasetSummary;
@@ -1752,6 +1753,8 @@ public ServiceGdsInfo getServiceGdsInfoIfUpdated(@PathParam("serviceName") Strin
                     logMsg            = "No change since last update";
                 } else {
                     downloadedVersion = ret.getGdsVersion();
+
+                    ServiceGdsInfoCache.getPayloadCache().markCacheable(request, serviceName, String.valueOf(ret.getGdsVersion()));
                 }
             }
         } catch (WebApplicationException webException) {
@@ -1812,6 +1815,8 @@ public ServiceGdsInfo getSecureServiceGdsInfoIfUpdated(@PathParam("serviceName")
                         logMsg            = "No change since last update";
                     } else {
                         downloadedVersion = ret.getGdsVersion();
+
+                        ServiceGdsInfoCache.getPayloadCache().markCacheable(request, serviceName, String.valueOf(ret.getGdsVersion()));
                     }
                 } else {
                     LOG.error("GdsREST.getSecureServiceGdsInfoIfUpdated(serviceName={}) failed as User doesn't have permission to download GDS data", serviceName);
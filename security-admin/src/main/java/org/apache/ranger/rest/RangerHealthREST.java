@@ -21,6 +21,7 @@
 
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.plugin.model.RangerServerHealth;
+import org.apache.ranger.plugin.model.RangerServerHealth.RangerServerStatus;
 import org.apache.ranger.util.RangerServerHealthUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Scope;
@@ -31,6 +32,7 @@
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
 
 @Path("actuator")
 @Component
@@ -54,4 +56,18 @@ public RangerServerHealth getRangerServerHealth() {
 
         return rangerServerHealthUtil.getRangerServerHealth(dbVersion);
     }
+
+    /*
+    This API is used by load-balancers to check if the Ranger Admin is ready to serve plugins: returns 503 until warm-up of caches is over
+    */
+    @GET
+    @Path("/readiness")
+    @Produces("application/json")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Response getRangerServerReadiness() {
+        String             dbVersion = xaBizUtil.getDBVersion();
+        RangerServerHealth readiness = rangerServerHealthUtil.getRangerServerReadiness(dbVersion);
+
+        return Response.status(readiness.getStatus() == RangerServerStatus.UP ? Response.Status.OK : Response.Status.SERVICE_UNAVAILABLE).entity(readiness).build();
+    }
 }
@@ -35,6 +35,7 @@
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RESTErrorUtil;
+import org.apache.ranger.common.RangerRoleCache;
 import org.apache.ranger.common.RangerSearchUtil;
 import org.apache.ranger.common.RangerValidatorFactory;
 import org.apache.ranger.common.ServiceUtil;
@@ -1051,6 +1052,8 @@ public RangerRoles getRangerRolesIfUpdated(@PathParam("serviceName") String serv
                     downloadedVersion = roles.getRoleVersion();
                     ret               = roles;
                     logMsg            = "Returning RangerRoles =>" + (ret);
+
+                    RangerRoleCache.getInstance().getPayloadCache().markCacheable(request, serviceName, String.valueOf(ret.getRoleVersion()));
                 }
             } catch (Throwable excp) {
                 LOG.error("getRangerRolesIfUpdated({}, {}, {}) failed", serviceName, lastKnownRoleVersion, lastActivationTime, excp);
@@ -1138,6 +1141,8 @@ public RangerRoles getSecureRangerRolesIfUpdated(@PathParam("serviceName") Strin
                         downloadedVersion = roles.getRoleVersion();
                         ret               = roles;
                         logMsg            = "Returning RangerRoles =>" + (ret);
+
+                        RangerRoleCache.getInstance().getPayloadCache().markCacheable(request, serviceName, String.valueOf(ret.getRoleVersion()));
                     }
                 } else {
                     LOG.error("getSecureRangerRolesIfUpdated({}, {}) failed as User doesn't have permission to UserGroupRoles", serviceName, lastKnownRoleVersion);
@@ -34,6 +34,7 @@
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.biz.RangerPolicyAdmin;
 import org.apache.ranger.biz.RangerPolicyAdminCacheForEngineOptions;
+import org.apache.ranger.biz.RangerServiceVersionWatcher;
 import org.apache.ranger.biz.RoleDBStore;
 import org.apache.ranger.biz.SecurityZoneDBStore;
 import org.apache.ranger.biz.ServiceDBStore;
@@ -49,7 +50,9 @@
 import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerConstants;
+import org.apache.ranger.common.RangerDownloadPayloadCache;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.RangerServicePoliciesCache;
 import org.apache.ranger.common.RangerValidatorFactory;
 import org.apache.ranger.common.ServiceUtil;
 import org.apache.ranger.common.SortField.SORT_ORDER;
@@ -95,8 +98,10 @@
 import org.apache.ranger.plugin.util.RangerAccessRequestUtil;
 import org.apache.ranger.plugin.util.RangerPerfTracer;
 import org.apache.ranger.plugin.util.RangerPurgeResult;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.apache.ranger.plugin.util.ServicePolicies;
+import org.apache.ranger.plugin.util.ServiceSyncData;
 import org.apache.ranger.security.context.RangerAPIList;
 import org.apache.ranger.security.context.RangerContextHolder;
 import org.apache.ranger.security.web.filter.RangerCSRFPreventionFilter;
@@ -143,6 +148,8 @@
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 
@@ -163,6 +170,7 @@
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.stream.IntStream;
 
 import static org.apache.ranger.plugin.store.EmbeddedServiceDefsUtil.EMBEDDED_SERVICEDEF_GDS_NAME;
@@ -201,6 +209,7 @@ public class ServiceREST {
     private final RangerAdminConfig config                              = RangerAdminConfig.getInstance();
     private final int               maxPolicyNameLength                 = config.getInt("ranger.policyname.maxlength", 255);
     private final boolean           isPolicyNameLengthValidationEnabled = config.getBoolean("ranger.policyname.maxlength.validation.enabled", true);
+    private final int               importProgressLogInterval           = config.getInt("ranger.policy.import.progress.log.interval", 1000);
 
     @Autowired
     RESTErrorUtil restErrorUtil;
@@ -268,6 +277,24 @@ public class ServiceREST {
     @Autowired
     UserMgr userMgrGrantor;
 
+    @Autowired
+    RangerServiceVersionWatcher serviceVersionWatcher;
+
+    @Autowired
+    TagREST tagREST;
+
+    @Autowired
+    RoleREST roleREST;
+
+    @Autowired
+    XUserREST xUserREST;
+
+    @Autowired
+    GdsREST gdsREST;
+
+    @Autowired
+    PolicyRefUpdater policyRefUpdater;
+
     private RangerPolicyEngineOptions delegateAdminOptions;
     private RangerPolicyEngineOptions policySearchAdminOptions;
     private RangerPolicyEngineOptions defaultAdminOptions;
@@ -2010,7 +2037,7 @@ public boolean resetPolicyCacheAll() {
     @Deprecated
     @GET
     @Path("/policies/downloadExcel")
-    @Produces("application/ms-excel")
+    @Produces("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet")
     public void getPoliciesInExcel(@Context HttpServletRequest request, @Context HttpServletResponse response) {
         LOG.debug("==> ServiceREST.getPoliciesInExcel()");
 
@@ -2566,6 +2593,8 @@ public ServicePolicies getServicePoliciesIfUpdated(@PathParam("serviceName") Str
                 } else {
                     downloadedVersion = ret.getPolicyVersion();
                     logMsg            = "Returning " + (ret.getPolicies() != null ? ret.getPolicies().size() : (ret.getPolicyDeltas() != null ? ret.getPolicyDeltas().size() : 0)) + " policies. Policy version=" + ret.getPolicyVersion();
+
+                    RangerServicePoliciesCache.getInstance().getPayloadCache().markCacheable(request, serviceName, getPolicyDownloadPayloadVersion(ret, lastKnownVersion, supportsPolicyDeltas));
                 }
             } catch (Throwable excp) {
                 LOG.error("getServicePoliciesIfUpdated({}, {}, {}) failed", serviceName, lastKnownVersion, lastActivationTime, excp);
@@ -2625,39 +2654,7 @@ public ServicePolicies getSecureServicePoliciesIfUpdated(@PathParam("serviceName
                     perf = RangerPerfTracer.getPerfTracer(PERF_LOG, "ServiceREST.getSecureServicePoliciesIfUpdated(serviceName=" + serviceName + ",lastKnownVersion=" + lastKnownVersion + ",lastActivationTime=" + lastActivationTime + ")");
                 }
 
-                XXService     xService    = daoManager.getXXService().findByName(serviceName);
-                XXServiceDef  xServiceDef = daoManager.getXXServiceDef().getById(xService.getType());
-                RangerService rangerService;
-
-                if (StringUtils.equals(xServiceDef.getImplclassname(), EmbeddedServiceDefsUtil.KMS_IMPL_CLASS_NAME)) {
-                    rangerService = svcStore.getServiceByNameForDP(serviceName);
-
-                    if (isKeyAdmin) {
-                        isAllowed = true;
-                    } else {
-                        if (rangerService != null) {
-                            isAllowed = bizUtil.isUserAllowed(rangerService, Allowed_User_List_For_Download);
-
-                            if (!isAllowed) {
-                                isAllowed = bizUtil.isUserAllowed(rangerService, Allowed_User_List_For_Grant_Revoke);
-                            }
-                        }
-                    }
-                } else {
-                    rangerService = svcStore.getServiceByName(serviceName);
-
-                    if (isAdmin) {
-                        isAllowed = true;
-                    } else {
-                        if (rangerService != null) {
-                            isAllowed = bizUtil.isUserAllowed(rangerService, Allowed_User_List_For_Download);
-
-                            if (!isAllowed) {
-                                isAllowed = bizUtil.isUserAllowed(rangerService, Allowed_User_List_For_Grant_Revoke);
-                            }
-                        }
-                    }
-                }
+                isAllowed = isPolicyDownloadAllowed(serviceName, isAdmin, isKeyAdmin);
 
                 if (isAllowed) {
                     ret = svcStore.getServicePoliciesIfUpdated(serviceName, lastKnownVersion, !supportsPolicyDeltas);
@@ -2669,6 +2666,8 @@ public ServicePolicies getSecureServicePoliciesIfUpdated(@PathParam("serviceName
                     } else {
                         downloadedVersion = ret.getPolicyVersion();
                         logMsg            = "Returning " + (ret.getPolicies() != null ? ret.getPolicies().size() : (ret.getPolicyDeltas() != null ? ret.getPolicyDeltas().size() : 0)) + " policies. Policy version=" + ret.getPolicyVersion();
+
+                        RangerServicePoliciesCache.getInstance().getPayloadCache().markCacheable(request, serviceName, getPolicyDownloadPayloadVersion(ret, lastKnownVersion, supportsPolicyDeltas));
                     }
                 } else {
                     LOG.error("getSecureServicePoliciesIfUpdated({}, {}) failed as User doesn't have permission to download Policy", serviceName, lastKnownVersion);
@@ -2701,6 +2700,119 @@ public ServicePolicies getSecureServicePoliciesIfUpdated(@PathParam("serviceName
         return ret;
     }
 
+    /**
+     * Waits, without holding a servlet thread, until any of the given versions of the service changes in Ranger admin
+     * or the timeout expires; the plugin then downloads only what changed, using the regular download endpoints.
+     * Responds with current versions of the service on change, and with SC_NOT_MODIFIED on timeout.
+     */
+    @GET
+    @Path("/policies/wait/{serviceName}")
+    @Produces("application/json")
+    public void waitForServiceChange(@PathParam("serviceName") String serviceName, @QueryParam("lastKnownVersion") Long lastKnownVersion, @QueryParam("lastKnownTagVersion") Long lastKnownTagVersion, @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @QueryParam("lastKnownGdsVersion") Long lastKnownGdsVersion, @DefaultValue("60000") @QueryParam("timeoutMs") Long timeoutMs, @QueryParam("pluginId") String pluginId, @Context HttpServletRequest request, @Suspended AsyncResponse asyncResponse) {
+        LOG.debug("==> ServiceREST.waitForServiceChange({}, {}, {})", serviceName, lastKnownVersion, pluginId);
+
+        int     httpCode = HttpServletResponse.SC_OK;
+        String  logMsg   = null;
+        boolean isValid  = false;
+
+        try {
+            bizUtil.failUnauthenticatedDownloadIfNotAllowed();
+
+            isValid = serviceUtil.isValidateHttpsAuthentication(serviceName, request);
+        } catch (WebApplicationException webException) {
+            httpCode = webException.getResponse().getStatus();
+            logMsg   = webException.getResponse().getEntity().toString();
+        } catch (Exception e) {
+            httpCode = HttpServletResponse.SC_BAD_REQUEST;
+            logMsg   = e.getMessage();
+        }
+
+        if (isValid) {
+            RangerServiceVersions lastKnownVersions = new RangerServiceVersions(serviceName, lastKnownVersion, lastKnownTagVersion, lastKnownRoleVersion, lastKnownUserStoreVersion, lastKnownGdsVersion);
+
+            waitForServiceChange(lastKnownVersions, timeoutMs, asyncResponse);
+        } else {
+            asyncResponse.resume(restErrorUtil.createRESTException(httpCode, logMsg, true));
+        }
+
+        LOG.debug("<== ServiceREST.waitForServiceChange({}, {}, {})", serviceName, lastKnownVersion, pluginId);
+    }
+
+    @GET
+    @Path("/secure/policies/wait/{serviceName}")
+    @Produces("application/json")
+    public void waitForSecureServiceChange(@PathParam("serviceName") String serviceName, @QueryParam("lastKnownVersion") Long lastKnownVersion, @QueryParam("lastKnownTagVersion") Long lastKnownTagVersion, @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @QueryParam("lastKnownGdsVersion") Long lastKnownGdsVersion, @DefaultValue("60000") @QueryParam("timeoutMs") Long timeoutMs, @QueryParam("pluginId") String pluginId, @Context HttpServletRequest request, @Suspended AsyncResponse asyncResponse) {
+        LOG.debug("==> ServiceREST.waitForSecureServiceChange({}, {}, {})", serviceName, lastKnownVersion, pluginId);
+
+        int     httpCode = HttpServletResponse.SC_OK;
+        String  logMsg   = null;
+        boolean isValid  = false;
+
+        try {
+            isValid = serviceUtil.isValidService(serviceName, request);
+
+            if (isValid && !isPolicyDownloadAllowed(serviceName, bizUtil.isAdmin(), bizUtil.isKeyAdmin())) {
+                LOG.error("waitForSecureServiceChange({}) failed as User doesn't have permission to download Policy", serviceName);
+
+                isValid  = false;
+                httpCode = HttpServletResponse.SC_FORBIDDEN;
+                logMsg   = "User doesn't have permission to download policy";
+            }
+        } catch (WebApplicationException webException) {
+            httpCode = webException.getResponse().getStatus();
+            logMsg   = webException.getResponse().getEntity().toString();
+        } catch (Exception e) {
+            httpCode = HttpServletResponse.SC_BAD_REQUEST;
+            logMsg   = e.getMessage();
+        }
+
+        if (isValid) {
+            RangerServiceVersions lastKnownVersions = new RangerServiceVersions(serviceName, lastKnownVersion, lastKnownTagVersion, lastKnownRoleVersion, lastKnownUserStoreVersion, lastKnownGdsVersion);
+
+            waitForServiceChange(lastKnownVersions, timeoutMs, asyncResponse);
+        } else {
+            asyncResponse.resume(restErrorUtil.createRESTException(httpCode, logMsg, true));
+        }
+
+        LOG.debug("<== ServiceREST.waitForSecureServiceChange({}, {}, {})", serviceName, lastKnownVersion, pluginId);
+    }
+
+    /**
+     * Returns policies, tags, roles, userstore and GDS info of the service that changed since the given versions, in a
+     * single response, using the respective download APIs - hence with their authorization, audit and plugin-info
+     * updates. Artifacts without a last-known version in the request are not included. Responds with
+     * SC_NOT_MODIFIED if none of the requested artifacts changed.
+     */
+    @GET
+    @Path("/sync/{serviceName}")
+    @Produces("application/json")
+    public ServiceSyncData syncServiceIfUpdated(@PathParam("serviceName") String serviceName, @QueryParam("lastKnownVersion") Long lastKnownVersion, @QueryParam("lastKnownTagVersion") Long lastKnownTagVersion, @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @QueryParam("lastKnownGdsVersion") Long lastKnownGdsVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("false") @QueryParam("supportsPolicyDeltas") Boolean supportsPolicyDeltas, @DefaultValue("false") @QueryParam("supportsTagDeltas") Boolean supportsTagDeltas, @DefaultValue("") @QueryParam("pluginCapabilities") String pluginCapabilities, @Context HttpServletRequest request)
+            throws Exception {
+        LOG.debug("==> ServiceREST.syncServiceIfUpdated({}, {}, {}, {}, {}, {}, {})", serviceName, lastKnownVersion, lastKnownTagVersion, lastKnownRoleVersion, lastKnownUserStoreVersion, lastKnownGdsVersion, pluginId);
+
+        RangerServiceVersions lastKnownVersions = new RangerServiceVersions(serviceName, lastKnownVersion, lastKnownTagVersion, lastKnownRoleVersion, lastKnownUserStoreVersion, lastKnownGdsVersion);
+        ServiceSyncData       ret               = syncServiceIfUpdated(false, lastKnownVersions, lastActivationTime, pluginId, clusterName, supportsPolicyDeltas, supportsTagDeltas, pluginCapabilities, request);
+
+        LOG.debug("<== ServiceREST.syncServiceIfUpdated({}, {}): ret={}", serviceName, pluginId, ret);
+
+        return ret;
+    }
+
+    @GET
+    @Path("/secure/sync/{serviceName}")
+    @Produces("application/json")
+    public ServiceSyncData syncSecureServiceIfUpdated(@PathParam("serviceName") String serviceName, @QueryParam("lastKnownVersion") Long lastKnownVersion, @QueryParam("lastKnownTagVersion") Long lastKnownTagVersion, @QueryParam("lastKnownRoleVersion") Long lastKnownRoleVersion, @QueryParam("lastKnownUserStoreVersion") Long lastKnownUserStoreVersion, @QueryParam("lastKnownGdsVersion") Long lastKnownGdsVersion, @DefaultValue("0") @QueryParam("lastActivationTime") Long lastActivationTime, @QueryParam("pluginId") String pluginId, @DefaultValue("") @QueryParam("clusterName") String clusterName, @DefaultValue("false") @QueryParam("supportsPolicyDeltas") Boolean supportsPolicyDeltas, @DefaultValue("false") @QueryParam("supportsTagDeltas") Boolean supportsTagDeltas, @DefaultValue("") @QueryParam("pluginCapabilities") String pluginCapabilities, @Context HttpServletRequest request)
+            throws Exception {
+        LOG.debug("==> ServiceREST.syncSecureServiceIfUpdated({}, {}, {}, {}, {}, {}, {})", serviceName, lastKnownVersion, lastKnownTagVersion, lastKnownRoleVersion, lastKnownUserStoreVersion, lastKnownGdsVersion, pluginId);
+
+        RangerServiceVersions lastKnownVersions = new RangerServiceVersions(serviceName, lastKnownVersion, lastKnownTagVersion, lastKnownRoleVersion, lastKnownUserStoreVersion, lastKnownGdsVersion);
+        ServiceSyncData       ret               = syncServiceIfUpdated(true, lastKnownVersions, lastActivationTime, pluginId, clusterName, supportsPolicyDeltas, supportsTagDeltas, pluginCapabilities, request);
+
+        LOG.debug("<== ServiceREST.syncSecureServiceIfUpdated({}, {}): ret={}", serviceName, pluginId, ret);
+
+        return ret;
+    }
+
     @DELETE
     @Path("/server/policydeltas")
     @PreAuthorize("hasRole('ROLE_SYS_ADMIN')")
@@ -3484,8 +3596,18 @@ private int createPolicesBasedOnPolicyMap(HttpServletRequest request, Map<String
         boolean deleteIfExists = "true".equalsIgnoreCase(StringUtils.trimToEmpty(request.getParameter(PARAM_DELETE_IF_EXISTS)));
 
         if (!CollectionUtils.sizeIsEmpty(policiesMap.entrySet())) {
-            for (Entry<String, RangerPolicy> entry : policiesMap.entrySet()) {
-                RangerPolicy policy = entry.getValue();
+            List<RangerPolicy> policies          = new ArrayList<>(policiesMap.values());
+            int                initialCount      = totalPolicyCreate;
+            int                lastProgressCount = totalPolicyCreate;
+            long               startTimeMs       = System.currentTimeMillis();
+
+            for (int i = 0; i < policies.size(); i++) {
+                RangerPolicy policy = policies.get(i);
+
+                if (i % RangerBizUtil.POLICY_BATCH_SIZE == 0) {
+                    // look up ids of users/groups/roles referenced in the next batch of policies, instead of for each policy
+                    policyRefUpdater.cachePrincipalIds(policies.subList(i, Math.min(i + RangerBizUtil.POLICY_BATCH_SIZE, policies.size())));
+                }
 
                 if (policy != null) {
                     if (!CollectionUtils.isEmpty(serviceNameList)) {
@@ -3572,9 +3694,18 @@ private int createPolicesBasedOnPolicyMap(HttpServletRequest request, Map<String
                 if (totalPolicyCreate % RangerBizUtil.POLICY_BATCH_SIZE == 0) {
                     bizUtil.bulkModeOnlyFlushAndClear();
                 }
+
+                if (importProgressLogInterval > 0 && (totalPolicyCreate - lastProgressCount) >= importProgressLogInterval) {
+                    lastProgressCount = totalPolicyCreate;
+
+                    logImportProgress("in progress", totalPolicyCreate - initialCount, policies.size(), startTimeMs);
+                }
             }
 
             bizUtil.bulkModeOnlyFlushAndClear();
+            policyRefUpdater.clearPrincipalIdCache();
+
+            logImportProgress("completed", totalPolicyCreate - initialCount, policies.size(), startTimeMs);
 
             LOG.debug("Total Policy Created From Json file : {}", totalPolicyCreate);
         }
@@ -3582,6 +3713,12 @@ private int createPolicesBasedOnPolicyMap(HttpServletRequest request, Map<String
         return totalPolicyCreate;
     }
 
+    private void logImportProgress(String status, int importedCount, int totalCount, long startTimeMs) {
+        long timeTakenMs = Math.max(1, System.currentTimeMillis() - startTimeMs);
+
+        LOG.info("Policy import {}: imported {} of {} policies in {} ms ({} policies/sec)", status, importedCount, totalCount, timeTakenMs, (importedCount * 1000L) / timeTakenMs);
+    }
+
     private List<RangerPolicy> getPoliciesFromProvidedJson(RangerExportPolicyList rangerExportPolicyList) {
         List<RangerPolicy> policies;
 
@@ -4017,6 +4154,113 @@ private RangerPolicyList getServicePolicies(String serviceName, SearchFilter fil
         }
     }
 
+    // download response depends on versions of policies and tag-policies, and on the version the plugin has, for deltas
+    private static String getPolicyDownloadPayloadVersion(ServicePolicies policies, Long lastKnownVersion, Boolean supportsPolicyDeltas) {
+        ServicePolicies.TagPolicies tagPolicies = policies.getTagPolicies();
+
+        return policies.getPolicyVersion() + "-" + (tagPolicies != null ? tagPolicies.getPolicyVersion() : "none") + "-" + (Boolean.TRUE.equals(supportsPolicyDeltas) ? lastKnownVersion : "all");
+    }
+
+    private void waitForServiceChange(RangerServiceVersions lastKnownVersions, Long timeoutMs, AsyncResponse asyncResponse) {
+        try {
+            if (!serviceVersionWatcher.waitForChange(lastKnownVersions.getServiceName(), lastKnownVersions, timeoutMs != null ? timeoutMs : 0, asyncResponse)) {
+                asyncResponse.resume(restErrorUtil.createRESTException(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many requests waiting for changes", false));
+            }
+        } catch (Throwable excp) {
+            LOG.error("waitForServiceChange({}) failed", lastKnownVersions, excp);
+
+            asyncResponse.resume(restErrorUtil.createRESTException(HttpServletResponse.SC_BAD_REQUEST, excp.getMessage(), true));
+        }
+    }
+
+    private ServiceSyncData syncServiceIfUpdated(boolean isSecure, RangerServiceVersions lastKnownVersions, Long lastActivationTime, String pluginId, String clusterName, Boolean supportsPolicyDeltas, Boolean supportsTagDeltas, String pluginCapabilities, HttpServletRequest request) throws Exception {
+        String          serviceName = lastKnownVersions.getServiceName();
+        ServiceSyncData ret         = new ServiceSyncData(serviceName);
+
+        try {
+            if (lastKnownVersions.getPolicyVersion() != null) {
+                Long lastKnownVersion = lastKnownVersions.getPolicyVersion();
+
+                ret.setPolicies(getIfUpdated(() -> isSecure ? getSecureServicePoliciesIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, "", supportsPolicyDeltas, pluginCapabilities, request)
+                        : getServicePoliciesIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, "", supportsPolicyDeltas, pluginCapabilities, request)));
+            }
+
+            if (lastKnownVersions.getTagVersion() != null) {
+                Long lastKnownVersion = lastKnownVersions.getTagVersion();
+
+                ret.setTags(getIfUpdated(() -> isSecure ? tagREST.getSecureServiceTagsIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, supportsTagDeltas, pluginCapabilities, request)
+                        : tagREST.getServiceTagsIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, supportsTagDeltas, pluginCapabilities, request)));
+            }
+
+            if (lastKnownVersions.getRoleVersion() != null) {
+                Long lastKnownVersion = lastKnownVersions.getRoleVersion();
+
+                ret.setRoles(getIfUpdated(() -> isSecure ? roleREST.getSecureRangerRolesIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, pluginCapabilities, request)
+                        : roleREST.getRangerRolesIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, pluginCapabilities, request)));
+            }
+
+            if (lastKnownVersions.getUserStoreVersion() != null) {
+                Long lastKnownVersion = lastKnownVersions.getUserStoreVersion();
+
+                ret.setUserStore(getIfUpdated(() -> isSecure ? xUserREST.getSecureRangerUserStoreIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, pluginCapabilities, request)
+                        : xUserREST.getRangerUserStoreIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, pluginCapabilities, request)));
+            }
+
+            if (lastKnownVersions.getGdsVersion() != null) {
+                Long lastKnownVersion = lastKnownVersions.getGdsVersion();
+
+                ret.setGdsInfo(getIfUpdated(() -> isSecure ? gdsREST.getSecureServiceGdsInfoIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, pluginCapabilities, request)
+                        : gdsREST.getServiceGdsInfoIfUpdated(serviceName, lastKnownVersion, lastActivationTime, pluginId, clusterName, pluginCapabilities, request)));
+            }
+        } finally {
+            // payloads marked cacheable by the download APIs are for their individual responses, not for this one
+            request.removeAttribute(RangerDownloadPayloadCache.ATTR_PAYLOAD_KEY);
+        }
+
+        if (ret.isEmpty()) {
+            throw restErrorUtil.createRESTException(HttpServletResponse.SC_NOT_MODIFIED, "No change since last update", false);
+        }
+
+        return ret;
+    }
+
+    private static <T> T getIfUpdated(Callable<T> download) throws Exception {
+        try {
+            return download.call();
+        } catch (WebApplicationException excp) {
+            if (excp.getResponse() != null && excp.getResponse().getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+                return null;
+            }
+
+            throw excp;
+        }
+    }
+
+    private boolean isPolicyDownloadAllowed(String serviceName, boolean isAdmin, boolean isKeyAdmin) throws Exception {
+        boolean       ret;
+        XXService     xService    = daoManager.getXXService().findByName(serviceName);
+        XXServiceDef  xServiceDef = daoManager.getXXServiceDef().getById(xService.getType());
+        RangerService rangerService;
+
+        if (StringUtils.equals(xServiceDef.getImplclassname(), EmbeddedServiceDefsUtil.KMS_IMPL_CLASS_NAME)) {
+            rangerService = svcStore.getServiceByNameForDP(serviceName);
+            ret           = isKeyAdmin;
+        } else {
+            rangerService = svcStore.getServiceByName(serviceName);
+            ret           = isAdmin;
+        }
+
+        if (!ret && rangerService != null) {
+            ret = bizUtil.isUserAllowed(rangerService, Allowed_User_List_For_Download);
+
+            if (!ret) {
+                ret = bizUtil.isUserAllowed(rangerService, Allowed_User_List_For_Grant_Revoke);
+            }
+        }
+
+        return ret;
+    }
+
     private void createPolicyDownloadAudit(String serviceName, Long lastKnownVersion, String pluginId, int httpRespCode, String clusterName, String zoneName, HttpServletRequest request) {
         try {
             String ipAddress = request.getHeader("X-FORWARDED-FOR");
@@ -28,6 +28,7 @@
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerSearchUtil;
+import org.apache.ranger.common.RangerServiceTagsCache;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.entity.XXService;
 import org.apache.ranger.entity.XXServiceDef;
@@ -1271,6 +1272,8 @@ public ServiceTags getServiceTagsIfUpdated(@PathParam("serviceName") String serv
             } else {
                 downloadedVersion = ret.getTagVersion();
                 logMsg            = "Returning " + (ret.getTags() != null ? ret.getTags().size() : 0) + " tags. Tag version=" + ret.getTagVersion();
+
+                RangerServiceTagsCache.getInstance().getPayloadCache().markCacheable(request, serviceName, ret.getTagVersion() + "-" + (Boolean.TRUE.equals(supportsTagDeltas) ? lastKnownVersion : "all"));
             }
         } catch (WebApplicationException webException) {
             httpCode = webException.getResponse().getStatus();
@@ -1357,6 +1360,8 @@ public ServiceTags getSecureServiceTagsIfUpdated(@PathParam("serviceName") Strin
                 } else {
                     downloadedVersion = ret.getTagVersion();
                     logMsg            = "Returning " + (ret.getTags() != null ? ret.getTags().size() : 0) + " tags. Tag version=" + ret.getTagVersion();
+
+                    RangerServiceTagsCache.getInstance().getPayloadCache().markCacheable(request, serviceName, ret.getTagVersion() + "-" + (Boolean.TRUE.equals(supportsTagDeltas) ? lastKnownVersion : "all"));
                 }
             } else {
                 LOG.error("getSecureServiceTagsIfUpdated({}, {}, {}) failed as User doesn't have permission to download tags", serviceName, lastKnownVersion, lastActivationTime);
@@ -30,6 +30,7 @@
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.RESTErrorUtil;
 import org.apache.ranger.common.RangerConstants;
+import org.apache.ranger.common.RangerUserStoreCache;
 import org.apache.ranger.common.SearchCriteria;
 import org.apache.ranger.common.SearchUtil;
 import org.apache.ranger.common.ServiceUtil;
@@ -109,6 +110,7 @@
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.Response;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -129,6 +131,8 @@ public class XUserREST {
 
     public static final String USERSTORE_DOWNLOAD_USERS = "userstore.download.auth.users";
 
+    private static final String USERSTORE_PAYLOAD_KEY = "_userstore";
+
     @Autowired
     SearchUtil searchUtil;
 
@@ -1408,6 +1412,8 @@ public RangerUserStore getRangerUserStoreIfUpdated(@PathParam("serviceName") Str
                         downloadedVersion = rangerUserStore.getUserStoreVersion();
                         ret               = rangerUserStore;
                         logMsg            = "Returning RangerUserStore version " + downloadedVersion;
+
+                        RangerUserStoreCache.getInstance().getPayloadCache().markCacheable(request, USERSTORE_PAYLOAD_KEY, String.valueOf(ret.getUserStoreVersion())); // same userstore for all services
                     }
                 }
             } catch (Throwable excp) {
@@ -1492,6 +1498,8 @@ public RangerUserStore getSecureRangerUserStoreIfUpdated(@PathParam("serviceName
                         downloadedVersion = rangerUserStore.getUserStoreVersion();
                         ret               = rangerUserStore;
                         logMsg            = "Returning RangerUserStore =>" + (ret);
+
+                        RangerUserStoreCache.getInstance().getPayloadCache().markCacheable(request, USERSTORE_PAYLOAD_KEY, String.valueOf(ret.getUserStoreVersion())); // same userstore for all services
                     }
                 } else {
                     logger.error("getSecureRangerUserStoreIfUpdated({}, {}) failed as User doesn't have permission to download UsersAndGroups", serviceName, lastKnownUserStoreVersion);
@@ -1567,6 +1575,19 @@ public int addOrUpdateGroupUsersList(List<GroupUserInfo> groupUserInfoList) {
         return xUserMgr.createOrDeleteXGroupUserList(groupUserInfoList);
     }
 
+    /**
+     * Applies a diff of users, groups and group memberships streamed in the request body; see XUserMgr.applyUserGroupDelta()
+     */
+    @POST
+    @Path("/ugsync/delta")
+    @Consumes("application/json")
+    @Produces("application/json")
+    @PreAuthorize("hasRole('ROLE_SYS_ADMIN')")
+    @Transactional(readOnly = false, propagation = Propagation.NOT_SUPPORTED)
+    public Map<String, Integer> applyUserGroupDelta(InputStream deltaStream) {
+        return xUserMgr.applyUserGroupDelta(deltaStream);
+    }
+
     @POST
     @Path("/users/roleassignments")
     @Produces("application/json")
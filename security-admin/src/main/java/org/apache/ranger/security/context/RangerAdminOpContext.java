@@ -20,6 +20,7 @@
 package org.apache.ranger.security.context;
 
 import java.io.Serializable;
+import java.util.Map;
 
 public class RangerAdminOpContext implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -27,6 +28,11 @@ public class RangerAdminOpContext implements Serializable {
     private boolean bulkModeContext;
     private Boolean createPrincipalsIfAbsent;
 
+    // ids of principals, by name, looked up for bulk operations; null when not cached
+    private Map<String, Long> roleIds;
+    private Map<String, Long> groupIds;
+    private Map<String, Long> userIds;
+
     public boolean isBulkModeContext() {
         return bulkModeContext;
     }
@@ -42,4 +48,28 @@ public Boolean getCreatePrincipalsIfAbsent() {
     public void setCreatePrincipalsIfAbsent(Boolean createPrincipalsIfAbsent) {
         this.createPrincipalsIfAbsent = createPrincipalsIfAbsent;
     }
+
+    public Map<String, Long> getRoleIds() {
+        return roleIds;
+    }
+
+    public void setRoleIds(Map<String, Long> roleIds) {
+        this.roleIds = roleIds;
+    }
+
+    public Map<String, Long> getGroupIds() {
+        return groupIds;
+    }
+
+    public void setGroupIds(Map<String, Long> groupIds) {
+        this.groupIds = groupIds;
+    }
+
+    public Map<String, Long> getUserIds() {
+        return userIds;
+    }
+
+    public void setUserIds(Map<String, Long> userIds) {
+        this.userIds = userIds;
+    }
 }
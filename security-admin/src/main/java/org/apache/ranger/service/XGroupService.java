@@ -30,7 +30,10 @@
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -91,6 +94,52 @@ public VXGroup createXGroupWithOutLogin(VXGroup vxGroup) {
         return vxGroup;
     }
 
+    /**
+     * Creates or updates the given groups, looking up existing groups with one query and inserting new groups in a batch
+     *
+     * @return number of groups created or updated
+     */
+    public int createOrUpdateXGroupsWithOutLogin(Collection<VXGroup> vxGroups) {
+        Map<String, VXGroup> groupsByName = new LinkedHashMap<>();
+
+        for (VXGroup vxGroup : vxGroups) {
+            groupsByName.put(vxGroup.getName(), vxGroup); // last one wins, as with one-by-one updates
+        }
+
+        Map<String, XXGroup> existingGroups = new HashMap<>();
+
+        for (XXGroup xxGroup : daoManager.getXXGroup().findByGroupNames(groupsByName.keySet())) {
+            existingGroups.put(xxGroup.getName(), xxGroup);
+        }
+
+        boolean       isCreatedByUserValid = daoManager.getXXPortalUser().getById(createdByUserId) != null;
+        List<XXGroup> groupsToCreate       = new ArrayList<>();
+
+        for (VXGroup vxGroup : groupsByName.values()) {
+            XXGroup xxGroup     = existingGroups.get(vxGroup.getName());
+            boolean groupExists = xxGroup != null;
+
+            xxGroup = mapViewToEntityBean(vxGroup, groupExists ? xxGroup : new XXGroup(), 0);
+
+            if (isCreatedByUserValid) {
+                xxGroup.setAddedByUserId(createdByUserId);
+                xxGroup.setUpdatedByUserId(createdByUserId);
+            }
+
+            if (groupExists) {
+                getDao().update(xxGroup);
+            } else {
+                groupsToCreate.add(xxGroup);
+            }
+        }
+
+        if (!groupsToCreate.isEmpty()) {
+            getDao().batchCreate(groupsToCreate);
+        }
+
+        return groupsByName.size();
+    }
+
     public VXGroup readResourceWithOutLogin(Long id) {
         XXGroup resource = getDao().getById(id);
 
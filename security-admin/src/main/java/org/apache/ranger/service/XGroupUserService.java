@@ -20,6 +20,8 @@
 package org.apache.ranger.service;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.common.MessageEnums;
 import org.apache.ranger.common.PropertiesUtil;
 import org.apache.ranger.common.SearchField;
@@ -33,8 +35,15 @@
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Scope("singleton")
@@ -152,6 +161,104 @@ public boolean createOrDeleteXGroupUsers(GroupUserInfo groupUserInfo, Map<String
         return true;
     }
 
+    /**
+     * Applies membership changes of the given groups with set-based statements: ids of groups, users and existing
+     * memberships are looked up with one query each - in batches of RangerBizUtil.BATCH_PERSIST_SIZE names - new
+     * memberships are inserted in a batch, and removed memberships are deleted with one statement per group.
+     * Memberships of groups or users that don't exist are ignored, as in createOrDeleteXGroupUsers(GroupUserInfo, Map).
+     *
+     * @return number of groups having memberships added or removed
+     */
+    public int createOrDeleteXGroupUsers(Collection<GroupUserInfo> groupUserInfos) {
+        Set<String> groupNames = new HashSet<>();
+        Set<String> userNames  = new HashSet<>();
+
+        for (GroupUserInfo groupUserInfo : groupUserInfos) {
+            groupNames.add(groupUserInfo.getGroupName());
+
+            if (groupUserInfo.getAddUsers() != null) {
+                userNames.addAll(groupUserInfo.getAddUsers());
+            }
+
+            if (groupUserInfo.getDelUsers() != null) {
+                userNames.addAll(groupUserInfo.getDelUsers());
+            }
+        }
+
+        Map<String, Long>    groupIds             = getIds(groupNames, daoManager.getXXGroup()::getIdsByGroupNames);
+        Map<String, Long>    userIds              = getIds(userNames, daoManager.getXXUser()::getIdsByUserNames);
+        Map<Long, Set<Long>> groupUserIds         = daoManager.getXXGroupUser().findUserIdsByGroupIds(groupIds.values());
+        boolean              isCreatedByUserValid = daoManager.getXXPortalUser().getById(createdByUserId) != null;
+        List<XXGroupUser>    groupUsersToCreate   = new ArrayList<>();
+        int                  ret                  = 0;
+
+        for (GroupUserInfo groupUserInfo : groupUserInfos) {
+            String groupName = groupUserInfo.getGroupName();
+            Long   groupId   = groupIds.get(groupName);
+
+            if (groupId == null) {
+                logger.debug("createOrDeleteXGroupUsers(): groupName = {} doesn't exist in database. Hence ignoring group membership updates", groupName);
+
+                continue;
+            }
+
+            Set<Long>  existingUserIds = groupUserIds.computeIfAbsent(groupId, k -> new HashSet<>());
+            List<Long> userIdsToDelete = new ArrayList<>();
+            boolean    isUpdated       = false;
+
+            if (groupUserInfo.getDelUsers() != null) {
+                for (String userName : groupUserInfo.getDelUsers()) {
+                    Long userId = userIds.get(userName);
+
+                    if (userId != null && existingUserIds.remove(userId)) {
+                        userIdsToDelete.add(userId);
+                    }
+                }
+            }
+
+            if (groupUserInfo.getAddUsers() != null) {
+                for (String userName : groupUserInfo.getAddUsers()) {
+                    Long userId = userIds.get(userName);
+
+                    if (userId != null && existingUserIds.add(userId)) {
+                        XXGroupUser xxGroupUser = new XXGroupUser();
+
+                        xxGroupUser.setName(groupName);
+                        xxGroupUser.setParentGroupId(groupId);
+                        xxGroupUser.setUserId(userId);
+
+                        if (isCreatedByUserValid) {
+                            xxGroupUser.setAddedByUserId(createdByUserId);
+                            xxGroupUser.setUpdatedByUserId(createdByUserId);
+                        }
+
+                        groupUsersToCreate.add(xxGroupUser);
+
+                        isUpdated = true;
+                    }
+                }
+            }
+
+            for (int fromIndex = 0; fromIndex < userIdsToDelete.size(); fromIndex += RangerBizUtil.BATCH_PERSIST_SIZE) {
+                daoManager.getXXGroupUser().deleteByGroupIdAndUserIds(groupId, userIdsToDelete.subList(fromIndex, Math.min(fromIndex + RangerBizUtil.BATCH_PERSIST_SIZE, userIdsToDelete.size())));
+
+                isUpdated = true;
+            }
+
+            if (isUpdated) {
+                ret++;
+            }
+        }
+
+        if (!groupUsersToCreate.isEmpty()) {
+            getDao().batchCreate(groupUsersToCreate);
+        }
+
+        logger.debug("createOrDeleteXGroupUsers(groupCount={}): updatedGroups={}, addedMemberships={}", groupUserInfos.size(), ret, groupUsersToCreate.size());
+
+        return ret;
+    }
+
     public VXGroupUser readResourceWithOutLogin(Long id) {
         XXGroupUser resource = getDao().getById(id);
 
@@ -171,6 +278,17 @@ protected void validateForCreate(VXGroupUser vObj) {
     protected void validateForUpdate(VXGroupUser vObj, XXGroupUser mObj) {
     }
 
+    private static Map<String, Long> getIds(Set<String> names, Function<Collection<String>, Map<String, Long>> lookup) {
+        Map<String, Long> ret      = new HashMap<>();
+        List<String>      nameList = names.stream().filter(StringUtils::isNotBlank).collect(Collectors.toList());
+
+        for (int fromIndex = 0; fromIndex < nameList.size(); fromIndex += RangerBizUtil.BATCH_PERSIST_SIZE) {
+            ret.putAll(lookup.apply(nameList.subList(fromIndex, Math.min(fromIndex + RangerBizUtil.BATCH_PERSIST_SIZE, nameList.size()))));
+        }
+
+        return ret;
+    }
+
     private class GroupUserMappingUpdator implements Runnable {
         private final String      groupName;
         private final Long        groupId;
@@ -20,9 +20,11 @@
 package org.apache.ranger.util;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.ranger.biz.RangerAdminCacheWarmer;
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.common.AppConstants;
 import org.apache.ranger.plugin.model.RangerServerHealth;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -42,8 +44,12 @@ public class RangerServerHealthUtil {
     private static final String DB_FLAVOR           = "flavor";
     private static final String DB_VERSION          = "version";
     private static final String DB_VALIDATION_QUERY = "validationQuery";
+    private static final String CACHE_WARM_UP       = "cacheWarmUp";
     private static final String NOT_AVAILABLE       = "Not Available";
 
+    @Autowired(required = false)
+    RangerAdminCacheWarmer cacheWarmer;
+
     /* RangerAdmin Health Check JSON Response look like
      {
        "status": "UP",
@@ -63,14 +69,36 @@ In the future this health check API can be extended for other components like au
     */
 
     public RangerServerHealth getRangerServerHealth(String dbVersion) {
+        return getRangerServerHealth(dbVersion, false);
+    }
+
+    /*
+    Ranger Admin is ready to serve plugins once it is healthy and warm-up of policy/tag/role/userstore caches is over
+    */
+    public RangerServerHealth getRangerServerReadiness(String dbVersion) {
+        return getRangerServerHealth(dbVersion, true);
+    }
+
+    private RangerServerHealth getRangerServerHealth(String dbVersion, boolean isReadinessCheck) {
         Map<String, Object> components = new HashMap<>();
         Map<String, Object> dbStatus   = getDbStatus(dbVersion);
+        boolean             isUp       = Objects.equals(dbStatus.get(STATUS), UP);
 
         components.put(DB, dbStatus);
 
+        if (cacheWarmer != null) {
+            Map<String, Object> cacheWarmUpStatus = getCacheWarmUpStatus();
+
+            components.put(CACHE_WARM_UP, cacheWarmUpStatus);
+
+            if (isReadinessCheck) {
+                isUp = isUp && Objects.equals(cacheWarmUpStatus.get(STATUS), UP);
+            }
+        }
+
         final RangerServerHealth ret;
 
-        if (Objects.equals(dbStatus.get(STATUS), UP)) {
+        if (isUp) {
             ret = RangerServerHealth.up().withDetail(COMPONENTS, components).build();
         } else {
             ret = RangerServerHealth.down().withDetail(COMPONENTS, components).build();
@@ -79,6 +107,15 @@ public RangerServerHealth getRangerServerHealth(String dbVersion) {
         return ret;
     }
 
+    private Map<String, Object> getCacheWarmUpStatus() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        ret.put(STATUS, cacheWarmer.isReady() ? UP : DOWN);
+        ret.put(DETAILS, cacheWarmer.getStatus());
+
+        return ret;
+    }
+
     private Map<String, Object> getDbStatus(String dbVersion) {
         Map<String, Object> ret      = new LinkedHashMap<>();
         int                 dbFlavor = RangerBizUtil.getDBFlavor();
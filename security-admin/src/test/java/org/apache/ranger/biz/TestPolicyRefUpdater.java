@@ -23,6 +23,7 @@
 import org.apache.ranger.common.db.RangerTransactionSynchronizationAdapter;
 import org.apache.ranger.db.RangerDaoManager;
 import org.apache.ranger.db.XXAccessTypeDefDao;
+import org.apache.ranger.db.XXDBBaseDao;
 import org.apache.ranger.db.XXDataMaskTypeDefDao;
 import org.apache.ranger.db.XXGroupDao;
 import org.apache.ranger.db.XXPolicyConditionDefDao;
@@ -50,6 +51,7 @@
 import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItemDataMaskInfo;
 import org.apache.ranger.plugin.model.RangerPolicy.RangerRowFilterPolicyItem;
 import org.apache.ranger.plugin.model.RangerRole;
+import org.apache.ranger.security.context.RangerContextHolder;
 import org.apache.ranger.service.RangerAuditFields;
 import org.apache.ranger.service.XGroupService;
 import org.apache.ranger.view.VXGroup;
@@ -220,6 +222,65 @@ public void testCreateNewPolMappingForRefTable_ValidEverything() throws Exceptio
         // no exceptions indicates success across branches
     }
 
+    @Test
+    public void testCreateNewPolMappingForRefTable_BulkModeUsesCachedPrincipalIds() throws Exception {
+        RangerPolicy p1 = new RangerPolicy();
+        RangerPolicy p2 = new RangerPolicy();
+        RangerPolicyItem item1 = new RangerPolicyItem();
+        RangerPolicyItem item2 = new RangerPolicyItem();
+        item1.setUsers(Arrays.asList("u1", "u2"));
+        item2.setUsers(Collections.singletonList("u2"));
+        item2.setGroups(Collections.singletonList("g1"));
+        p1.setId(7L);
+        p1.setResources(Collections.emptyMap());
+        p1.setPolicyItems(Collections.singletonList(item1));
+        p2.setId(8L);
+        p2.setResources(Collections.emptyMap());
+        p2.setPolicyItems(Collections.singletonList(item2));
+
+        XXUserDao userDao = mock(XXUserDao.class);
+        when(daoMgr.getXXUser()).thenReturn(userDao);
+        Map<String, Long> userIds = new HashMap<>();
+        userIds.put("u1", 30L);
+        userIds.put("u2", 31L);
+        when(userDao.getIdsByUserNames(Mockito.anyCollection())).thenReturn(userIds);
+        XXGroupDao groupDao = mock(XXGroupDao.class);
+        when(daoMgr.getXXGroup()).thenReturn(groupDao);
+        when(groupDao.getIdsByGroupNames(Mockito.anyCollection())).thenReturn(Collections.singletonMap("g1", 20L));
+        XXRoleDao roleDao = mock(XXRoleDao.class);
+        when(daoMgr.getXXRole()).thenReturn(roleDao);
+        XXPolicyRefUserDao polUserDao = mock(XXPolicyRefUserDao.class);
+        when(daoMgr.getXXPolicyRefUser()).thenReturn(polUserDao);
+        XXPolicyRefGroupDao polGroupDao = mock(XXPolicyRefGroupDao.class);
+        when(daoMgr.getXXPolicyRefGroup()).thenReturn(polGroupDao);
+        XXDBBaseDao dbBaseDao = mock(XXDBBaseDao.class);
+        when(daoMgr.getXXDBBase()).thenReturn(dbBaseDao);
+
+        RangerBizUtil.setBulkMode(true);
+
+        try {
+            updater.cachePrincipalIds(Arrays.asList(p1, p2));
+
+            XXPolicy xPolicy = new XXPolicy();
+            xPolicy.setService(9L);
+
+            updater.createNewPolMappingForRefTable(p1, xPolicy, new XXServiceDef(), false, false);
+            updater.createNewPolMappingForRefTable(p2, xPolicy, new XXServiceDef(), false, false);
+        } finally {
+            updater.clearPrincipalIdCache();
+            RangerContextHolder.resetOpContext();
+        }
+
+        // one lookup for the batch of policies, none for each policy
+        verify(userDao, Mockito.times(1)).getIdsByUserNames(Mockito.anyCollection());
+        verify(groupDao, Mockito.times(1)).getIdsByGroupNames(Mockito.anyCollection());
+        verify(roleDao, never()).getIdsByRoleNames(Mockito.anyCollection());
+        verify(polUserDao, Mockito.times(2)).batchCreate(Mockito.anyList());
+        verify(polGroupDao, Mockito.times(1)).batchCreate(Mockito.anyList());
+        // ref-table entries of each policy are flushed together
+        verify(dbBaseDao, Mockito.times(2)).flush();
+    }
+
     @Test
     public void testCreateNewPolMappingForRefTable_InvalidResourceDef() throws Exception {
         RangerPolicy policy = new RangerPolicy();
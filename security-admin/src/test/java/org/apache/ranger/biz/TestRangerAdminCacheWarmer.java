@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.biz.RangerAdminCacheWarmer.WarmUpState;
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXServiceDao;
+import org.apache.ranger.plugin.model.RangerServiceHeaderInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+public class TestRangerAdminCacheWarmer {
+    @InjectMocks
+    RangerAdminCacheWarmer cacheWarmer = new RangerAdminCacheWarmer();
+
+    @Mock
+    RangerDaoManager daoMgr;
+
+    @Mock
+    XXServiceDao xServiceDao;
+
+    @Mock
+    ServiceDBStore svcStore;
+
+    @Mock
+    TagDBStore tagStore;
+
+    @Mock
+    RoleDBStore roleStore;
+
+    @Mock
+    XUserMgr xUserMgr;
+
+    @Mock
+    PlatformTransactionManager txManager;
+
+    @Test
+    public void testWarmUpLoadsResourceServices() throws Exception {
+        Mockito.when(daoMgr.getXXService()).thenReturn(xServiceDao);
+        Mockito.when(xServiceDao.findServiceHeaders()).thenReturn(Arrays.asList(new RangerServiceHeaderInfo(1L, "dev_hive", "dev_hive", "hive", true),
+                new RangerServiceHeaderInfo(2L, "dev_hdfs", "dev_hdfs", "hdfs", true),
+                new RangerServiceHeaderInfo(3L, "dev_tag", "dev_tag", "tag", true)));
+        Mockito.when(svcStore.getServicePoliciesIfUpdated("dev_hdfs", -1L, false)).thenThrow(new Exception("test failure"));
+
+        assertFalse(cacheWarmer.isReady());
+
+        cacheWarmer.warmUp(Collections.emptySet(), 2, 60 * 1000L);
+
+        assertTrue(cacheWarmer.isReady());
+        assertEquals(WarmUpState.COMPLETED, cacheWarmer.getState());
+        assertEquals(2, cacheWarmer.getStatus().get("services"));
+        assertEquals(1, cacheWarmer.getStatus().get("loaded"));
+        assertEquals(1, cacheWarmer.getStatus().get("failed"));
+
+        verify(svcStore).getServicePoliciesIfUpdated("dev_hive", -1L, false);
+        verify(tagStore).getServiceTagsIfUpdated("dev_hive", -1L, false);
+        verify(roleStore).getRoles("dev_hive", -1L);
+        verify(svcStore, never()).getServicePoliciesIfUpdated("dev_tag", -1L, false);
+        verify(xUserMgr).getRangerUserStoreIfUpdated(-1L);
+        verify(txManager, times(4)).getTransaction(any()); // service list, userstore and each service in its own transaction
+    }
+
+    @Test
+    public void testWarmUpSelectedServices() throws Exception {
+        Mockito.when(daoMgr.getXXService()).thenReturn(xServiceDao);
+        Mockito.when(xServiceDao.findServiceHeaders()).thenReturn(Arrays.asList(new RangerServiceHeaderInfo(1L, "dev_hive", "dev_hive", "hive", true),
+                new RangerServiceHeaderInfo(2L, "dev_hdfs", "dev_hdfs", "hdfs", true)));
+
+        cacheWarmer.warmUp(Set.of("dev_hdfs"), 4, 60 * 1000L);
+
+        assertEquals(WarmUpState.COMPLETED, cacheWarmer.getState());
+        assertEquals(1, cacheWarmer.getStatus().get("loaded"));
+
+        verify(svcStore).getServicePoliciesIfUpdated("dev_hdfs", -1L, false);
+        verify(svcStore, never()).getServicePoliciesIfUpdated("dev_hive", -1L, false);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.policyengine.PolicyEngine;
+import org.apache.ranger.plugin.policyengine.RangerPolicyRepository;
+import org.apache.ranger.plugin.policyevaluator.RangerPolicyEvaluator;
+import org.apache.ranger.plugin.util.ServicePolicies;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestRangerDelegatedAdminCache {
+    private final Set<String> groups = Collections.singleton("analysts");
+    private final Set<String> roles  = Collections.singleton("admin-role");
+
+    @Test
+    public void testCandidatesIncludeOnlyPoliciesThatCanGrantDelegatedAdmin() {
+        RangerPolicyEvaluator     byUser     = createEvaluator(1L, true, "user1", null, null);
+        RangerPolicyEvaluator     byGroup    = createEvaluator(2L, true, null, "analysts", null);
+        RangerPolicyEvaluator     noDelegate = createEvaluator(3L, false, "user1", null, null);
+        RangerPolicyEvaluator     byRole     = createEvaluator(4L, true, null, null, "admin-role");
+        RangerPolicyEvaluator     byPublic   = createEvaluator(5L, true, null, "public", null);
+        RangerPolicyEvaluator     byMacro    = createEvaluator(6L, true, "{USER}", null, null);
+        RangerPolicyEvaluator     otherUser  = createEvaluator(7L, true, "user2", "finance", "other-role");
+        RangerPolicyRepository    repository = mock(RangerPolicyRepository.class);
+        RangerDelegatedAdminCache cache      = new RangerDelegatedAdminCache();
+
+        when(repository.getPolicyEvaluators()).thenReturn(Arrays.asList(byUser, byGroup, noDelegate, byRole, byPublic, byMacro, otherUser));
+
+        assertEquals(Arrays.asList(byUser, byGroup, byPublic, byMacro), cache.getCandidateEvaluators(repository, null, "user1", groups, null));
+        assertEquals(Arrays.asList(byUser, byGroup, byRole, byPublic, byMacro), cache.getCandidateEvaluators(repository, null, "user1", groups, roles));
+
+        // subsequent calls for the principals are served from the cache
+        cache.getCandidateEvaluators(repository, "", "user1", new HashSet<>(groups), null);
+        cache.getCandidateEvaluators(repository, null, "user1", groups, new HashSet<>(roles));
+
+        verify(repository, times(2)).getPolicyEvaluators();
+        assertEquals(2, cache.getPrincipalCount());
+
+        assertFalse(RangerDelegatedAdminCache.isCandidate(noDelegate, "user1", groups, roles));
+        assertTrue(RangerDelegatedAdminCache.isCandidate(mock(RangerPolicyEvaluator.class), "user1", groups, roles), "evaluator without policy must be evaluated");
+    }
+
+    @Test
+    public void testApplyDeltasUpdatesOnlyChangedPolicies() {
+        RangerPolicyEvaluator     byUser     = createEvaluator(1L, true, "user1", null, null);
+        RangerPolicyEvaluator     byGroup    = createEvaluator(2L, true, null, "analysts", null);
+        RangerPolicyEvaluator     created    = createEvaluator(8L, true, "user1", null, null);
+        RangerPolicyEvaluator     updated    = createEvaluator(2L, true, null, "finance", null);
+        RangerPolicyRepository    repository = mock(RangerPolicyRepository.class);
+        PolicyEngine              engine     = mock(PolicyEngine.class);
+        RangerDelegatedAdminCache cache      = new RangerDelegatedAdminCache();
+
+        when(repository.getPolicyEvaluators()).thenReturn(Arrays.asList(byUser, byGroup));
+        when(repository.getPolicyEvaluator(8L)).thenReturn(created);
+        when(repository.getPolicyEvaluator(2L)).thenReturn(updated);
+        when(engine.getRepositoryForZone(null)).thenReturn(repository);
+
+        assertEquals(Arrays.asList(byUser, byGroup), cache.getCandidateEvaluators(repository, null, "user1", groups, null));
+
+        ServicePolicies policies = new ServicePolicies();
+
+        policies.setPolicyDeltas(Arrays.asList(new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, 11L, byUser.getPolicy()),
+                new RangerPolicyDelta(2L, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, 11L, updated.getPolicy()),
+                new RangerPolicyDelta(3L, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, 11L, created.getPolicy())));
+
+        RangerDelegatedAdminCache copy = cache.copyWithDeltas(engine, policies);
+
+        assertEquals(Collections.singletonList(created), copy.getCandidateEvaluators(repository, null, "user1", groups, null));
+        assertEquals(Arrays.asList(byUser, byGroup), cache.getCandidateEvaluators(repository, null, "user1", groups, null), "copied cache must not be updated");
+        verify(repository, times(1)).getPolicyEvaluators();
+
+        policies.setPolicyDeltas(Collections.singletonList(new RangerPolicyDelta(4L, RangerPolicyDelta.CHANGE_TYPE_SERVICE_CHANGE, 12L, null)));
+
+        copy.applyDeltas(engine, policies);
+
+        assertEquals(0, copy.getPrincipalCount());
+    }
+
+    private static RangerPolicyEvaluator createEvaluator(Long policyId, boolean delegateAdmin, String user, String group, String role) {
+        RangerPolicyEvaluator ret    = mock(RangerPolicyEvaluator.class);
+        RangerPolicy          policy = new RangerPolicy();
+        RangerPolicyItem      item   = new RangerPolicyItem();
+
+        item.setUsers(user != null ? Collections.singletonList(user) : null);
+        item.setGroups(group != null ? Collections.singletonList(group) : null);
+        item.setRoles(role != null ? Collections.singletonList(role) : null);
+        item.setDelegateAdmin(delegateAdmin);
+
+        policy.setId(policyId);
+        policy.setPolicyItems(Collections.singletonList(item));
+
+        when(ret.getPolicy()).thenReturn(policy);
+        when(ret.getPolicyId()).thenReturn(policyId);
+
+        return ret;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.biz;
+
+import org.apache.ranger.db.RangerDaoManager;
+import org.apache.ranger.db.XXGlobalStateDao;
+import org.apache.ranger.db.XXServiceVersionInfoDao;
+import org.apache.ranger.entity.XXServiceVersionInfo;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import javax.ws.rs.core.Response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TestRangerServiceVersionWatcher {
+    private static final String SERVICE_NAME = "dev_hive";
+
+    private final RangerServiceVersionWatcher watcher        = new RangerServiceVersionWatcher();
+    private final XXServiceVersionInfoDao     versionInfoDao = mock(XXServiceVersionInfoDao.class);
+    private final XXServiceVersionInfo        versionInfo    = new XXServiceVersionInfo();
+
+    @BeforeEach
+    public void setUp() {
+        RangerDaoManager daoMgr = mock(RangerDaoManager.class);
+
+        when(daoMgr.getXXServiceVersionInfo()).thenReturn(versionInfoDao);
+        when(daoMgr.getXXGlobalState()).thenReturn(mock(XXGlobalStateDao.class));
+        when(versionInfoDao.findByServiceName(SERVICE_NAME)).thenReturn(versionInfo);
+        when(versionInfoDao.getAllWithServiceNames()).thenAnswer(invocation -> {
+            List<Object[]> ret = new ArrayList<>();
+
+            ret.add(new Object[] {versionInfo, SERVICE_NAME});
+
+            return ret;
+        });
+
+        versionInfo.setPolicyVersion(5L);
+        versionInfo.setTagVersion(3L);
+
+        watcher.daoMgr       = daoMgr;
+        watcher.txManager    = mock(PlatformTransactionManager.class);
+        watcher.maxTimeoutMs = 60000;
+        watcher.maxWaiters   = 2;
+    }
+
+    @Test
+    public void testChangedVersionsReturnedImmediately() {
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(4L), 1000, asyncResponse));
+
+        RangerServiceVersions versions = captureResumed(asyncResponse);
+
+        assertEquals(5L, versions.getPolicyVersion());
+        assertEquals(0, watcher.getWaiterCount());
+        verify(asyncResponse, never()).setTimeout(anyLong(), any());
+    }
+
+    @Test
+    public void testTimeoutIsCapped() {
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(5L), 10 * 60 * 1000, asyncResponse));
+
+        verify(asyncResponse).setTimeout(60000, TimeUnit.MILLISECONDS);
+        assertEquals(1, watcher.getWaiterCount());
+    }
+
+    @Test
+    public void testMissingTimeoutUsesMaxTimeout() {
+        assertEquals(60000, watcher.getEffectiveTimeoutMs(0));
+        assertEquals(60000, watcher.getEffectiveTimeoutMs(-1));
+        assertEquals(1, watcher.getEffectiveTimeoutMs(1));
+        assertEquals(30000, watcher.getEffectiveTimeoutMs(30000));
+
+        watcher.maxTimeoutMs = 0;
+
+        assertEquals(1, watcher.getEffectiveTimeoutMs(0), "a request must never be suspended without a timeout");
+
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+        watcher.maxTimeoutMs = 60000;
+
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(5L), 0, asyncResponse));
+
+        verify(asyncResponse).setTimeout(60000, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testTimeoutResumesWithNotModified() {
+        AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(5L), 1000, asyncResponse));
+
+        ArgumentCaptor<TimeoutHandler> handler = ArgumentCaptor.forClass(TimeoutHandler.class);
+
+        verify(asyncResponse).setTimeoutHandler(handler.capture());
+
+        handler.getValue().handleTimeout(asyncResponse);
+
+        ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+
+        verify(asyncResponse).resume(response.capture());
+        assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getValue().getStatus());
+        assertEquals(0, watcher.getWaiterCount());
+
+        // change notified after the timeout must not resume the response again
+        versionInfo.setPolicyVersion(6L);
+
+        watcher.notifyChangedServices();
+
+        verify(asyncResponse).resume(any(Object.class));
+    }
+
+    @Test
+    public void testWaiterLimit() {
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(5L), 1000, mock(AsyncResponse.class)));
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(5L), 1000, mock(AsyncResponse.class)));
+
+        AsyncResponse overLimit = mock(AsyncResponse.class);
+
+        assertFalse(watcher.waitForChange(SERVICE_NAME, createVersions(5L), 1000, overLimit));
+        assertEquals(2, watcher.getWaiterCount());
+        verify(overLimit, never()).resume(any(Object.class));
+
+        // a request whose versions already changed is answered, even when the limit is reached
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(4L), 1000, mock(AsyncResponse.class)));
+    }
+
+    @Test
+    public void testChangeNotification() {
+        AsyncResponse policyWaiter = mock(AsyncResponse.class);
+        AsyncResponse tagWaiter    = mock(AsyncResponse.class);
+
+        assertTrue(watcher.waitForChange(SERVICE_NAME, createVersions(5L), 1000, policyWaiter));
+        assertTrue(watcher.waitForChange(SERVICE_NAME, new RangerServiceVersions(SERVICE_NAME, null, 3L, null, null, null), 1000, tagWaiter));
+
+        watcher.notifyChangedServices();
+
+        verify(policyWaiter, never()).resume(any(Object.class));
+        assertEquals(2, watcher.getWaiterCount());
+
+        versionInfo.setPolicyVersion(6L);
+
+        watcher.notifyChangedServices();
+
+        assertEquals(6L, captureResumed(policyWaiter).getPolicyVersion());
+        verify(tagWaiter, never()).resume(any(Object.class));
+        assertEquals(1, watcher.getWaiterCount());
+
+        // service deleted: waiters are released, so that plugins download and handle the deletion
+        when(versionInfoDao.getAllWithServiceNames()).thenReturn(new ArrayList<>());
+
+        watcher.notifyChangedServices();
+
+        verify(tagWaiter).resume(any(RangerServiceVersions.class));
+        assertEquals(0, watcher.getWaiterCount());
+    }
+
+    private static RangerServiceVersions createVersions(Long policyVersion) {
+        return new RangerServiceVersions(SERVICE_NAME, policyVersion, null, null, null, null);
+    }
+
+    private static RangerServiceVersions captureResumed(AsyncResponse asyncResponse) {
+        ArgumentCaptor<RangerServiceVersions> versions = ArgumentCaptor.forClass(RangerServiceVersions.class);
+
+        verify(asyncResponse).resume(versions.capture());
+
+        return versions.getValue();
+    }
+}
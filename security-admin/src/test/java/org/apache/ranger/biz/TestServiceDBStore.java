@@ -22,6 +22,7 @@
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.ranger.authorization.utils.JsonUtils;
 import org.apache.ranger.common.ContextUtil;
 import org.apache.ranger.common.GUIDUtil;
 import org.apache.ranger.common.JSONUtil;
@@ -141,6 +142,7 @@
 import org.apache.ranger.service.RangerServiceWithAssignedIdService;
 import org.apache.ranger.service.XGroupService;
 import org.apache.ranger.service.XUserService;
+import org.apache.ranger.view.RangerExportPolicyList;
 import org.apache.ranger.view.RangerPolicyList;
 import org.apache.ranger.view.RangerServiceDefList;
 import org.apache.ranger.view.RangerServiceList;
@@ -163,15 +165,18 @@
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.WebApplicationException;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -3221,6 +3226,19 @@ public void test90getPoliciesInExcel() throws Exception {
         Assertions.assertTrue(true);
     }
 
+    @Test
+    public void test90getPoliciesInExcelAsXlsx() throws Exception {
+        HttpServletResponse response = Mockito.mock(HttpServletResponse.class);
+        ServletOutputStream outputStream = Mockito.mock(ServletOutputStream.class);
+
+        Mockito.when(response.getOutputStream()).thenReturn(outputStream);
+
+        serviceDBStore.getPoliciesInExcel(new ArrayList<RangerPolicy>(), response);
+
+        Mockito.verify(response).setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        Mockito.verify(response).setHeader(Mockito.eq("Content-Disposition"), Mockito.endsWith(".xlsx"));
+    }
+
     @Test
     public void test91getPoliciesInCSV() throws Exception {
         List<RangerPolicy> policies = new ArrayList<RangerPolicy>();
@@ -5892,9 +5910,12 @@ public void test245writeCSV_basic() throws Exception {
         Map<String, RangerPolicy.RangerPolicyResource> resMap = new HashMap<>();
         resMap.put("path", rsrc);
         p.setResources(resMap);
-        StringBuilder sb = (StringBuilder) m.invoke(serviceDBStore, Collections.singletonList(p), "f.csv", resp);
-        Assertions.assertNotNull(sb);
-        Assertions.assertTrue(sb.length() > 0);
+        ByteArrayServletOutputStream out = new ByteArrayServletOutputStream();
+        Mockito.when(resp.getOutputStream()).thenReturn(out);
+        m.invoke(serviceDBStore, Collections.singletonList(p), "f.csv", resp);
+        String csv = out.toString();
+        Assertions.assertTrue(csv.startsWith("ID|Name|Resources|"));
+        Assertions.assertTrue(csv.contains("1|p1|path=[/]|"));
     }
 
     @Test
@@ -6132,6 +6153,33 @@ public void test257updateServicesForServiceDefUpdate_tagBranch() throws Exceptio
         Mockito.verify(transactionSynchronizationAdapter, Mockito.atLeastOnce()).executeOnTransactionCommit(Mockito.any(Runnable.class));
     }
 
+    @Test
+    public void test258getObjectInJson_streamsPolicies() throws Exception {
+        List<RangerPolicy> policies = new ArrayList<>();
+
+        for (long i = 1; i <= 3; i++) {
+            RangerPolicy policy = createRangerPolicy();
+            policy.setId(i);
+            policy.setName("policy-" + i);
+            policies.add(policy);
+        }
+
+        HttpServletResponse          response = Mockito.mock(HttpServletResponse.class);
+        ByteArrayServletOutputStream out      = new ByteArrayServletOutputStream();
+
+        Mockito.when(response.getOutputStream()).thenReturn(out);
+
+        serviceDBStore.getObjectInJson(policies, response, ServiceDBStore.JSON_FILE_NAME_TYPE.POLICY);
+
+        RangerExportPolicyList exported = JsonUtils.jsonToObject(out.toString(), RangerExportPolicyList.class);
+
+        Assertions.assertNotNull(exported);
+        Assertions.assertEquals(3, exported.getPolicies().size());
+        Assertions.assertEquals("policy-3", exported.getPolicies().get(2).getName());
+        Assertions.assertTrue(exported.getMetaDataInfo().containsKey("Ranger apache version"));
+        Mockito.verify(response).setStatus(HttpServletResponse.SC_OK);
+    }
+
     @Test
     public void test231updateChildObjectsOfServiceDef_updateCreateRemove() throws Exception {
         XXServiceDef createdSvcDef = new XXServiceDef();
@@ -6835,4 +6883,27 @@ private Object invokePrivate(String name, Class<?>[] types, Object... args) thro
         m.setAccessible(true);
         return m.invoke(serviceDBStore, args);
     }
+
+    private static class ByteArrayServletOutputStream extends ServletOutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.ranger.common.RangerDownloadPayloadCache.Payload;
+import org.apache.ranger.common.RangerDownloadPayloadCache.PayloadKey;
+import org.apache.ranger.common.RangerDownloadPayloadCache.PayloadWriter;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+public class TestRangerDownloadPayloadCache {
+    @Test
+    public void testSerializeOncePerVersion() throws Exception {
+        RangerDownloadPayloadCache cache          = new RangerDownloadPayloadCache("TestSerializeOnce");
+        AtomicInteger              serializeCount = new AtomicInteger();
+        byte[]                     json           = createJson(4096);
+        PayloadWriter              writer         = out -> {
+            serializeCount.incrementAndGet();
+            out.write(json);
+        };
+
+        Payload payload1 = cache.getPayload(new PayloadKey(cache, "dev_hive", "10-all"), writer);
+        Payload payload2 = cache.getPayload(new PayloadKey(cache, "dev_hive", "10-all"), writer);
+
+        assertSame(payload1, payload2);
+        assertEquals(1, serializeCount.get());
+        assertArrayEquals(json, payload1.getJson());
+        assertNotNull(payload1.getGzip());
+        assertTrue(payload1.getGzip().length < json.length);
+        assertArrayEquals(json, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(payload1.getGzip()))));
+        assertEquals("\"dev_hive-10-all\"", payload1.getETag());
+
+        Payload payload3 = cache.getPayload(new PayloadKey(cache, "dev_hive", "11-all"), writer);
+
+        assertNotSame(payload1, payload3);
+        assertEquals(2, serializeCount.get());
+
+        cache.recordSent(payload1, true);
+
+        assertEquals(3L, cache.getStats().get("Requests"));
+        assertEquals(1L, cache.getStats().get("Hits"));
+        assertEquals((long) (json.length - payload1.getGzip().length), cache.getStats().get("BytesSaved"));
+    }
+
+    @Test
+    public void testSmallPayloadIsNotCompressed() throws Exception {
+        RangerDownloadPayloadCache cache   = new RangerDownloadPayloadCache("TestSmallPayload");
+        Payload                    payload = cache.getPayload(new PayloadKey(cache, "dev_hive", "1"), out -> out.write("{}".getBytes(StandardCharsets.UTF_8)));
+
+        assertNull(payload.getGzip());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        RangerDownloadPayloadCache cache    = new RangerDownloadPayloadCache("TestInvalidate");
+        Payload                    payload1 = cache.getPayload(new PayloadKey(cache, "dev_hive", "1"), out -> out.write(createJson(10)));
+
+        cache.invalidate("dev_hive");
+
+        Payload payload2 = cache.getPayload(new PayloadKey(cache, "dev_hive", "1"), out -> out.write(createJson(10)));
+
+        assertNotSame(payload1, payload2);
+    }
+
+    @Test
+    public void testMarkCacheable() {
+        RangerDownloadPayloadCache cache   = new RangerDownloadPayloadCache("TestMarkCacheable");
+        HttpServletRequest         request = Mockito.mock(HttpServletRequest.class);
+
+        cache.markCacheable(request, "dev_hive", "1");
+        cache.markCacheable(null, "dev_hive", "1");
+
+        verify(request).setAttribute(eq(RangerDownloadPayloadCache.ATTR_PAYLOAD_KEY), any(PayloadKey.class));
+    }
+
+    @Test
+    public void testRequestHeaders() {
+        assertTrue(RangerDownloadPayloadFilter.isGzipAccepted("gzip, deflate"));
+        assertTrue(RangerDownloadPayloadFilter.isGzipAccepted("deflate,gzip;q=0.5"));
+        assertFalse(RangerDownloadPayloadFilter.isGzipAccepted("gzip;q=0"));
+        assertFalse(RangerDownloadPayloadFilter.isGzipAccepted("deflate"));
+        assertFalse(RangerDownloadPayloadFilter.isGzipAccepted(null));
+
+        assertTrue(RangerDownloadPayloadFilter.isETagMatch("\"dev_hive-10-all\"", "\"dev_hive-10-all\""));
+        assertTrue(RangerDownloadPayloadFilter.isETagMatch("\"x\", W/\"dev_hive-10-all\"", "\"dev_hive-10-all\""));
+        assertFalse(RangerDownloadPayloadFilter.isETagMatch("\"dev_hive-9-all\"", "\"dev_hive-10-all\""));
+        assertFalse(RangerDownloadPayloadFilter.isETagMatch(null, "\"dev_hive-10-all\""));
+    }
+
+    private static byte[] createJson(int policyCount) {
+        StringBuilder sb = new StringBuilder("{\"policies\":[");
+
+        for (int i = 0; i < policyCount; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"id\":").append(i).append(",\"name\":\"policy-").append(i).append("\"}");
+        }
+
+        return sb.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
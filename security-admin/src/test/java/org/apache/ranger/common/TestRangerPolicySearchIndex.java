@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.ranger.common;
+
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyItem;
+import org.apache.ranger.plugin.model.RangerPolicy.RangerPolicyResource;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
+import org.apache.ranger.plugin.store.ServicePredicateUtil;
+import org.apache.ranger.plugin.util.SearchFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestRangerPolicySearchIndex {
+    private final ServicePredicateUtil predicateUtil = new ServicePredicateUtil(null);
+
+    @Test
+    public void testCandidatesIncludeAllMatches() {
+        List<RangerPolicy>      policies = createPolicies();
+        RangerPolicySearchIndex index    = new RangerPolicySearchIndex("hive", 10L, policies);
+
+        assertNull(index.getCandidatePolicies(new SearchFilter(SearchFilter.POLICY_NAME, "policy-1")));
+        assertFalse(RangerPolicySearchIndex.hasIndexedCriteria(new SearchFilter(SearchFilter.POLICY_NAME, "policy-1")));
+
+        assertSearch(index, policies, SearchFilter.USER, "user1", 1L, 4L);
+        assertSearch(index, policies, SearchFilter.USER, "USER", 1L, 2L, 4L);
+        assertSearch(index, policies, SearchFilter.GROUP, "analysts", 2L);
+        assertSearch(index, policies, SearchFilter.ROLE, "admin", 3L);
+        assertSearch(index, policies, SearchFilter.POLICY_LABELS_PARTIAL, "pii", 1L, 3L);
+        assertSearch(index, policies, SearchFilter.POL_RESOURCE, "sales", 1L, 2L);
+        assertSearch(index, policies, SearchFilter.RESOURCE_PREFIX + "database", "sales", 1L, 2L, 4L);
+        assertSearch(index, policies, SearchFilter.RESOURCE_PREFIX + "database", "finance", 3L, 4L);
+        assertSearch(index, policies, SearchFilter.RESOURCE_PREFIX + "table", "orders", 1L, 2L, 4L);
+        assertSearch(index, policies, SearchFilter.RESOURCE_PREFIX + "column", "name", 1L, 2L, 3L, 4L);
+        assertSearch(index, policies, SearchFilter.RESOURCE_PREFIX + "database", "unknown", 4L);
+        assertSearch(index, policies, SearchFilter.USER, "nobody");
+
+        SearchFilter filter = new SearchFilter(SearchFilter.USER, "user");
+
+        filter.setParam(SearchFilter.RESOURCE_PREFIX + "database", "sales");
+
+        assertSearch(index, policies, filter, 1L, 2L, 4L);
+    }
+
+    @Test
+    public void testApplyDeltas() {
+        List<RangerPolicy>      policies = createPolicies();
+        RangerPolicySearchIndex index    = new RangerPolicySearchIndex("hive", 10L, policies);
+        RangerPolicy            updated  = createPolicy(1L, "sales_db", "customers", "*", Collections.singletonList("user9"), null, null, null);
+        RangerPolicy            created  = createPolicy(5L, "hr_*", "*", "*", Collections.singletonList("user1"), null, null, null);
+
+        index.applyDeltas(Arrays.asList(new RangerPolicyDelta(1L, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, 11L, updated),
+                new RangerPolicyDelta(2L, RangerPolicyDelta.CHANGE_TYPE_POLICY_DELETE, 11L, policies.get(1)),
+                new RangerPolicyDelta(3L, RangerPolicyDelta.CHANGE_TYPE_POLICY_CREATE, 11L, created)), 11L);
+
+        assertEquals(Long.valueOf(11L), index.getPolicyVersion());
+        assertEquals(4, index.getPolicyCount());
+
+        List<RangerPolicy> current = new ArrayList<>(Arrays.asList(updated, policies.get(2), policies.get(3), created));
+
+        assertSearch(index, current, SearchFilter.USER, "user1", 4L, 5L);
+        assertSearch(index, current, SearchFilter.USER, "user9", 1L);
+        assertSearch(index, current, SearchFilter.GROUP, "analysts");
+        assertSearch(index, current, SearchFilter.RESOURCE_PREFIX + "table", "orders", 4L, 5L);
+        assertSearch(index, current, SearchFilter.RESOURCE_PREFIX + "database", "hr_payroll", 4L, 5L);
+        assertSearch(index, current, SearchFilter.POLICY_LABELS_PARTIAL, "pii", 3L);
+    }
+
+    private void assertSearch(RangerPolicySearchIndex index, List<RangerPolicy> policies, String name, String value, Long... expectedIds) {
+        assertSearch(index, policies, new SearchFilter(name, value), expectedIds);
+    }
+
+    private void assertSearch(RangerPolicySearchIndex index, List<RangerPolicy> policies, SearchFilter filter, Long... expectedIds) {
+        List<RangerPolicy> expected   = new ArrayList<>(policies);
+        List<RangerPolicy> candidates = index.getCandidatePolicies(filter);
+
+        predicateUtil.applyFilter(expected, filter);
+
+        assertTrue(RangerPolicySearchIndex.hasIndexedCriteria(filter));
+        assertTrue(candidates.containsAll(expected), "candidates must include all matching policies: filter=" + filter);
+
+        predicateUtil.applyFilter(candidates, filter);
+
+        assertEquals(Arrays.asList(expectedIds), candidates.stream().map(RangerPolicy::getId).collect(Collectors.toList()), "filter=" + filter);
+    }
+
+    private static List<RangerPolicy> createPolicies() {
+        List<RangerPolicy> ret = new ArrayList<>();
+
+        ret.add(createPolicy(1L, "sales", "orders", "*", Arrays.asList("user1", "user2"), null, null, Arrays.asList("pii", "finance")));
+        ret.add(createPolicy(2L, "sales", "*", "*", Collections.singletonList("user2"), Collections.singletonList("analysts"), null, null));
+        ret.add(createPolicy(3L, "finance", "ledger", "*", null, null, Collections.singletonList("admin-role"), Collections.singletonList("PII-restricted")));
+        ret.add(createPolicy(4L, "*", "*", "name", Arrays.asList("user1", "user10"), null, null, null));
+
+        return ret;
+    }
+
+    private static RangerPolicy createPolicy(Long id, String database, String table, String column, List<String> users, List<String> groups, List<String> roles, List<String> labels) {
+        RangerPolicy                      ret       = new RangerPolicy();
+        RangerPolicyItem                  item      = new RangerPolicyItem();
+        Map<String, RangerPolicyResource> resources = new HashMap<>();
+
+        resources.put("database", new RangerPolicyResource(database));
+        resources.put("table", new RangerPolicyResource(table));
+        resources.put("column", new RangerPolicyResource(column));
+
+        item.setUsers(users);
+        item.setGroups(groups);
+        item.setRoles(roles);
+
+        ret.setId(id);
+        ret.setName("policy-" + id);
+        ret.setService("dev_hive");
+        ret.setServiceType("hive");
+        ret.setResources(resources);
+        ret.setPolicyItems(Collections.singletonList(item));
+        ret.setPolicyLabels(labels);
+
+        return ret;
+    }
+}
@@ -16,6 +16,8 @@
  */
 package org.apache.ranger.common;
 
+import org.apache.ranger.plugin.model.RangerPolicy;
+import org.apache.ranger.plugin.model.RangerPolicyDelta;
 import org.apache.ranger.plugin.model.RangerServiceDef;
 import org.apache.ranger.plugin.store.ServiceStore;
 import org.apache.ranger.plugin.util.ServicePolicies;
@@ -26,13 +28,18 @@
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -141,4 +148,68 @@ public void testResetCacheByServiceName() throws Exception {
         boolean reset = cache.resetCache(serviceName);
         assertTrue(reset);
     }
+
+    @Test
+    public void testIncrementalUpdateFromPolicyDeltas() throws Exception {
+        ServiceStore     store       = Mockito.mock(ServiceStore.class);
+        String           serviceName = "svc4";
+        Long             serviceId   = 400L;
+        RangerServiceDef serviceDef  = new RangerServiceDef();
+
+        serviceDef.setName("hive");
+
+        List<RangerPolicy> policies = new ArrayList<>();
+
+        policies.add(createPolicy(1L, "policy-1"));
+        policies.add(createPolicy(2L, "policy-2"));
+
+        ServicePolicies v1 = new ServicePolicies();
+        v1.setServiceName(serviceName);
+        v1.setServiceId(serviceId);
+        v1.setPolicyVersion(1L);
+        v1.setPolicies(policies);
+        v1.setServiceDef(serviceDef);
+
+        // only the updated policy is read from the database
+        ServicePolicies deltas = new ServicePolicies();
+        deltas.setServiceName(serviceName);
+        deltas.setServiceId(serviceId);
+        deltas.setPolicyVersion(2L);
+        deltas.setServiceDef(serviceDef);
+        deltas.setPolicyDeltas(Collections.singletonList(new RangerPolicyDelta(10L, RangerPolicyDelta.CHANGE_TYPE_POLICY_UPDATE, 2L, createPolicy(2L, "policy-2-updated"))));
+
+        when(store.getServicePolicyVersion(serviceName)).thenReturn(1L, 2L);
+        when(store.getServicePolicyDeltasOrPolicies(serviceName, -1L)).thenReturn(v1);
+        when(store.getServicePolicyDeltasOrPolicies(serviceName, 1L)).thenReturn(deltas);
+
+        RangerServicePoliciesCache cache = RangerServicePoliciesCache.getInstance();
+
+        assertEquals(Long.valueOf(1L), cache.getServicePolicies(serviceName, serviceId, -1L, false, store).getPolicyVersion());
+
+        RangerPolicySearchIndex searchIndex = cache.getPolicySearchIndex(serviceName);
+
+        assertEquals(Long.valueOf(1L), searchIndex.getPolicyVersion());
+
+        ServicePolicies ret = cache.getServicePolicies(serviceName, serviceId, -1L, false, store);
+
+        assertEquals(Long.valueOf(2L), ret.getPolicyVersion());
+        assertSame(searchIndex, cache.getPolicySearchIndex(serviceName), "search index must be updated with policy-deltas, instead of being rebuilt");
+        assertEquals(Long.valueOf(2L), searchIndex.getPolicyVersion());
+        assertEquals(2, searchIndex.getPolicyCount());
+        assertEquals(2, ret.getPolicies().size());
+        assertTrue(ret.getPolicies().stream().anyMatch(p -> "policy-2-updated".equals(p.getName())));
+        assertTrue(ret.getPolicies().stream().anyMatch(p -> "policy-1".equals(p.getName())));
+        verify(store, times(1)).getServicePolicyDeltasOrPolicies(serviceName, -1L);
+    }
+
+    private static RangerPolicy createPolicy(Long id, String name) {
+        RangerPolicy ret = new RangerPolicy();
+
+        ret.setId(id);
+        ret.setName(name);
+        ret.setService("svc4");
+        ret.setServiceType("hive");
+
+        return ret;
+    }
 }
@@ -30,10 +30,13 @@
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import javax.ws.rs.core.Response;
+
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import static org.apache.ranger.plugin.model.RangerServerHealth.RangerServerStatus.DOWN;
 import static org.apache.ranger.plugin.model.RangerServerHealth.RangerServerStatus.UP;
 
 @ExtendWith(MockitoExtension.class)
@@ -57,6 +60,18 @@ public void testHealthCheckStatusAPI() {
         Assertions.assertEquals(2, ((Map<?, ?>) rangerServerHealth.getDetails().get("components")).size(), "RangerHealth.getDetails('component')");
     }
 
+    @Test
+    public void testReadinessCheckAPI() {
+        String dbVersion = "23.2.0";
+        Mockito.when(xaBizUtil.getDBVersion()).thenReturn(dbVersion);
+        Mockito.when(rangerServerHealthUtil.getRangerServerReadiness(dbVersion)).thenReturn(RangerServerHealth.down().build(), createRangerServerHealth());
+        Response response = rangerHealthREST.getRangerServerReadiness();
+        Assertions.assertEquals(Response.Status.SERVICE_UNAVAILABLE.getStatusCode(), response.getStatus(), "not ready while caches are warming up");
+        Assertions.assertEquals(DOWN, ((RangerServerHealth) response.getEntity()).getStatus());
+        response = rangerHealthREST.getRangerServerReadiness();
+        Assertions.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus(), "ready");
+    }
+
     private RangerServerHealth createRangerServerHealth() {
         Map<String, Object> componentsMap = new HashMap<>();
         Map<String, Object> dbMap         = new LinkedHashMap<>();
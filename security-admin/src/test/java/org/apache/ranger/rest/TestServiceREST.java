@@ -22,8 +22,10 @@
 import org.apache.commons.lang3.StringUtils;
 import org.apache.ranger.admin.client.datatype.RESTResponse;
 import org.apache.ranger.biz.AssetMgr;
+import org.apache.ranger.biz.PolicyRefUpdater;
 import org.apache.ranger.biz.RangerBizUtil;
 import org.apache.ranger.biz.RangerPolicyAdmin;
+import org.apache.ranger.biz.RangerServiceVersionWatcher;
 import org.apache.ranger.biz.RoleDBStore;
 import org.apache.ranger.biz.SecurityZoneDBStore;
 import org.apache.ranger.biz.ServiceDBStore;
@@ -89,6 +91,7 @@
 import org.apache.ranger.plugin.util.GrantRevokeRequest;
 import org.apache.ranger.plugin.util.RangerPluginCapability;
 import org.apache.ranger.plugin.util.RangerPurgeResult;
+import org.apache.ranger.plugin.util.RangerServiceVersions;
 import org.apache.ranger.plugin.util.SearchFilter;
 import org.apache.ranger.plugin.util.ServicePolicies;
 import org.apache.ranger.security.context.RangerContextHolder;
@@ -119,6 +122,7 @@
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -132,6 +136,7 @@
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.AsyncResponse;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -180,6 +185,8 @@ public class TestServiceREST {
     @Mock
     RoleDBStore roleDBStore;
     @Mock
+    PolicyRefUpdater policyRefUpdater;
+    @Mock
     SecurityZoneDBStore zoneStore;
     @Mock
     TagDBStore tagStore;
@@ -241,6 +248,8 @@ public class TestServiceREST {
     RangerTransactionSynchronizationAdapter rangerTransactionSynchronizationAdapter;
     @Mock
     UserMgr           userMgrGrantor;
+    @Mock
+    RangerServiceVersionWatcher serviceVersionWatcher;
     private String capabilityVector;
 
     @BeforeEach
@@ -248,6 +257,8 @@ void reinforceSpringFieldInjection() {
         serviceREST.policyLabelsService = policyLabelsService;
         serviceREST.roleDBStore         = roleDBStore;
         serviceREST.guidUtil            = guidUtil;
+
+        serviceREST.serviceVersionWatcher = serviceVersionWatcher;
     }
 
     public void setup() {
@@ -4672,4 +4683,75 @@ public void testUpdateService_BlankNameWithIdInPayload() throws Exception {
                 "serviceDef Id mismatch or service name not provided",
                 true);
     }
+
+    @Test
+    public void testWaitForServiceChange_HeldByWatcher() {
+        HttpServletRequest request       = Mockito.mock(HttpServletRequest.class);
+        AsyncResponse      asyncResponse = Mockito.mock(AsyncResponse.class);
+        String             serviceName   = "HDFS_1";
+
+        Mockito.when(serviceUtil.isValidateHttpsAuthentication(serviceName, request)).thenReturn(true);
+        Mockito.when(serviceVersionWatcher.waitForChange(Mockito.eq(serviceName), Mockito.any(RangerServiceVersions.class), Mockito.anyLong(), Mockito.eq(asyncResponse))).thenReturn(true);
+
+        serviceREST.waitForServiceChange(serviceName, 5L, 3L, null, null, null, null, "plugin-1", request, asyncResponse);
+
+        ArgumentCaptor<RangerServiceVersions> versions = ArgumentCaptor.forClass(RangerServiceVersions.class);
+
+        // a missing timeout is passed as 0, which the watcher replaces with its max-timeout
+        Mockito.verify(serviceVersionWatcher).waitForChange(Mockito.eq(serviceName), versions.capture(), Mockito.eq(0L), Mockito.eq(asyncResponse));
+        Assertions.assertEquals(serviceName, versions.getValue().getServiceName());
+        Assertions.assertEquals(5L, versions.getValue().getPolicyVersion());
+        Assertions.assertEquals(3L, versions.getValue().getTagVersion());
+        Assertions.assertNull(versions.getValue().getRoleVersion());
+        Mockito.verify(asyncResponse, Mockito.never()).resume(Mockito.any(Throwable.class));
+    }
+
+    @Test
+    public void testWaitForServiceChange_TooManyWaiters() {
+        HttpServletRequest      request       = Mockito.mock(HttpServletRequest.class);
+        AsyncResponse           asyncResponse = Mockito.mock(AsyncResponse.class);
+        String                  serviceName   = "HDFS_1";
+        WebApplicationException unavailable   = new WebApplicationException(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+
+        Mockito.when(serviceUtil.isValidateHttpsAuthentication(serviceName, request)).thenReturn(true);
+        Mockito.when(serviceVersionWatcher.waitForChange(Mockito.eq(serviceName), Mockito.any(RangerServiceVersions.class), Mockito.anyLong(), Mockito.eq(asyncResponse))).thenReturn(false);
+        Mockito.when(restErrorUtil.createRESTException(Mockito.eq(HttpServletResponse.SC_SERVICE_UNAVAILABLE), Mockito.anyString(), Mockito.eq(false))).thenReturn(unavailable);
+
+        serviceREST.waitForServiceChange(serviceName, 5L, null, null, null, null, 30000L, "plugin-1", request, asyncResponse);
+
+        Mockito.verify(serviceVersionWatcher).waitForChange(Mockito.eq(serviceName), Mockito.any(RangerServiceVersions.class), Mockito.eq(30000L), Mockito.eq(asyncResponse));
+        Mockito.verify(asyncResponse).resume(unavailable);
+    }
+
+    @Test
+    public void testWaitForServiceChange_NotAuthenticated() {
+        HttpServletRequest      request       = Mockito.mock(HttpServletRequest.class);
+        AsyncResponse           asyncResponse = Mockito.mock(AsyncResponse.class);
+        String                  serviceName   = "HDFS_1";
+        WebApplicationException excp          = new WebApplicationException();
+
+        Mockito.when(serviceUtil.isValidateHttpsAuthentication(serviceName, request)).thenReturn(false);
+        Mockito.when(restErrorUtil.createRESTException(Mockito.anyInt(), Mockito.any(), Mockito.eq(true))).thenReturn(excp);
+
+        serviceREST.waitForServiceChange(serviceName, 5L, null, null, null, null, 30000L, "plugin-1", request, asyncResponse);
+
+        Mockito.verify(asyncResponse).resume(excp);
+        Mockito.verifyNoInteractions(serviceVersionWatcher);
+    }
+
+    @Test
+    public void testWaitForSecureServiceChange_InvalidService() throws Exception {
+        HttpServletRequest      request       = Mockito.mock(HttpServletRequest.class);
+        AsyncResponse           asyncResponse = Mockito.mock(AsyncResponse.class);
+        String                  serviceName   = "HDFS_1";
+        WebApplicationException excp          = new WebApplicationException();
+
+        Mockito.when(serviceUtil.isValidService(serviceName, request)).thenReturn(false);
+        Mockito.when(restErrorUtil.createRESTException(Mockito.anyInt(), Mockito.any(), Mockito.eq(true))).thenReturn(excp);
+
+        serviceREST.waitForSecureServiceChange(serviceName, 5L, null, null, null, null, 30000L, "plugin-1", request, asyncResponse);
+
+        Mockito.verify(asyncResponse).resume(excp);
+        Mockito.verifyNoInteractions(serviceVersionWatcher);
+    }
 }
@@ -38,18 +38,23 @@
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.ranger.service.RangerBaseModelService.OPERATION_CREATE_CONTEXT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -192,6 +197,49 @@ public void createOrDeleteXGroupUsers_schedulesCreateAndDelete() {
         }
     }
 
+    @Test
+    public void createOrDeleteXGroupUsers_appliesBatchWithSetBasedStatements() {
+        GroupUserInfo info1 = new GroupUserInfo();
+        GroupUserInfo info2 = new GroupUserInfo();
+        info1.setGroupName("group1");
+        info1.setAddUsers(new HashSet<>(Arrays.asList("u1", "u2")));
+        info1.setDelUsers(new HashSet<>(Arrays.asList("u3", "u4")));
+        info2.setGroupName("missingGroup");
+        info2.setAddUsers(new HashSet<>(Collections.singletonList("u1")));
+
+        Map<String, Long> userIds = new HashMap<>();
+        userIds.put("u1", 11L);
+        userIds.put("u2", 12L);
+        userIds.put("u3", 13L);
+        userIds.put("u4", 14L);
+        Map<Long, Set<Long>> groupUserIds = new HashMap<>();
+        groupUserIds.put(5L, new HashSet<>(Arrays.asList(12L, 13L)));
+
+        when(daoManager.getXXGroup()).thenReturn(xXGroupDao);
+        when(xXGroupDao.getIdsByGroupNames(Mockito.anyCollection())).thenReturn(Collections.singletonMap("group1", 5L));
+        when(daoManager.getXXUser()).thenReturn(xXUserDao);
+        when(xXUserDao.getIdsByUserNames(Mockito.anyCollection())).thenReturn(userIds);
+        when(daoManager.getXXGroupUser()).thenReturn(xXGroupUserDao);
+        when(xXGroupUserDao.findUserIdsByGroupIds(Mockito.anyCollection())).thenReturn(groupUserIds);
+        when(daoManager.getXXPortalUser()).thenReturn(xXPortalUserDao);
+        when(xXPortalUserDao.getById(Mockito.anyLong())).thenReturn(tUser);
+
+        ArgumentCaptor<List<XXGroupUser>> created = ArgumentCaptor.forClass(List.class);
+
+        assertEquals(1, xGroupUserService.createOrDeleteXGroupUsers(Arrays.asList(info1, info2)));
+
+        // one lookup each for groups, users and memberships; one insert batch and one delete statement
+        verify(xXGroupDao).getIdsByGroupNames(Mockito.anyCollection());
+        verify(xXUserDao).getIdsByUserNames(Mockito.anyCollection());
+        verify(xXGroupUserDao).findUserIdsByGroupIds(Mockito.anyCollection());
+        verify(xXGroupUserDao).deleteByGroupIdAndUserIds(5L, Collections.singletonList(13L));
+        verify(entityDao).batchCreate(created.capture());
+        assertEquals(1, created.getValue().size());
+        assertEquals(Long.valueOf(11L), created.getValue().get(0).getUserId());
+        assertEquals(Long.valueOf(5L), created.getValue().get(0).getParentGroupId());
+        assertEquals("group1", created.getValue().get(0).getName());
+    }
+
     private XXGroup createXXGroup() {
         XXGroup xXGroup = new XXGroup();
         Date    date    = new Date();